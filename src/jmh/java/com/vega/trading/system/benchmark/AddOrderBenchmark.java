@@ -0,0 +1,66 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Cost of TradingSystem.addOrder for a non-crossing order resting into a book of the given depth.
+ Each iteration rebuilds the book and times a batch of BATCH_SIZE additions, so the depth stays
+ as configured while measuring; the reported time is per batch. Matching runs inline (0 shards)
+ to time the book itself rather than the hand-off to a shard thread. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = AddOrderBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = AddOrderBenchmark.BATCH_SIZE)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class AddOrderBenchmark {
+
+  static final int BATCH_SIZE = 10_000;
+
+  @Param({"1000", "100000", "1000000"})
+  int depth;
+
+  private Order[] restingOrders;
+  private TradingSystem tradingSystem;
+  private Order[] batch;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void createOrders() {
+    restingOrders = BenchmarkOrders.restingOrders(depth, 1);
+  }
+
+  @Setup(Level.Iteration)
+  public void fillBook() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(0).build());
+    BenchmarkOrders.reset(restingOrders, 100);
+    BenchmarkOrders.addAll(tradingSystem, restingOrders);
+    batch = BenchmarkOrders.restingOrders(BATCH_SIZE, 2 + depth);
+    next = 0;
+  }
+
+  @TearDown(Level.Iteration)
+  public void stop() {
+    tradingSystem.shutdown();
+  }
+
+  @Benchmark
+  public void addOrder() {
+    tradingSystem.addOrder(batch[next++]);
+  }
+}
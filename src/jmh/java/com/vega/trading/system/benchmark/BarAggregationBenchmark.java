@@ -0,0 +1,50 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.marketdata.BarAggregator;
+import com.vega.trading.system.model.InstrumentRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Cost of recording one fill in the 1s/1m/5m bars of a symbol, against the system clock so bars
+ roll over as they would in production. Run with -prof gc to check that nothing is allocated. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class BarAggregationBenchmark {
+
+  private final BigDecimal[] prices = new BigDecimal[64];
+  private BarAggregator barAggregator;
+  private int instrumentId;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void createAggregator() {
+    InstrumentRegistry instrumentRegistry = new InstrumentRegistry();
+    barAggregator = new BarAggregator(instrumentRegistry, new long[] {1_000, 60_000, 300_000}, 60,
+        Clock.systemUTC());
+    instrumentId = instrumentRegistry.register(BenchmarkOrders.SYMBOL);
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = BigDecimal.valueOf(10_000 + i, 2);
+    }
+  }
+
+  @Benchmark
+  public void onTrade() {
+    barAggregator.onTrade(instrumentId, prices[next++ & (prices.length - 1)], 10);
+  }
+}
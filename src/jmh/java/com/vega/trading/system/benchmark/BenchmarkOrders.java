@@ -0,0 +1,68 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+
+/* Order fixtures shared by the benchmarks.
+ Bids rest between 50.00 and 59.99 and asks between 60.00 and 69.99, so resting orders never
+ cross. Prices and ids are created up front, keeping BigDecimal parsing and SecureRandom backed
+ UUID generation out of the measured code. */
+final class BenchmarkOrders {
+
+  static final String SYMBOL = "AAPL";
+  static final int PRICE_LEVELS = 1000;
+
+  private static final BigDecimal[] BID_PRICES = new BigDecimal[PRICE_LEVELS];
+  private static final BigDecimal[] ASK_PRICES = new BigDecimal[PRICE_LEVELS];
+
+  static {
+    for (int i = 0; i < PRICE_LEVELS; i++) {
+      BID_PRICES[i] = BigDecimal.valueOf(5000 + i, 2);
+      ASK_PRICES[i] = BigDecimal.valueOf(6000 + i, 2);
+    }
+  }
+
+  private BenchmarkOrders() {
+  }
+
+  static BigDecimal bidPrice(int level) {
+    return BID_PRICES[level];
+  }
+
+  static BigDecimal askPrice(int level) {
+    return ASK_PRICES[level];
+  }
+
+  // Non-crossing orders alternating between bids and asks at random levels
+  static Order[] restingOrders(int count, long seed) {
+    Random random = new Random(seed);
+    Order[] orders = new Order[count];
+    for (int i = 0; i < count; i++) {
+      int level = random.nextInt(PRICE_LEVELS);
+      UUID orderId = new UUID(seed, i);
+      orders[i] = i % 2 == 0
+          ? new Order(orderId, i, OrderType.BUY, BID_PRICES[level], 100, SYMBOL)
+          : new Order(orderId, i, OrderType.SELL, ASK_PRICES[level], 100, SYMBOL);
+    }
+    return orders;
+  }
+
+  // Method to make orders reusable after a previous iteration filled or cancelled them
+  static void reset(Order[] orders, int quantity) {
+    for (Order order : orders) {
+      order.setQuantity(quantity);
+      order.setOrderStatus(OrderStatus.PLACED);
+    }
+  }
+
+  static void addAll(TradingSystem tradingSystem, Order[] orders) {
+    for (Order order : orders) {
+      tradingSystem.addOrder(order);
+    }
+  }
+}
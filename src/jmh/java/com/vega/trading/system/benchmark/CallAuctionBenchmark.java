@@ -0,0 +1,108 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.AuctionResult;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.OrderMatcherService;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Matching cost of an opening flood of overlapping bids and asks: matching the book after every
+ arriving order (continuous) or resting them all and uncrossing the book once (call auction).
+ Bids and asks are spread over the same 100 prices, so most of the flood trades. The orders go
+ straight into the book, keeping the cost of addOrder, which is the same in both modes, out. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class CallAuctionBenchmark {
+
+  private static final int PRICES = 100;
+
+  @Param({"10000"})
+  int orders;
+
+  @Param({"true", "false"})
+  boolean auction;
+
+  private Order[] flood;
+  private TradingSystem tradingSystem;
+  private OrderMatcherService orderMatcherService;
+  private LimitOrderBook limitOrderBook;
+
+  @Setup(Level.Trial)
+  public void createFlood() {
+    Random random = new Random(1);
+    BigDecimal[] prices = new BigDecimal[PRICES];
+    for (int i = 0; i < PRICES; i++) {
+      prices[i] = BigDecimal.valueOf(9950 + i, 2);
+    }
+    flood = new Order[orders];
+    for (int i = 0; i < orders; i++) {
+      flood[i] = new Order(new UUID(1, i), i, i % 2 == 0 ? OrderType.BUY : OrderType.SELL,
+          prices[random.nextInt(PRICES)], 1 + random.nextInt(100), BenchmarkOrders.SYMBOL);
+    }
+  }
+
+  // Every invocation starts from an empty book and untouched orders
+  @Setup(Level.Invocation)
+  public void openMarket() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(0).build());
+    tradingSystem.financialInstrumentService.getFinancialInstruments().put(BenchmarkOrders.SYMBOL,
+        new FinancialInstrument(BenchmarkOrders.SYMBOL, BigDecimal.valueOf(100)));
+    orderMatcherService = tradingSystem.orderMatcherService;
+    limitOrderBook = tradingSystem.getLimitOrderBook(
+        tradingSystem.getInstrumentRegistry().register(BenchmarkOrders.SYMBOL));
+    Random random = new Random(2);
+    for (Order order : flood) {
+      order.setQuantity(1 + random.nextInt(100));
+      order.setOrderStatus(OrderStatus.PLACED);
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeMarket() {
+    tradingSystem.shutdown();
+  }
+
+  @Benchmark
+  public Object openingFlood() {
+    for (Order order : flood) {
+      limitOrderBook.add(order);
+      if (!auction) {
+        orderMatcherService.matchOrders(limitOrderBook);
+      }
+    }
+    if (!auction) {
+      return null;
+    }
+    AuctionResult auctionResult = orderMatcherService.computeEquilibrium(limitOrderBook,
+        BigDecimal.valueOf(100));
+    if (auctionResult.isCrossed()) {
+      orderMatcherService.uncross(limitOrderBook, auctionResult.getPrice());
+    }
+    return auctionResult;
+  }
+}
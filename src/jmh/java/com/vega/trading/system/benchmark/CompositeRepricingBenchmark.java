@@ -0,0 +1,76 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.model.CompositeFinancialInstrument;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.service.FinancialInstrumentService;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Cost of FinancialInstrumentService.updateCompositeFinancialInstruments after a trade in a symbol
+ held by every one of the given number of composites. Another composite set holding only
+ unrelated symbols is registered as well, which the reverse index should make free to skip.
+ With lazy pricing the trade only moves the shared underlying instrument, whatever the number of
+ composites, and readBasketAfterTrade shows the deferred cost paid by a reader of one basket. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class CompositeRepricingBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  int composites;
+
+  @Param({"false", "true"})
+  boolean lazy;
+
+  private final BigDecimal[] tradePrices = {BigDecimal.valueOf(10150, 2),
+      BigDecimal.valueOf(9975, 2)};
+  private FinancialInstrumentService financialInstrumentService;
+  private CompositeFinancialInstrument firstBasket;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void registerComposites() {
+    financialInstrumentService = new FinancialInstrumentService();
+    financialInstrumentService.setLazyCompositePricing(lazy);
+    FinancialInstrument apple = new FinancialInstrument(BenchmarkOrders.SYMBOL,
+        BigDecimal.valueOf(100));
+    FinancialInstrument microsoft = new FinancialInstrument("MSFT", BigDecimal.valueOf(300));
+    FinancialInstrument exxon = new FinancialInstrument("XOM", BigDecimal.valueOf(110));
+    for (int i = 0; i < composites; i++) {
+      financialInstrumentService.registerCompositeFinancialInstrument(
+          new CompositeFinancialInstrument("TECH" + i, Arrays.asList(apple, microsoft),
+              Arrays.asList(BigDecimal.valueOf(2), BigDecimal.ONE)));
+      financialInstrumentService.registerCompositeFinancialInstrument(
+          new CompositeFinancialInstrument("OTHER" + i, Arrays.asList(microsoft, exxon)));
+    }
+    firstBasket = financialInstrumentService.getCompositeFinancialInstruments().get("TECH0");
+  }
+
+  @Benchmark
+  public void updateCompositeFinancialInstruments() {
+    financialInstrumentService.updateCompositeFinancialInstruments(BenchmarkOrders.SYMBOL,
+        tradePrices[next++ & 1]);
+  }
+
+  @Benchmark
+  public BigDecimal readBasketAfterTrade() {
+    updateCompositeFinancialInstruments();
+    return firstBasket.getMarketPrice();
+  }
+}
@@ -0,0 +1,94 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.PriceMode;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.OrderMatcherService;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Latency of OrderMatcherService.matchOrders for an incoming order that crosses the spread (and
+ trades one lot against the best ask) or rests without trading, in both price modes.
+ The resting asks hold enough quantity to never be exhausted, so the book shape is stable;
+ a non-crossing order is taken out again after matching. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class MatchOrdersBenchmark {
+
+  private static final int DEPTH = 1000;
+  private static final int INCOMING_ORDERS = 1024;
+
+  @Param({"true", "false"})
+  boolean crossing;
+
+  @Param({"DECIMAL", "FIXED_POINT"})
+  PriceMode priceMode;
+
+  private TradingSystem tradingSystem;
+  private OrderMatcherService orderMatcherService;
+  private LimitOrderBook limitOrderBook;
+  private Order[] incomingOrders;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void fillBook() {
+    tradingSystem = new TradingSystem(
+        TradingSystemConfig.builder().matchingShards(0).priceMode(priceMode).build());
+    tradingSystem.financialInstrumentService.getFinancialInstruments().put(BenchmarkOrders.SYMBOL,
+        new FinancialInstrument(BenchmarkOrders.SYMBOL, BigDecimal.valueOf(60)));
+    Order[] restingOrders = BenchmarkOrders.restingOrders(DEPTH, 1);
+    BenchmarkOrders.reset(restingOrders, Integer.MAX_VALUE);
+    BenchmarkOrders.addAll(tradingSystem, restingOrders);
+    orderMatcherService = tradingSystem.orderMatcherService;
+    limitOrderBook = tradingSystem.getLimitOrderBook(BenchmarkOrders.SYMBOL);
+
+    BigDecimal price = crossing
+        ? BenchmarkOrders.askPrice(BenchmarkOrders.PRICE_LEVELS - 1)
+        : BenchmarkOrders.bidPrice(0);
+    incomingOrders = new Order[INCOMING_ORDERS];
+    for (int i = 0; i < INCOMING_ORDERS; i++) {
+      incomingOrders[i] = new Order(new UUID(0, i), i, OrderType.BUY, price, 1,
+          BenchmarkOrders.SYMBOL);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    tradingSystem.shutdown();
+  }
+
+  @Benchmark
+  public void matchIncomingOrder() {
+    Order incoming = incomingOrders[next++ & (INCOMING_ORDERS - 1)];
+    incoming.setQuantity(1);
+    incoming.setOrderStatus(OrderStatus.PLACED);
+    limitOrderBook.add(incoming);
+    orderMatcherService.matchOrders(limitOrderBook);
+    if (!crossing) {
+      limitOrderBook.remove(incoming);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.UuidOrderIndex;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Heap bytes per resting order of the order id index and the price level queues.
+ "before" is the former layout: a ConcurrentHashMap<UUID, Order> index and an ArrayDeque per price
+ level; "after" is the UuidOrderIndex and the intrusive level queues of LimitOrderBook. The orders
+ themselves are measured separately and kept alive throughout, so only the structures differ.
+ Run after mvn -P benchmark package:
+   java -cp target/benchmarks.jar com.vega.trading.system.benchmark.OrderFootprintReport 1000000 */
+public final class OrderFootprintReport {
+
+  private static Object retained; // Keeps the measured structure reachable
+
+  private OrderFootprintReport() {
+  }
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    long empty = usedHeap();
+    Order[] orders = BenchmarkOrders.restingOrders(count, 42);
+    long withOrders = usedHeap();
+    // Includes the three level links every order now carries for the intrusive queues
+    report("Order objects with their UUID (prices shared)", withOrders - empty, count);
+
+    retained = legacyLayout(orders);
+    long before = usedHeap() - withOrders;
+    retained = null;
+    usedHeap();
+    retained = currentLayout(orders);
+    long after = usedHeap() - withOrders;
+    report("before: ConcurrentHashMap<UUID, Order> + ArrayDeque levels", before, count);
+    report("after:  UuidOrderIndex + intrusive levels", after, count);
+    System.out.printf("saved %.1f bytes per resting order, less %d bytes of level links per order%n",
+        (double) (before - after) / count, 3 * referenceSize());
+  }
+
+  private static Object[] legacyLayout(Order[] orders) {
+    Map<UUID, Order> index = new ConcurrentHashMap<>();
+    Map<Object, ArrayDeque<Order>> levels = new HashMap<>();
+    for (Order order : orders) {
+      index.put(order.getOrderId(), order);
+      levels.computeIfAbsent(order.getPrice(), price -> new ArrayDeque<>()).addLast(order);
+    }
+    return new Object[] {index, levels};
+  }
+
+  private static Object[] currentLayout(Order[] orders) {
+    UuidOrderIndex index = new UuidOrderIndex();
+    LimitOrderBook limitOrderBook = new LimitOrderBook(BenchmarkOrders.SYMBOL);
+    for (Order order : orders) {
+      index.put(order.getOrderId(), order);
+      limitOrderBook.add(order);
+    }
+    return new Object[] {index, limitOrderBook};
+  }
+
+  private static void report(String layout, long bytes, int count) {
+    System.out.printf("%-60s %8.1f bytes/order%n", layout, (double) bytes / count);
+  }
+
+  // Compressed references are the default below 32 GB of heap
+  private static int referenceSize() {
+    return Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024 ? 4 : 8;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+}
@@ -0,0 +1,69 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.risk.LimitRiskCheck;
+import com.vega.trading.system.risk.RiskLimits;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Latency distribution of LimitRiskCheck.check with every limit enforced, followed by the cancel
+ handing the reservation back so the exposure stays flat. Run with -t to check from several
+ threads at once: each thread trades as its own trader unless sharedTrader puts them all on the
+ same counters, which is the contended case. Sample mode reports the p99 per operation. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class PreTradeRiskBenchmark {
+
+  @Param({"false", "true"})
+  boolean sharedTrader;
+
+  private final BigDecimal referencePrice = BigDecimal.valueOf(100);
+  private final AtomicInteger traderIds = new AtomicInteger();
+  private LimitRiskCheck riskCheck;
+
+  @Setup(Level.Trial)
+  public void createRiskCheck() {
+    riskCheck = new LimitRiskCheck(RiskLimits.builder().maxOrderQuantity(1_000)
+        .maxOrderNotional(BigDecimal.valueOf(1_000_000))
+        .maxOpenNotional(BigDecimal.valueOf(1_000_000_000)).maxPosition(1_000_000)
+        .priceCollarPercent(BigDecimal.TEN).build());
+  }
+
+  @State(Scope.Thread)
+  public static class TraderOrder {
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void createOrder(PreTradeRiskBenchmark benchmark) {
+      int traderId = benchmark.sharedTrader ? 0 : benchmark.traderIds.incrementAndGet();
+      order = new Order(traderId, OrderType.BUY, BigDecimal.valueOf(10125, 2), 10,
+          BenchmarkOrders.SYMBOL);
+    }
+  }
+
+  @Benchmark
+  public String checkAndRelease(TraderOrder traderOrder) {
+    Order order = traderOrder.order;
+    String rejection = riskCheck.check(order, referencePrice);
+    riskCheck.onCancel(order, order.getQuantity());
+    return rejection;
+  }
+}
@@ -0,0 +1,153 @@
+package com.vega.trading.system.benchmark;
+
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.journal.TradeHistory;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.TradeRecord;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Appending to and querying a trade history of a million trades, 64 symbols and 1000 traders
+ interleaved over 10 seconds. The symbol query covers a tenth of that time, so the time index
+ skips most blocks; the trader query covers everything and scans the trader columns of every
+ block. appendBatch times 100,000 appends into a fresh history per iteration. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class TradeHistoryBenchmark {
+
+  private static final int TRADES = 1_000_000;
+  private static final int SYMBOLS = 64;
+  private static final int TRADES_PER_MILLI = 100;
+  private static final long START_MILLIS = 1_704_186_000_000L;
+
+  private final String[] symbols = new String[SYMBOLS];
+  private final int[] instrumentIds = new int[SYMBOLS];
+  private final Order[] buyOrders = new Order[SYMBOLS];
+  private final Order[] sellOrders = new Order[1000];
+  private final BigDecimal price = BigDecimal.valueOf(10_025, 2);
+  private Path directory;
+  private TradeHistory tradeHistory;
+  private Path appendDirectory;
+  private TradeHistory appendHistory;
+
+  @Setup(Level.Trial)
+  public void fillHistory() throws IOException {
+    InstrumentRegistry instrumentRegistry = new InstrumentRegistry();
+    for (int i = 0; i < SYMBOLS; i++) {
+      symbols[i] = "S" + i;
+      instrumentIds[i] = instrumentRegistry.register(symbols[i]);
+      buyOrders[i] = new Order(1_000, OrderType.BUY, price, 1, symbols[i]);
+    }
+    for (int i = 0; i < sellOrders.length; i++) {
+      sellOrders[i] = new Order(i, OrderType.SELL, price, 1, BenchmarkOrders.SYMBOL);
+    }
+    directory = Files.createTempDirectory("trade-history");
+    tradeHistory = TradeHistory.open(directory, TRADES, new StepClock());
+    append(tradeHistory, TRADES);
+  }
+
+  @Setup(Level.Iteration)
+  public void createAppendHistory() throws IOException {
+    appendDirectory = Files.createTempDirectory("trade-history-append");
+    appendHistory = TradeHistory.open(appendDirectory, TRADES, new StepClock());
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteAppendHistory() throws IOException {
+    delete(appendDirectory);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteHistory() throws IOException {
+    delete(directory);
+  }
+
+  private void append(TradeHistory history, int count) {
+    for (int i = 0; i < count; i++) {
+      int symbol = i % SYMBOLS;
+      history.append(instrumentIds[symbol], buyOrders[symbol], sellOrders[i % sellOrders.length],
+          price, 1);
+    }
+  }
+
+  private static void delete(Path path) throws IOException {
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10, batchSize = 100_000)
+  @Warmup(iterations = 5, batchSize = 100_000)
+  public void appendBatch() {
+    append(appendHistory, 1);
+  }
+
+  @Benchmark
+  public List<TradeRecord> findSymbolTrades() {
+    long tenth = TRADES / TRADES_PER_MILLI / 10;
+    return tradeHistory.findTrades(symbols[7], START_MILLIS + tenth, START_MILLIS + 2 * tenth);
+  }
+
+  @Benchmark
+  public List<TradeRecord> findTraderTrades() {
+    return tradeHistory.findTraderTrades(42, START_MILLIS, Long.MAX_VALUE);
+  }
+
+  // Clock moving a millisecond every TRADES_PER_MILLI readings
+  private static final class StepClock extends Clock {
+
+    private long readings;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long millis() {
+      return START_MILLIS + readings++ / TRADES_PER_MILLI;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis());
+    }
+  }
+}
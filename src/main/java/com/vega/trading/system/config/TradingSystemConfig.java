@@ -0,0 +1,140 @@
+package com.vega.trading.system.config;
+
+import com.vega.trading.system.enumeration.FsyncPolicy;
+import com.vega.trading.system.enumeration.PriceMode;
+import com.vega.trading.system.journal.ExecutionEventSink;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.risk.PreTradeRiskCheck;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalTime;
+import lombok.Builder;
+import lombok.Getter;
+
+/* Construction time settings of a TradingSystem.
+ Use TradingSystemConfig.builder() and override only what differs from the defaults. */
+@Getter
+@Builder
+public class TradingSystemConfig {
+
+  // Number of single threaded matching loops; symbols are hashed onto them.
+  // 0 matches on the calling thread instead, which keeps execution fully deterministic.
+  @Builder.Default
+  private final int matchingShards = Runtime.getRuntime().availableProcessors();
+
+  // Capacity of each shard's inbound queue; submitters block once it is full
+  @Builder.Default
+  private final int shardQueueCapacity = 4096;
+
+  // FIXED_POINT keeps book prices as long ticks of the instrument's tick size
+  @Builder.Default
+  private final PriceMode priceMode = PriceMode.DECIMAL;
+
+  // Tick size for symbols whose FinancialInstrument does not define one
+  @Builder.Default
+  private final BigDecimal defaultTickSize = new BigDecimal("0.01");
+
+  // Interns the symbols of the system into instrument ids; null gives the system a registry of its
+  // own. Only orders, instruments and auctions register symbols, lookups and cancels do not.
+  private final InstrumentRegistry instrumentRegistry;
+
+  // Receives trades and price updates from the background execution journal; null disables it
+  private final ExecutionEventSink executionEventSink;
+
+  // Number of preallocated event slots of the journal ring buffer, a power of two
+  @Builder.Default
+  private final int executionJournalCapacity = 8192;
+
+  // Directory of the command journal and snapshots; null disables journaling and recovery
+  private final Path journalDirectory;
+
+  // When appended commands are forced to disk, see FsyncPolicy
+  @Builder.Default
+  private final FsyncPolicy fsyncPolicy = FsyncPolicy.EVERY_BATCH;
+
+  // Period of the INTERVAL fsync policy
+  @Builder.Default
+  private final long fsyncIntervalMillis = 10;
+
+  // Size in bytes of each memory-mapped journal segment
+  @Builder.Default
+  private final int journalSegmentSize = 64 * 1024 * 1024;
+
+  // Period of automatic book snapshots; 0 only snapshots when TradingSystem.snapshot() is called
+  @Builder.Default
+  private final long snapshotIntervalMillis = 0;
+
+  // Directory of the memory-mapped columnar history of every fill, one set of files per day;
+  // null disables it
+  private final Path tradeHistoryDirectory;
+
+  // Trades per trade history file; a day with more trades continues in further files
+  @Builder.Default
+  private final int tradeHistoryFileCapacity = 1 << 20;
+
+  // How long a composite order may wait for liquidity on all legs before it is killed;
+  // 0 executes it all-or-none immediately (fill-or-kill)
+  @Builder.Default
+  private final long basketFillWindowMillis = 0;
+
+  // Number of preallocated orders of the low-garbage mode, handed out by TradingSystem.newOrder()
+  // with sequence ids and recycled once executed or cancelled; 0 disables the mode.
+  // Sequenced orders are not journaled, so the mode cannot be combined with a journal directory.
+  @Builder.Default
+  private final int orderPoolCapacity = 0;
+
+  // Latency histograms and counters of the hot path operations, see TradingSystem.getMetrics()
+  @Builder.Default
+  private final boolean metricsEnabled = true;
+
+  // Composite instrument prices are recomputed when read instead of after every trade in one of
+  // their underlyings; composite price updates are then not journaled
+  @Builder.Default
+  private final boolean lazyCompositePricing = false;
+
+  // Incoming orders sweep the opposite side level by level, each fill trading at the resting
+  // price. Market orders then never rest: they are limited to marketProtectionPercent around the
+  // last trade price and what cannot fill immediately is cancelled. When off, unpriced orders
+  // rest ahead of priced ones and trade at the instrument's last price.
+  @Builder.Default
+  private final boolean sweepMatching = false;
+
+  @Builder.Default
+  private final BigDecimal marketProtectionPercent = new BigDecimal("5");
+
+  // Time source of DAY and GTD expiries, replaceable by a simulated clock
+  @Builder.Default
+  private final Clock clock = Clock.systemUTC();
+
+  // Time DAY orders expire at, in the time zone of the clock
+  @Builder.Default
+  private final LocalTime sessionCloseTime = LocalTime.of(16, 0);
+
+  // Tick of the expiry wheel: orders expire at most this late
+  @Builder.Default
+  private final long expiryResolutionMillis = 10;
+
+  // Background thread advancing the expiry wheel every tick; when disabled,
+  // TradingSystem.expireOrders() must be called instead, e.g. after moving a simulated clock
+  @Builder.Default
+  private final boolean expiryTimerEnabled = true;
+
+  // Intervals of the OHLCV/VWAP bars of every traded symbol and registered composite, see
+  // TradingSystem.getBarAggregator(), e.g. {1_000, 60_000, 300_000}; empty, the default, disables
+  // the bars and keeps their cost off the fills
+  @Builder.Default
+  private final long[] barIntervalsMillis = {};
+
+  // Bars kept per symbol and interval
+  @Builder.Default
+  private final int barHistory = 60;
+
+  // Pre-trade risk stage every order passes before it is accepted, e.g. a LimitRiskCheck;
+  // null disables it. Orders replayed from the journal are not checked again.
+  private final PreTradeRiskCheck preTradeRiskCheck;
+
+  public static TradingSystemConfig defaults() {
+    return TradingSystemConfig.builder().build();
+  }
+}
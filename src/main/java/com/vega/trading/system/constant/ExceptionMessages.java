@@ -7,5 +7,64 @@ public class ExceptionMessages {
   public static final String INVALID_ORDER = "Invalid order: Symbol cannot be empty.";
 
   public static final String MAX_UNDERLYING_INSTRUMENTS_EXCEPTION = "Cannot add more than 3 underlying instruments.";
+
+  public static final String INVALID_COMPOSITE_WEIGHTS = "Invalid composite: One weight is required per underlying instrument.";
   public static final String ORDER_NOT_FOUND = "Order not found for cancellation: {}";
+  public static final String DUPLICATE_ORDER = "Order already exists in the order book: {}";
+
+  public static final String INVALID_TICK_SIZE = "Invalid tick size: Must be a positive number.";
+
+  public static final String INVALID_TICK_PRICE = "Invalid price: Not a multiple of the tick size: ";
+
+  public static final String JOURNAL_NOT_CONFIGURED = "Cannot snapshot: No journal directory is configured.";
+
+  public static final String DUPLICATE_ORDER_ID = "Invalid order: Order ID already in use.";
+
+  public static final String UNKNOWN_ORDER = "Order not found.";
+
+  public static final String ORDER_NOT_CANCELLABLE = "Order cannot be cancelled: Already executed or cancelled.";
+
+  public static final String INVALID_BASKET_LEG = "Invalid composite order: Every leg must be a buy or sell order with a symbol and a positive quantity.";
+
+  public static final String BASKET_NOT_FILLED = "Composite order killed: Not every leg could be filled.";
+
+  public static final String INVALID_TRIGGER = "Invalid order: A trigger price requires a trigger condition.";
+
+  public static final String INVALID_SUBSCRIPTION = "Invalid market data subscription: A listener and a positive queue capacity are required.";
+
+  public static final String ORDER_POOL_NOT_CONFIGURED = "Low-garbage mode is disabled: Configure an order pool capacity to use sequenced orders.";
+
+  public static final String ORDER_POOL_WITH_JOURNAL = "Low-garbage mode cannot be combined with the command journal.";
+
+  public static final String SEQUENCED_ORDER_IN_BATCH = "Invalid order: Sequenced orders must be added one by one.";
+
+  public static final String INVALID_TIME_IN_FORCE = "Invalid order: GTD requires an expire time, and IOC or FOK orders cannot wait for a trigger.";
+
+  public static final String SEQUENCED_ORDER_TIME_IN_FORCE = "Invalid order: Sequenced orders are good-till-cancelled.";
+
+  public static final String NO_MARKET_PRICE = "Invalid order: An order without a price needs a market price of its instrument to trade at.";
+
+  public static final String INVALID_PROTECTION_BAND = "Invalid configuration: The market protection percent must be zero or positive and below 100.";
+
+  public static final String RISK_ORDER_QUANTITY = "Order rejected by risk check: Quantity above the maximum order quantity.";
+
+  public static final String RISK_ORDER_NOTIONAL = "Order rejected by risk check: Notional above the maximum order notional.";
+
+  public static final String RISK_OPEN_NOTIONAL = "Order rejected by risk check: Open notional of the trader would exceed its limit.";
+
+  public static final String RISK_POSITION = "Order rejected by risk check: Position of the trader in the symbol could exceed its limit.";
+
+  public static final String RISK_PRICE_COLLAR = "Order rejected by risk check: Price outside the collar around the market price.";
+
+  public static final String RISK_NO_REFERENCE_PRICE = "Order rejected by risk check: No price to value a market order at.";
+
+  public static final String INVALID_GATEWAY_SYMBOL = "Invalid symbol: The gateway protocol carries up to 8 ASCII characters: ";
+
+  public static final String GATEWAY_ALREADY_STARTED = "The order gateway is already started.";
+
+  public static final String INVALID_BAR_CONFIGURATION = "Invalid configuration: Bar intervals must be positive and at least one bar must be kept.";
+
+  public static final String UNKNOWN_BAR_INTERVAL = "Unknown bar interval: Bars are only kept for the configured intervals, not ";
+
+  public static final String ORDER_ID_MISMATCH = "Invalid order index entry: The key must be the ID of the order.";
 }
@@ -0,0 +1,9 @@
+package com.vega.trading.system.enumeration;
+
+public enum CommandType {
+  ADD_ORDER,
+  CANCEL_ORDER,
+  TRADE,
+  AUCTION_START,
+  UNCROSS
+}
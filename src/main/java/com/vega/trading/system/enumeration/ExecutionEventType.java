@@ -0,0 +1,8 @@
+package com.vega.trading.system.enumeration;
+
+public enum ExecutionEventType {
+  TRADE,
+  PRICE_UPDATE,
+  COMPOSITE_PRICE_UPDATE,
+  ORDER_CANCELLED
+}
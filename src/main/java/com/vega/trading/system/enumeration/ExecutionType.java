@@ -0,0 +1,13 @@
+package com.vega.trading.system.enumeration;
+
+// Kind of an execution report sent back by the order entry gateway
+public enum ExecutionType {
+  // The order was accepted
+  NEW,
+  // The order traded; a report per fill
+  TRADE,
+  // The open quantity left the book without trading: cancelled, expired or not allowed to rest
+  CANCELLED,
+  // The request was refused, see the reason code
+  REJECTED
+}
@@ -0,0 +1,10 @@
+package com.vega.trading.system.enumeration;
+
+public enum FsyncPolicy {
+  // Leave writing the mapped journal to disk up to the operating system
+  NEVER,
+  // Force as soon as new records are present; one force covers every record appended meanwhile
+  EVERY_BATCH,
+  // Force at a fixed interval
+  INTERVAL
+}
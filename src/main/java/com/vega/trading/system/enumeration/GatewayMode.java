@@ -0,0 +1,10 @@
+package com.vega.trading.system.enumeration;
+
+// How the order entry gateway serves its connections
+public enum GatewayMode {
+  // One selector thread multiplexes every connection over non-blocking channels
+  EVENT_LOOP,
+  // Each connection gets its own thread doing blocking reads and writes: a virtual thread when the
+  // JDK provides them, a platform thread otherwise
+  THREAD_PER_CONNECTION
+}
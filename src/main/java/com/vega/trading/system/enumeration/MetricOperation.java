@@ -0,0 +1,10 @@
+package com.vega.trading.system.enumeration;
+
+// Hot path operations timed by the trading system metrics
+public enum MetricOperation {
+  ADD_ORDER,
+  MATCH_ORDERS,
+  EXECUTE_TRADE,
+  CANCEL_ORDER,
+  RISK_CHECK
+}
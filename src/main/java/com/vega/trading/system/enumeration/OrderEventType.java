@@ -0,0 +1,8 @@
+package com.vega.trading.system.enumeration;
+
+// Kinds of recorded order flow events replayed by the harness
+public enum OrderEventType {
+  ADD,
+  CANCEL,
+  BASKET
+}
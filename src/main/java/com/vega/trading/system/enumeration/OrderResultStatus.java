@@ -0,0 +1,10 @@
+package com.vega.trading.system.enumeration;
+
+public enum OrderResultStatus {
+  // Order entered the book and was matched; see the filled and remaining quantities
+  ACCEPTED,
+  // Order was not taken, see the reason
+  REJECTED,
+  // Order was removed from the book by a cancel
+  CANCELLED
+}
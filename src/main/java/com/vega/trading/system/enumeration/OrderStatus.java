@@ -4,5 +4,7 @@ public enum OrderStatus {
   PLACED,
   PARTIALLY_EXECUTED,
   CANCELLED,
-  EXECUTED
+  EXECUTED,
+  TRIGGER_PENDING, // Good-till-trigger order waiting for its trigger price
+  EXPIRED // DAY or GTD order taken out of the book at its expire time
 }
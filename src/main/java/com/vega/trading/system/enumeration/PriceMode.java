@@ -0,0 +1,6 @@
+package com.vega.trading.system.enumeration;
+
+public enum PriceMode {
+  DECIMAL,
+  FIXED_POINT
+}
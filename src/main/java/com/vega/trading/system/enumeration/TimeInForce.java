@@ -0,0 +1,14 @@
+package com.vega.trading.system.enumeration;
+
+public enum TimeInForce {
+  // Good till cancelled: rests until filled or cancelled
+  GTC,
+  // Expires at the session close of the day it was added
+  DAY,
+  // Good till date: expires at the order's expire time
+  GTD,
+  // Immediate or cancel: trades what it can on arrival, the remainder is cancelled
+  IOC,
+  // Fill or kill: trades its whole quantity on arrival or nothing at all
+  FOK
+}
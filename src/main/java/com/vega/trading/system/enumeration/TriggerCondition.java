@@ -0,0 +1,8 @@
+package com.vega.trading.system.enumeration;
+
+public enum TriggerCondition {
+  // Released once the market price rises to the trigger price or above
+  AT_OR_ABOVE,
+  // Released once the market price falls to the trigger price or below
+  AT_OR_BELOW
+}
@@ -0,0 +1,81 @@
+package com.vega.trading.system.gateway;
+
+import com.vega.trading.system.enumeration.ExecutionType;
+import com.vega.trading.system.model.Order;
+import java.util.ArrayList;
+import java.util.List;
+
+/* An order entered through the gateway, linking the engine order to its client order id.
+ Fills and cancels come from the execution journal thread and may overtake the acknowledgement
+ written by the thread that submitted the order; they are held back until it is out, so a client
+ always sees NEW first. Guarded by the instance. */
+final class GatewayOrder {
+
+  private static final ExecutionType[] EXECUTION_TYPES = ExecutionType.values();
+
+  final GatewaySession session;
+  final long clientOrderId;
+  final Order order;
+  private int quantity;
+  private int leavesQuantity;
+  private int replacedExecuted; // Executed by the orders this one replaced through amends
+  private boolean acknowledged;
+  private List<long[]> heldReports; // executionType, lastQuantity, lastPrice, leavesQuantity
+
+  GatewayOrder(GatewaySession session, long clientOrderId, Order order) {
+    this.session = session;
+    this.clientOrderId = clientOrderId;
+    this.order = order;
+    this.quantity = order.getQuantity();
+    this.leavesQuantity = quantity;
+  }
+
+  // Method to size the replacement of an amend before it is entered: the amended total less what
+  // the replaced orders executed. Returns false when nothing is left to enter.
+  synchronized boolean sizeReplacement(int replacedExecuted) {
+    int remaining = quantity - replacedExecuted;
+    if (remaining <= 0) {
+      return false;
+    }
+    this.replacedExecuted = replacedExecuted;
+    order.setQuantity(remaining);
+    quantity = remaining;
+    leavesQuantity = remaining;
+    return true;
+  }
+
+  // Quantity executed by this order and the ones it replaced, once it has left its book
+  synchronized int executedQuantity() {
+    return replacedExecuted + quantity - order.getQuantity();
+  }
+
+  // Method to send the acknowledgement, then the reports that overtook it
+  synchronized void acknowledge() {
+    acknowledged = true;
+    session.report(clientOrderId, ExecutionType.NEW, GatewayProtocol.REASON_NONE, 0,
+        GatewayProtocol.toPrice(order.getPrice()), quantity);
+    if (heldReports != null) {
+      for (long[] heldReport : heldReports) {
+        session.report(clientOrderId, EXECUTION_TYPES[(int) heldReport[0]],
+            GatewayProtocol.REASON_NONE, (int) heldReport[1], heldReport[2], (int) heldReport[3]);
+      }
+      heldReports = null;
+    }
+  }
+
+  // Method to report a fill or cancel; returns whether the order is done
+  synchronized boolean onExecution(ExecutionType executionType, int lastQuantity, long lastPrice) {
+    leavesQuantity = executionType == ExecutionType.TRADE ? leavesQuantity - lastQuantity : 0;
+    if (acknowledged) {
+      session.report(clientOrderId, executionType, GatewayProtocol.REASON_NONE, lastQuantity,
+          lastPrice, leavesQuantity);
+    } else {
+      if (heldReports == null) {
+        heldReports = new ArrayList<>(2);
+      }
+      heldReports.add(new long[] {executionType.ordinal(), lastQuantity, lastPrice,
+          leavesQuantity});
+    }
+    return leavesQuantity == 0;
+  }
+}
@@ -0,0 +1,171 @@
+package com.vega.trading.system.gateway;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.ExecutionType;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/* Fixed-layout binary protocol of the order entry gateway.
+ Every message starts with a type byte that fixes its length, so a message is decoded in place
+ with absolute reads and no framing header. All fields are big endian. A price is a long in units
+ of 10^-PRICE_SCALE, NO_PRICE for a market order. A symbol is up to 8 ASCII characters, left
+ aligned and zero padded into a long.
+
+ NEW_ORDER (43):  type(1) clientOrderId(8) traderId(4) side(1, 'B' or 'S') timeInForce(1)
+                  symbol(8) price(8) quantity(4) expireTimeMillis(8)
+ CANCEL (9):      type(1) clientOrderId(8)
+ AMEND (29):      type(1) origClientOrderId(8) clientOrderId(8) price(8) quantity(4),
+                  a cancel/replace: the new order loses the time priority of the original. The
+                  quantity is the amended total, the new order only gets what the original has
+                  not executed
+ EXECUTION_REPORT (27), sent back:
+                  type(1) clientOrderId(8) executionType(1) reason(1) lastQuantity(4) lastPrice(8)
+                  leavesQuantity(4) */
+public final class GatewayProtocol {
+
+  public static final byte NEW_ORDER = 'N';
+  public static final byte CANCEL = 'C';
+  public static final byte AMEND = 'A';
+  public static final byte EXECUTION_REPORT = 'E';
+
+  public static final int NEW_ORDER_LENGTH = 43;
+  public static final int CANCEL_LENGTH = 9;
+  public static final int AMEND_LENGTH = 29;
+  public static final int EXECUTION_REPORT_LENGTH = 27;
+
+  public static final byte BUY = 'B';
+  public static final byte SELL = 'S';
+
+  public static final int PRICE_SCALE = 4;
+  public static final long NO_PRICE = Long.MIN_VALUE;
+  public static final int MAX_SYMBOL_LENGTH = 8;
+
+  // Reason codes of REJECTED reports
+  public static final byte REASON_NONE = 0;
+  public static final byte REASON_INVALID_MESSAGE = 1;
+  public static final byte REASON_ORDER_REJECTED = 2; // Refused by validation or the risk check
+  public static final byte REASON_UNKNOWN_ORDER = 3;
+  public static final byte REASON_DUPLICATE_CLIENT_ORDER_ID = 4;
+  public static final byte REASON_TOO_LATE = 5; // Amend of an order already filled or cancelled
+
+  private static final ExecutionType[] EXECUTION_TYPES = ExecutionType.values();
+
+  private GatewayProtocol() {
+  }
+
+  // Length of a message of the given type sent to the gateway, -1 for an unknown type
+  static int inboundLength(byte type) {
+    switch (type) {
+      case NEW_ORDER:
+        return NEW_ORDER_LENGTH;
+      case CANCEL:
+        return CANCEL_LENGTH;
+      case AMEND:
+        return AMEND_LENGTH;
+      default:
+        return -1;
+    }
+  }
+
+  public static void putNewOrder(ByteBuffer buffer, long clientOrderId, int traderId,
+      OrderType side, TimeInForce timeInForce, String symbol, long price, int quantity,
+      long expireTimeMillis) {
+    buffer.put(NEW_ORDER);
+    buffer.putLong(clientOrderId);
+    buffer.putInt(traderId);
+    buffer.put(side == OrderType.BUY ? BUY : SELL);
+    buffer.put((byte) timeInForce.ordinal());
+    buffer.putLong(packSymbol(symbol));
+    buffer.putLong(price);
+    buffer.putInt(quantity);
+    buffer.putLong(expireTimeMillis);
+  }
+
+  public static void putCancel(ByteBuffer buffer, long clientOrderId) {
+    buffer.put(CANCEL);
+    buffer.putLong(clientOrderId);
+  }
+
+  public static void putAmend(ByteBuffer buffer, long origClientOrderId, long clientOrderId,
+      long price, int quantity) {
+    buffer.put(AMEND);
+    buffer.putLong(origClientOrderId);
+    buffer.putLong(clientOrderId);
+    buffer.putLong(price);
+    buffer.putInt(quantity);
+  }
+
+  static void putExecutionReport(ByteBuffer buffer, long clientOrderId,
+      ExecutionType executionType, byte reason, int lastQuantity, long lastPrice,
+      int leavesQuantity) {
+    buffer.put(EXECUTION_REPORT);
+    buffer.putLong(clientOrderId);
+    buffer.put((byte) executionType.ordinal());
+    buffer.put(reason);
+    buffer.putInt(lastQuantity);
+    buffer.putLong(lastPrice);
+    buffer.putInt(leavesQuantity);
+  }
+
+  // Accessors of an execution report starting at the given offset, for clients
+  public static long reportClientOrderId(ByteBuffer buffer, int offset) {
+    return buffer.getLong(offset + 1);
+  }
+
+  public static ExecutionType reportExecutionType(ByteBuffer buffer, int offset) {
+    return EXECUTION_TYPES[buffer.get(offset + 9)];
+  }
+
+  public static byte reportReason(ByteBuffer buffer, int offset) {
+    return buffer.get(offset + 10);
+  }
+
+  public static int reportLastQuantity(ByteBuffer buffer, int offset) {
+    return buffer.getInt(offset + 11);
+  }
+
+  public static long reportLastPrice(ByteBuffer buffer, int offset) {
+    return buffer.getLong(offset + 15);
+  }
+
+  public static int reportLeavesQuantity(ByteBuffer buffer, int offset) {
+    return buffer.getInt(offset + 23);
+  }
+
+  public static long toPrice(BigDecimal price) {
+    return price == null ? NO_PRICE
+        : price.setScale(PRICE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+  }
+
+  public static BigDecimal fromPrice(long price) {
+    return price == NO_PRICE ? null : BigDecimal.valueOf(price, PRICE_SCALE);
+  }
+
+  public static long packSymbol(String symbol) {
+    if (symbol.length() > MAX_SYMBOL_LENGTH) {
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_GATEWAY_SYMBOL + symbol);
+    }
+    long packed = 0;
+    for (int i = 0; i < MAX_SYMBOL_LENGTH; i++) {
+      packed = packed << 8 | (i < symbol.length() ? symbol.charAt(i) & 0x7F : 0);
+    }
+    return packed;
+  }
+
+  static String unpackSymbol(long packed) {
+    byte[] characters = new byte[MAX_SYMBOL_LENGTH];
+    int length = 0;
+    for (int i = 0; i < MAX_SYMBOL_LENGTH; i++) {
+      byte character = (byte) (packed >>> (56 - 8 * i));
+      if (character == 0) {
+        break;
+      }
+      characters[length++] = character;
+    }
+    return new String(characters, 0, length, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,151 @@
+package com.vega.trading.system.gateway;
+
+import com.vega.trading.system.enumeration.ExecutionType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/* One client connection of the order gateway.
+ Requests are read into a direct buffer and decoded in place by whichever thread serves the
+ connection. Execution reports are encoded into a direct outbound buffer by the serving thread
+ (acknowledgements) and by the execution journal thread (fills and cancels), under the session
+ lock. Encoding never waits for the socket: in event loop mode the loop writes the buffer out, in
+ thread-per-connection mode a writer thread of the connection does, so a client that stops
+ reading cannot hold up the journal thread. */
+final class GatewaySession {
+
+  private static final int INBOUND_CAPACITY = 64 * 1024;
+  private static final int OUTBOUND_CAPACITY = 256 * 1024;
+  private static final int SYMBOL_CACHE_SIZE = 64; // A power of two
+
+  final SocketChannel channel;
+  final ByteBuffer inbound = ByteBuffer.allocateDirect(INBOUND_CAPACITY);
+  private final ByteBuffer outbound = ByteBuffer.allocateDirect(OUTBOUND_CAPACITY);
+  private final ByteBuffer writing; // Reports being written by the writer thread, if any
+  private final Consumer<GatewaySession> onFailure; // Closes the session through the gateway
+
+  // Live orders of the session by client order id
+  final Map<Long, GatewayOrder> ordersByClientOrderId = new ConcurrentHashMap<>();
+
+  // Symbols decoded so far by packed value, so a repeated symbol is not allocated again.
+  // Only touched by the thread serving the connection.
+  private final long[] symbolKeys = new long[SYMBOL_CACHE_SIZE];
+  private final String[] symbols = new String[SYMBOL_CACHE_SIZE];
+
+  SelectionKey selectionKey; // Event loop mode only
+  final AtomicBoolean flushQueued = new AtomicBoolean();
+  private volatile boolean closed;
+  private boolean draining; // Guarded by this; the writer thread stops once everything is out
+
+  GatewaySession(SocketChannel channel, boolean writerThread,
+      Consumer<GatewaySession> onFailure) {
+    this.channel = channel;
+    this.writing = writerThread ? ByteBuffer.allocateDirect(OUTBOUND_CAPACITY) : null;
+    this.onFailure = onFailure;
+  }
+
+  // Method to encode an execution report. Returns false once the session is closed, or when a
+  // client not reading its reports has filled the outbound buffer. The session is then closed
+  // by the gateway, outside the session lock, so its orders are released as well.
+  boolean report(long clientOrderId, ExecutionType executionType, byte reason,
+      int lastQuantity, long lastPrice, int leavesQuantity) {
+    synchronized (this) {
+      if (closed) {
+        return false;
+      }
+      if (outbound.remaining() >= GatewayProtocol.EXECUTION_REPORT_LENGTH) {
+        GatewayProtocol.putExecutionReport(outbound, clientOrderId, executionType, reason,
+            lastQuantity, lastPrice, leavesQuantity);
+        if (writing != null) {
+          notifyAll();
+        }
+        return true;
+      }
+    }
+    onFailure.accept(this);
+    return false;
+  }
+
+  // Method to write out the encoded reports on the writer thread until the session is closed,
+  // or has drained after closeAfterWriting. The reports are moved out of the outbound buffer
+  // under the lock and written outside it, so only this thread blocks on a full socket.
+  void writeLoop() throws IOException, InterruptedException {
+    while (true) {
+      synchronized (this) {
+        while (outbound.position() == 0 && !closed && !draining) {
+          wait();
+        }
+        if (closed || outbound.position() == 0) {
+          return;
+        }
+        outbound.flip();
+        writing.clear();
+        writing.put(outbound);
+        writing.flip();
+        outbound.clear();
+      }
+      while (writing.hasRemaining()) {
+        channel.write(writing);
+      }
+    }
+  }
+
+  // Method to let the writer thread write out what is encoded and stop, e.g. after a reject
+  // ending the session
+  synchronized void closeAfterWriting() {
+    draining = true;
+    notifyAll();
+  }
+
+  // Method to write out the encoded reports in event loop mode; returns whether everything was
+  // written. The non-blocking channel takes what fits into the socket buffer.
+  synchronized boolean flush() throws IOException {
+    if (outbound.position() == 0) {
+      return true;
+    }
+    outbound.flip();
+    try {
+      while (outbound.hasRemaining()) {
+        if (channel.write(outbound) == 0) {
+          break;
+        }
+      }
+      return !outbound.hasRemaining();
+    } finally {
+      outbound.compact();
+    }
+  }
+
+  // Symbol of a packed value, decoded once per distinct symbol
+  String symbol(long packed) {
+    int slot = (int) (packed ^ (packed >>> 29)) * 0x9E3779B9 >>> 26 & (SYMBOL_CACHE_SIZE - 1);
+    if (symbols[slot] != null && symbolKeys[slot] == packed) {
+      return symbols[slot];
+    }
+    String symbol = GatewayProtocol.unpackSymbol(packed);
+    symbolKeys[slot] = packed;
+    symbols[slot] = symbol;
+    return symbol;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  void close() {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Nothing left to do with a connection that failed to close
+    }
+  }
+}
@@ -0,0 +1,533 @@
+package com.vega.trading.system.gateway;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.enumeration.ExecutionType;
+import com.vega.trading.system.enumeration.GatewayMode;
+import com.vega.trading.system.enumeration.OrderResultStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.journal.ExecutionEvent;
+import com.vega.trading.system.journal.ExecutionEventSink;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.OrderResult;
+import com.vega.trading.system.service.TradingSystem;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/* TCP order entry gateway speaking the GatewayProtocol.
+ New, cancel and amend requests are decoded in place from direct buffers into orders of the
+ trading system. Execution reports are driven by the execution journal: the gateway is the
+ trading system's ExecutionEventSink, so configure it with executionEventSink(gateway) and hand
+ other consumers to the gateway as its downstream sink. A disconnecting client's orders stay in
+ the books; their reports are dropped.
+
+ In EVENT_LOOP mode a single selector thread serves every connection and writes the reports the
+ journal thread encoded once per journal batch. In THREAD_PER_CONNECTION mode each connection is
+ served by blocking reads on its own thread and its reports are written by a second one, both
+ virtual when the JDK provides them. A client that stops reading never holds up the journal
+ thread: its session is closed once its reports fill the outbound buffer. */
+@Slf4j
+public class OrderGateway implements ExecutionEventSink {
+
+  private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+
+  private final GatewayMode mode;
+  private final ExecutionEventSink downstream; // null when the gateway is the only consumer
+
+  // Orders with open quantity by engine order id, to route fills and cancels to their session
+  private final Map<UUID, GatewayOrder> ordersById = new ConcurrentHashMap<>();
+  private final Set<GatewaySession> sessions = ConcurrentHashMap.newKeySet();
+
+  // Sessions with reports encoded by the journal thread, waiting for the event loop to write them
+  private final Queue<GatewaySession> flushQueue = new ConcurrentLinkedQueue<>();
+
+  // Engine order ids are the gateway's random prefix and a sequence, cheaper than random UUIDs
+  private final long orderIdPrefix = ThreadLocalRandom.current().nextLong();
+  private final AtomicLong orderIdSequence = new AtomicLong();
+
+  private volatile TradingSystem tradingSystem;
+  private volatile boolean running;
+  private ServerSocketChannel serverChannel;
+  private Selector selector;
+  private Thread serverThread;
+  private ExecutorService connectionExecutor;
+
+  public OrderGateway(GatewayMode mode) {
+    this(mode, null);
+  }
+
+  public OrderGateway(GatewayMode mode, ExecutionEventSink downstream) {
+    this.mode = mode;
+    this.downstream = downstream;
+  }
+
+  // Method to start accepting connections for the given trading system, which must have this
+  // gateway as its execution event sink. Returns the bound address, e.g. for an ephemeral port.
+  public synchronized InetSocketAddress start(TradingSystem tradingSystem,
+      InetSocketAddress address) throws IOException {
+    if (running) {
+      throw new IllegalStateException(ExceptionMessages.GATEWAY_ALREADY_STARTED);
+    }
+    this.tradingSystem = tradingSystem;
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(address);
+    running = true;
+    if (mode == GatewayMode.EVENT_LOOP) {
+      selector = Selector.open();
+      serverChannel.configureBlocking(false);
+      serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+      serverThread = new Thread(this::runEventLoop, "gateway-event-loop");
+    } else {
+      connectionExecutor = newConnectionExecutor();
+      serverThread = new Thread(this::runAcceptor, "gateway-acceptor");
+    }
+    serverThread.setDaemon(true);
+    serverThread.start();
+    InetSocketAddress boundAddress = getAddress();
+    log.info("Order gateway listening on {} in {} mode", boundAddress, mode);
+    return boundAddress;
+  }
+
+  public InetSocketAddress getAddress() throws IOException {
+    return (InetSocketAddress) serverChannel.getLocalAddress();
+  }
+
+  public GatewayMode getMode() {
+    return mode;
+  }
+
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  // Method to close the listening socket and every connection
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    try {
+      serverChannel.close();
+    } catch (IOException e) {
+      log.warn("Failed to close the gateway socket", e);
+    }
+    if (selector != null) {
+      selector.wakeup();
+    }
+    for (GatewaySession session : sessions) {
+      closeSession(session);
+    }
+    try {
+      serverThread.join(TimeUnit.SECONDS.toMillis(5));
+      if (connectionExecutor != null) {
+        connectionExecutor.shutdownNow();
+        connectionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (selector != null) {
+      try {
+        selector.close();
+      } catch (IOException e) {
+        log.warn("Failed to close the gateway selector", e);
+      }
+    }
+  }
+
+  @Override
+  public void onEvent(ExecutionEvent event) {
+    if (downstream != null) {
+      downstream.onEvent(event);
+    }
+    if (event.getType() == ExecutionEventType.TRADE) {
+      long lastPrice = GatewayProtocol.toPrice(event.getPrice());
+      onExecution(event.getBuyOrderId(), ExecutionType.TRADE, event.getQuantity(), lastPrice);
+      onExecution(event.getSellOrderId(), ExecutionType.TRADE, event.getQuantity(), lastPrice);
+    } else if (event.getType() == ExecutionEventType.ORDER_CANCELLED) {
+      UUID orderId = event.isBuyCancel() ? event.getBuyOrderId() : event.getSellOrderId();
+      onExecution(orderId, ExecutionType.CANCELLED, 0, GatewayProtocol.NO_PRICE);
+    }
+  }
+
+  // The event loop is woken once per journal batch rather than once per report
+  @Override
+  public void onEndOfBatch() {
+    if (downstream != null) {
+      downstream.onEndOfBatch();
+    }
+    if (!flushQueue.isEmpty() && selector != null) {
+      selector.wakeup();
+    }
+  }
+
+  private void onExecution(UUID orderId, ExecutionType executionType, int lastQuantity,
+      long lastPrice) {
+    GatewayOrder gatewayOrder = orderId == null ? null : ordersById.get(orderId);
+    if (gatewayOrder == null) {
+      return;
+    }
+    if (gatewayOrder.onExecution(executionType, lastQuantity, lastPrice)) {
+      ordersById.remove(orderId, gatewayOrder);
+      gatewayOrder.session.ordersByClientOrderId.remove(gatewayOrder.clientOrderId, gatewayOrder);
+    }
+    GatewaySession session = gatewayOrder.session;
+    if (mode == GatewayMode.EVENT_LOOP && session.flushQueued.compareAndSet(false, true)) {
+      flushQueue.add(session);
+    }
+  }
+
+  private void runEventLoop() {
+    try {
+      while (running) {
+        selector.select(this::onSelected);
+        GatewaySession session;
+        while ((session = flushQueue.poll()) != null) {
+          session.flushQueued.set(false);
+          writeTo(session);
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      if (running) {
+        log.error("Gateway event loop failed", e);
+      }
+    }
+  }
+
+  private void onSelected(SelectionKey key) {
+    if (!key.isValid()) {
+      return;
+    }
+    if (key.isAcceptable()) {
+      acceptNonBlocking();
+      return;
+    }
+    GatewaySession session = (GatewaySession) key.attachment();
+    if (key.isReadable()) {
+      readFrom(session);
+    }
+    if (key.isValid() && key.isWritable()) {
+      writeTo(session);
+    }
+  }
+
+  private void acceptNonBlocking() {
+    try {
+      SocketChannel channel = serverChannel.accept();
+      if (channel == null) {
+        return;
+      }
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      GatewaySession session = new GatewaySession(channel, false, this::closeSession);
+      session.selectionKey = channel.register(selector, SelectionKey.OP_READ, session);
+      sessions.add(session);
+    } catch (IOException e) {
+      log.warn("Failed to accept a gateway connection", e);
+    }
+  }
+
+  private void readFrom(GatewaySession session) {
+    try {
+      if (session.channel.read(session.inbound) < 0) {
+        closeSession(session);
+        return;
+      }
+      boolean valid = process(session);
+      writeTo(session);
+      if (!valid) {
+        closeSession(session);
+      }
+    } catch (IOException e) {
+      closeSession(session);
+    } catch (RuntimeException e) {
+      if (running) {
+        log.error("Gateway connection failed", e);
+      }
+      closeSession(session);
+    }
+  }
+
+  // Writes what is encoded, and waits for the socket to drain when it cannot take everything
+  private void writeTo(GatewaySession session) {
+    try {
+      boolean written = session.flush();
+      if (session.selectionKey.isValid()) {
+        session.selectionKey.interestOps(written ? SelectionKey.OP_READ
+            : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      }
+    } catch (IOException e) {
+      closeSession(session);
+    }
+  }
+
+  private void runAcceptor() {
+    while (running) {
+      try {
+        SocketChannel channel = serverChannel.accept();
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        GatewaySession session = new GatewaySession(channel, true, this::closeSession);
+        sessions.add(session);
+        connectionExecutor.execute(() -> serve(session));
+        connectionExecutor.execute(() -> writeReports(session));
+      } catch (IOException e) {
+        if (running) {
+          log.warn("Failed to accept a gateway connection", e);
+        }
+      }
+    }
+  }
+
+  // Blocking read loop of a connection in thread-per-connection mode. After an invalid message
+  // the writer thread sends the reject before the session is closed.
+  private void serve(GatewaySession session) {
+    boolean valid = true;
+    try {
+      while (!session.isClosed() && session.channel.read(session.inbound) >= 0
+          && (valid = process(session))) {
+        // Reports are written by the writer thread of the connection
+      }
+    } catch (IOException e) {
+      // The client went away
+    } catch (RuntimeException e) {
+      // Requests fail once the gateway stops, which ends the connection quietly
+      if (running) {
+        log.error("Gateway connection failed", e);
+      }
+    } finally {
+      if (valid) {
+        closeSession(session);
+      } else {
+        session.closeAfterWriting();
+      }
+    }
+  }
+
+  // Blocking write loop of a connection in thread-per-connection mode
+  private void writeReports(GatewaySession session) {
+    try {
+      session.writeLoop();
+    } catch (IOException e) {
+      // The client went away
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      closeSession(session);
+    }
+  }
+
+  // Method to decode and handle every complete request in the inbound buffer. Returns false on
+  // an unknown message type, after which the stream cannot be framed any more.
+  private boolean process(GatewaySession session) {
+    ByteBuffer buffer = session.inbound;
+    buffer.flip();
+    int position = 0;
+    try {
+      while (buffer.limit() - position > 0) {
+        byte type = buffer.get(position);
+        int length = GatewayProtocol.inboundLength(type);
+        if (length < 0) {
+          reject(session, 0, GatewayProtocol.REASON_INVALID_MESSAGE);
+          return false;
+        }
+        if (buffer.limit() - position < length) {
+          break;
+        }
+        onMessage(session, buffer, position, type);
+        position += length;
+      }
+      return true;
+    } finally {
+      buffer.position(position);
+      buffer.compact();
+    }
+  }
+
+  private void onMessage(GatewaySession session, ByteBuffer buffer, int offset, byte type) {
+    switch (type) {
+      case GatewayProtocol.NEW_ORDER:
+        onNewOrder(session, buffer, offset);
+        break;
+      case GatewayProtocol.CANCEL:
+        onCancel(session, buffer.getLong(offset + 1));
+        break;
+      default:
+        onAmend(session, buffer, offset);
+        break;
+    }
+  }
+
+  private void onNewOrder(GatewaySession session, ByteBuffer buffer, int offset) {
+    long clientOrderId = buffer.getLong(offset + 1);
+    byte side = buffer.get(offset + 13);
+    int timeInForce = buffer.get(offset + 14);
+    int quantity = buffer.getInt(offset + 31);
+    if (side != GatewayProtocol.BUY && side != GatewayProtocol.SELL || timeInForce < 0
+        || timeInForce >= TIMES_IN_FORCE.length || quantity <= 0) {
+      reject(session, clientOrderId, GatewayProtocol.REASON_INVALID_MESSAGE);
+      return;
+    }
+    Order order = new Order(nextOrderId(), buffer.getInt(offset + 9),
+        side == GatewayProtocol.BUY ? OrderType.BUY : OrderType.SELL,
+        GatewayProtocol.fromPrice(buffer.getLong(offset + 23)), quantity,
+        session.symbol(buffer.getLong(offset + 15)));
+    order.setTimeInForce(TIMES_IN_FORCE[timeInForce]);
+    order.setExpireTimeMillis(buffer.getLong(offset + 35));
+    submit(session, clientOrderId, order);
+  }
+
+  private void onCancel(GatewaySession session, long clientOrderId) {
+    GatewayOrder gatewayOrder = session.ordersByClientOrderId.get(clientOrderId);
+    if (gatewayOrder == null) {
+      reject(session, clientOrderId, GatewayProtocol.REASON_UNKNOWN_ORDER);
+      return;
+    }
+    // Reported as CANCELLED once the order has left its book, unless it fills first
+    tradingSystem.cancelOrder(gatewayOrder.order.getOrderId());
+  }
+
+  // Cancel/replace: the original is cancelled and a new order takes its remaining attributes.
+  // The replacement is validated and its client order id claimed first, so a rejected amend
+  // leaves the original working. The original is then cancelled on its shard and the replacement
+  // only entered if that removed a working order, for the amended quantity less what has
+  // executed: an order filled in the meantime is never replaced.
+  private void onAmend(GatewaySession session, ByteBuffer buffer, int offset) {
+    long clientOrderId = buffer.getLong(offset + 9);
+    long price = buffer.getLong(offset + 17);
+    int quantity = buffer.getInt(offset + 25);
+    GatewayOrder original = session.ordersByClientOrderId.get(buffer.getLong(offset + 1));
+    if (quantity <= 0 || price != GatewayProtocol.NO_PRICE && price <= 0) {
+      reject(session, clientOrderId, GatewayProtocol.REASON_INVALID_MESSAGE);
+      return;
+    }
+    if (original == null) {
+      reject(session, clientOrderId, GatewayProtocol.REASON_UNKNOWN_ORDER);
+      return;
+    }
+    Order originalOrder = original.order;
+    Order replacement = new Order(nextOrderId(), originalOrder.getTraderId(),
+        originalOrder.getOrderType(), GatewayProtocol.fromPrice(price), quantity,
+        originalOrder.getSymbol());
+    replacement.setTimeInForce(originalOrder.getTimeInForce());
+    replacement.setExpireTimeMillis(originalOrder.getExpireTimeMillis());
+    GatewayOrder gatewayOrder = track(session, clientOrderId, replacement);
+    if (gatewayOrder == null) {
+      return;
+    }
+    // Blocks until the shard has taken the original out of its book; its CANCELLED report
+    // follows through the journal
+    OrderResult cancelResult = tradingSystem.cancelOrders(
+        Collections.singletonList(originalOrder.getOrderId())).get(0);
+    if (cancelResult.getStatus() != OrderResultStatus.CANCELLED
+        || !gatewayOrder.sizeReplacement(original.executedQuantity())) {
+      untrack(gatewayOrder);
+      reject(session, clientOrderId, GatewayProtocol.REASON_TOO_LATE);
+      return;
+    }
+    enter(gatewayOrder);
+  }
+
+  // Helper method to hand an order to the trading system and acknowledge it
+  private void submit(GatewaySession session, long clientOrderId, Order order) {
+    GatewayOrder gatewayOrder = track(session, clientOrderId, order);
+    if (gatewayOrder != null) {
+      enter(gatewayOrder);
+    }
+  }
+
+  // Helper method to track an order under its client order id before it is added, as its fills
+  // may be reported before addOrder returns. Rejects a duplicate id and returns null.
+  private GatewayOrder track(GatewaySession session, long clientOrderId, Order order) {
+    GatewayOrder gatewayOrder = new GatewayOrder(session, clientOrderId, order);
+    if (session.ordersByClientOrderId.putIfAbsent(clientOrderId, gatewayOrder) != null) {
+      reject(session, clientOrderId, GatewayProtocol.REASON_DUPLICATE_CLIENT_ORDER_ID);
+      return null;
+    }
+    ordersById.put(order.getOrderId(), gatewayOrder);
+    return gatewayOrder;
+  }
+
+  private void enter(GatewayOrder gatewayOrder) {
+    Order order = gatewayOrder.order;
+    try {
+      tradingSystem.addOrder(order);
+    } catch (IllegalArgumentException e) {
+      untrack(gatewayOrder);
+      reject(gatewayOrder.session, gatewayOrder.clientOrderId,
+          GatewayProtocol.REASON_ORDER_REJECTED);
+      return;
+    } catch (RuntimeException e) {
+      // E.g. a connection thread interrupted by stop() while handing the order to its shard
+      untrack(gatewayOrder);
+      if (!running) {
+        throw e;
+      }
+      log.error("Failed to enter order {}", order.getOrderId(), e);
+      reject(gatewayOrder.session, gatewayOrder.clientOrderId,
+          GatewayProtocol.REASON_ORDER_REJECTED);
+      return;
+    }
+    gatewayOrder.acknowledge();
+  }
+
+  private void untrack(GatewayOrder gatewayOrder) {
+    ordersById.remove(gatewayOrder.order.getOrderId(), gatewayOrder);
+    gatewayOrder.session.ordersByClientOrderId.remove(gatewayOrder.clientOrderId, gatewayOrder);
+  }
+
+  private static void reject(GatewaySession session, long clientOrderId, byte reason) {
+    session.report(clientOrderId, ExecutionType.REJECTED, reason, 0, GatewayProtocol.NO_PRICE, 0);
+  }
+
+  private UUID nextOrderId() {
+    return new UUID(orderIdPrefix, orderIdSequence.incrementAndGet());
+  }
+
+  private void closeSession(GatewaySession session) {
+    if (!sessions.remove(session)) {
+      return;
+    }
+    session.close();
+    for (GatewayOrder gatewayOrder : session.ordersByClientOrderId.values()) {
+      ordersById.remove(gatewayOrder.order.getOrderId(), gatewayOrder);
+    }
+    session.ordersByClientOrderId.clear();
+  }
+
+  // Virtual threads when the running JDK has them (21+), platform threads otherwise. Looked up
+  // reflectively, as the code is compiled for an older release.
+  private static ExecutorService newConnectionExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "gateway-connection");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.ExecutionType;
+import com.vega.trading.system.enumeration.GatewayMode;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.gateway.GatewayProtocol;
+import com.vega.trading.system.gateway.OrderGateway;
+import com.vega.trading.system.metrics.LatencyHistogram;
+import com.vega.trading.system.service.TradingSystem;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* Loopback load test of the order gateway.
+ Every client connection sends a resting buy, waits for its NEW report, cancels it and waits for
+ the CANCELLED report, round trip after round trip. The orders never cross, so each round trip
+ goes through validation, the book, the execution journal and back. The first tenth of each
+ connection's round trips is a warmup and is not recorded.
+
+ Usage: GatewayLatencyHarness [EVENT_LOOP|THREAD_PER_CONNECTION] [connections] [roundTrips]
+        [matchingShards] */
+public class GatewayLatencyHarness {
+
+  private static final String SYMBOL = "LOAD";
+
+  private final GatewayMode mode;
+  private final int connections;
+  private final int roundTripsPerConnection;
+  private final int matchingShards;
+
+  public GatewayLatencyHarness(GatewayMode mode, int connections, int roundTripsPerConnection,
+      int matchingShards) {
+    this.mode = mode;
+    this.connections = connections;
+    this.roundTripsPerConnection = roundTripsPerConnection;
+    this.matchingShards = matchingShards;
+  }
+
+  // Method to run the clients against a fresh trading system and gateway until all are done
+  public GatewayLatencyReport run() throws IOException, InterruptedException {
+    OrderGateway gateway = new OrderGateway(mode);
+    TradingSystem tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(matchingShards)
+        .executionEventSink(gateway)
+        .build());
+    try {
+      InetSocketAddress address = gateway.start(tradingSystem,
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      LatencyHistogram newOrderLatency = new LatencyHistogram();
+      LatencyHistogram cancelLatency = new LatencyHistogram();
+      AtomicReference<Exception> failure = new AtomicReference<>();
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> clients = new ArrayList<>();
+      for (int i = 0; i < connections; i++) {
+        int traderId = i + 1;
+        Thread client = new Thread(() -> {
+          try {
+            start.await();
+            runClient(address, traderId, newOrderLatency, cancelLatency);
+          } catch (Exception e) {
+            failure.compareAndSet(null, e);
+          }
+        }, "gateway-client-" + traderId);
+        client.start();
+        clients.add(client);
+      }
+      long startNanos = System.nanoTime();
+      start.countDown();
+      for (Thread client : clients) {
+        client.join();
+      }
+      long elapsedNanos = System.nanoTime() - startNanos;
+      if (failure.get() != null) {
+        throw new IOException(failure.get());
+      }
+      return new GatewayLatencyReport(mode, connections,
+          (long) connections * roundTripsPerConnection, elapsedNanos, newOrderLatency.snapshot(),
+          cancelLatency.snapshot());
+    } finally {
+      gateway.stop();
+      tradingSystem.shutdown();
+    }
+  }
+
+  private void runClient(InetSocketAddress address, int traderId,
+      LatencyHistogram newOrderLatency, LatencyHistogram cancelLatency) throws IOException {
+    try (SocketChannel channel = SocketChannel.open(address)) {
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      ByteBuffer request = ByteBuffer.allocateDirect(GatewayProtocol.NEW_ORDER_LENGTH);
+      ByteBuffer report = ByteBuffer.allocateDirect(GatewayProtocol.EXECUTION_REPORT_LENGTH);
+      // Buys well below any sell, one price per trader
+      long price = GatewayProtocol.toPrice(BigDecimal.valueOf(traderId));
+      int warmup = roundTripsPerConnection / 10;
+      for (int i = 0; i < roundTripsPerConnection; i++) {
+        long clientOrderId = i + 1;
+        long sentNanos = System.nanoTime();
+        request.clear();
+        GatewayProtocol.putNewOrder(request, clientOrderId, traderId, OrderType.BUY,
+            TimeInForce.GTC, SYMBOL, price, 1, 0);
+        write(channel, request);
+        awaitReport(channel, report, clientOrderId, ExecutionType.NEW);
+        long acknowledgedNanos = System.nanoTime();
+        request.clear();
+        GatewayProtocol.putCancel(request, clientOrderId);
+        write(channel, request);
+        awaitReport(channel, report, clientOrderId, ExecutionType.CANCELLED);
+        if (i >= warmup) {
+          newOrderLatency.record(acknowledgedNanos - sentNanos);
+          cancelLatency.record(System.nanoTime() - acknowledgedNanos);
+        }
+      }
+    }
+  }
+
+  private static void write(SocketChannel channel, ByteBuffer request) throws IOException {
+    request.flip();
+    while (request.hasRemaining()) {
+      channel.write(request);
+    }
+  }
+
+  private static void awaitReport(SocketChannel channel, ByteBuffer report, long clientOrderId,
+      ExecutionType expected) throws IOException {
+    report.clear();
+    while (report.hasRemaining()) {
+      if (channel.read(report) < 0) {
+        throw new EOFException();
+      }
+    }
+    ExecutionType executionType = GatewayProtocol.reportExecutionType(report, 0);
+    if (GatewayProtocol.reportClientOrderId(report, 0) != clientOrderId
+        || executionType != expected) {
+      throw new IOException("Expected " + expected + " for " + clientOrderId + " but got "
+          + executionType + " for " + GatewayProtocol.reportClientOrderId(report, 0));
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    // Keep the per-order log lines of the engine out of the measurement
+    if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+      System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "error");
+    }
+    GatewayMode mode = args.length > 0 ? GatewayMode.valueOf(args[0]) : GatewayMode.EVENT_LOOP;
+    int connections = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int roundTrips = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+    int matchingShards = args.length > 3 ? Integer.parseInt(args[3])
+        : Runtime.getRuntime().availableProcessors();
+    System.out.println(new GatewayLatencyHarness(mode, connections, roundTrips, matchingShards)
+        .run());
+  }
+}
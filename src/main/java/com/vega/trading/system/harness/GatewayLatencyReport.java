@@ -0,0 +1,69 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.enumeration.GatewayMode;
+import com.vega.trading.system.metrics.LatencySnapshot;
+
+/* Outcome of a gateway load test: round-trip latencies of new orders and cancels over loopback. */
+public class GatewayLatencyReport {
+
+  private final GatewayMode mode;
+  private final int connections;
+  private final long roundTrips;
+  private final long elapsedNanos;
+  private final LatencySnapshot newOrderLatency;
+  private final LatencySnapshot cancelLatency;
+
+  public GatewayLatencyReport(GatewayMode mode, int connections, long roundTrips,
+      long elapsedNanos, LatencySnapshot newOrderLatency, LatencySnapshot cancelLatency) {
+    this.mode = mode;
+    this.connections = connections;
+    this.roundTrips = roundTrips;
+    this.elapsedNanos = elapsedNanos;
+    this.newOrderLatency = newOrderLatency;
+    this.cancelLatency = cancelLatency;
+  }
+
+  public GatewayMode getMode() {
+    return mode;
+  }
+
+  public int getConnections() {
+    return connections;
+  }
+
+  // New order and cancel pairs sent over all connections, warmup included
+  public long getRoundTrips() {
+    return roundTrips;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double getRoundTripsPerSecond() {
+    return elapsedNanos == 0 ? 0 : roundTrips * 1_000_000_000.0 / elapsedNanos;
+  }
+
+  // From writing a NEW_ORDER until its NEW report is read
+  public LatencySnapshot getNewOrderLatency() {
+    return newOrderLatency;
+  }
+
+  // From writing a CANCEL until its CANCELLED report is read
+  public LatencySnapshot getCancelLatency() {
+    return cancelLatency;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("mode=%s connections=%d round trips=%d elapsed=%.1fms "
+            + "throughput=%.0f round trips/s%n"
+            + "new order rtt ns: p50=%d p99=%d p99.9=%d max=%d%n"
+            + "cancel rtt ns:    p50=%d p99=%d p99.9=%d max=%d",
+        mode, connections, roundTrips, elapsedNanos / 1e6, getRoundTripsPerSecond(),
+        newOrderLatency.getP50Nanos(), newOrderLatency.getP99Nanos(),
+        newOrderLatency.getP999Nanos(), newOrderLatency.getMaxNanos(),
+        cancelLatency.getP50Nanos(), cancelLatency.getP99Nanos(), cancelLatency.getP999Nanos(),
+        cancelLatency.getMaxNanos());
+  }
+}
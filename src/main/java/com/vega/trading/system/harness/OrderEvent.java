@@ -0,0 +1,98 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.enumeration.OrderEventType;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/* One event of an order flow: an order to add, a cancel, or a basket of orders.
+ Events are immutable and turn into fresh Order objects on every replay, since matching mutates
+ the orders it is given. */
+public class OrderEvent {
+
+  private final OrderEventType type;
+  private final UUID orderId;
+  private final int traderId;
+  private final OrderType orderType; // BUY or SELL for ADD events
+  private final BigDecimal price; // null for a market order
+  private final int quantity;
+  private final String symbol;
+  private final List<OrderEvent> legs; // ADD events of a BASKET
+
+  private OrderEvent(OrderEventType type, UUID orderId, int traderId, OrderType orderType,
+      BigDecimal price, int quantity, String symbol, List<OrderEvent> legs) {
+    this.type = type;
+    this.orderId = orderId;
+    this.traderId = traderId;
+    this.orderType = orderType;
+    this.price = price;
+    this.quantity = quantity;
+    this.symbol = symbol;
+    this.legs = legs;
+  }
+
+  public static OrderEvent add(UUID orderId, int traderId, OrderType orderType, BigDecimal price,
+      int quantity, String symbol) {
+    return new OrderEvent(OrderEventType.ADD, orderId, traderId, orderType, price, quantity,
+        symbol, Collections.emptyList());
+  }
+
+  public static OrderEvent cancel(UUID orderId) {
+    return new OrderEvent(OrderEventType.CANCEL, orderId, 0, null, null, 0, null,
+        Collections.emptyList());
+  }
+
+  public static OrderEvent basket(UUID orderId, int traderId, String symbol,
+      List<OrderEvent> legs) {
+    return new OrderEvent(OrderEventType.BASKET, orderId, traderId, OrderType.COMPOSITE, null, 0,
+        symbol, Collections.unmodifiableList(new ArrayList<>(legs)));
+  }
+
+  // Method to create the order to submit for an ADD or BASKET event
+  public Order toOrder() {
+    if (type == OrderEventType.BASKET) {
+      List<Order> underlyingOrders = new ArrayList<>(legs.size());
+      for (OrderEvent leg : legs) {
+        underlyingOrders.add(leg.toOrder());
+      }
+      return new Order(orderId, traderId, symbol, underlyingOrders);
+    }
+    return new Order(orderId, traderId, orderType, price, quantity, symbol);
+  }
+
+  public OrderEventType getType() {
+    return type;
+  }
+
+  public UUID getOrderId() {
+    return orderId;
+  }
+
+  public int getTraderId() {
+    return traderId;
+  }
+
+  public OrderType getOrderType() {
+    return orderType;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public List<OrderEvent> getLegs() {
+    return legs;
+  }
+}
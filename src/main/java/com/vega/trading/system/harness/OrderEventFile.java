@@ -0,0 +1,112 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.enumeration.OrderEventType;
+import com.vega.trading.system.enumeration.OrderType;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/* Text file of recorded order flow, one event per line, fields separated by spaces:
+   ADD <orderId> <traderId> <BUY|SELL> <price|MKT> <quantity> <symbol>
+   CANCEL <orderId>
+   BASKET <orderId> <traderId> <symbol> <legCount>, followed by the ADD lines of its legs
+ Blank lines and lines starting with # are ignored. */
+public final class OrderEventFile {
+
+  private static final String MARKET_PRICE = "MKT";
+
+  private OrderEventFile() {
+  }
+
+  public static void write(Path file, List<OrderEvent> events) {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (OrderEvent event : events) {
+        writeEvent(writer, event);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write order events to " + file, e);
+    }
+  }
+
+  private static void writeEvent(BufferedWriter writer, OrderEvent event) throws IOException {
+    switch (event.getType()) {
+      case ADD:
+        writer.write(OrderEventType.ADD + " " + event.getOrderId() + " " + event.getTraderId()
+            + " " + event.getOrderType() + " "
+            + (event.getPrice() == null ? MARKET_PRICE : event.getPrice().toPlainString()) + " "
+            + event.getQuantity() + " " + event.getSymbol());
+        writer.newLine();
+        break;
+      case CANCEL:
+        writer.write(OrderEventType.CANCEL + " " + event.getOrderId());
+        writer.newLine();
+        break;
+      default:
+        writer.write(OrderEventType.BASKET + " " + event.getOrderId() + " " + event.getTraderId()
+            + " " + event.getSymbol() + " " + event.getLegs().size());
+        writer.newLine();
+        for (OrderEvent leg : event.getLegs()) {
+          writeEvent(writer, leg);
+        }
+    }
+  }
+
+  public static List<OrderEvent> read(Path file) {
+    List<OrderEvent> events = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      OrderEvent event = readEvent(reader);
+      while (event != null) {
+        events.add(event);
+        event = readEvent(reader);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read order events from " + file, e);
+    }
+    return events;
+  }
+
+  // Next event of the file, or null at its end
+  private static OrderEvent readEvent(BufferedReader reader) throws IOException {
+    String line = reader.readLine();
+    while (line != null && (line.isBlank() || line.startsWith("#"))) {
+      line = reader.readLine();
+    }
+    if (line == null) {
+      return null;
+    }
+    String[] fields = line.trim().split(" +");
+    try {
+      switch (OrderEventType.valueOf(fields[0])) {
+        case ADD:
+          return OrderEvent.add(UUID.fromString(fields[1]), Integer.parseInt(fields[2]),
+              OrderType.valueOf(fields[3]),
+              MARKET_PRICE.equals(fields[4]) ? null : new BigDecimal(fields[4]),
+              Integer.parseInt(fields[5]), fields[6]);
+        case CANCEL:
+          return OrderEvent.cancel(UUID.fromString(fields[1]));
+        default:
+          int legCount = Integer.parseInt(fields[4]);
+          List<OrderEvent> legs = new ArrayList<>(legCount);
+          for (int i = 0; i < legCount; i++) {
+            OrderEvent leg = readEvent(reader);
+            if (leg == null || leg.getType() != OrderEventType.ADD) {
+              throw new IllegalArgumentException("Basket legs must be ADD events: " + line);
+            }
+            legs.add(leg);
+          }
+          return OrderEvent.basket(UUID.fromString(fields[1]), Integer.parseInt(fields[2]),
+              fields[3], legs);
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid order event: " + line, e);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.enumeration.OrderType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/* Generates a synthetic, reproducible order flow following an OrderFlowSpec.
+ Order ids are derived from the seed and a counter instead of random UUIDs, so two flows of the
+ same spec are identical event for event. */
+public final class OrderFlowGenerator {
+
+  private final OrderFlowSpec spec;
+  private final Random random;
+  private final List<UUID> liveOrderIds = new ArrayList<>(); // Added and not cancelled yet
+  private long nextId;
+
+  public OrderFlowGenerator(OrderFlowSpec spec) {
+    if (spec.getSymbols().isEmpty() || spec.getMaxQuantity() < 1) {
+      throw new IllegalArgumentException("Invalid order flow: symbols and quantities required");
+    }
+    this.spec = spec;
+    this.random = new Random(spec.getSeed());
+  }
+
+  public static List<OrderEvent> generate(OrderFlowSpec spec, int count) {
+    OrderFlowGenerator generator = new OrderFlowGenerator(spec);
+    List<OrderEvent> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      events.add(generator.next());
+    }
+    return events;
+  }
+
+  public OrderEvent next() {
+    double draw = random.nextDouble();
+    if (draw < spec.getCancelRatio() && !liveOrderIds.isEmpty()) {
+      // Swap-remove keeps picking a random live order O(1)
+      int index = random.nextInt(liveOrderIds.size());
+      Collections.swap(liveOrderIds, index, liveOrderIds.size() - 1);
+      return OrderEvent.cancel(liveOrderIds.remove(liveOrderIds.size() - 1));
+    }
+    if (draw < spec.getCancelRatio() + spec.getBasketShare() && spec.getSymbols().size() > 1) {
+      return nextBasket();
+    }
+    OrderEvent event = nextOrder(randomSymbol());
+    liveOrderIds.add(event.getOrderId());
+    return event;
+  }
+
+  private OrderEvent nextBasket() {
+    List<String> symbols = new ArrayList<>(spec.getSymbols());
+    Collections.shuffle(symbols, random);
+    int legCount = Math.min(symbols.size(), 2 + random.nextInt(2));
+    List<OrderEvent> legs = new ArrayList<>(legCount);
+    for (int i = 0; i < legCount; i++) {
+      legs.add(nextOrder(symbols.get(i)));
+    }
+    return OrderEvent.basket(nextOrderId(), randomTrader(), "BASKET", legs);
+  }
+
+  private OrderEvent nextOrder(String symbol) {
+    OrderType orderType = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+    long distanceTicks = Math.round(random.nextGaussian() * spec.getPriceStdDevTicks());
+    long offsetTicks = orderType == OrderType.BUY ? -distanceTicks : distanceTicks;
+    BigDecimal price = spec.getMidPrice()
+        .add(spec.getTickSize().multiply(BigDecimal.valueOf(offsetTicks)))
+        .max(spec.getTickSize());
+    int quantity = 1 + random.nextInt(spec.getMaxQuantity());
+    return OrderEvent.add(nextOrderId(), randomTrader(), orderType, price, quantity, symbol);
+  }
+
+  private UUID nextOrderId() {
+    return new UUID(spec.getSeed(), ++nextId);
+  }
+
+  private String randomSymbol() {
+    return spec.getSymbols().get(random.nextInt(spec.getSymbols().size()));
+  }
+
+  private int randomTrader() {
+    return 1 + random.nextInt(spec.getTraders());
+  }
+}
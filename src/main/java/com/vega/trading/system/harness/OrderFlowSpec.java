@@ -0,0 +1,54 @@
+package com.vega.trading.system.harness;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+/* Distributions of a synthetic order flow, see OrderFlowGenerator.
+ Use OrderFlowSpec.builder() and override only what differs from the defaults. */
+@Getter
+@Builder
+public class OrderFlowSpec {
+
+  // Symbols orders are spread over, uniformly
+  @Builder.Default
+  private final List<String> symbols = Arrays.asList("AAPL", "MSFT", "GOOG", "AMZN");
+
+  // Price every symbol is quoted around
+  @Builder.Default
+  private final BigDecimal midPrice = new BigDecimal("100.00");
+
+  @Builder.Default
+  private final BigDecimal tickSize = new BigDecimal("0.01");
+
+  // Standard deviation, in ticks, of the normally distributed distance of a limit price from mid.
+  // Buys are priced below mid and sells above by that distance, which may be negative: such
+  // orders cross the mid and trade.
+  @Builder.Default
+  private final double priceStdDevTicks = 20;
+
+  // Quantities are uniform between 1 and maxQuantity
+  @Builder.Default
+  private final int maxQuantity = 100;
+
+  // Share of the events cancelling a previously added order
+  @Builder.Default
+  private final double cancelRatio = 0.2;
+
+  // Share of the events adding a basket of two or three orders on distinct symbols
+  @Builder.Default
+  private final double basketShare = 0.02;
+
+  @Builder.Default
+  private final int traders = 100;
+
+  // The same seed always generates the same flow, order ids included
+  @Builder.Default
+  private final long seed = 1;
+
+  public static OrderFlowSpec defaults() {
+    return OrderFlowSpec.builder().build();
+  }
+}
@@ -0,0 +1,112 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderEventType;
+import com.vega.trading.system.metrics.LatencyHistogram;
+import com.vega.trading.system.metrics.MetricsSnapshot;
+import com.vega.trading.system.service.TradingSystem;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/* Replays an order flow against a fresh trading system and reports throughput, submission
+ latency percentiles, the engine metrics and a hash of the resulting trades and books.
+ The same flow always produces the same hash, whatever the number of matching shards, so a
+ change to the matching logic can be checked against a recorded flow before it is benchmarked.
+ Events are submitted either as fast as possible or at a fixed rate; at a fixed rate the latency
+ of an event is measured from the time it was due, so that a stall is not hidden by the events
+ that were held back behind it (coordinated omission).
+
+ Usage: ReplayHarness generate <file> <count> [seed]
+        ReplayHarness replay <file> [matchingShards] [eventsPerSecond] */
+public class ReplayHarness {
+
+  private final int matchingShards;
+  private final long eventsPerSecond; // 0 for as fast as possible
+
+  public ReplayHarness(int matchingShards, long eventsPerSecond) {
+    this.matchingShards = matchingShards;
+    this.eventsPerSecond = eventsPerSecond;
+  }
+
+  // Method to replay the events and wait until every one of them has been matched
+  public ReplayReport replay(List<OrderEvent> events) {
+    StateHasher stateHasher = new StateHasher();
+    // Baskets are decided on arrival, a fill window would make them depend on timing
+    TradingSystem tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(matchingShards)
+        .basketFillWindowMillis(0)
+        .executionEventSink(stateHasher)
+        .build());
+    try {
+      LatencyHistogram submitLatency = new LatencyHistogram();
+      long intervalNanos = eventsPerSecond > 0 ? 1_000_000_000L / eventsPerSecond : 0;
+      long startNanos = System.nanoTime();
+      for (int i = 0; i < events.size(); i++) {
+        long sendNanos;
+        if (intervalNanos > 0) {
+          sendNanos = startNanos + i * intervalNanos;
+          waitUntil(sendNanos);
+        } else {
+          sendNanos = System.nanoTime();
+        }
+        submit(tradingSystem, events.get(i));
+        submitLatency.record(System.nanoTime() - sendNanos);
+      }
+      tradingSystem.flush();
+      long elapsedNanos = System.nanoTime() - startNanos;
+      MetricsSnapshot engineMetrics = tradingSystem.getMetricsSnapshot();
+      long stateHash = stateHasher.hash(tradingSystem.getLimitOrderBooks());
+      return new ReplayReport(events.size(), elapsedNanos, submitLatency.snapshot(),
+          engineMetrics, stateHasher.getTradeCount(), stateHash);
+    } finally {
+      tradingSystem.shutdown();
+    }
+  }
+
+  private static void submit(TradingSystem tradingSystem, OrderEvent event) {
+    if (event.getType() == OrderEventType.CANCEL) {
+      tradingSystem.cancelOrder(event.getOrderId());
+    } else {
+      tradingSystem.addOrder(event.toOrder());
+    }
+  }
+
+  // Spins for the last stretch, as parking overshoots by tens of microseconds
+  private static void waitUntil(long deadlineNanos) {
+    long remainingNanos;
+    while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+      if (remainingNanos > 100_000) {
+        LockSupport.parkNanos(remainingNanos - 50_000);
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.err.println("Usage: ReplayHarness generate <file> <count> [seed]");
+      System.err.println("       ReplayHarness replay <file> [matchingShards] [eventsPerSecond]");
+      System.exit(2);
+    }
+    // Keep the per-order log lines of the engine out of the measurement
+    if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+      System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "error");
+    }
+    Path file = Paths.get(args[1]);
+    if ("generate".equals(args[0])) {
+      OrderFlowSpec spec = OrderFlowSpec.builder()
+          .seed(args.length > 3 ? Long.parseLong(args[3]) : 1)
+          .build();
+      OrderEventFile.write(file, OrderFlowGenerator.generate(spec, Integer.parseInt(args[2])));
+    } else {
+      int matchingShards = args.length > 2 ? Integer.parseInt(args[2])
+          : Runtime.getRuntime().availableProcessors();
+      long eventsPerSecond = args.length > 3 ? Long.parseLong(args[3]) : 0;
+      System.out.println(new ReplayHarness(matchingShards, eventsPerSecond)
+          .replay(OrderEventFile.read(file)));
+    }
+  }
+}
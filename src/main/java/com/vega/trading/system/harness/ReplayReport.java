@@ -0,0 +1,67 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.metrics.LatencySnapshot;
+import com.vega.trading.system.metrics.MetricsSnapshot;
+
+/* Outcome of a replay: throughput, submission latencies, engine metrics and the state hash. */
+public class ReplayReport {
+
+  private final int events;
+  private final long elapsedNanos;
+  private final LatencySnapshot submitLatency;
+  private final MetricsSnapshot engineMetrics;
+  private final long trades;
+  private final long stateHash;
+
+  public ReplayReport(int events, long elapsedNanos, LatencySnapshot submitLatency,
+      MetricsSnapshot engineMetrics, long trades, long stateHash) {
+    this.events = events;
+    this.elapsedNanos = elapsedNanos;
+    this.submitLatency = submitLatency;
+    this.engineMetrics = engineMetrics;
+    this.trades = trades;
+    this.stateHash = stateHash;
+  }
+
+  public int getEvents() {
+    return events;
+  }
+
+  // From the first submission until every event was matched
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double getEventsPerSecond() {
+    return elapsedNanos == 0 ? 0 : events * 1_000_000_000.0 / elapsedNanos;
+  }
+
+  // Time to submit each event; at a fixed rate measured from its scheduled time, so that a
+  // stall also counts against the events queued up behind it
+  public LatencySnapshot getSubmitLatency() {
+    return submitLatency;
+  }
+
+  public MetricsSnapshot getEngineMetrics() {
+    return engineMetrics;
+  }
+
+  public long getTrades() {
+    return trades;
+  }
+
+  // Hash of the trades and final books, identical for identical outcomes
+  public long getStateHash() {
+    return stateHash;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("events=%d elapsed=%.1fms throughput=%.0f events/s trades=%d%n"
+            + "submit latency ns: p50=%d p99=%d p99.9=%d max=%d%n"
+            + "state hash=%016x",
+        events, elapsedNanos / 1e6, getEventsPerSecond(), trades, submitLatency.getP50Nanos(),
+        submitLatency.getP99Nanos(), submitLatency.getP999Nanos(), submitLatency.getMaxNanos(),
+        stateHash);
+  }
+}
@@ -0,0 +1,106 @@
+package com.vega.trading.system.harness;
+
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.journal.ExecutionEvent;
+import com.vega.trading.system.journal.ExecutionEventSink;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.PriceLevel;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/* Fingerprint of the outcome of a replay: the trades of every symbol in execution order and the
+ final content of every book in priority order. Symbols are folded in name order and only
+ per-symbol sequences are hashed, so the result is the same whatever the number of matching
+ shards, while any change to a fill, a price or the queue position of an order changes it.
+ Trades are received as the execution event sink of the replayed trading system. */
+class StateHasher implements ExecutionEventSink {
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  // Running trade hash by symbol, only touched by the execution journal thread
+  private final Map<String, long[]> tradeHashes = new TreeMap<>();
+  private long tradeCount;
+
+  @Override
+  public void onEvent(ExecutionEvent event) {
+    if (event.getType() != ExecutionEventType.TRADE) {
+      return;
+    }
+    long[] hash = tradeHashes.computeIfAbsent(event.getSymbol(), symbol -> new long[] {FNV_OFFSET});
+    hash[0] = mix(hash[0], event.getBuyOrderId());
+    hash[0] = mix(hash[0], event.getSellOrderId());
+    hash[0] = mix(hash[0], event.getQuantity());
+    hash[0] = mix(hash[0], event.getPrice());
+    tradeCount++;
+  }
+
+  long getTradeCount() {
+    return tradeCount;
+  }
+
+  // Method to combine the trade hashes with the books; the books must be quiescent
+  long hash(Collection<LimitOrderBook> limitOrderBooks) {
+    Map<String, LimitOrderBook> booksBySymbol = new TreeMap<>();
+    for (LimitOrderBook limitOrderBook : limitOrderBooks) {
+      if (!limitOrderBook.isEmpty()) {
+        booksBySymbol.put(limitOrderBook.getSymbol(), limitOrderBook);
+      }
+    }
+    long[] hash = {FNV_OFFSET};
+    for (Map.Entry<String, long[]> trades : tradeHashes.entrySet()) {
+      hash[0] = mix(hash[0], trades.getKey());
+      hash[0] = mix(hash[0], trades.getValue()[0]);
+    }
+    for (LimitOrderBook limitOrderBook : booksBySymbol.values()) {
+      hash[0] = mix(hash[0], limitOrderBook.getSymbol());
+      for (int depth = 0; depth < limitOrderBook.getBidLevelCount(); depth++) {
+        hash[0] = mixLevel(hash[0], limitOrderBook.getBidLevel(depth));
+      }
+      hash[0] = mix(hash[0], -1);
+      for (int depth = 0; depth < limitOrderBook.getAskLevelCount(); depth++) {
+        hash[0] = mixLevel(hash[0], limitOrderBook.getAskLevel(depth));
+      }
+    }
+    return hash[0];
+  }
+
+  private static long mixLevel(long hash, PriceLevel level) {
+    long[] result = {mix(hash, level.getPrice())};
+    level.forEachOrder(order -> result[0] = mixOrder(result[0], order));
+    return result[0];
+  }
+
+  private static long mixOrder(long hash, Order order) {
+    return mix(mix(hash, order.getOrderId()), order.getQuantity());
+  }
+
+  private static long mix(long hash, UUID id) {
+    return mix(mix(hash, id.getMostSignificantBits()), id.getLeastSignificantBits());
+  }
+
+  // Scale independent: 100.0 and 100.00 hash the same
+  private static long mix(long hash, BigDecimal price) {
+    return mix(hash, price == null ? "MKT" : price.stripTrailingZeros().toPlainString());
+  }
+
+  private static long mix(long hash, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      hash = mix(hash, value.charAt(i));
+    }
+    return hash;
+  }
+
+  // FNV-1a over the eight bytes of the value
+  private static long mix(long hash, long value) {
+    for (int i = 0; i < Long.BYTES; i++) {
+      hash ^= (value >>> (i * 8)) & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,47 @@
+package com.vega.trading.system.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/* Sink writing events in the compact ExecutionEventCodec format to a channel (file, socket...).
+ Events are encoded into a reusable direct buffer which is written out once per batch, or earlier
+ when it runs full, so I/O is amortized over every event the journal drained in one go. */
+public class BinaryExecutionEventSink implements ExecutionEventSink {
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+
+  public BinaryExecutionEventSink(WritableByteChannel channel, int bufferSize) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(
+        Math.max(bufferSize, ExecutionEventCodec.MAX_ENCODED_LENGTH));
+  }
+
+  @Override
+  public void onEvent(ExecutionEvent event) {
+    if (buffer.remaining() < ExecutionEventCodec.MAX_ENCODED_LENGTH) {
+      writeBuffer();
+    }
+    ExecutionEventCodec.encode(event, buffer);
+  }
+
+  @Override
+  public void onEndOfBatch() {
+    writeBuffer();
+  }
+
+  private void writeBuffer() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write execution events", e);
+    } finally {
+      buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.enumeration.TriggerCondition;
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/* Field encodings shared by the binary journal and snapshot formats.
+ A price is its scale(1) followed by the unscaled value(8); a missing price is scale -128.
+ A symbol is its length(1) followed by its ASCII characters. */
+final class BinaryFields {
+
+  static final int PRICE_LENGTH = 9;
+  static final int UUID_LENGTH = 16;
+  static final int MAX_SYMBOL_LENGTH = 1 + 255;
+  static final int MAX_ORDER_LENGTH =
+      UUID_LENGTH + 4 + 1 + MAX_SYMBOL_LENGTH + PRICE_LENGTH + 4 + 1 + PRICE_LENGTH + 1 + 1 + 8;
+
+  private static final byte NO_PRICE = Byte.MIN_VALUE;
+  private static final OrderType[] ORDER_TYPES = OrderType.values();
+  private static final OrderStatus[] ORDER_STATUSES = OrderStatus.values();
+  private static final TriggerCondition[] TRIGGER_CONDITIONS = TriggerCondition.values();
+  private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+
+  private BinaryFields() {
+  }
+
+  static void putPrice(ByteBuffer buffer, BigDecimal price) {
+    if (price == null) {
+      buffer.put(NO_PRICE);
+      buffer.putLong(0);
+      return;
+    }
+    BigDecimal normalized = price.scale() > Byte.MAX_VALUE || price.scale() <= NO_PRICE
+        ? price.setScale(Byte.MAX_VALUE, RoundingMode.HALF_EVEN) : price;
+    buffer.put((byte) normalized.scale());
+    buffer.putLong(normalized.unscaledValue().longValueExact());
+  }
+
+  static BigDecimal getPrice(ByteBuffer buffer) {
+    byte scale = buffer.get();
+    long unscaled = buffer.getLong();
+    return scale == NO_PRICE ? null : new BigDecimal(BigInteger.valueOf(unscaled), scale);
+  }
+
+  static void putUuid(ByteBuffer buffer, UUID uuid) {
+    buffer.putLong(uuid.getMostSignificantBits());
+    buffer.putLong(uuid.getLeastSignificantBits());
+  }
+
+  static UUID getUuid(ByteBuffer buffer) {
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  // An order is id, traderId, type, symbol, price, remaining quantity, status and the optional
+  // trigger price and condition of good-till-trigger orders
+  static void putOrder(ByteBuffer buffer, Order order) {
+    putUuid(buffer, order.getOrderId());
+    buffer.putInt(order.getTraderId());
+    buffer.put((byte) order.getOrderType().ordinal());
+    putSymbol(buffer, order.getSymbol());
+    putPrice(buffer, order.getPrice());
+    buffer.putInt(order.getQuantity());
+    buffer.put((byte) order.getOrderStatus().ordinal());
+    putPrice(buffer, order.getTriggerPrice());
+    buffer.put(order.getTriggerCondition() == null ? -1 : (byte) order.getTriggerCondition().ordinal());
+    buffer.put((byte) order.getTimeInForce().ordinal());
+    buffer.putLong(order.getExpireTimeMillis());
+  }
+
+  static Order getOrder(ByteBuffer buffer) {
+    UUID orderId = getUuid(buffer);
+    int traderId = buffer.getInt();
+    OrderType orderType = ORDER_TYPES[buffer.get()];
+    String symbol = getSymbol(buffer);
+    BigDecimal price = getPrice(buffer);
+    int quantity = buffer.getInt();
+    OrderStatus orderStatus = ORDER_STATUSES[buffer.get()];
+    BigDecimal triggerPrice = getPrice(buffer);
+    byte triggerCondition = buffer.get();
+    Order order = new Order(orderId, traderId, orderType, price, quantity, symbol, triggerPrice,
+        triggerCondition < 0 ? null : TRIGGER_CONDITIONS[triggerCondition]);
+    order.setOrderStatus(orderStatus);
+    order.setTimeInForce(TIMES_IN_FORCE[buffer.get()]);
+    order.setExpireTimeMillis(buffer.getLong());
+    return order;
+  }
+
+  static void putSymbol(ByteBuffer buffer, String symbol) {
+    int length = Math.min(symbol.length(), 255);
+    buffer.put((byte) length);
+    for (int i = 0; i < length; i++) {
+      buffer.put((byte) symbol.charAt(i));
+    }
+  }
+
+  static String getSymbol(ByteBuffer buffer) {
+    byte[] symbolBytes = new byte[buffer.get() & 0xFF];
+    buffer.get(symbolBytes);
+    return new String(symbolBytes, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,181 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.Order;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/* Compact point-in-time image of the instruments and resting orders, tied to the last command
+ journal sequence it contains. Recovery loads the latest snapshot and replays the journal tail.
+ Layout: magic(4) version(4) lastSequence(8) instrumentCount(4) [symbol price tickSize]
+ orderCount(4) [order] auctionCount(4) [symbol], resting orders of each book in price-time
+ priority followed by the good-till-trigger orders still waiting for their trigger, then the
+ symbols whose book is in a call auction. */
+@Slf4j
+public class BookSnapshot {
+
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".snap";
+  private static final int MAGIC = 0x56534e50;
+  private static final int VERSION = 4;
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+  private final long lastSequence;
+  private final List<FinancialInstrument> financialInstruments;
+  private final List<Order> restingOrders;
+  private final List<String> auctionSymbols;
+
+  public BookSnapshot(long lastSequence, List<FinancialInstrument> financialInstruments,
+      List<Order> restingOrders, List<String> auctionSymbols) {
+    this.lastSequence = lastSequence;
+    this.financialInstruments = financialInstruments;
+    this.restingOrders = restingOrders;
+    this.auctionSymbols = auctionSymbols;
+  }
+
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  public List<FinancialInstrument> getFinancialInstruments() {
+    return financialInstruments;
+  }
+
+  public List<Order> getRestingOrders() {
+    return restingOrders;
+  }
+
+  public List<String> getAuctionSymbols() {
+    return auctionSymbols;
+  }
+
+  // Method to write the snapshot atomically and remove the older ones; returns the file written.
+  // Like journal segments, the file is named after the first sequence it does not contain.
+  public Path write(Path directory) {
+    Path file = directory.resolve(
+        String.format("%s%020d%s", SNAPSHOT_PREFIX, lastSequence + 1, SNAPSHOT_SUFFIX));
+    Path temporary = directory.resolve(file.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(directory);
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(lastSequence);
+        buffer.putInt(financialInstruments.size());
+        for (FinancialInstrument financialInstrument : financialInstruments) {
+          ensureCapacity(channel, buffer, BinaryFields.MAX_SYMBOL_LENGTH + 2 * BinaryFields.PRICE_LENGTH);
+          BinaryFields.putSymbol(buffer, financialInstrument.getSymbol());
+          BinaryFields.putPrice(buffer, financialInstrument.getMarketPrice());
+          BinaryFields.putPrice(buffer, financialInstrument.getTickSize());
+        }
+        ensureCapacity(channel, buffer, 4);
+        buffer.putInt(restingOrders.size());
+        for (Order order : restingOrders) {
+          ensureCapacity(channel, buffer, BinaryFields.MAX_ORDER_LENGTH);
+          BinaryFields.putOrder(buffer, order);
+        }
+        ensureCapacity(channel, buffer, 4);
+        buffer.putInt(auctionSymbols.size());
+        for (String symbol : auctionSymbols) {
+          ensureCapacity(channel, buffer, BinaryFields.MAX_SYMBOL_LENGTH);
+          BinaryFields.putSymbol(buffer, symbol);
+        }
+        drain(channel, buffer);
+        channel.force(true);
+      }
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write snapshot " + file, e);
+    }
+    for (Path older : listSnapshots(directory)) {
+      if (!older.equals(file)) {
+        try {
+          Files.deleteIfExists(older);
+        } catch (IOException e) {
+          log.warn("Failed to delete snapshot {}", older, e);
+        }
+      }
+    }
+    return file;
+  }
+
+  // Method to load the most recent snapshot of the directory, or null when there is none
+  public static BookSnapshot readLatest(Path directory) {
+    List<Path> snapshots = listSnapshots(directory);
+    if (snapshots.isEmpty()) {
+      return null;
+    }
+    Path file = snapshots.get(snapshots.size() - 1);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IllegalStateException("Not a supported snapshot file: " + file);
+      }
+      long lastSequence = buffer.getLong();
+      int instrumentCount = buffer.getInt();
+      List<FinancialInstrument> financialInstruments = new ArrayList<>(instrumentCount);
+      for (int i = 0; i < instrumentCount; i++) {
+        String symbol = BinaryFields.getSymbol(buffer);
+        financialInstruments.add(new FinancialInstrument(symbol, BinaryFields.getPrice(buffer),
+            BinaryFields.getPrice(buffer)));
+      }
+      int orderCount = buffer.getInt();
+      List<Order> restingOrders = new ArrayList<>(orderCount);
+      for (int i = 0; i < orderCount; i++) {
+        restingOrders.add(BinaryFields.getOrder(buffer));
+      }
+      int auctionCount = buffer.getInt();
+      List<String> auctionSymbols = new ArrayList<>(auctionCount);
+      for (int i = 0; i < auctionCount; i++) {
+        auctionSymbols.add(BinaryFields.getSymbol(buffer));
+      }
+      return new BookSnapshot(lastSequence, financialInstruments, restingOrders, auctionSymbols);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read snapshot " + file, e);
+    }
+  }
+
+  private static void ensureCapacity(FileChannel channel, ByteBuffer buffer, int length)
+      throws IOException {
+    if (buffer.remaining() < length) {
+      drain(channel, buffer);
+    }
+  }
+
+  private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static List<Path> listSnapshots(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+              && file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list snapshot directory " + directory, e);
+    }
+  }
+}
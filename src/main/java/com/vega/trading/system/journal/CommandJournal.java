@@ -0,0 +1,345 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.enumeration.CommandType;
+import com.vega.trading.system.enumeration.FsyncPolicy;
+import com.vega.trading.system.model.Order;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/* Append-only, memory-mapped write-ahead journal of addOrder, cancelOrder, trade and call auction
+ commands. Auction phases are appended on the shard owning the book, in order with its orders.
+ Records are appended into fixed size mapped segment files named after their first sequence.
+ A record is length(4) crc(4) type(1) sequence(8) payload; the length is written last, so a
+ reader sees either a complete record or the zeroed end of the segment. Forcing to disk is done by
+ a background thread according to the FsyncPolicy: a single force covers every record appended
+ since the previous one (group commit), so appenders never wait for the disk. */
+@Slf4j
+public class CommandJournal implements AutoCloseable {
+
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int RECORD_HEADER_LENGTH = 8;
+  private static final int MAX_RECORD_LENGTH = RECORD_HEADER_LENGTH + 1 + 8
+      + Math.max(BinaryFields.MAX_ORDER_LENGTH, 2 * BinaryFields.UUID_LENGTH
+      + BinaryFields.MAX_SYMBOL_LENGTH + 4 + BinaryFields.PRICE_LENGTH);
+  private static final CommandType[] COMMAND_TYPES = CommandType.values();
+
+  private final Path directory;
+  private final int segmentSize;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalNanos;
+  private final CRC32 crc = new CRC32();
+  private final List<MappedByteBuffer> segmentsToForce = new ArrayList<>();
+  private MappedByteBuffer segment;
+  private int recordBodyStart;
+  private long nextSequence;
+  private volatile long appendedSequence;
+  private volatile long durableSequence;
+  private volatile boolean running = true;
+  private final Thread syncThread;
+
+  private CommandJournal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy,
+      long fsyncIntervalMillis, long nextSequence) {
+    if (segmentSize < MAX_RECORD_LENGTH * 2) {
+      throw new IllegalArgumentException("Invalid journal segment size: " + segmentSize);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.fsyncPolicy = fsyncPolicy;
+    this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(fsyncIntervalMillis, 1));
+    this.nextSequence = nextSequence;
+    this.appendedSequence = nextSequence - 1;
+    this.durableSequence = nextSequence - 1;
+    this.segment = mapNewSegment(nextSequence);
+    if (fsyncPolicy == FsyncPolicy.NEVER) {
+      this.syncThread = null;
+    } else {
+      this.syncThread = new Thread(this::syncLoop, "command-journal-sync");
+      this.syncThread.setDaemon(true);
+      this.syncThread.start();
+    }
+  }
+
+  // Method to open a journal for appending; a new segment is started at the given sequence
+  public static CommandJournal open(Path directory, int segmentSize, FsyncPolicy fsyncPolicy,
+      long fsyncIntervalMillis, long nextSequence) {
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create journal directory " + directory, e);
+    }
+    return new CommandJournal(directory, segmentSize, fsyncPolicy, fsyncIntervalMillis,
+        nextSequence);
+  }
+
+  public synchronized long appendAddOrder(Order order) {
+    long sequence = begin(CommandType.ADD_ORDER);
+    BinaryFields.putOrder(segment, order);
+    return commit(sequence);
+  }
+
+  public synchronized long appendCancelOrder(UUID orderId) {
+    long sequence = begin(CommandType.CANCEL_ORDER);
+    BinaryFields.putUuid(segment, orderId);
+    return commit(sequence);
+  }
+
+  public synchronized long appendTrade(UUID buyOrderId, UUID sellOrderId, String symbol,
+      int quantity, BigDecimal price) {
+    long sequence = begin(CommandType.TRADE);
+    BinaryFields.putUuid(segment, buyOrderId);
+    BinaryFields.putUuid(segment, sellOrderId);
+    BinaryFields.putSymbol(segment, symbol);
+    segment.putInt(quantity);
+    BinaryFields.putPrice(segment, price);
+    return commit(sequence);
+  }
+
+  public synchronized long appendAuctionStart(String symbol) {
+    long sequence = begin(CommandType.AUCTION_START);
+    BinaryFields.putSymbol(segment, symbol);
+    return commit(sequence);
+  }
+
+  public synchronized long appendUncross(String symbol, BigDecimal price) {
+    long sequence = begin(CommandType.UNCROSS);
+    BinaryFields.putSymbol(segment, symbol);
+    BinaryFields.putPrice(segment, price);
+    return commit(sequence);
+  }
+
+  // Sequence of the last appended record, -1 when nothing has been appended yet
+  public long getLastSequence() {
+    return appendedSequence;
+  }
+
+  // Method to start a new segment, so everything before it can be dropped after a snapshot
+  public synchronized void roll() {
+    if (segment.position() == 0) {
+      return;
+    }
+    segmentsToForce.add(segment);
+    segment = mapNewSegment(nextSequence);
+  }
+
+  // Method to block until every record appended before the call is on disk
+  public void awaitDurable() {
+    long target = appendedSequence;
+    if (syncThread == null) {
+      force();
+      return;
+    }
+    while (durableSequence < target && syncThread.isAlive()) {
+      LockSupport.parkNanos(50_000);
+    }
+  }
+
+  // Method to delete the segments holding only records up to (and including) the given sequence
+  public void deleteSegmentsUpTo(long sequence) {
+    List<Path> segments = listSegments(directory);
+    for (int i = 0; i + 1 < segments.size(); i++) {
+      if (firstSequenceOf(segments.get(i + 1)) <= sequence + 1) {
+        try {
+          Files.deleteIfExists(segments.get(i));
+        } catch (IOException e) {
+          log.warn("Failed to delete journal segment {}", segments.get(i), e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    if (syncThread != null) {
+      LockSupport.unpark(syncThread);
+      try {
+        syncThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    force();
+  }
+
+  // Method to replay every complete record with a sequence above afterSequence.
+  // Returns the last sequence found in the journal, or afterSequence when there is none.
+  public static long replay(Path directory, long afterSequence, CommandJournalHandler handler) {
+    long lastSequence = afterSequence;
+    CRC32 checksum = new CRC32();
+    for (Path segmentFile : listSegments(directory)) {
+      ByteBuffer buffer = mapReadOnly(segmentFile);
+      while (buffer.remaining() >= RECORD_HEADER_LENGTH) {
+        int start = buffer.position();
+        int length = buffer.getInt();
+        int expectedCrc = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+          break;
+        }
+        int bodyStart = buffer.position();
+        int end = bodyStart + length;
+        buffer.limit(end);
+        checksum.reset();
+        checksum.update(buffer);
+        buffer.position(bodyStart);
+        if ((int) checksum.getValue() != expectedCrc) {
+          log.warn("Torn journal record at {} in {}, ignoring the rest of the segment", start,
+              segmentFile);
+          break;
+        }
+        CommandType type = COMMAND_TYPES[buffer.get()];
+        long sequence = buffer.getLong();
+        if (sequence > afterSequence) {
+          dispatch(type, sequence, buffer, handler);
+        }
+        lastSequence = Math.max(lastSequence, sequence);
+        buffer.limit(buffer.capacity());
+        buffer.position(end);
+      }
+    }
+    return lastSequence;
+  }
+
+  private static void dispatch(CommandType type, long sequence, ByteBuffer buffer,
+      CommandJournalHandler handler) {
+    switch (type) {
+      case ADD_ORDER:
+        handler.onAddOrder(sequence, BinaryFields.getOrder(buffer));
+        break;
+      case CANCEL_ORDER:
+        handler.onCancelOrder(sequence, BinaryFields.getUuid(buffer));
+        break;
+      case TRADE:
+        UUID buyOrderId = BinaryFields.getUuid(buffer);
+        UUID sellOrderId = BinaryFields.getUuid(buffer);
+        String symbol = BinaryFields.getSymbol(buffer);
+        int quantity = buffer.getInt();
+        handler.onTrade(sequence, buyOrderId, sellOrderId, symbol, quantity,
+            BinaryFields.getPrice(buffer));
+        break;
+      case AUCTION_START:
+        handler.onAuctionStart(sequence, BinaryFields.getSymbol(buffer));
+        break;
+      case UNCROSS:
+        String uncrossSymbol = BinaryFields.getSymbol(buffer);
+        handler.onUncross(sequence, uncrossSymbol, BinaryFields.getPrice(buffer));
+        break;
+      default:
+        throw new IllegalStateException("Unknown journal record type: " + type);
+    }
+  }
+
+  private long begin(CommandType type) {
+    if (segment.remaining() < MAX_RECORD_LENGTH) {
+      roll();
+    }
+    recordBodyStart = segment.position() + RECORD_HEADER_LENGTH;
+    segment.position(recordBodyStart);
+    segment.put((byte) type.ordinal());
+    long sequence = nextSequence++;
+    segment.putLong(sequence);
+    return sequence;
+  }
+
+  private long commit(long sequence) {
+    int end = segment.position();
+    int bodyStart = recordBodyStart;
+    segment.position(bodyStart);
+    segment.limit(end);
+    crc.reset();
+    crc.update(segment);
+    segment.limit(segment.capacity());
+    segment.position(end);
+    segment.putInt(bodyStart - RECORD_HEADER_LENGTH + 4, (int) crc.getValue());
+    // Length last: the record becomes visible to readers only once complete
+    segment.putInt(bodyStart - RECORD_HEADER_LENGTH, end - bodyStart);
+    appendedSequence = sequence;
+    return sequence;
+  }
+
+  private void syncLoop() {
+    while (running) {
+      long target = appendedSequence;
+      if (target > durableSequence) {
+        force();
+        durableSequence = target;
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+          LockSupport.parkNanos(fsyncIntervalNanos);
+        }
+      } else {
+        LockSupport.parkNanos(fsyncPolicy == FsyncPolicy.INTERVAL ? fsyncIntervalNanos : 100_000);
+      }
+    }
+  }
+
+  private void force() {
+    MappedByteBuffer current;
+    List<MappedByteBuffer> rolled;
+    synchronized (this) {
+      current = segment;
+      rolled = new ArrayList<>(segmentsToForce);
+      segmentsToForce.clear();
+    }
+    for (MappedByteBuffer rolledSegment : rolled) {
+      rolledSegment.force();
+    }
+    current.force();
+  }
+
+  private MappedByteBuffer mapNewSegment(long firstSequence) {
+    Path segmentFile = directory.resolve(
+        String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    // A segment with this name can only hold records that were never completed: start it afresh
+    try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map journal segment " + segmentFile, e);
+    }
+  }
+
+  private static ByteBuffer mapReadOnly(Path segmentFile) {
+    try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map journal segment " + segmentFile, e);
+    }
+  }
+
+  static List<Path> listSegments(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+              && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list journal directory " + directory, e);
+    }
+  }
+
+  private static long firstSequenceOf(Path segmentFile) {
+    String name = segmentFile.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,24 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/* Callback receiving the records of a command journal during replay, in journal order. */
+public interface CommandJournalHandler {
+
+  void onAddOrder(long sequence, Order order);
+
+  void onCancelOrder(long sequence, UUID orderId);
+
+  void onAuctionStart(long sequence, String symbol);
+
+  // The uncross is re-derived from the replayed book; the price it executed at (null when the
+  // book did not cross) is informational
+  void onUncross(long sequence, String symbol, BigDecimal price);
+
+  // Trades are re-derived by matching the replayed orders; the records are informational
+  default void onTrade(long sequence, UUID buyOrderId, UUID sellOrderId, String symbol,
+      int quantity, BigDecimal price) {
+  }
+}
@@ -0,0 +1,172 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/* A structured execution event: a trade or a market price update.
+ Instances are preallocated slots of the ExecutionJournal ring buffer and are overwritten once
+ consumed, so publishing only copies references to already existing immutable values.
+ Sequenced orders of the low-garbage mode have no UUID: they are identified by their sequence id,
+ which is Order.NO_SEQUENCE_ID for every other order. */
+public class ExecutionEvent {
+
+  // Sequence of the event currently held by this slot, written last when publishing
+  volatile long publishedSequence = -1;
+
+  private ExecutionEventType type;
+  private long sequence;
+  private long timestamp;
+  private String symbol;
+  private BigDecimal price;
+  private int quantity;
+  private UUID buyOrderId;
+  private UUID sellOrderId;
+  private long buySequenceId;
+  private long sellSequenceId;
+  private int buyTraderId;
+  private int sellTraderId;
+
+  public ExecutionEvent() {
+  }
+
+  void setTrade(long sequence, long timestamp, UUID buyOrderId, long buySequenceId,
+      int buyTraderId, UUID sellOrderId, long sellSequenceId, int sellTraderId, String symbol,
+      int quantity, BigDecimal price) {
+    this.type = ExecutionEventType.TRADE;
+    this.sequence = sequence;
+    this.timestamp = timestamp;
+    this.buyOrderId = buyOrderId;
+    this.buySequenceId = buySequenceId;
+    this.buyTraderId = buyTraderId;
+    this.sellOrderId = sellOrderId;
+    this.sellSequenceId = sellSequenceId;
+    this.sellTraderId = sellTraderId;
+    this.symbol = symbol;
+    this.quantity = quantity;
+    this.price = price;
+  }
+
+  // A cancelled order is reported on its own side: the buy or the sell fields, the other is empty
+  void setCancel(long sequence, long timestamp, UUID orderId, long sequenceId, int traderId,
+      boolean buy, String symbol, int quantity) {
+    this.type = ExecutionEventType.ORDER_CANCELLED;
+    this.sequence = sequence;
+    this.timestamp = timestamp;
+    this.buyOrderId = buy ? orderId : null;
+    this.buySequenceId = buy ? sequenceId : Order.NO_SEQUENCE_ID;
+    this.buyTraderId = buy ? traderId : 0;
+    this.sellOrderId = buy ? null : orderId;
+    this.sellSequenceId = buy ? Order.NO_SEQUENCE_ID : sequenceId;
+    this.sellTraderId = buy ? 0 : traderId;
+    this.symbol = symbol;
+    this.quantity = quantity;
+    this.price = null;
+  }
+
+  void setPriceUpdate(ExecutionEventType type, long sequence, long timestamp, String symbol,
+      BigDecimal price) {
+    this.type = type;
+    this.sequence = sequence;
+    this.timestamp = timestamp;
+    this.symbol = symbol;
+    this.price = price;
+    this.quantity = 0;
+    this.buyOrderId = null;
+    this.buySequenceId = Order.NO_SEQUENCE_ID;
+    this.buyTraderId = 0;
+    this.sellOrderId = null;
+    this.sellSequenceId = Order.NO_SEQUENCE_ID;
+    this.sellTraderId = 0;
+  }
+
+  // Method to take an independent copy of a slot, for sinks that keep events around
+  public ExecutionEvent copy() {
+    ExecutionEvent copy = new ExecutionEvent();
+    copy.type = type;
+    copy.sequence = sequence;
+    copy.timestamp = timestamp;
+    copy.symbol = symbol;
+    copy.price = price;
+    copy.quantity = quantity;
+    copy.buyOrderId = buyOrderId;
+    copy.sellOrderId = sellOrderId;
+    copy.buySequenceId = buySequenceId;
+    copy.sellSequenceId = sellSequenceId;
+    copy.buyTraderId = buyTraderId;
+    copy.sellTraderId = sellTraderId;
+    return copy;
+  }
+
+  public ExecutionEventType getType() {
+    return type;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public UUID getBuyOrderId() {
+    return buyOrderId;
+  }
+
+  public UUID getSellOrderId() {
+    return sellOrderId;
+  }
+
+  public long getBuySequenceId() {
+    return buySequenceId;
+  }
+
+  public long getSellSequenceId() {
+    return sellSequenceId;
+  }
+
+  // Whether a cancel reports a buy order
+  public boolean isBuyCancel() {
+    return buyOrderId != null || buySequenceId != Order.NO_SEQUENCE_ID;
+  }
+
+  public int getBuyTraderId() {
+    return buyTraderId;
+  }
+
+  public int getSellTraderId() {
+    return sellTraderId;
+  }
+
+  @Override
+  public String toString() {
+    return "ExecutionEvent{" +
+        "type=" + type +
+        ", sequence=" + sequence +
+        ", timestamp=" + timestamp +
+        ", symbol='" + symbol + '\'' +
+        ", price=" + price +
+        ", quantity=" + quantity +
+        ", buyOrderId=" + buyOrderId +
+        ", sellOrderId=" + sellOrderId +
+        ", buySequenceId=" + buySequenceId +
+        ", sellSequenceId=" + sellSequenceId +
+        ", buyTraderId=" + buyTraderId +
+        ", sellTraderId=" + sellTraderId +
+        '}';
+  }
+}
@@ -0,0 +1,97 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/* Compact binary encoding of execution events.
+ Layout (big endian): type(1) sequence(8) timestamp(8) symbolLength(1) symbol(ASCII) price, and
+ for trades additionally quantity(4) buyOrderId(16) buyTraderId(4) sellOrderId(16) sellTraderId(4),
+ and for cancels quantity(4) buy(1) orderId(16) traderId(4).
+ Prices and symbols use the BinaryFields encodings. An order id is written as its two halves, or
+ as 0 and the sequence id for sequenced orders, as in the trade history. */
+public final class ExecutionEventCodec {
+
+  public static final int MAX_ENCODED_LENGTH = 1 + 8 + 8 + BinaryFields.MAX_SYMBOL_LENGTH
+      + BinaryFields.PRICE_LENGTH + 4 + 2 * (BinaryFields.UUID_LENGTH + 4);
+
+  private static final ExecutionEventType[] TYPES = ExecutionEventType.values();
+
+  private ExecutionEventCodec() {
+  }
+
+  public static void encode(ExecutionEvent event, ByteBuffer buffer) {
+    buffer.put((byte) event.getType().ordinal());
+    buffer.putLong(event.getSequence());
+    buffer.putLong(event.getTimestamp());
+    BinaryFields.putSymbol(buffer, event.getSymbol());
+    BinaryFields.putPrice(buffer, event.getPrice());
+    if (event.getType() == ExecutionEventType.TRADE) {
+      buffer.putInt(event.getQuantity());
+      putOrderId(buffer, event.getBuyOrderId(), event.getBuySequenceId());
+      buffer.putInt(event.getBuyTraderId());
+      putOrderId(buffer, event.getSellOrderId(), event.getSellSequenceId());
+      buffer.putInt(event.getSellTraderId());
+    } else if (event.getType() == ExecutionEventType.ORDER_CANCELLED) {
+      boolean buy = event.isBuyCancel();
+      buffer.putInt(event.getQuantity());
+      buffer.put((byte) (buy ? 1 : 0));
+      if (buy) {
+        putOrderId(buffer, event.getBuyOrderId(), event.getBuySequenceId());
+      } else {
+        putOrderId(buffer, event.getSellOrderId(), event.getSellSequenceId());
+      }
+      buffer.putInt(buy ? event.getBuyTraderId() : event.getSellTraderId());
+    }
+  }
+
+  private static void putOrderId(ByteBuffer buffer, UUID orderId, long sequenceId) {
+    if (orderId == null) {
+      buffer.putLong(0);
+      buffer.putLong(sequenceId);
+    } else {
+      BinaryFields.putUuid(buffer, orderId);
+    }
+  }
+
+  public static ExecutionEvent decode(ByteBuffer buffer) {
+    ExecutionEventType type = TYPES[buffer.get()];
+    long sequence = buffer.getLong();
+    long timestamp = buffer.getLong();
+    String symbol = BinaryFields.getSymbol(buffer);
+    BigDecimal price = BinaryFields.getPrice(buffer);
+    ExecutionEvent event = new ExecutionEvent();
+    if (type == ExecutionEventType.TRADE) {
+      int quantity = buffer.getInt();
+      long buyHigh = buffer.getLong();
+      long buyLow = buffer.getLong();
+      int buyTraderId = buffer.getInt();
+      long sellHigh = buffer.getLong();
+      long sellLow = buffer.getLong();
+      int sellTraderId = buffer.getInt();
+      event.setTrade(sequence, timestamp, orderIdOf(buyHigh, buyLow),
+          sequenceIdOf(buyHigh, buyLow), buyTraderId, orderIdOf(sellHigh, sellLow),
+          sequenceIdOf(sellHigh, sellLow), sellTraderId, symbol, quantity, price);
+    } else if (type == ExecutionEventType.ORDER_CANCELLED) {
+      int quantity = buffer.getInt();
+      boolean buy = buffer.get() == 1;
+      long high = buffer.getLong();
+      long low = buffer.getLong();
+      event.setCancel(sequence, timestamp, orderIdOf(high, low), sequenceIdOf(high, low),
+          buffer.getInt(), buy, symbol, quantity);
+    } else {
+      event.setPriceUpdate(type, sequence, timestamp, symbol, price);
+    }
+    return event;
+  }
+
+  private static UUID orderIdOf(long high, long low) {
+    return high == 0 ? null : new UUID(high, low);
+  }
+
+  private static long sequenceIdOf(long high, long low) {
+    return high == 0 ? low : Order.NO_SEQUENCE_ID;
+  }
+}
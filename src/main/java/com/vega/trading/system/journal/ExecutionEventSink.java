@@ -0,0 +1,12 @@
+package com.vega.trading.system.journal;
+
+/* Consumer of execution events, called on the journal's background thread.
+ Events are reused ring slots: implementations must copy whatever they keep beyond the call. */
+public interface ExecutionEventSink {
+
+  void onEvent(ExecutionEvent event);
+
+  // Called once a batch of available events has been handed over, e.g. to flush buffered output
+  default void onEndOfBatch() {
+  }
+}
@@ -0,0 +1,162 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/* Asynchronous execution event journal.
+ Matching threads publish into a ring buffer of preallocated ExecutionEvent slots, which a single
+ background thread hands to the sink. Publishing claims a sequence, fills the slot with references
+ and marks it published, so the hot path neither allocates nor performs any I/O.
+ Producers wait (spin then park) when the ring is full, i.e. the sink cannot keep up. */
+@Slf4j
+public class ExecutionJournal implements AutoCloseable {
+
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final long IDLE_PARK_NANOS = 50_000;
+  private static final long LONG_IDLE_PARK_NANOS = 1_000_000;
+  private static final int SHORT_IDLE_ROUNDS = 200;
+
+  private final ExecutionEvent[] ring;
+  private final int mask;
+  private final ExecutionEventSink sink;
+  private final AtomicLong claimedSequence = new AtomicLong(-1);
+  // Last sequence handed to the sink, and last one whose batch has been completed
+  private final AtomicLong consumedSequence = new AtomicLong(-1);
+  private final AtomicLong flushedSequence = new AtomicLong(-1);
+  private final Thread consumer;
+  private volatile boolean running = true;
+
+  public ExecutionJournal(ExecutionEventSink sink, int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+          "Invalid journal capacity: Must be a power of two, was " + capacity);
+    }
+    this.sink = sink;
+    this.ring = new ExecutionEvent[capacity];
+    this.mask = capacity - 1;
+    for (int i = 0; i < capacity; i++) {
+      ring[i] = new ExecutionEvent();
+    }
+    this.consumer = new Thread(this::consume, "execution-journal");
+    this.consumer.setDaemon(true);
+    this.consumer.start();
+  }
+
+  // Method to publish an executed trade
+  public void publishTrade(UUID buyOrderId, int buyTraderId, UUID sellOrderId, int sellTraderId,
+      String symbol, int quantity, BigDecimal price) {
+    publishTrade(buyOrderId, Order.NO_SEQUENCE_ID, buyTraderId, sellOrderId, Order.NO_SEQUENCE_ID,
+        sellTraderId, symbol, quantity, price);
+  }
+
+  // Same as above for orders that may be sequenced: those have a null id and their sequence id
+  public void publishTrade(UUID buyOrderId, long buySequenceId, int buyTraderId, UUID sellOrderId,
+      long sellSequenceId, int sellTraderId, String symbol, int quantity, BigDecimal price) {
+    long sequence = claim();
+    ExecutionEvent event = ring[(int) sequence & mask];
+    event.setTrade(sequence, System.currentTimeMillis(), buyOrderId, buySequenceId, buyTraderId,
+        sellOrderId, sellSequenceId, sellTraderId, symbol, quantity, price);
+    event.publishedSequence = sequence;
+  }
+
+  // Method to publish that the open quantity of an order left the book without trading
+  public void publishCancel(UUID orderId, long sequenceId, int traderId, boolean buy,
+      String symbol, int quantity) {
+    long sequence = claim();
+    ExecutionEvent event = ring[(int) sequence & mask];
+    event.setCancel(sequence, System.currentTimeMillis(), orderId, sequenceId, traderId, buy,
+        symbol, quantity);
+    event.publishedSequence = sequence;
+  }
+
+  // Method to publish a new market price of an instrument or a composite
+  public void publishPriceUpdate(ExecutionEventType type, String symbol, BigDecimal price) {
+    long sequence = claim();
+    ExecutionEvent event = ring[(int) sequence & mask];
+    event.setPriceUpdate(type, sequence, System.currentTimeMillis(), symbol, price);
+    event.publishedSequence = sequence;
+  }
+
+  // Method to block until every event published before the call has reached the sink
+  public void flush() {
+    long target = claimedSequence.get();
+    while (flushedSequence.get() < target && consumer.isAlive()) {
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  public long getPublishedCount() {
+    return claimedSequence.get() + 1;
+  }
+
+  // Method to drain the remaining events and stop the background thread
+  @Override
+  public void close() {
+    flush();
+    running = false;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private long claim() {
+    long sequence = claimedSequence.incrementAndGet();
+    long wrapPoint = sequence - ring.length;
+    int spins = 0;
+    while (wrapPoint > consumedSequence.get()) {
+      if (++spins < 100) {
+        Thread.onSpinWait();
+      } else {
+        LockSupport.parkNanos(1);
+      }
+    }
+    return sequence;
+  }
+
+  private void consume() {
+    long next = 0;
+    int idleRounds = 0;
+    while (running || next <= claimedSequence.get()) {
+      int batchSize = 0;
+      ExecutionEvent event = ring[(int) next & mask];
+      while (event.publishedSequence == next && batchSize < MAX_BATCH_SIZE) {
+        try {
+          sink.onEvent(event);
+        } catch (RuntimeException e) {
+          log.error("Execution event sink failed on event {}", next, e);
+        }
+        consumedSequence.lazySet(next);
+        next++;
+        batchSize++;
+        event = ring[(int) next & mask];
+      }
+      if (batchSize > 0) {
+        try {
+          sink.onEndOfBatch();
+        } catch (RuntimeException e) {
+          log.error("Execution event sink failed to complete a batch", e);
+        }
+        flushedSequence.set(next - 1);
+        idleRounds = 0;
+      } else if (running) {
+        // Back off further once the journal has been idle for a while
+        if (idleRounds < SHORT_IDLE_ROUNDS) {
+          idleRounds++;
+          LockSupport.parkNanos(IDLE_PARK_NANOS);
+        } else {
+          LockSupport.parkNanos(LONG_IDLE_PARK_NANOS);
+        }
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+  }
+}
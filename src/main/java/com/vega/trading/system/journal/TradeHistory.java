@@ -0,0 +1,172 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.TradeRecord;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/* Append-only history of every fill, in memory-mapped columnar files per day.
+ The files of a day are named trades-<day>-<part>.col, the day being in the zone of the clock; a
+ new part starts when a file is full. See TradeHistorySegment for the layout. Queries by symbol or
+ trader and time range scan the mapped columns of the days in the range, skipping the blocks the
+ sparse index rules out, so a day is never loaded into the heap: only the matching trades are
+ materialised. Trades are stamped when appended and times never go backwards, even if the clock
+ does. Appends are serialised on the history; queries run concurrently with them. */
+public class TradeHistory implements AutoCloseable {
+
+  private static final String FILE_PREFIX = "trades-";
+  private static final String FILE_SUFFIX = ".col";
+
+  private final Path directory;
+  private final int fileCapacity;
+  private final Clock clock;
+  private final Map<String, TradeHistorySegment> segments = new ConcurrentHashMap<>();
+  private TradeHistorySegment current;
+  private LocalDate currentDay;
+  private int currentPart;
+  private long dayEndMillis;
+  private long lastTimeMillis = Long.MIN_VALUE;
+
+  private TradeHistory(Path directory, int fileCapacity, Clock clock) {
+    this.directory = directory;
+    this.fileCapacity = fileCapacity;
+    this.clock = clock;
+  }
+
+  // Method to open the history in a directory, appending after the trades already in it
+  public static TradeHistory open(Path directory, int fileCapacity, Clock clock) {
+    if (fileCapacity <= 0 || TradeHistorySegment.length(fileCapacity) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid trade history file capacity: " + fileCapacity);
+    }
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create trade history directory " + directory, e);
+    }
+    return new TradeHistory(directory, fileCapacity, clock);
+  }
+
+  public synchronized void append(int instrumentId, Order buyOrder, Order sellOrder,
+      BigDecimal price, int quantity) {
+    long timeMillis = Math.max(clock.millis(), lastTimeMillis);
+    if (current == null || timeMillis >= dayEndMillis) {
+      startDay(timeMillis);
+      timeMillis = Math.max(timeMillis, lastTimeMillis);
+    }
+    while (!current.append(timeMillis, instrumentId, buyOrder.getSymbol(), buyOrder, sellOrder,
+        price, quantity)) {
+      current.force();
+      current = segment(fileName(currentDay, ++currentPart));
+    }
+    lastTimeMillis = timeMillis;
+  }
+
+  private void startDay(long timeMillis) {
+    ZoneId zone = clock.getZone();
+    currentDay = Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+    dayEndMillis = currentDay.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    String dayPrefix = FILE_PREFIX + currentDay + "-";
+    List<String> dayFiles = listFiles().stream().filter(name -> name.startsWith(dayPrefix))
+        .collect(Collectors.toList());
+    currentPart = dayFiles.isEmpty() ? 0 : partOf(dayFiles.get(dayFiles.size() - 1));
+    if (current != null) {
+      current.force();
+    }
+    current = segment(fileName(currentDay, currentPart));
+    lastTimeMillis = Math.max(lastTimeMillis, current.getLastTimeMillis());
+  }
+
+  // Trades of a symbol in [fromMillis, toMillis), in time order
+  public List<TradeRecord> findTrades(String symbol, long fromMillis, long toMillis) {
+    List<TradeRecord> trades = new ArrayList<>();
+    scan(symbol, false, 0, fromMillis, toMillis, trades::add);
+    return trades;
+  }
+
+  // Trades of a trader on either side in [fromMillis, toMillis), in time order
+  public List<TradeRecord> findTraderTrades(int traderId, long fromMillis, long toMillis) {
+    List<TradeRecord> trades = new ArrayList<>();
+    scan(null, true, traderId, fromMillis, toMillis, trades::add);
+    return trades;
+  }
+
+  // Method to stream the trades of a symbol, or of every symbol when null, in [fromMillis,
+  // toMillis) to a consumer without collecting them
+  public void forEachTrade(String symbol, long fromMillis, long toMillis,
+      Consumer<TradeRecord> consumer) {
+    scan(symbol, false, 0, fromMillis, toMillis, consumer);
+  }
+
+  private void scan(String symbol, boolean byTrader, int traderId, long fromMillis,
+      long toMillis, Consumer<TradeRecord> consumer) {
+    if (fromMillis >= toMillis) {
+      return;
+    }
+    ZoneId zone = clock.getZone();
+    LocalDate firstDay = Instant.ofEpochMilli(fromMillis).atZone(zone).toLocalDate();
+    LocalDate lastDay = Instant.ofEpochMilli(toMillis - 1).atZone(zone).toLocalDate();
+    for (String name : listFiles()) {
+      LocalDate day = dayOf(name);
+      if (!day.isBefore(firstDay) && !day.isAfter(lastDay)) {
+        segment(name).scan(symbol, byTrader, traderId, fromMillis, toMillis, consumer);
+      }
+    }
+  }
+
+  private TradeHistorySegment segment(String name) {
+    return segments.computeIfAbsent(name,
+        fileName -> TradeHistorySegment.open(directory.resolve(fileName), fileCapacity));
+  }
+
+  // Files of the history in time order
+  private List<String> listFiles() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString())
+          .filter(name -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list trade history directory " + directory, e);
+    }
+  }
+
+  private static String fileName(LocalDate day, int part) {
+    return String.format("%s%s-%04d%s", FILE_PREFIX, day, part, FILE_SUFFIX);
+  }
+
+  private static LocalDate dayOf(String fileName) {
+    return LocalDate.parse(fileName.substring(FILE_PREFIX.length(),
+        fileName.length() - FILE_SUFFIX.length() - 5));
+  }
+
+  private static int partOf(String fileName) {
+    int end = fileName.length() - FILE_SUFFIX.length();
+    return Integer.parseInt(fileName.substring(end - 4, end));
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  // Method to force the file being appended to onto disk
+  @Override
+  public synchronized void close() {
+    if (current != null) {
+      current.force();
+    }
+  }
+}
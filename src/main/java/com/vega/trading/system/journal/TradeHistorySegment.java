@@ -0,0 +1,298 @@
+package com.vega.trading.system.journal;
+
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.TradeRecord;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/* One memory-mapped file of the trade history, holding up to capacity trades in columns.
+ The file is a header, a dictionary of the symbols traded in it (a trade stores the code of its
+ symbol in the file), a sparse block index and one column per field:
+   header      magic(4) version(4) capacity(4) count(4) symbolCount(4), padded to 64 bytes
+   dictionary  MAX_SYMBOLS symbols of length(1) + ASCII characters, 256 bytes each
+   index       per block of BLOCK_TRADES trades: first time(8) last time(8), a bitmap of the
+               symbol codes traded in it (128) and a 256 bit filter of its traders (32)
+   columns     time(8) buy order(16) sell order(16) price(8) buy trader(4) sell trader(4)
+               symbol code(4) quantity(4) price scale(1), each capacity entries long
+ An order id is stored as its two halves, or as 0 and the sequence id for sequenced orders, whose
+ id would never have a zero upper half. Times never decrease within a file, so a scan skips the
+ blocks outside its time range or without its symbol or trader and stops at the end of the range.
+ The count is written last, so a reader sees complete trades only. Appends are serialised by the
+ TradeHistory; scans run concurrently on the mapped columns. */
+final class TradeHistorySegment {
+
+  static final int BLOCK_TRADES = 1024;
+  static final int MAX_SYMBOLS = 1024;
+
+  private static final int MAGIC = 0x54524844; // "TRHD"
+  private static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 64;
+  private static final int COUNT_OFFSET = 12;
+  private static final int SYMBOL_COUNT_OFFSET = 16;
+  private static final int SYMBOL_ENTRY_LENGTH = 256;
+  private static final int SYMBOL_BITMAP_LENGTH = MAX_SYMBOLS / 8;
+  private static final int TRADER_FILTER_LENGTH = 32;
+  private static final int BLOCK_ENTRY_LENGTH = 16 + SYMBOL_BITMAP_LENGTH + TRADER_FILTER_LENGTH;
+  private static final int TRADE_LENGTH = 8 + 16 + 16 + 8 + 4 + 4 + 4 + 4 + 1;
+
+  private final Path file;
+  private final MappedByteBuffer buffer;
+  private final int capacity;
+  private final int indexOffset;
+  private final int timeOffset;
+  private final int buyOrderOffset;
+  private final int sellOrderOffset;
+  private final int priceOffset;
+  private final int buyTraderOffset;
+  private final int sellTraderOffset;
+  private final int symbolOffset;
+  private final int quantityOffset;
+  private final int scaleOffset;
+
+  // Symbols by code, and codes by symbol for scans and by instrument id for appends
+  private final String[] symbols = new String[MAX_SYMBOLS];
+  private final Map<String, Integer> codesBySymbol = new ConcurrentHashMap<>();
+  private int[] codesByInstrumentId = new int[0];
+  private int symbolCount;
+
+  private volatile int count;
+  private long lastTimeMillis = Long.MIN_VALUE;
+
+  private TradeHistorySegment(Path file, MappedByteBuffer buffer, int capacity) {
+    this.file = file;
+    this.buffer = buffer;
+    this.capacity = capacity;
+    this.indexOffset = HEADER_LENGTH + MAX_SYMBOLS * SYMBOL_ENTRY_LENGTH;
+    this.timeOffset = indexOffset + blocks(capacity) * BLOCK_ENTRY_LENGTH;
+    this.buyOrderOffset = timeOffset + capacity * 8;
+    this.sellOrderOffset = buyOrderOffset + capacity * 16;
+    this.priceOffset = sellOrderOffset + capacity * 16;
+    this.buyTraderOffset = priceOffset + capacity * 8;
+    this.sellTraderOffset = buyTraderOffset + capacity * 4;
+    this.symbolOffset = sellTraderOffset + capacity * 4;
+    this.quantityOffset = symbolOffset + capacity * 4;
+    this.scaleOffset = quantityOffset + capacity * 4;
+  }
+
+  // Method to map a new file for appending, or an existing one to carry on appending to or scan
+  static TradeHistorySegment open(Path file, int capacity) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      if (channel.size() >= HEADER_LENGTH) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+          throw new IllegalStateException("Invalid trade history file " + file);
+        }
+        TradeHistorySegment segment = new TradeHistorySegment(file, buffer, buffer.getInt(8));
+        segment.load();
+        return segment;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length(capacity));
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putInt(8, capacity);
+      return new TradeHistorySegment(file, buffer, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map trade history file " + file, e);
+    }
+  }
+
+  static long length(int capacity) {
+    return HEADER_LENGTH + (long) MAX_SYMBOLS * SYMBOL_ENTRY_LENGTH
+        + (long) blocks(capacity) * BLOCK_ENTRY_LENGTH + (long) capacity * TRADE_LENGTH;
+  }
+
+  private static int blocks(int capacity) {
+    return (capacity + BLOCK_TRADES - 1) / BLOCK_TRADES;
+  }
+
+  private void load() {
+    symbolCount = buffer.getInt(SYMBOL_COUNT_OFFSET);
+    for (int code = 0; code < symbolCount; code++) {
+      ByteBuffer entry = buffer.duplicate();
+      entry.position(HEADER_LENGTH + code * SYMBOL_ENTRY_LENGTH);
+      symbols[code] = BinaryFields.getSymbol(entry);
+      codesBySymbol.put(symbols[code], code);
+    }
+    count = buffer.getInt(COUNT_OFFSET);
+    if (count > 0) {
+      lastTimeMillis = buffer.getLong(timeOffset + (count - 1) * 8);
+    }
+  }
+
+  // Method to append a trade; false when the file is full or has no room for a new symbol.
+  // The time must not be before the last appended one.
+  boolean append(long timeMillis, int instrumentId, String symbol, Order buyOrder,
+      Order sellOrder, BigDecimal price, int quantity) {
+    int index = count;
+    if (index == capacity) {
+      return false;
+    }
+    int symbolCode = codeOf(instrumentId, symbol);
+    if (symbolCode < 0) {
+      return false;
+    }
+    BigDecimal normalized = price.scale() > Byte.MAX_VALUE || price.scale() < Byte.MIN_VALUE
+        ? price.setScale(Byte.MAX_VALUE, RoundingMode.HALF_EVEN) : price;
+    buffer.putLong(timeOffset + index * 8, timeMillis);
+    putOrderId(buyOrderOffset + index * 16, buyOrder);
+    putOrderId(sellOrderOffset + index * 16, sellOrder);
+    buffer.putLong(priceOffset + index * 8, normalized.unscaledValue().longValueExact());
+    buffer.putInt(buyTraderOffset + index * 4, buyOrder.getTraderId());
+    buffer.putInt(sellTraderOffset + index * 4, sellOrder.getTraderId());
+    buffer.putInt(symbolOffset + index * 4, symbolCode);
+    buffer.putInt(quantityOffset + index * 4, quantity);
+    buffer.put(scaleOffset + index, (byte) normalized.scale());
+
+    int block = indexOffset + index / BLOCK_TRADES * BLOCK_ENTRY_LENGTH;
+    if (index % BLOCK_TRADES == 0) {
+      buffer.putLong(block, timeMillis);
+    }
+    buffer.putLong(block + 8, timeMillis);
+    setBit(block + 16, symbolCode);
+    setBit(block + 16 + SYMBOL_BITMAP_LENGTH, traderBit(buyOrder.getTraderId()));
+    setBit(block + 16 + SYMBOL_BITMAP_LENGTH, traderBit(sellOrder.getTraderId()));
+
+    lastTimeMillis = timeMillis;
+    buffer.putInt(COUNT_OFFSET, index + 1);
+    count = index + 1;
+    return true;
+  }
+
+  private int codeOf(int instrumentId, String symbol) {
+    if (instrumentId < codesByInstrumentId.length && codesByInstrumentId[instrumentId] >= 0) {
+      return codesByInstrumentId[instrumentId];
+    }
+    Integer code = codesBySymbol.get(symbol);
+    if (code == null) {
+      if (symbolCount == MAX_SYMBOLS) {
+        return -1;
+      }
+      code = symbolCount;
+      ByteBuffer entry = buffer.duplicate();
+      entry.position(HEADER_LENGTH + code * SYMBOL_ENTRY_LENGTH);
+      BinaryFields.putSymbol(entry, symbol);
+      symbols[code] = symbol;
+      codesBySymbol.put(symbol, code);
+      symbolCount++;
+      buffer.putInt(SYMBOL_COUNT_OFFSET, symbolCount);
+    }
+    if (instrumentId >= codesByInstrumentId.length) {
+      int length = codesByInstrumentId.length;
+      codesByInstrumentId = Arrays.copyOf(codesByInstrumentId, Math.max(instrumentId + 1,
+          length * 2));
+      Arrays.fill(codesByInstrumentId, length, codesByInstrumentId.length, -1);
+    }
+    codesByInstrumentId[instrumentId] = code;
+    return code;
+  }
+
+  private void putOrderId(int offset, Order order) {
+    UUID orderId = order.getOrderId();
+    if (orderId == null) {
+      buffer.putLong(offset, 0);
+      buffer.putLong(offset + 8, order.getSequenceId());
+    } else {
+      buffer.putLong(offset, orderId.getMostSignificantBits());
+      buffer.putLong(offset + 8, orderId.getLeastSignificantBits());
+    }
+  }
+
+  private void setBit(int offset, int bit) {
+    int byteOffset = offset + (bit >>> 3);
+    buffer.put(byteOffset, (byte) (buffer.get(byteOffset) | 1 << (bit & 7)));
+  }
+
+  private boolean isBitSet(int offset, int bit) {
+    return (buffer.get(offset + (bit >>> 3)) & 1 << (bit & 7)) != 0;
+  }
+
+  private static int traderBit(int traderId) {
+    return (traderId * 0x9E3779B9) >>> 24;
+  }
+
+  // Method to pass the trades in [fromMillis, toMillis) of a symbol (any when null) and a trader
+  // (any when not byTrader) to the consumer, in time order
+  void scan(String symbol, boolean byTrader, int traderId, long fromMillis, long toMillis,
+      Consumer<TradeRecord> consumer) {
+    int tradeCount = count;
+    int symbolCode = -1;
+    if (symbol != null) {
+      Integer code = codesBySymbol.get(symbol);
+      if (code == null) {
+        return;
+      }
+      symbolCode = code;
+    }
+    for (int start = 0; start < tradeCount; start += BLOCK_TRADES) {
+      int block = indexOffset + start / BLOCK_TRADES * BLOCK_ENTRY_LENGTH;
+      if (buffer.getLong(block) >= toMillis) {
+        return;
+      }
+      if (buffer.getLong(block + 8) < fromMillis
+          || symbolCode >= 0 && !isBitSet(block + 16, symbolCode)
+          || byTrader && !isBitSet(block + 16 + SYMBOL_BITMAP_LENGTH, traderBit(traderId))) {
+        continue;
+      }
+      int end = Math.min(start + BLOCK_TRADES, tradeCount);
+      for (int index = start; index < end; index++) {
+        long timeMillis = buffer.getLong(timeOffset + index * 8);
+        if (timeMillis < fromMillis) {
+          continue;
+        }
+        if (timeMillis >= toMillis) {
+          return;
+        }
+        if (symbolCode >= 0 && buffer.getInt(symbolOffset + index * 4) != symbolCode) {
+          continue;
+        }
+        if (byTrader && buffer.getInt(buyTraderOffset + index * 4) != traderId
+            && buffer.getInt(sellTraderOffset + index * 4) != traderId) {
+          continue;
+        }
+        consumer.accept(read(index, timeMillis));
+      }
+    }
+  }
+
+  private TradeRecord read(int index, long timeMillis) {
+    long buyHigh = buffer.getLong(buyOrderOffset + index * 16);
+    long buyLow = buffer.getLong(buyOrderOffset + index * 16 + 8);
+    long sellHigh = buffer.getLong(sellOrderOffset + index * 16);
+    long sellLow = buffer.getLong(sellOrderOffset + index * 16 + 8);
+    BigDecimal price = BigDecimal.valueOf(buffer.getLong(priceOffset + index * 8),
+        buffer.get(scaleOffset + index));
+    return new TradeRecord(timeMillis, symbols[buffer.getInt(symbolOffset + index * 4)],
+        buyHigh == 0 ? null : new UUID(buyHigh, buyLow),
+        buyHigh == 0 ? buyLow : Order.NO_SEQUENCE_ID,
+        buffer.getInt(buyTraderOffset + index * 4),
+        sellHigh == 0 ? null : new UUID(sellHigh, sellLow),
+        sellHigh == 0 ? sellLow : Order.NO_SEQUENCE_ID,
+        buffer.getInt(sellTraderOffset + index * 4), price,
+        buffer.getInt(quantityOffset + index * 4));
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  long getLastTimeMillis() {
+    return lastTimeMillis;
+  }
+
+  void force() {
+    buffer.force();
+  }
+}
@@ -0,0 +1,89 @@
+package com.vega.trading.system.marketdata;
+
+/* One time bar of a symbol: open, high, low and close trade prices, traded volume and VWAP over
+ [startMillis, startMillis + intervalMillis). A copy taken from the BarAggregator; the bar of the
+ current interval keeps changing in the aggregator after the copy is made. */
+public class Bar {
+
+  private final String symbol;
+  private final long intervalMillis;
+  private final long startMillis;
+  private final double open;
+  private final double high;
+  private final double low;
+  private final double close;
+  private final long volume;
+  private final long tradeCount;
+  private final double vwap;
+
+  public Bar(String symbol, long intervalMillis, long startMillis, double open, double high,
+      double low, double close, long volume, long tradeCount, double vwap) {
+    this.symbol = symbol;
+    this.intervalMillis = intervalMillis;
+    this.startMillis = startMillis;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.volume = volume;
+    this.tradeCount = tradeCount;
+    this.vwap = vwap;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  public long getStartMillis() {
+    return startMillis;
+  }
+
+  public double getOpen() {
+    return open;
+  }
+
+  public double getHigh() {
+    return high;
+  }
+
+  public double getLow() {
+    return low;
+  }
+
+  public double getClose() {
+    return close;
+  }
+
+  public long getVolume() {
+    return volume;
+  }
+
+  public long getTradeCount() {
+    return tradeCount;
+  }
+
+  // Volume weighted average price of the trades of the bar
+  public double getVwap() {
+    return vwap;
+  }
+
+  @Override
+  public String toString() {
+    return "Bar{" +
+        "symbol='" + symbol + '\'' +
+        ", intervalMillis=" + intervalMillis +
+        ", startMillis=" + startMillis +
+        ", open=" + open +
+        ", high=" + high +
+        ", low=" + low +
+        ", close=" + close +
+        ", volume=" + volume +
+        ", tradeCount=" + tradeCount +
+        ", vwap=" + vwap +
+        '}';
+  }
+}
@@ -0,0 +1,203 @@
+package com.vega.trading.system.marketdata;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.model.CompositeFinancialInstrument;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.InstrumentIndex;
+import com.vega.trading.system.model.InstrumentRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Streaming OHLCV and VWAP bars of every traded symbol, for each configured interval.
+ It is fed with every fill by the shard owning the symbol. A fill costs one primitive update per
+ interval, see BarSeries, and allocates nothing once the symbol has traded before: the series of
+ a symbol are found by instrument id and prices are kept as doubles.
+
+ Registered composites are rolled up from their legs: every fill of a leg prices the composite as
+ the weighted sum of the last leg prices and records that price with the quantity of the fill, so
+ the VWAP of a composite is its price weighted by the volume traded in its legs. */
+public class BarAggregator {
+
+  private final InstrumentRegistry instrumentRegistry;
+  private final long[] intervalsMillis;
+  private final int history; // Bars kept per symbol and interval
+  private final Clock clock;
+
+  // One series per interval, by instrument id of the traded symbol
+  private final InstrumentIndex<BarSeries[]> seriesByInstrument;
+
+  // Composite legs by underlying instrument id; replaced as a whole when composites change
+  private final InstrumentIndex<CompositeLeg[]> legsByUnderlying;
+  private final Map<String, CompositeBars> composites = new ConcurrentHashMap<>();
+
+  public BarAggregator(InstrumentRegistry instrumentRegistry, long[] intervalsMillis, int history,
+      Clock clock) {
+    if (intervalsMillis.length == 0 || history < 1) {
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_BAR_CONFIGURATION);
+    }
+    for (long intervalMillis : intervalsMillis) {
+      if (intervalMillis <= 0) {
+        throw new IllegalArgumentException(ExceptionMessages.INVALID_BAR_CONFIGURATION);
+      }
+    }
+    this.instrumentRegistry = instrumentRegistry;
+    this.intervalsMillis = intervalsMillis.clone();
+    this.history = history;
+    this.clock = clock;
+    this.seriesByInstrument = new InstrumentIndex<>(instrumentRegistry);
+    this.legsByUnderlying = new InstrumentIndex<>(instrumentRegistry);
+  }
+
+  // Method to record a fill, on the shard owning the symbol
+  public void onTrade(int instrumentId, BigDecimal price, int quantity) {
+    long timeMillis = clock.millis();
+    double tradePrice = price.doubleValue();
+    BarSeries[] series = seriesByInstrument.get(instrumentId);
+    if (series == null) {
+      series = seriesByInstrument.computeIfAbsent(instrumentId,
+          id -> newSeries(instrumentRegistry.symbolOf(id)));
+    }
+    for (BarSeries intervalSeries : series) {
+      intervalSeries.record(timeMillis, tradePrice, quantity);
+    }
+    CompositeLeg[] legs = legsByUnderlying.get(instrumentId);
+    if (legs != null) {
+      for (CompositeLeg leg : legs) {
+        leg.composite.onLegTrade(leg.index, timeMillis, tradePrice, quantity);
+      }
+    }
+  }
+
+  // Method to roll a composite up from its legs, starting from the current prices of its
+  // underlying instruments. Replaces an earlier registration of the same symbol.
+  public synchronized void registerComposite(CompositeFinancialInstrument compositeInstrument) {
+    unregisterComposite(compositeInstrument.getSymbol());
+    List<FinancialInstrument> underlyings = compositeInstrument.getUnderlyingInstruments();
+    List<BigDecimal> weights = compositeInstrument.getWeights();
+    CompositeBars compositeBars = new CompositeBars(newSeries(compositeInstrument.getSymbol()),
+        underlyings.size());
+    for (int i = 0; i < underlyings.size(); i++) {
+      BigDecimal legPrice = underlyings.get(i).getMarketPrice();
+      compositeBars.weights[i] = weights.get(i).doubleValue();
+      compositeBars.legPrices[i] = legPrice == null ? Double.NaN : legPrice.doubleValue();
+    }
+    composites.put(compositeInstrument.getSymbol(), compositeBars);
+    for (int i = 0; i < underlyings.size(); i++) {
+      int instrumentId = instrumentRegistry.register(underlyings.get(i).getSymbol());
+      CompositeLeg[] legs = legsByUnderlying.get(instrumentId);
+      CompositeLeg[] grown = legs == null ? new CompositeLeg[1]
+          : Arrays.copyOf(legs, legs.length + 1);
+      grown[grown.length - 1] = new CompositeLeg(compositeBars, i);
+      legsByUnderlying.put(instrumentId, grown);
+    }
+  }
+
+  public synchronized void unregisterComposite(String symbol) {
+    CompositeBars removed = composites.remove(symbol);
+    if (removed == null) {
+      return;
+    }
+    for (Map.Entry<String, CompositeLeg[]> entry : legsByUnderlying.entrySet()) {
+      CompositeLeg[] remaining = Arrays.stream(entry.getValue())
+          .filter(leg -> leg.composite != removed).toArray(CompositeLeg[]::new);
+      if (remaining.length == 0) {
+        legsByUnderlying.remove(instrumentRegistry.idOf(entry.getKey()));
+      } else if (remaining.length != entry.getValue().length) {
+        legsByUnderlying.put(instrumentRegistry.idOf(entry.getKey()), remaining);
+      }
+    }
+  }
+
+  // Latest bar of a symbol or composite for the interval, the current one if it traded in it;
+  // null before its first trade
+  public Bar getLatestBar(String symbol, long intervalMillis) {
+    BarSeries series = seriesOf(symbol, intervalMillis);
+    return series == null ? null : series.latest();
+  }
+
+  // Up to count latest bars of a symbol or composite for the interval, oldest first
+  public List<Bar> getBars(String symbol, long intervalMillis, int count) {
+    BarSeries series = seriesOf(symbol, intervalMillis);
+    return series == null ? Collections.emptyList() : series.latest(count);
+  }
+
+  public long[] getIntervalsMillis() {
+    return intervalsMillis.clone();
+  }
+
+  public int getHistory() {
+    return history;
+  }
+
+  private BarSeries seriesOf(String symbol, long intervalMillis) {
+    int index = indexOf(intervalMillis);
+    CompositeBars compositeBars = composites.get(symbol);
+    if (compositeBars != null) {
+      return compositeBars.series[index];
+    }
+    int instrumentId = instrumentRegistry.idOf(symbol);
+    BarSeries[] series = instrumentId == InstrumentRegistry.NO_INSTRUMENT_ID ? null
+        : seriesByInstrument.get(instrumentId);
+    return series == null ? null : series[index];
+  }
+
+  private int indexOf(long intervalMillis) {
+    for (int i = 0; i < intervalsMillis.length; i++) {
+      if (intervalsMillis[i] == intervalMillis) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(ExceptionMessages.UNKNOWN_BAR_INTERVAL + intervalMillis);
+  }
+
+  private BarSeries[] newSeries(String symbol) {
+    BarSeries[] series = new BarSeries[intervalsMillis.length];
+    for (int i = 0; i < series.length; i++) {
+      series[i] = new BarSeries(symbol, intervalsMillis[i], history);
+    }
+    return series;
+  }
+
+  // Bars of a composite with the last price of each of its legs. Legs trade on different shards,
+  // so the price is computed under the instance lock.
+  private static final class CompositeBars {
+    private final BarSeries[] series;
+    private final double[] weights;
+    private final double[] legPrices; // NaN until the leg has a price
+
+    private CompositeBars(BarSeries[] series, int legs) {
+      this.series = series;
+      this.weights = new double[legs];
+      this.legPrices = new double[legs];
+    }
+
+    private synchronized void onLegTrade(int leg, long timeMillis, double price, long quantity) {
+      legPrices[leg] = price;
+      double compositePrice = 0;
+      for (int i = 0; i < legPrices.length; i++) {
+        compositePrice += weights[i] * legPrices[i];
+      }
+      if (Double.isNaN(compositePrice)) {
+        return;
+      }
+      for (BarSeries intervalSeries : series) {
+        intervalSeries.record(timeMillis, compositePrice, quantity);
+      }
+    }
+  }
+
+  private static final class CompositeLeg {
+    private final CompositeBars composite;
+    private final int index; // Position of the leg in the composite
+
+    private CompositeLeg(CompositeBars composite, int index) {
+      this.composite = composite;
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.vega.trading.system.marketdata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* The latest bars of one symbol for one interval, in a ring of parallel primitive arrays.
+ Bars are aligned on the epoch and only exist for intervals with trades. Recording a trade
+ updates the current bar in place, or recycles the slot of the oldest bar when a new interval
+ starts, so it never allocates. A trade stamped before the current bar, e.g. from another shard
+ rolling up into a composite, is counted in the current bar. Guarded by the instance. */
+final class BarSeries {
+
+  private final String symbol;
+  private final long intervalMillis;
+  private final long[] startMillis;
+  private final double[] open;
+  private final double[] high;
+  private final double[] low;
+  private final double[] close;
+  private final double[] notional; // Sum of price * quantity, for the VWAP
+  private final long[] volume;
+  private final long[] tradeCount;
+  private int current = -1; // Slot of the latest bar, -1 before the first trade
+  private int size;
+
+  BarSeries(String symbol, long intervalMillis, int capacity) {
+    this.symbol = symbol;
+    this.intervalMillis = intervalMillis;
+    this.startMillis = new long[capacity];
+    this.open = new double[capacity];
+    this.high = new double[capacity];
+    this.low = new double[capacity];
+    this.close = new double[capacity];
+    this.notional = new double[capacity];
+    this.volume = new long[capacity];
+    this.tradeCount = new long[capacity];
+  }
+
+  long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  synchronized void record(long timeMillis, double price, long quantity) {
+    long barStart = timeMillis - Math.floorMod(timeMillis, intervalMillis);
+    if (current < 0 || barStart > startMillis[current]) {
+      current = current + 1 == startMillis.length ? 0 : current + 1;
+      size = Math.min(size + 1, startMillis.length);
+      startMillis[current] = barStart;
+      open[current] = price;
+      high[current] = price;
+      low[current] = price;
+      close[current] = price;
+      notional[current] = price * quantity;
+      volume[current] = quantity;
+      tradeCount[current] = 1;
+      return;
+    }
+    high[current] = Math.max(high[current], price);
+    low[current] = Math.min(low[current], price);
+    close[current] = price;
+    notional[current] += price * quantity;
+    volume[current] += quantity;
+    tradeCount[current]++;
+  }
+
+  synchronized Bar latest() {
+    return current < 0 ? null : bar(current);
+  }
+
+  // Up to count latest bars, oldest first
+  synchronized List<Bar> latest(int count) {
+    int bars = Math.min(count, size);
+    List<Bar> latestBars = new ArrayList<>(bars);
+    for (int i = bars - 1; i >= 0; i--) {
+      latestBars.add(bar(Math.floorMod(current - i, startMillis.length)));
+    }
+    return latestBars;
+  }
+
+  private Bar bar(int slot) {
+    return new Bar(symbol, intervalMillis, startMillis[slot], open[slot], high[slot], low[slot],
+        close[slot], volume[slot], tradeCount[slot],
+        volume[slot] == 0 ? close[slot] : notional[slot] / volume[slot]);
+  }
+}
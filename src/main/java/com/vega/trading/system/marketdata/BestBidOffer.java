@@ -0,0 +1,73 @@
+package com.vega.trading.system.marketdata;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/* Top of the book of a symbol: best bid and best ask with the quantity resting at each.
+ A missing side has a null price and zero quantity; unpriced (market) orders show as a null
+ price with their quantity. */
+public class BestBidOffer {
+  private final String symbol;
+  private final BigDecimal bidPrice;
+  private final long bidQuantity;
+  private final BigDecimal askPrice;
+  private final long askQuantity;
+  private final long timestamp;
+  private final long publishedNanos; // System.nanoTime() at publication, to measure delivery lag
+
+  public BestBidOffer(String symbol, BigDecimal bidPrice, long bidQuantity, BigDecimal askPrice,
+      long askQuantity, long timestamp, long publishedNanos) {
+    this.symbol = symbol;
+    this.bidPrice = bidPrice;
+    this.bidQuantity = bidQuantity;
+    this.askPrice = askPrice;
+    this.askQuantity = askQuantity;
+    this.timestamp = timestamp;
+    this.publishedNanos = publishedNanos;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public BigDecimal getBidPrice() {
+    return bidPrice;
+  }
+
+  public long getBidQuantity() {
+    return bidQuantity;
+  }
+
+  public BigDecimal getAskPrice() {
+    return askPrice;
+  }
+
+  public long getAskQuantity() {
+    return askQuantity;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  long getPublishedNanos() {
+    return publishedNanos;
+  }
+
+  // Same quotes on both sides, regardless of when they were taken
+  boolean sameQuotes(BigDecimal bidPrice, long bidQuantity, BigDecimal askPrice,
+      long askQuantity) {
+    return this.bidQuantity == bidQuantity && this.askQuantity == askQuantity
+        && Objects.equals(this.bidPrice, bidPrice) && Objects.equals(this.askPrice, askPrice);
+  }
+
+  @Override
+  public String toString() {
+    return "BestBidOffer{" +
+        "symbol='" + symbol + '\'' +
+        ", bid=" + bidQuantity + "@" + bidPrice +
+        ", ask=" + askQuantity + "@" + askPrice +
+        ", timestamp=" + timestamp +
+        '}';
+  }
+}
@@ -0,0 +1,11 @@
+package com.vega.trading.system.marketdata;
+
+/* Receives the market data of a subscription, on the subscription's own delivery thread. */
+public interface MarketDataListener {
+
+  default void onTrade(TradePrint tradePrint) {
+  }
+
+  default void onBestBidOffer(BestBidOffer bestBidOffer) {
+  }
+}
@@ -0,0 +1,110 @@
+package com.vega.trading.system.marketdata;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.PriceLevel;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/* Fans trade prints and top of book changes out to the market data subscribers.
+ It is fed by the matching shards: each symbol is only published from the shard owning it, so the
+ last quote of a symbol has a single writer. Publishing never blocks on a subscriber, see
+ MarketDataSubscription, and a quote is only published when the top of the book changed. */
+public class MarketDataPublisher {
+
+  private final List<MarketDataSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  // Last published best bid and offer by symbol, only tracked while there are subscribers
+  private final Map<String, BestBidOffer> lastQuotes = new ConcurrentHashMap<>();
+
+  // Method to subscribe to the trades and quotes of the given symbols, or of every symbol when
+  // symbols is null. The subscriber first receives the current quotes of its symbols, as far as
+  // they were published to earlier subscribers; other books are quoted on their next change.
+  public MarketDataSubscription subscribe(Collection<String> symbols, MarketDataListener listener,
+      int queueCapacity) {
+    if (listener == null || queueCapacity <= 0) {
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_SUBSCRIPTION);
+    }
+    MarketDataSubscription subscription = new MarketDataSubscription(
+        symbols == null ? null : new HashSet<>(symbols), listener, queueCapacity);
+    subscriptions.add(subscription);
+    for (BestBidOffer bestBidOffer : lastQuotes.values()) {
+      if (subscription.isSubscribedTo(bestBidOffer.getSymbol())) {
+        subscription.offerQuote(bestBidOffer);
+      }
+    }
+    subscription.start();
+    return subscription;
+  }
+
+  public void unsubscribe(MarketDataSubscription subscription) {
+    if (subscriptions.remove(subscription)) {
+      subscription.close();
+    }
+  }
+
+  // Method to publish an executed trade, on the shard owning the symbol
+  public void publishTrade(String symbol, BigDecimal price, int quantity) {
+    if (subscriptions.isEmpty()) {
+      return;
+    }
+    TradePrint tradePrint = new TradePrint(symbol, price, quantity, System.currentTimeMillis(),
+        System.nanoTime());
+    for (MarketDataSubscription subscription : subscriptions) {
+      if (subscription.isSubscribedTo(symbol)) {
+        subscription.offerTrade(tradePrint);
+      }
+    }
+  }
+
+  // Method to publish the top of a book after it changed, on the shard owning the book.
+  // Nothing is published while the best bid and offer stay the same.
+  public void onBookChanged(LimitOrderBook limitOrderBook) {
+    String symbol = limitOrderBook.getSymbol();
+    if (subscriptions.isEmpty()) {
+      // Forget the quote, so the next subscriber gets the first change whatever the book was
+      lastQuotes.remove(symbol);
+      return;
+    }
+    PriceLevel bid = limitOrderBook.getBidLevel(0);
+    PriceLevel ask = limitOrderBook.getAskLevel(0);
+    BigDecimal bidPrice = bid == null ? null : bid.getPrice();
+    long bidQuantity = bid == null ? 0 : bid.getTotalQuantity();
+    BigDecimal askPrice = ask == null ? null : ask.getPrice();
+    long askQuantity = ask == null ? 0 : ask.getTotalQuantity();
+    BestBidOffer lastQuote = lastQuotes.get(symbol);
+    if (lastQuote == null ? bid == null && ask == null
+        : lastQuote.sameQuotes(bidPrice, bidQuantity, askPrice, askQuantity)) {
+      return;
+    }
+    BestBidOffer bestBidOffer = new BestBidOffer(symbol, bidPrice, bidQuantity, askPrice,
+        askQuantity, System.currentTimeMillis(), System.nanoTime());
+    lastQuotes.put(symbol, bestBidOffer);
+    for (MarketDataSubscription subscription : subscriptions) {
+      if (subscription.isSubscribedTo(symbol)) {
+        subscription.offerQuote(bestBidOffer);
+      }
+    }
+  }
+
+  // Last published best bid and offer of a symbol, or null without subscribers
+  public BestBidOffer getBestBidOffer(String symbol) {
+    return lastQuotes.get(symbol);
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  // Method to stop every subscription
+  public void close() {
+    for (MarketDataSubscription subscription : subscriptions) {
+      unsubscribe(subscription);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.vega.trading.system.marketdata;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/* A subscriber to the market data of a set of symbols, with its own delivery thread.
+ The matching shards never wait for a subscriber: trade prints go through a bounded queue and are
+ dropped (and counted) once it is full, while quotes are conflated, keeping only the latest best
+ bid and offer of each symbol not delivered yet. A slow subscriber therefore loses intermediate
+ quotes but always ends up on the current top of the book. */
+@Slf4j
+public class MarketDataSubscription {
+
+  // Upper bound on an idle park, so a missed wake-up only delays delivery
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final Set<String> symbols; // null for every symbol
+  private final MarketDataListener listener;
+  private final ArrayBlockingQueue<TradePrint> trades;
+  private final Map<String, BestBidOffer> pendingQuotes = new ConcurrentHashMap<>();
+  private final Thread deliveryThread;
+  private volatile boolean running = true;
+
+  private final AtomicLong deliveredTrades = new AtomicLong();
+  private final AtomicLong droppedTrades = new AtomicLong();
+  private final AtomicLong deliveredQuotes = new AtomicLong();
+  private final AtomicLong conflatedQuotes = new AtomicLong();
+  private volatile long maxDeliveryLagNanos; // Only written by the delivery thread
+
+  MarketDataSubscription(Set<String> symbols, MarketDataListener listener, int queueCapacity) {
+    this.symbols = symbols;
+    this.listener = listener;
+    this.trades = new ArrayBlockingQueue<>(queueCapacity);
+    this.deliveryThread = new Thread(this::deliver, "market-data-subscriber");
+    deliveryThread.setDaemon(true);
+  }
+
+  void start() {
+    deliveryThread.start();
+  }
+
+  boolean isSubscribedTo(String symbol) {
+    return symbols == null || symbols.contains(symbol);
+  }
+
+  // Called from the matching shards: never blocks
+  void offerTrade(TradePrint tradePrint) {
+    if (trades.offer(tradePrint)) {
+      LockSupport.unpark(deliveryThread);
+    } else {
+      droppedTrades.incrementAndGet();
+    }
+  }
+
+  // Called from the matching shards: replaces the quote of the symbol not delivered yet, if any
+  void offerQuote(BestBidOffer bestBidOffer) {
+    if (pendingQuotes.put(bestBidOffer.getSymbol(), bestBidOffer) != null) {
+      conflatedQuotes.incrementAndGet();
+    }
+    LockSupport.unpark(deliveryThread);
+  }
+
+  private void deliver() {
+    while (running) {
+      boolean delivered = deliverTrades() | deliverQuotes();
+      if (!delivered) {
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+      }
+    }
+  }
+
+  private boolean deliverTrades() {
+    boolean delivered = false;
+    TradePrint tradePrint = trades.poll();
+    while (tradePrint != null && running) {
+      try {
+        listener.onTrade(tradePrint);
+      } catch (RuntimeException e) {
+        log.error("Market data listener failed on {}", tradePrint, e);
+      }
+      deliveredTrades.incrementAndGet();
+      recordLag(tradePrint.getPublishedNanos());
+      delivered = true;
+      tradePrint = trades.poll();
+    }
+    return delivered;
+  }
+
+  private boolean deliverQuotes() {
+    boolean delivered = false;
+    Iterator<BestBidOffer> iterator = pendingQuotes.values().iterator();
+    while (iterator.hasNext() && running) {
+      BestBidOffer bestBidOffer = iterator.next();
+      // Removed only if no newer quote replaced it meanwhile; a newer one is delivered next pass
+      if (!pendingQuotes.remove(bestBidOffer.getSymbol(), bestBidOffer)) {
+        continue;
+      }
+      try {
+        listener.onBestBidOffer(bestBidOffer);
+      } catch (RuntimeException e) {
+        log.error("Market data listener failed on {}", bestBidOffer, e);
+      }
+      deliveredQuotes.incrementAndGet();
+      recordLag(bestBidOffer.getPublishedNanos());
+      delivered = true;
+    }
+    return delivered;
+  }
+
+  private void recordLag(long publishedNanos) {
+    long lagNanos = System.nanoTime() - publishedNanos;
+    if (lagNanos > maxDeliveryLagNanos) {
+      maxDeliveryLagNanos = lagNanos;
+    }
+  }
+
+  // Method to stop delivering; market data still queued is discarded
+  void close() {
+    running = false;
+    LockSupport.unpark(deliveryThread);
+    if (Thread.currentThread() != deliveryThread) {
+      try {
+        deliveryThread.join(TimeUnit.SECONDS.toMillis(1));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public long getDeliveredTrades() {
+    return deliveredTrades.get();
+  }
+
+  // Trade prints lost because the queue was full
+  public long getDroppedTrades() {
+    return droppedTrades.get();
+  }
+
+  public long getDeliveredQuotes() {
+    return deliveredQuotes.get();
+  }
+
+  // Quotes replaced by a newer one of the same symbol before being delivered
+  public long getConflatedQuotes() {
+    return conflatedQuotes.get();
+  }
+
+  // Trade prints waiting for delivery
+  public int getQueuedTrades() {
+    return trades.size();
+  }
+
+  // Longest time between publishing market data and handing it to the listener
+  public long getMaxDeliveryLagNanos() {
+    return maxDeliveryLagNanos;
+  }
+}
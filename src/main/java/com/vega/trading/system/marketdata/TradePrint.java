@@ -0,0 +1,51 @@
+package com.vega.trading.system.marketdata;
+
+import java.math.BigDecimal;
+
+/* Public print of an executed trade: what traded, how much and at what price. */
+public class TradePrint {
+  private final String symbol;
+  private final BigDecimal price;
+  private final int quantity;
+  private final long timestamp;
+  private final long publishedNanos; // System.nanoTime() at publication, to measure delivery lag
+
+  public TradePrint(String symbol, BigDecimal price, int quantity, long timestamp,
+      long publishedNanos) {
+    this.symbol = symbol;
+    this.price = price;
+    this.quantity = quantity;
+    this.timestamp = timestamp;
+    this.publishedNanos = publishedNanos;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  long getPublishedNanos() {
+    return publishedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "TradePrint{" +
+        "symbol='" + symbol + '\'' +
+        ", price=" + price +
+        ", quantity=" + quantity +
+        ", timestamp=" + timestamp +
+        '}';
+  }
+}
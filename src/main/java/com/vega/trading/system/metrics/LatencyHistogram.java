@@ -0,0 +1,79 @@
+package com.vega.trading.system.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Latency histogram with HDR-style log-linear buckets over nanoseconds.
+ Values below 64 have a bucket each; above, every power of two is split into 32 linear
+ sub-buckets, bounding the error of any reported value to about 3% across the whole long range
+ with under two thousand buckets. Recording is a few atomic increments on preallocated arrays:
+ lock-free and allocation-free, so it can run on the matching hot path. */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong totalCount = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    counts.incrementAndGet(bucketOf(value));
+    totalCount.incrementAndGet();
+    totalNanos.addAndGet(value);
+    long max = maxNanos.get();
+    while (value > max && !maxNanos.compareAndSet(max, value)) {
+      max = maxNanos.get();
+    }
+  }
+
+  // Method to summarise the recorded values. Concurrent recordings may or may not be included.
+  public LatencySnapshot snapshot() {
+    long[] bucketCounts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      bucketCounts[i] = counts.get(i);
+      count += bucketCounts[i];
+    }
+    long max = maxNanos.get();
+    if (count == 0) {
+      return new LatencySnapshot(0, 0, 0, 0, 0, 0);
+    }
+    return new LatencySnapshot(count, (double) totalNanos.get() / totalCount.get(),
+        percentile(bucketCounts, count, 0.50, max), percentile(bucketCounts, count, 0.99, max),
+        percentile(bucketCounts, count, 0.999, max), max);
+  }
+
+  // Highest value of the bucket holding the given rank, capped by the recorded maximum
+  private static long percentile(long[] bucketCounts, long count, double quantile, long max) {
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += bucketCounts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int bucketOf(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  static long highestValueOf(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,57 @@
+package com.vega.trading.system.metrics;
+
+/* Latency percentiles of one operation, in nanoseconds, at the time of the snapshot. */
+public class LatencySnapshot {
+
+  private final long count;
+  private final double meanNanos;
+  private final long p50Nanos;
+  private final long p99Nanos;
+  private final long p999Nanos;
+  private final long maxNanos;
+
+  public LatencySnapshot(long count, double meanNanos, long p50Nanos, long p99Nanos,
+      long p999Nanos, long maxNanos) {
+    this.count = count;
+    this.meanNanos = meanNanos;
+    this.p50Nanos = p50Nanos;
+    this.p99Nanos = p99Nanos;
+    this.p999Nanos = p999Nanos;
+    this.maxNanos = maxNanos;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMeanNanos() {
+    return meanNanos;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getP999Nanos() {
+    return p999Nanos;
+  }
+
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencySnapshot{" +
+        "count=" + count +
+        ", p50=" + p50Nanos +
+        ", p99=" + p99Nanos +
+        ", p99.9=" + p999Nanos +
+        ", max=" + maxNanos +
+        '}';
+  }
+}
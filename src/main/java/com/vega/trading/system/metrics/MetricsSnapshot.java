@@ -0,0 +1,120 @@
+package com.vega.trading.system.metrics;
+
+import com.vega.trading.system.enumeration.MetricOperation;
+import java.util.Collections;
+import java.util.Map;
+
+/* Point in time view of the trading system metrics: latencies per operation, event counters and
+ gauges of the book depth per symbol and of the matching shard queues. Gauges are read without
+ stopping the shards, so they may lag a command being processed. */
+public class MetricsSnapshot {
+
+  private final long timestamp;
+  private final Map<MetricOperation, LatencySnapshot> latencies;
+  private final long ordersIn;
+  private final long fills;
+  private final long cancels;
+  private final long rejects;
+  private final Map<String, BookDepth> bookDepths;
+  private final int[] shardQueueDepths;
+
+  public MetricsSnapshot(long timestamp, Map<MetricOperation, LatencySnapshot> latencies,
+      long ordersIn, long fills, long cancels, long rejects, Map<String, BookDepth> bookDepths,
+      int[] shardQueueDepths) {
+    this.timestamp = timestamp;
+    this.latencies = Collections.unmodifiableMap(latencies);
+    this.ordersIn = ordersIn;
+    this.fills = fills;
+    this.cancels = cancels;
+    this.rejects = rejects;
+    this.bookDepths = Collections.unmodifiableMap(bookDepths);
+    this.shardQueueDepths = shardQueueDepths.clone();
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public LatencySnapshot getLatency(MetricOperation operation) {
+    return latencies.get(operation);
+  }
+
+  public Map<MetricOperation, LatencySnapshot> getLatencies() {
+    return latencies;
+  }
+
+  // Orders accepted for matching, composite orders counting once
+  public long getOrdersIn() {
+    return ordersIn;
+  }
+
+  // Trades executed
+  public long getFills() {
+    return fills;
+  }
+
+  // Orders cancelled
+  public long getCancels() {
+    return cancels;
+  }
+
+  // Orders refused as invalid or duplicate
+  public long getRejects() {
+    return rejects;
+  }
+
+  public Map<String, BookDepth> getBookDepths() {
+    return bookDepths;
+  }
+
+  // Commands waiting in the queue of each matching shard
+  public int[] getShardQueueDepths() {
+    return shardQueueDepths.clone();
+  }
+
+  @Override
+  public String toString() {
+    return "MetricsSnapshot{" +
+        "ordersIn=" + ordersIn +
+        ", fills=" + fills +
+        ", cancels=" + cancels +
+        ", rejects=" + rejects +
+        ", latencies=" + latencies +
+        '}';
+  }
+
+  /* Resting orders and price levels on each side of one book. */
+  public static class BookDepth {
+
+    private final int orders;
+    private final int bidLevels;
+    private final int askLevels;
+
+    public BookDepth(int orders, int bidLevels, int askLevels) {
+      this.orders = orders;
+      this.bidLevels = bidLevels;
+      this.askLevels = askLevels;
+    }
+
+    public int getOrders() {
+      return orders;
+    }
+
+    public int getBidLevels() {
+      return bidLevels;
+    }
+
+    public int getAskLevels() {
+      return askLevels;
+    }
+
+    @Override
+    public String toString() {
+      return "BookDepth{" +
+          "orders=" + orders +
+          ", bidLevels=" + bidLevels +
+          ", askLevels=" + askLevels +
+          '}';
+    }
+  }
+}
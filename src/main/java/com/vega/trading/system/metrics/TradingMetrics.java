@@ -0,0 +1,77 @@
+package com.vega.trading.system.metrics;
+
+import com.vega.trading.system.enumeration.MetricOperation;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Latency histograms and event counters of a trading system.
+ Hot path code brackets an operation with start() and record(); both are lock-free and
+ allocation-free, and cost nothing but a branch when metrics are disabled. */
+public class TradingMetrics {
+
+  private final boolean enabled;
+  private final LatencyHistogram[] histograms;
+  private final LongAdder ordersIn = new LongAdder();
+  private final LongAdder fills = new LongAdder();
+  private final LongAdder cancels = new LongAdder();
+  private final LongAdder rejects = new LongAdder();
+
+  public TradingMetrics(boolean enabled) {
+    this.enabled = enabled;
+    this.histograms = new LatencyHistogram[MetricOperation.values().length];
+    for (int i = 0; i < histograms.length; i++) {
+      histograms[i] = new LatencyHistogram();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // Start time of an operation to pass to record(), 0 when disabled
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  public void record(MetricOperation operation, long startNanos) {
+    if (enabled) {
+      histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+  }
+
+  public void orderIn() {
+    if (enabled) {
+      ordersIn.increment();
+    }
+  }
+
+  public void fill() {
+    if (enabled) {
+      fills.increment();
+    }
+  }
+
+  public void cancel() {
+    if (enabled) {
+      cancels.increment();
+    }
+  }
+
+  public void reject() {
+    if (enabled) {
+      rejects.increment();
+    }
+  }
+
+  // Method to take a snapshot of the counters and latencies along with the given gauges
+  public MetricsSnapshot snapshot(Map<String, MetricsSnapshot.BookDepth> bookDepths,
+      int[] shardQueueDepths) {
+    Map<MetricOperation, LatencySnapshot> latencies = new EnumMap<>(MetricOperation.class);
+    for (MetricOperation operation : MetricOperation.values()) {
+      latencies.put(operation, histograms[operation.ordinal()].snapshot());
+    }
+    return new MetricsSnapshot(System.currentTimeMillis(), latencies, ordersIn.sum(),
+        fills.sum(), cancels.sum(), rejects.sum(), bookDepths, shardQueueDepths);
+  }
+}
@@ -0,0 +1,54 @@
+package com.vega.trading.system.model;
+
+import java.math.BigDecimal;
+
+/* Equilibrium of a call auction: the price at which the book uncrosses, the quantity executed
+ there and the imbalance left over. Without a crossing the price is null and nothing executes. */
+public class AuctionResult {
+
+  private final String symbol;
+  private final BigDecimal price; // null when the book does not cross
+  private final long matchedQuantity;
+  private final long imbalance; // Buy minus sell quantity willing to trade at the price
+
+  public AuctionResult(String symbol, BigDecimal price, long matchedQuantity, long imbalance) {
+    this.symbol = symbol;
+    this.price = price;
+    this.matchedQuantity = matchedQuantity;
+    this.imbalance = imbalance;
+  }
+
+  public static AuctionResult noCross(String symbol) {
+    return new AuctionResult(symbol, null, 0, 0);
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public long getMatchedQuantity() {
+    return matchedQuantity;
+  }
+
+  public long getImbalance() {
+    return imbalance;
+  }
+
+  public boolean isCrossed() {
+    return matchedQuantity > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "AuctionResult{" +
+        "symbol='" + symbol + '\'' +
+        ", price=" + price +
+        ", matchedQuantity=" + matchedQuantity +
+        ", imbalance=" + imbalance +
+        '}';
+  }
+}
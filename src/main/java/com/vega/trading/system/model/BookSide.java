@@ -0,0 +1,154 @@
+package com.vega.trading.system.model;
+
+import java.math.BigDecimal;
+
+/* One side (bids or asks) of a limit order book.
+ Price levels are kept in a sorted array ordered from the worst to the best price, so the top of
+ the book is always the last element and adding/removing at the top does not shift the array.
+ Unpriced (market) orders rest in a dedicated level that always ranks ahead of priced levels.
+ In fixed-point mode levels are searched on their primitive tick price instead of BigDecimal.
+ Emptied levels are kept aside and reused for the next new price, so prices coming and going at
+ the top of the book do not allocate. */
+class BookSide {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MAX_SPARE_LEVELS = 64;
+
+  private final boolean bidSide;
+  private final boolean fixedPoint;
+  private final PriceLevel marketLevel;
+  private PriceLevel[] levels;
+  private int size;
+  private final PriceLevel[] spareLevels = new PriceLevel[MAX_SPARE_LEVELS];
+  private int spareCount;
+
+  BookSide(boolean bidSide, boolean fixedPoint) {
+    this.bidSide = bidSide;
+    this.fixedPoint = fixedPoint;
+    this.marketLevel = new PriceLevel(null);
+    marketLevel.side = this;
+    this.levels = new PriceLevel[INITIAL_CAPACITY];
+  }
+
+  PriceLevel best() {
+    if (!marketLevel.isEmpty()) {
+      return marketLevel;
+    }
+    return size == 0 ? null : levels[size - 1];
+  }
+
+  int levelCount() {
+    return size + (marketLevel.isEmpty() ? 0 : 1);
+  }
+
+  // Level at the given depth, 0 being the best level
+  PriceLevel levelAt(int depth) {
+    if (!marketLevel.isEmpty()) {
+      if (depth == 0) {
+        return marketLevel;
+      }
+      depth--;
+    }
+    return depth < size ? levels[size - 1 - depth] : null;
+  }
+
+  void add(Order order) {
+    if (order.getPrice() == null) {
+      marketLevel.add(order);
+      return;
+    }
+    int index = search(order);
+    if (index >= 0) {
+      levels[index].add(order);
+      return;
+    }
+    PriceLevel level = newLevel(order.getPrice(), order.getPriceTicks());
+    level.add(order);
+    insert(-(index + 1), level);
+  }
+
+  // The order links to its level, so it is unlinked without searching; the level is only looked
+  // up in the sorted array when it empties and has to go
+  boolean remove(Order order) {
+    PriceLevel level = order.level;
+    if (level == null || level.side != this || !level.remove(order)) {
+      return false;
+    }
+    if (level.isEmpty() && level != marketLevel) {
+      delete(search(order));
+    }
+    return true;
+  }
+
+  // Accounts a fill against the order at the top of the side, dropping it once fully filled
+  void applyFillToBest(int filledQuantity) {
+    PriceLevel level = best();
+    if (level == null) {
+      return;
+    }
+    level.reduceQuantity(filledQuantity);
+    if (level.peek().getQuantity() == 0) {
+      level.poll();
+      if (level.isEmpty() && level != marketLevel) {
+        delete(size - 1);
+      }
+    }
+  }
+
+  // Binary search over the levels; returns the index or (-(insertion point) - 1) when absent
+  private int search(Order order) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(levels[mid], order);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  // Orders prices from worst to best: ascending for bids, descending for asks
+  private int compare(PriceLevel level, Order order) {
+    int cmp = fixedPoint
+        ? Long.compare(level.getPriceTicks(), order.getPriceTicks())
+        : level.getPrice().compareTo(order.getPrice());
+    return bidSide ? cmp : -cmp;
+  }
+
+  private void insert(int index, PriceLevel level) {
+    if (size == levels.length) {
+      PriceLevel[] grown = new PriceLevel[size << 1];
+      System.arraycopy(levels, 0, grown, 0, size);
+      levels = grown;
+    }
+    System.arraycopy(levels, index, levels, index + 1, size - index);
+    levels[index] = level;
+    size++;
+  }
+
+  private PriceLevel newLevel(BigDecimal price, long priceTicks) {
+    if (spareCount == 0) {
+      PriceLevel level = new PriceLevel(price, priceTicks);
+      level.side = this;
+      return level;
+    }
+    PriceLevel level = spareLevels[--spareCount];
+    spareLevels[spareCount] = null;
+    level.reset(price, priceTicks);
+    return level;
+  }
+
+  private void delete(int index) {
+    if (spareCount < MAX_SPARE_LEVELS) {
+      spareLevels[spareCount++] = levels[index];
+    }
+    System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+    levels[--size] = null;
+  }
+}
@@ -3,22 +3,45 @@ package com.vega.trading.system.model;
 import com.vega.trading.system.constant.ExceptionMessages;
 import com.vega.trading.system.exception.MaxUnderlyingInstrumentsException;
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+/* A basket of up to three underlying instruments, priced as the weighted sum of their prices.
+ A weight can be a share of the basket or a number of units held per basket.
+ The price is cached together with the version of every underlying it was computed from, and is
+ only brought up to date when it is read: a trade in an underlying just bumps that instrument's
+ version, however many baskets hold it. Stale legs are then folded in incrementally. */
 public class CompositeFinancialInstrument {
   private final UUID id;
   private final String symbol;
   private BigDecimal marketPrice;
   private List<FinancialInstrument> underlyingInstruments;
+  private final List<BigDecimal> weights; // Weight of each underlying, same order as the list
+  // Leg prices and versions the market price was last computed from. Kept apart from the
+  // underlying instruments, which may be shared with other composites and updated by them first.
+  private final BigDecimal[] legPrices;
+  private final long[] legVersions;
 
   public CompositeFinancialInstrument(String symbol, List<FinancialInstrument> underlyingInstruments) {
+    this(symbol, underlyingInstruments,
+        Collections.nCopies(underlyingInstruments.size(), BigDecimal.ONE));
+  }
+
+  public CompositeFinancialInstrument(String symbol, List<FinancialInstrument> underlyingInstruments,
+      List<BigDecimal> weights) {
     if (underlyingInstruments.size() > 3) {
       throw new MaxUnderlyingInstrumentsException(ExceptionMessages.MAX_UNDERLYING_INSTRUMENTS_EXCEPTION);
     }
+    if (weights.size() != underlyingInstruments.size()) {
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_COMPOSITE_WEIGHTS);
+    }
     this.id = UUID.randomUUID();
     this.symbol = symbol;
     this.underlyingInstruments = underlyingInstruments;
+    this.weights = weights;
+    this.legPrices = new BigDecimal[underlyingInstruments.size()];
+    this.legVersions = new long[underlyingInstruments.size()];
     this.marketPrice = calculateMarketPrice();
   }
 
@@ -30,25 +53,88 @@ public class CompositeFinancialInstrument {
     return symbol;
   }
 
-  public BigDecimal getMarketPrice() {
+  // Method to read the basket price, recomputing it first if an underlying has moved since
+  public synchronized BigDecimal getMarketPrice() {
+    refresh();
     return marketPrice;
   }
 
+  // Whether an underlying has moved since the price was last computed
+  public synchronized boolean isStale() {
+    for (int i = 0; i < legVersions.length; i++) {
+      if (underlyingInstruments.get(i).getVersion() != legVersions[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public List<FinancialInstrument> getUnderlyingInstruments() {
     return underlyingInstruments;
   }
 
-  public void updateMarketPrice() {
+  public List<BigDecimal> getWeights() {
+    return weights;
+  }
+
+  public synchronized void updateMarketPrice() {
     this.marketPrice = calculateMarketPrice();
   }
 
+  // Method to reprice eagerly after a trade in one underlying.
+  // Synchronized because legs can trade on different matching shards at the same time.
+  public synchronized void updateUnderlyingMarketPrice(String underlyingSymbol, BigDecimal newPrice) {
+    for (FinancialInstrument underlying : underlyingInstruments) {
+      if (underlying.getSymbol().equals(underlyingSymbol)) {
+        underlying.updateMarketPrice(newPrice);
+      }
+    }
+    refresh();
+  }
+
+  // Helper method to fold in the legs whose version changed: the basket moves by
+  // (new price - old price) * weight instead of being summed up again
+  private void refresh() {
+    boolean recalculate = false;
+    for (int i = 0; i < legVersions.length; i++) {
+      FinancialInstrument underlying = underlyingInstruments.get(i);
+      long version = underlying.getVersion();
+      if (version == legVersions[i]) {
+        continue;
+      }
+      BigDecimal oldPrice = legPrices[i];
+      BigDecimal newPrice = underlying.getMarketPrice();
+      legVersions[i] = version;
+      legPrices[i] = newPrice;
+      if (oldPrice == null || newPrice == null || marketPrice == null) {
+        recalculate = true;
+      } else {
+        marketPrice = marketPrice.add(newPrice.subtract(oldPrice).multiply(weights.get(i)));
+      }
+    }
+    if (recalculate) {
+      marketPrice = calculateMarketPrice();
+    }
+  }
+
   private BigDecimal calculateMarketPrice() {
     // Logic to calculate market price based on underlying instruments
     // This logic may vary based on specific requirements
-    // For simplicity,market price is the sum of individual instrument prices
-    return underlyingInstruments.stream()
-        .map(FinancialInstrument::getMarketPrice)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // For simplicity, market price is the weighted sum of individual instrument prices
+    // (every weight defaults to one, i.e. a flat sum)
+    BigDecimal price = BigDecimal.ZERO;
+    for (int i = 0; i < underlyingInstruments.size(); i++) {
+      FinancialInstrument underlying = underlyingInstruments.get(i);
+      // Version first: a price update racing with this read only leaves the leg looking stale
+      legVersions[i] = underlying.getVersion();
+      BigDecimal underlyingPrice = underlying.getMarketPrice();
+      legPrices[i] = underlyingPrice;
+      if (underlyingPrice == null) {
+        price = null;
+      } else if (price != null) {
+        price = price.add(underlyingPrice.multiply(weights.get(i)));
+      }
+    }
+    return price;
   }
 }
-
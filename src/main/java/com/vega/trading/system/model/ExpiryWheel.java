@@ -0,0 +1,207 @@
+package com.vega.trading.system.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* Hierarchical timing wheel holding the orders that expire, keyed on their expire time.
+ Time advances in ticks of a fixed resolution. Level 0 has one slot per tick, and each level
+ above covers 64 times the span of the level below with the same 64 slots. An order goes into
+ the lowest level whose span still reaches its expire tick. When the slots of a level wrap
+ around, the current slot of the level above is cascaded down, so every order is moved at most
+ once per level before it fires. Orders beyond the top level wait in an overflow slot that is
+ re-examined whenever the top level wraps. Ticks are only visited one by one while level 0 holds
+ orders; otherwise the wheel jumps to the next boundary of the lowest occupied level.
+ Scheduling, cancelling and expiring an order are O(1): every slot is an intrusive doubly
+ linked list threaded through the orders themselves, like the price levels.
+ The wheel is thread safe; expired orders are handed back to the caller instead of being acted
+ upon under its lock. */
+public class ExpiryWheel {
+
+  private static final int LEVEL_BITS = 6;
+  private static final int SLOTS = 1 << LEVEL_BITS;
+  private static final int MASK = SLOTS - 1;
+  private static final int LEVELS = 6; // 2^36 ticks, over two years at a 1ms resolution
+  private static final int OVERFLOW_SLOT = LEVELS * SLOTS;
+
+  private final long resolutionMillis;
+  private final Order[] heads = new Order[OVERFLOW_SLOT + 1];
+  private final int[] levelSizes = new int[LEVELS + 1]; // Last entry for the overflow slot
+  private long currentTick;
+  private int size;
+
+  public ExpiryWheel(long resolutionMillis, long startMillis) {
+    if (resolutionMillis <= 0) {
+      throw new IllegalArgumentException("Invalid expiry wheel resolution: " + resolutionMillis);
+    }
+    this.resolutionMillis = resolutionMillis;
+    this.currentTick = startMillis / resolutionMillis;
+  }
+
+  // Method to schedule the expiry of an order at its expire time. Returns false without
+  // scheduling it when that time has already been reached.
+  public synchronized boolean schedule(Order order) {
+    if (order.wheelSlot >= 0) {
+      unlink(order);
+    }
+    long expireTick = expireTick(order);
+    if (expireTick <= currentTick) {
+      return false;
+    }
+    link(order, slotOf(expireTick));
+    return true;
+  }
+
+  // Method to drop the expiry of an order that was filled or cancelled first
+  public synchronized boolean cancel(Order order) {
+    if (order.wheelSlot < 0) {
+      return false;
+    }
+    unlink(order);
+    return true;
+  }
+
+  // Method to move the wheel up to the given time; returns the orders that expired on the way
+  public synchronized List<Order> advance(long nowMillis) {
+    long targetTick = nowMillis / resolutionMillis;
+    List<Order> expiredOrders = Collections.emptyList();
+    while (currentTick < targetTick) {
+      if (size == 0) {
+        // Nothing scheduled, no need to visit the ticks in between
+        currentTick = targetTick;
+        break;
+      }
+      int lowestLevel = 0;
+      while (levelSizes[lowestLevel] == 0) {
+        lowestLevel++;
+      }
+      if (lowestLevel > 0) {
+        // Nothing can happen before the lowest occupied level cascades
+        long lastTickBefore = currentTick | ((1L << (lowestLevel * LEVEL_BITS)) - 1);
+        if (lastTickBefore >= targetTick) {
+          currentTick = targetTick;
+          break;
+        }
+        currentTick = lastTickBefore;
+      }
+      currentTick++;
+      cascade();
+      int slot = (int) (currentTick & MASK);
+      if (heads[slot] != null) {
+        if (expiredOrders.isEmpty()) {
+          expiredOrders = new ArrayList<>();
+        }
+        drainTo(slot, expiredOrders);
+      }
+    }
+    return expiredOrders;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public long getResolutionMillis() {
+    return resolutionMillis;
+  }
+
+  // Rounded up: an order may expire up to one tick late, never early
+  private long expireTick(Order order) {
+    return (order.getExpireTimeMillis() + resolutionMillis - 1) / resolutionMillis;
+  }
+
+  // Lowest level on which the expire tick and the current tick share every higher digit
+  private int slotOf(long expireTick) {
+    long differentBits = expireTick ^ currentTick;
+    int level = differentBits == 0 ? 0
+        : (63 - Long.numberOfLeadingZeros(differentBits)) / LEVEL_BITS;
+    if (level >= LEVELS) {
+      return OVERFLOW_SLOT;
+    }
+    return level * SLOTS + (int) ((expireTick >>> (level * LEVEL_BITS)) & MASK);
+  }
+
+  // Brings down the orders of every level whose lower levels just wrapped around, from the top
+  // level down so that orders cascaded from above are cascaded again within the same tick
+  private void cascade() {
+    if ((currentTick & MASK) != 0) {
+      return;
+    }
+    int topLevel = 1;
+    while (topLevel < LEVELS
+        && (currentTick & ((1L << ((topLevel + 1) * LEVEL_BITS)) - 1)) == 0) {
+      topLevel++;
+    }
+    if (topLevel == LEVELS) {
+      relink(OVERFLOW_SLOT);
+      topLevel--;
+    }
+    for (int level = topLevel; level >= 1; level--) {
+      relink(level * SLOTS + (int) ((currentTick >>> (level * LEVEL_BITS)) & MASK));
+    }
+  }
+
+  private void relink(int slot) {
+    Order order = heads[slot];
+    heads[slot] = null;
+    while (order != null) {
+      Order next = order.wheelNext;
+      order.wheelPrevious = null;
+      order.wheelNext = null;
+      long expireTick = expireTick(order);
+      if (expireTick <= currentTick) {
+        // Lands in the current level 0 slot, which fires right after the cascade
+        link(order, (int) (currentTick & MASK));
+      } else {
+        link(order, slotOf(expireTick));
+      }
+      size--;
+      levelSizes[slot / SLOTS]--;
+      order = next;
+    }
+  }
+
+  private void drainTo(int slot, List<Order> expiredOrders) {
+    Order order = heads[slot];
+    heads[slot] = null;
+    while (order != null) {
+      Order next = order.wheelNext;
+      order.wheelSlot = -1;
+      order.wheelPrevious = null;
+      order.wheelNext = null;
+      expiredOrders.add(order);
+      size--;
+      levelSizes[0]--;
+      order = next;
+    }
+  }
+
+  private void link(Order order, int slot) {
+    Order head = heads[slot];
+    order.wheelSlot = slot;
+    order.wheelPrevious = null;
+    order.wheelNext = head;
+    if (head != null) {
+      head.wheelPrevious = order;
+    }
+    heads[slot] = order;
+    size++;
+    levelSizes[slot / SLOTS]++;
+  }
+
+  private void unlink(Order order) {
+    if (order.wheelPrevious == null) {
+      heads[order.wheelSlot] = order.wheelNext;
+    } else {
+      order.wheelPrevious.wheelNext = order.wheelNext;
+    }
+    if (order.wheelNext != null) {
+      order.wheelNext.wheelPrevious = order.wheelPrevious;
+    }
+    levelSizes[order.wheelSlot / SLOTS]--;
+    order.wheelSlot = -1;
+    order.wheelPrevious = null;
+    order.wheelNext = null;
+    size--;
+  }
+}
@@ -1,23 +1,30 @@
 package com.vega.trading.system.model;
 
 import java.math.BigDecimal;
-import java.util.Objects;
 import java.util.UUID;
 
 public class FinancialInstrument {
   private final UUID id;
   private final String symbol;
-  private BigDecimal marketPrice;
+  private volatile BigDecimal marketPrice;
+  // Bumped after every price update, lets composites tell whether their cached price is stale
+  private volatile long version;
+  private final BigDecimal tickSize; // Optional, used by the fixed-point price mode
 
   public FinancialInstrument(String symbol, BigDecimal marketPrice) {
+    this(symbol, marketPrice, null);
+  }
+
+  public FinancialInstrument(String symbol, BigDecimal marketPrice, BigDecimal tickSize) {
     this.id = UUID.randomUUID();
     this.symbol = symbol;
     this.marketPrice = marketPrice;
+    this.tickSize = tickSize;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(symbol);
+    return symbol == null ? 0 : symbol.hashCode();
   }
 
   @Override
@@ -25,7 +32,7 @@ public class FinancialInstrument {
     if (this == obj) return true;
     if (obj == null || getClass() != obj.getClass()) return false;
     FinancialInstrument other = (FinancialInstrument) obj;
-    return Objects.equals(symbol, other.symbol);
+    return symbol == null ? other.symbol == null : symbol.equals(other.symbol);
   }
 
   public UUID getId() {
@@ -40,8 +47,18 @@ public class FinancialInstrument {
     return marketPrice;
   }
 
-  public void updateMarketPrice(BigDecimal newMarketPrice) {
+  public long getVersion() {
+    return version;
+  }
+
+  public BigDecimal getTickSize() {
+    return tickSize;
+  }
+
+  // The price is written before the version, so a reader seeing a version also sees its price
+  public synchronized void updateMarketPrice(BigDecimal newMarketPrice) {
     this.marketPrice = newMarketPrice;
+    this.version++;
   }
 }
 
@@ -0,0 +1,147 @@
+package com.vega.trading.system.model;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/* Per-symbol values stored in a flat array indexed by the instrument id of the symbol.
+ The hot path reads a slot by id with no hashing or string comparison; the Map view keyed by
+ symbol resolves the symbol through the shared InstrumentRegistry and serves the API boundary.
+ Reads are lock-free. Writes are serialised on the index and grow the array when an id is past
+ its end. Iteration goes over a snapshot. */
+public class InstrumentIndex<V> extends AbstractMap<String, V> {
+
+  private final InstrumentRegistry instrumentRegistry;
+  private volatile AtomicReferenceArray<V> slots;
+  private int size; // Guarded by this
+
+  public InstrumentIndex(InstrumentRegistry instrumentRegistry) {
+    this.instrumentRegistry = instrumentRegistry;
+    this.slots = new AtomicReferenceArray<>(16);
+  }
+
+  public InstrumentRegistry getInstrumentRegistry() {
+    return instrumentRegistry;
+  }
+
+  // Value of an instrument id, or null
+  public V get(int instrumentId) {
+    AtomicReferenceArray<V> current = slots;
+    return instrumentId < 0 || instrumentId >= current.length() ? null : current.get(instrumentId);
+  }
+
+  // Value of an instrument id, created by the factory when missing
+  public V computeIfAbsent(int instrumentId, IntFunction<V> factory) {
+    V value = get(instrumentId);
+    if (value != null) {
+      return value;
+    }
+    synchronized (this) {
+      value = get(instrumentId);
+      if (value == null) {
+        value = Objects.requireNonNull(factory.apply(instrumentId));
+        set(instrumentId, value);
+      }
+      return value;
+    }
+  }
+
+  public synchronized V put(int instrumentId, V value) {
+    return set(instrumentId, Objects.requireNonNull(value));
+  }
+
+  public synchronized V remove(int instrumentId) {
+    return instrumentId < 0 ? null : set(instrumentId, null);
+  }
+
+  // Replaces the value of an id, under the index lock; returns the previous value
+  private V set(int instrumentId, V value) {
+    AtomicReferenceArray<V> current = slots;
+    if (instrumentId >= current.length()) {
+      if (value == null) {
+        return null;
+      }
+      int length = current.length();
+      while (length <= instrumentId) {
+        length *= 2;
+      }
+      AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(length);
+      for (int i = 0; i < current.length(); i++) {
+        grown.set(i, current.get(i));
+      }
+      slots = grown;
+      current = grown;
+    }
+    V previous = current.getAndSet(instrumentId, value);
+    if (previous == null && value != null) {
+      size++;
+    } else if (previous != null && value == null) {
+      size--;
+    }
+    return previous;
+  }
+
+  @Override
+  public V get(Object key) {
+    return key instanceof String ? get(instrumentRegistry.idOf((String) key)) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public V put(String symbol, V value) {
+    return put(instrumentRegistry.register(symbol), value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    return key instanceof String ? remove(instrumentRegistry.idOf((String) key)) : null;
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized void clear() {
+    slots = new AtomicReferenceArray<>(slots.length());
+    size = 0;
+  }
+
+  // Snapshot of the values in instrument id order
+  public List<V> valuesSnapshot() {
+    AtomicReferenceArray<V> current = slots;
+    List<V> values = new ArrayList<>();
+    for (int i = 0; i < current.length(); i++) {
+      V value = current.get(i);
+      if (value != null) {
+        values.add(value);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public Set<Map.Entry<String, V>> entrySet() {
+    AtomicReferenceArray<V> current = slots;
+    Set<Map.Entry<String, V>> entries = new HashSet<>();
+    for (int i = 0; i < current.length(); i++) {
+      V value = current.get(i);
+      if (value != null) {
+        entries.add(new SimpleImmutableEntry<>(instrumentRegistry.symbolOf(i), value));
+      }
+    }
+    return Collections.unmodifiableSet(entries);
+  }
+}
@@ -0,0 +1,58 @@
+package com.vega.trading.system.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Interns symbols into dense int instrument ids, assigned in registration order from 0.
+ Symbols are resolved once at the API boundary; from there on per-symbol state is kept in flat
+ arrays indexed by id (see InstrumentIndex) and symbols are compared as ints.
+ Ids are never reused, so an id stays valid for the life of the registry. Every trading system has
+ a registry of its own: only the API paths that add state register symbols, lookups and cancels
+ use idOf, and an order gets the id of its symbol again each time it enters a system. */
+public class InstrumentRegistry {
+
+  public static final int NO_INSTRUMENT_ID = -1;
+
+  private final Map<String, Integer> idsBySymbol = new ConcurrentHashMap<>();
+  private volatile String[] symbols = new String[16];
+  private int size; // Guarded by this
+
+  // Method to get the id of a symbol, assigning the next id to a symbol seen for the first time
+  public int register(String symbol) {
+    Integer instrumentId = idsBySymbol.get(symbol);
+    return instrumentId != null ? instrumentId : assign(symbol);
+  }
+
+  private synchronized int assign(String symbol) {
+    Integer instrumentId = idsBySymbol.get(symbol);
+    if (instrumentId != null) {
+      return instrumentId;
+    }
+    String[] current = symbols;
+    if (size == current.length) {
+      String[] grown = new String[current.length * 2];
+      System.arraycopy(current, 0, grown, 0, size);
+      current = grown;
+    }
+    current[size] = symbol;
+    // Publish the symbol before its id, so whoever finds the id can also resolve the symbol
+    symbols = current;
+    idsBySymbol.put(symbol, size);
+    return size++;
+  }
+
+  // Id of a registered symbol, or NO_INSTRUMENT_ID
+  public int idOf(String symbol) {
+    Integer instrumentId = idsBySymbol.get(symbol);
+    return instrumentId == null ? NO_INSTRUMENT_ID : instrumentId;
+  }
+
+  public String symbolOf(int instrumentId) {
+    String[] current = symbols;
+    return instrumentId < 0 || instrumentId >= current.length ? null : current[instrumentId];
+  }
+
+  public int size() {
+    return idsBySymbol.size();
+  }
+}
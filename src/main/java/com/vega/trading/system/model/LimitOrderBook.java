@@ -0,0 +1,226 @@
+package com.vega.trading.system.model;
+
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/* Price-time priority limit order book for a single symbol.
+ Bids and asks are kept as sorted price levels with a FIFO queue of orders inside each level.
+ When created with a PriceScale the book runs in fixed-point mode and keys levels on long ticks.
+ The book is not thread safe: it is only touched by the matching engine shard owning the symbol. */
+public class LimitOrderBook {
+
+  private final String symbol;
+  private final int instrumentId;
+  private final PriceScale priceScale; // null in BigDecimal mode
+  private final BookSide bids;
+  private final BookSide asks;
+  private final TraderOrderLists traderOrders = new TraderOrderLists();
+  private int orderCount;
+  private BigDecimal lastTradePrice; // Reference of the market order protection band
+  private boolean inAuction; // Orders collect without matching until the book is uncrossed
+
+  public LimitOrderBook(String symbol) {
+    this(symbol, null);
+  }
+
+  public LimitOrderBook(String symbol, PriceScale priceScale) {
+    this(InstrumentRegistry.NO_INSTRUMENT_ID, symbol, priceScale);
+  }
+
+  public LimitOrderBook(int instrumentId, String symbol, PriceScale priceScale) {
+    this.instrumentId = instrumentId;
+    this.symbol = symbol;
+    this.priceScale = priceScale;
+    this.bids = new BookSide(true, priceScale != null);
+    this.asks = new BookSide(false, priceScale != null);
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public int getInstrumentId() {
+    return instrumentId;
+  }
+
+  public PriceScale getPriceScale() {
+    return priceScale;
+  }
+
+  public boolean isFixedPoint() {
+    return priceScale != null;
+  }
+
+  // Method to rest an order in the book; inactive or empty orders are ignored
+  public boolean add(Order order) {
+    if (!isRestable(order)) {
+      return false;
+    }
+    if (priceScale != null && order.getPrice() != null
+        && order.getPriceTicks() == Order.NO_PRICE_TICKS) {
+      order.setPriceTicks(priceScale.toTicks(order.getPrice()));
+    }
+    side(order).add(order);
+    traderOrders.link(order);
+    orderCount++;
+    return true;
+  }
+
+  // Method to take an order out of the book, e.g. on cancellation
+  public boolean remove(Order order) {
+    if (order.getOrderType() == OrderType.COMPOSITE || !side(order).remove(order)) {
+      return false;
+    }
+    traderOrders.unlink(order);
+    orderCount--;
+    return true;
+  }
+
+  public Order peekBestBid() {
+    PriceLevel level = bids.best();
+    return level == null ? null : level.peek();
+  }
+
+  public Order peekBestAsk() {
+    PriceLevel level = asks.best();
+    return level == null ? null : level.peek();
+  }
+
+  public PriceLevel getBidLevel(int depth) {
+    return bids.levelAt(depth);
+  }
+
+  public PriceLevel getAskLevel(int depth) {
+    return asks.levelAt(depth);
+  }
+
+  public int getBidLevelCount() {
+    return bids.levelCount();
+  }
+
+  public int getAskLevelCount() {
+    return asks.levelCount();
+  }
+
+  // Quantity resting on the opposite side at prices the given order would trade against, counted
+  // from the best level and stopping once at least upTo has been found
+  public long crossableQuantity(Order order, long upTo) {
+    return crossableQuantity(order, null, upTo);
+  }
+
+  // Same, with the worst price an unpriced order may trade at, e.g. its protection price
+  public long crossableQuantity(Order order, BigDecimal marketLimitPrice, long upTo) {
+    BookSide opposite = order.getOrderType() == OrderType.BUY ? asks : bids;
+    long quantity = 0;
+    for (int depth = 0; depth < opposite.levelCount() && quantity < upTo; depth++) {
+      PriceLevel level = opposite.levelAt(depth);
+      if (!crosses(order, level, marketLimitPrice)) {
+        break;
+      }
+      quantity += level.getTotalQuantity();
+    }
+    return quantity;
+  }
+
+  // Unpriced orders and unpriced levels trade against anything
+  private boolean crosses(Order order, PriceLevel level, BigDecimal marketLimitPrice) {
+    if (level.getPrice() == null) {
+      return true;
+    }
+    if (order.getPrice() == null) {
+      if (marketLimitPrice == null) {
+        return true;
+      }
+      int cmp = marketLimitPrice.compareTo(level.getPrice());
+      return order.getOrderType() == OrderType.BUY ? cmp >= 0 : cmp <= 0;
+    }
+    int cmp = priceScale != null
+        ? Long.compare(order.getPriceTicks(), level.getPriceTicks())
+        : order.getPrice().compareTo(level.getPrice());
+    return order.getOrderType() == OrderType.BUY ? cmp >= 0 : cmp <= 0;
+  }
+
+  // Method to visit every resting order, bids then asks, each side in price-time priority
+  public void forEachOrder(Consumer<Order> action) {
+    for (int depth = 0; depth < bids.levelCount(); depth++) {
+      bids.levelAt(depth).forEachOrder(action);
+    }
+    for (int depth = 0; depth < asks.levelCount(); depth++) {
+      asks.levelAt(depth).forEachOrder(action);
+    }
+  }
+
+  public BigDecimal getLastTradePrice() {
+    return lastTradePrice;
+  }
+
+  public void recordTrade(BigDecimal tradePrice) {
+    if (tradePrice != null) {
+      lastTradePrice = tradePrice;
+    }
+  }
+
+  // Whether the book is in a call auction phase, e.g. the opening or a volatility halt
+  public boolean isInAuction() {
+    return inAuction;
+  }
+
+  public void setInAuction(boolean inAuction) {
+    this.inAuction = inAuction;
+  }
+
+  // Method to visit the resting orders of one trader, latest first, without scanning the book
+  public void forEachOrderOfTrader(int traderId, Consumer<Order> action) {
+    traderOrders.forEachOrder(traderId, action);
+  }
+
+  public boolean hasOrdersOf(int traderId) {
+    return traderOrders.contains(traderId);
+  }
+
+  // Number of traders with orders resting in the book
+  public int getTraderCount() {
+    return traderOrders.traderCount();
+  }
+
+  public int getOrderCount() {
+    return orderCount;
+  }
+
+  public boolean isEmpty() {
+    return orderCount == 0;
+  }
+
+  // Method to account a fill on the best bid; the order leaves the book once fully filled
+  public void applyFillToBestBid(int filledQuantity) {
+    applyFill(bids, filledQuantity);
+  }
+
+  // Method to account a fill on the best ask; the order leaves the book once fully filled
+  public void applyFillToBestAsk(int filledQuantity) {
+    applyFill(asks, filledQuantity);
+  }
+
+  private void applyFill(BookSide side, int filledQuantity) {
+    PriceLevel level = side.best();
+    Order leaving = level != null && level.peek().getQuantity() == 0 ? level.peek() : null;
+    side.applyFillToBest(filledQuantity);
+    if (leaving != null) {
+      traderOrders.unlink(leaving);
+      orderCount--;
+    }
+  }
+
+  private BookSide side(Order order) {
+    return order.getOrderType() == OrderType.BUY ? bids : asks;
+  }
+
+  private static boolean isRestable(Order order) {
+    return order.getOrderType() != OrderType.COMPOSITE
+        && order.getQuantity() > 0
+        && (order.getOrderStatus() == OrderStatus.PLACED
+        || order.getOrderStatus() == OrderStatus.PARTIALLY_EXECUTED);
+  }
+}
@@ -2,6 +2,8 @@ package com.vega.trading.system.model;
 
 import com.vega.trading.system.enumeration.OrderStatus;
 import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.enumeration.TriggerCondition;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
@@ -10,43 +12,142 @@ import java.util.UUID;
  It is currently a traditional class, but we can refactor it to a record in the future. */
 public class Order {
 
-  private final UUID orderId;
-  private final int traderId;
-  private final OrderType orderType;
-  private final String symbol;
-  private final BigDecimal price; // Optional
+  public static final long NO_PRICE_TICKS = Long.MIN_VALUE;
+
+  public static final long NO_SEQUENCE_ID = 0;
+
+  public static final long NO_RESERVATION = -1;
+
+  private final UUID orderId; // null for sequenced orders
+  private long sequenceId = NO_SEQUENCE_ID; // Engine assigned id of low-garbage mode orders
+  private final int poolIndex; // Slot in the OrderPool, -1 when not pooled
+  private int traderId;
+  private OrderType orderType;
+  private String symbol;
+  private int instrumentId = InstrumentRegistry.NO_INSTRUMENT_ID; // Interned symbol
+  private BigDecimal price; // Optional
+  private long priceTicks = NO_PRICE_TICKS; // Price in ticks when matched in fixed-point mode
   private int quantity;
   private OrderStatus orderStatus;
+  private final BigDecimal triggerPrice; // Optional, makes the order good-till-trigger (GTT)
+  private final TriggerCondition triggerCondition;
+  private TimeInForce timeInForce = TimeInForce.GTC;
+  private long expireTimeMillis; // Epoch millis of a DAY or GTD order, 0 when it does not expire
+  private long reservedUnitNotional = NO_RESERVATION; // Set by the pre-trade risk check
 
   private  List<Order> underlyingOrders;  // List of underlying orders for Composite Orders
 
+  // Links of the intrusive FIFO queue of the price level the order rests at, see PriceLevel
+  PriceLevel level;
+  Order previous;
+  Order next;
+
+  // Links of the intrusive list of the trader's orders resting in the same book, or dormant in the
+  // same TriggerBook, see TraderOrderLists
+  Order traderPrevious;
+  Order traderNext;
+
+  // Links of the intrusive list of the expiry wheel slot holding the order, see ExpiryWheel
+  int wheelSlot = -1;
+  Order wheelPrevious;
+  Order wheelNext;
+
   // Constructor for normal orders
   public Order(int traderId, OrderType orderType, BigDecimal price, int quantity,String symbol) {
-    this.orderId = UUID.randomUUID();
+    this(UUID.randomUUID(), traderId, orderType, price, quantity, symbol);
+  }
+
+  // Constructor for normal orders with a known id, e.g. when recovering from the journal
+  public Order(UUID orderId, int traderId, OrderType orderType, BigDecimal price, int quantity,
+      String symbol) {
+    this(orderId, traderId, orderType, price, quantity, symbol, null, null);
+  }
+
+  // Constructor for good-till-trigger orders, entering the book once the market price of the
+  // symbol meets the trigger condition
+  public Order(int traderId, OrderType orderType, BigDecimal price, int quantity, String symbol,
+      BigDecimal triggerPrice, TriggerCondition triggerCondition) {
+    this(UUID.randomUUID(), traderId, orderType, price, quantity, symbol, triggerPrice,
+        triggerCondition);
+  }
+
+  public Order(UUID orderId, int traderId, OrderType orderType, BigDecimal price, int quantity,
+      String symbol, BigDecimal triggerPrice, TriggerCondition triggerCondition) {
+    this.orderId = orderId;
+    this.poolIndex = -1;
     this.traderId = traderId;
     this.orderType = orderType;
     this.price = price;
     this.quantity = quantity;
     this.symbol = symbol;
     this.orderStatus = OrderStatus.PLACED;
+    this.triggerPrice = triggerPrice;
+    this.triggerCondition = triggerCondition;
     this.underlyingOrders = null;
   }
   // Constructor for composite orders
   public Order(UUID orderId, int traderId, String symbol, List<Order> underlyingOrders) {
     this.orderId = orderId;
+    this.poolIndex = -1;
     this.symbol = symbol;
     this.orderType = OrderType.COMPOSITE;
     this.price = BigDecimal.ZERO;  // Default price for composite orders
     this.quantity = 0;  // Default quantity for composite orders
     this.traderId = traderId;  // Default traderId for composite orders
     this.orderStatus = OrderStatus.PLACED;  // Default order status for composite orders
+    this.triggerPrice = null;
+    this.triggerCondition = null;
     this.underlyingOrders = underlyingOrders;
   }
 
+  // Constructor for sequenced orders of the low-garbage mode, see OrderPool
+  Order(int poolIndex) {
+    this.orderId = null;
+    this.poolIndex = poolIndex;
+    this.triggerPrice = null;
+    this.triggerCondition = null;
+  }
+
+  // Method to (re)initialise a sequenced order handed out by the OrderPool
+  void reuse(long sequenceId, int traderId, OrderType orderType, BigDecimal price, int quantity,
+      String symbol) {
+    this.sequenceId = sequenceId;
+    this.traderId = traderId;
+    this.orderType = orderType;
+    this.price = price;
+    this.priceTicks = NO_PRICE_TICKS;
+    this.quantity = quantity;
+    this.symbol = symbol;
+    this.instrumentId = InstrumentRegistry.NO_INSTRUMENT_ID;
+    this.orderStatus = OrderStatus.PLACED;
+    this.timeInForce = TimeInForce.GTC;
+    this.expireTimeMillis = 0;
+    this.reservedUnitNotional = NO_RESERVATION;
+  }
+
+  // Method to copy a sequenced order into an unpooled one, which stays valid once the original
+  // went back to the OrderPool
+  public Order unpooledCopy() {
+    Order copy = new Order(-1);
+    copy.reuse(sequenceId, traderId, orderType, price, quantity, symbol);
+    copy.instrumentId = instrumentId;
+    copy.priceTicks = priceTicks;
+    copy.orderStatus = orderStatus;
+    return copy;
+  }
+
   public UUID getOrderId() {
     return orderId;
   }
 
+  public long getSequenceId() {
+    return sequenceId;
+  }
+
+  public int getPoolIndex() {
+    return poolIndex;
+  }
+
   public int getTraderId() {
     return traderId;
   }
@@ -63,8 +164,25 @@ public class Order {
     return quantity;
   }
 
+  public long getPriceTicks() {
+    return priceTicks;
+  }
+
+  public void setPriceTicks(long priceTicks) {
+    this.priceTicks = priceTicks;
+  }
+
   public String getSymbol() {return symbol;}
 
+  public int getInstrumentId() {
+    return instrumentId;
+  }
+
+  // Set by the trading system when the order enters it
+  public void setInstrumentId(int instrumentId) {
+    this.instrumentId = instrumentId;
+  }
+
   public void setQuantity(int quantity) {
     this.quantity = quantity;
   }
@@ -73,6 +191,41 @@ public class Order {
 
   public void setOrderStatus(OrderStatus orderStatus) {this.orderStatus = orderStatus;}
 
+  public BigDecimal getTriggerPrice() {
+    return triggerPrice;
+  }
+
+  public TriggerCondition getTriggerCondition() {
+    return triggerCondition;
+  }
+
+  public TimeInForce getTimeInForce() {
+    return timeInForce;
+  }
+
+  public void setTimeInForce(TimeInForce timeInForce) {
+    this.timeInForce = timeInForce;
+  }
+
+  public long getExpireTimeMillis() {
+    return expireTimeMillis;
+  }
+
+  // Expire time of a GTD order; set by the trading system for DAY orders
+  public void setExpireTimeMillis(long expireTimeMillis) {
+    this.expireTimeMillis = expireTimeMillis;
+  }
+
+  public long getReservedUnitNotional() {
+    return reservedUnitNotional;
+  }
+
+  // Notional of one unit the pre-trade risk check reserved for the open quantity, in the units
+  // of the check, or NO_RESERVATION when the order holds no reservation
+  public void setReservedUnitNotional(long reservedUnitNotional) {
+    this.reservedUnitNotional = reservedUnitNotional;
+  }
+
   public List<Order> getUnderlyingOrders() {
     return underlyingOrders;
   }
@@ -80,13 +233,15 @@ public class Order {
   @Override
   public String toString() {
     return "Order{" +
-        "orderId=" + orderId +
+        (orderId == null ? "sequenceId=" + sequenceId : "orderId=" + orderId) +
         ", traderId=" + traderId +
         ", orderType=" + orderType +
         ", symbol='" + symbol + '\'' +
         ", price=" + price +
         ", quantity=" + quantity +
         ", orderStatus=" + orderStatus +
+        (triggerPrice == null ? "" : ", trigger=" + triggerCondition + " " + triggerPrice) +
+        (timeInForce == TimeInForce.GTC ? "" : ", timeInForce=" + timeInForce) +
         '}';
   }
 }
@@ -0,0 +1,126 @@
+package com.vega.trading.system.model;
+
+/* Index of orders by their long sequence id, without boxing or per-entry nodes.
+ Open addressing with linear probing over flat key and value arrays; removal shifts the following
+ entries back instead of leaving tombstones, so lookups never slow down with churn. The arrays
+ only grow, which keeps the steady state free of allocation. Thread safe. */
+public class OrderIdIndex {
+
+  private static final long EMPTY = Order.NO_SEQUENCE_ID;
+
+  private long[] keys;
+  private Order[] values;
+  private int mask;
+  private int size;
+
+  public OrderIdIndex(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+    this.keys = new long[capacity];
+    this.values = new Order[capacity];
+    this.mask = capacity - 1;
+  }
+
+  // Method to index an order unless its id is already taken; returns whether it was indexed
+  public synchronized boolean putIfAbsent(long orderId, Order order) {
+    if (orderId == EMPTY) {
+      throw new IllegalArgumentException("Order id " + EMPTY + " is reserved");
+    }
+    int slot = slot(orderId);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == orderId) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = orderId;
+    values[slot] = order;
+    if (++size * 2 > keys.length) {
+      grow();
+    }
+    return true;
+  }
+
+  public synchronized Order get(long orderId) {
+    int slot = find(orderId);
+    return slot < 0 ? null : values[slot];
+  }
+
+  // Method to take an order out of the index; returns it, or null when absent
+  public synchronized Order remove(long orderId) {
+    int slot = find(orderId);
+    if (slot < 0) {
+      return null;
+    }
+    Order order = values[slot];
+    delete(slot);
+    return order;
+  }
+
+  // Method to take the order out only while the id still maps to it
+  public synchronized boolean remove(long orderId, Order order) {
+    int slot = find(orderId);
+    if (slot < 0 || values[slot] != order) {
+      return false;
+    }
+    delete(slot);
+    return true;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private int find(long orderId) {
+    int slot = slot(orderId);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == orderId) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  // Backward shift deletion: entries after the hole move back unless it would put them ahead of
+  // their home slot
+  private void delete(int slot) {
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[hole] = EMPTY;
+    values[hole] = null;
+    size--;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    Order[] oldValues = values;
+    keys = new long[oldKeys.length << 1];
+    values = new Order[oldKeys.length << 1];
+    mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  // Sequence ids are dense, so they are mixed before masking to spread neighbouring ids
+  private int slot(long orderId) {
+    long hash = orderId * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,74 @@
+package com.vega.trading.system.model;
+
+import com.vega.trading.system.enumeration.OrderType;
+import java.math.BigDecimal;
+
+/* Preallocated, recyclable orders of the low-garbage mode.
+ Orders are handed out with an engine assigned sequence id instead of a random UUID and return to
+ the pool once they are executed or cancelled, so a steady flow of orders allocates nothing. An
+ order must not be used by its submitter after it has been released.
+ When every order is in use the pool hands out fresh unpooled orders instead of failing. */
+public class OrderPool {
+
+  private final Order[] orders; // Every pooled order by pool index
+  private final boolean[] inUse;
+  private final Order[] free;
+  private int freeCount;
+  private long misses;
+
+  public OrderPool(int capacity) {
+    this.orders = new Order[capacity];
+    this.inUse = new boolean[capacity];
+    this.free = new Order[capacity];
+    for (int i = 0; i < capacity; i++) {
+      orders[i] = new Order(i);
+      free[capacity - 1 - i] = orders[i];
+    }
+    this.freeCount = capacity;
+  }
+
+  // Method to take an order out of the pool
+  public synchronized Order acquire(long sequenceId, int traderId, OrderType orderType,
+      BigDecimal price, int quantity, String symbol) {
+    Order order;
+    if (freeCount == 0) {
+      order = new Order(-1);
+      misses++;
+    } else {
+      order = free[--freeCount];
+      free[freeCount] = null;
+      inUse[order.getPoolIndex()] = true;
+    }
+    order.reuse(sequenceId, traderId, orderType, price, quantity, symbol);
+    return order;
+  }
+
+  // Method to return an order to the pool; unpooled orders are left to the garbage collector.
+  // The order keeps its final state until it is handed out again.
+  public synchronized void release(Order order) {
+    int poolIndex = order.getPoolIndex();
+    if (poolIndex < 0 || orders[poolIndex] != order || !inUse[poolIndex]) {
+      return;
+    }
+    inUse[poolIndex] = false;
+    free[freeCount++] = order;
+  }
+
+  // Pooled order of the given index
+  public Order get(int poolIndex) {
+    return orders[poolIndex];
+  }
+
+  public int getCapacity() {
+    return orders.length;
+  }
+
+  public synchronized int getAvailable() {
+    return freeCount;
+  }
+
+  // Number of orders handed out unpooled because the pool was empty
+  public synchronized long getMisses() {
+    return misses;
+  }
+}
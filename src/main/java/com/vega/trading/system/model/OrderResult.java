@@ -0,0 +1,58 @@
+package com.vega.trading.system.model;
+
+import com.vega.trading.system.enumeration.OrderResultStatus;
+import java.util.UUID;
+
+/* Outcome of one order of a batch submission or cancellation.
+ For a composite order the quantities are summed over its underlying orders. */
+public class OrderResult {
+  private final UUID orderId;
+  private final OrderResultStatus status;
+  private final int filledQuantity;
+  private final int remainingQuantity;
+  private final String reason; // Why the order was rejected, null otherwise
+
+  public OrderResult(UUID orderId, OrderResultStatus status, int filledQuantity,
+      int remainingQuantity, String reason) {
+    this.orderId = orderId;
+    this.status = status;
+    this.filledQuantity = filledQuantity;
+    this.remainingQuantity = remainingQuantity;
+    this.reason = reason;
+  }
+
+  public static OrderResult rejected(UUID orderId, String reason) {
+    return new OrderResult(orderId, OrderResultStatus.REJECTED, 0, 0, reason);
+  }
+
+  public UUID getOrderId() {
+    return orderId;
+  }
+
+  public OrderResultStatus getStatus() {
+    return status;
+  }
+
+  public int getFilledQuantity() {
+    return filledQuantity;
+  }
+
+  public int getRemainingQuantity() {
+    return remainingQuantity;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  @Override
+  public String toString() {
+    return "OrderResult{" +
+        "orderId=" + orderId +
+        ", status=" + status +
+        ", filledQuantity=" + filledQuantity +
+        ", remainingQuantity=" + remainingQuantity +
+        ", reason='" + reason + '\'' +
+        '}';
+  }
+}
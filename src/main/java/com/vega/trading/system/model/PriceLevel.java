@@ -0,0 +1,122 @@
+package com.vega.trading.system.model;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/* A single price level of an order book side.
+ Orders resting at the same price are kept in a FIFO queue to give time priority. The queue is an
+ intrusive doubly linked list threaded through the orders themselves: each resting order knows its
+ level and neighbours, so a cancel unlinks it in O(1) and no queue node is ever allocated. */
+public class PriceLevel {
+
+  private BigDecimal price; // null for the market (unpriced) level
+  private long priceTicks; // Only meaningful in fixed-point mode
+  private Order head; // Oldest order, first in line
+  private Order tail;
+  private int orderCount;
+  private long totalQuantity;
+  BookSide side; // Owning side, set by the BookSide creating the level
+
+  public PriceLevel(BigDecimal price) {
+    this(price, Order.NO_PRICE_TICKS);
+  }
+
+  public PriceLevel(BigDecimal price, long priceTicks) {
+    this.price = price;
+    this.priceTicks = priceTicks;
+  }
+
+  // Method to recycle an emptied level for another price
+  void reset(BigDecimal price, long priceTicks) {
+    this.price = price;
+    this.priceTicks = priceTicks;
+    this.totalQuantity = 0;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public long getPriceTicks() {
+    return priceTicks;
+  }
+
+  public long getTotalQuantity() {
+    return totalQuantity;
+  }
+
+  public int getOrderCount() {
+    return orderCount;
+  }
+
+  public boolean isEmpty() {
+    return head == null;
+  }
+
+  // Method to visit the orders of the level in time priority
+  public void forEachOrder(Consumer<Order> action) {
+    for (Order order = head; order != null; order = order.next) {
+      action.accept(order);
+    }
+  }
+
+  // Oldest order at this price, first in line to be matched
+  public Order peek() {
+    return head;
+  }
+
+  void add(Order order) {
+    order.level = this;
+    order.previous = tail;
+    order.next = null;
+    if (tail == null) {
+      head = order;
+    } else {
+      tail.next = order;
+    }
+    tail = order;
+    orderCount++;
+    totalQuantity += order.getQuantity();
+  }
+
+  Order poll() {
+    Order order = head;
+    if (order != null) {
+      unlink(order);
+      totalQuantity -= order.getQuantity();
+    }
+    return order;
+  }
+
+  // Method to unlink an order resting at this level, in constant time
+  boolean remove(Order order) {
+    if (order.level != this) {
+      return false;
+    }
+    unlink(order);
+    totalQuantity -= order.getQuantity();
+    return true;
+  }
+
+  private void unlink(Order order) {
+    if (order.previous == null) {
+      head = order.next;
+    } else {
+      order.previous.next = order.next;
+    }
+    if (order.next == null) {
+      tail = order.previous;
+    } else {
+      order.next.previous = order.previous;
+    }
+    order.level = null;
+    order.previous = null;
+    order.next = null;
+    orderCount--;
+  }
+
+  // Keeps the aggregated quantity in line after a resting order has been (partially) filled
+  void reduceQuantity(int filledQuantity) {
+    totalQuantity -= filledQuantity;
+  }
+}
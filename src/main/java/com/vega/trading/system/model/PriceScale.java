@@ -0,0 +1,45 @@
+package com.vega.trading.system.model;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import java.math.BigDecimal;
+
+/* Fixed-point representation of the prices of one instrument.
+ A price is stored as a whole number of ticks: price = ticks * tickSize, using the scale of the
+ tick size. Conversions only happen at the edges; the book and matcher compare primitive ticks. */
+public class PriceScale {
+
+  private final BigDecimal tickSize;
+  private final long unscaledTick;
+  private final int scale;
+
+  public PriceScale(BigDecimal tickSize) {
+    if (tickSize == null || tickSize.signum() <= 0) {
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_TICK_SIZE);
+    }
+    this.tickSize = tickSize.stripTrailingZeros();
+    this.scale = Math.max(this.tickSize.scale(), 0);
+    this.unscaledTick = this.tickSize.setScale(scale).unscaledValue().longValueExact();
+  }
+
+  public BigDecimal getTickSize() {
+    return tickSize;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  // Method to convert a price to ticks; prices off the tick grid are rejected
+  public long toTicks(BigDecimal price) {
+    BigDecimal[] quotientAndRemainder = price.divideAndRemainder(tickSize);
+    if (quotientAndRemainder[1].signum() != 0) {
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_TICK_PRICE + price);
+    }
+    return quotientAndRemainder[0].longValueExact();
+  }
+
+  // Method to convert ticks back to a price at the scale of the tick size
+  public BigDecimal toPrice(long ticks) {
+    return BigDecimal.valueOf(Math.multiplyExact(ticks, unscaledTick), scale);
+  }
+}
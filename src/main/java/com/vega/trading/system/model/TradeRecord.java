@@ -0,0 +1,88 @@
+package com.vega.trading.system.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/* A fill as persisted in the trade history: both orders and their traders, the symbol, price,
+ quantity and the time it was recorded at. Sequenced orders of the low-garbage mode have no UUID
+ and are identified by their sequence id instead. */
+public class TradeRecord {
+
+  private final long timeMillis;
+  private final String symbol;
+  private final UUID buyOrderId; // null for sequenced orders
+  private final long buySequenceId;
+  private final int buyTraderId;
+  private final UUID sellOrderId; // null for sequenced orders
+  private final long sellSequenceId;
+  private final int sellTraderId;
+  private final BigDecimal price;
+  private final int quantity;
+
+  public TradeRecord(long timeMillis, String symbol, UUID buyOrderId, long buySequenceId,
+      int buyTraderId, UUID sellOrderId, long sellSequenceId, int sellTraderId, BigDecimal price,
+      int quantity) {
+    this.timeMillis = timeMillis;
+    this.symbol = symbol;
+    this.buyOrderId = buyOrderId;
+    this.buySequenceId = buySequenceId;
+    this.buyTraderId = buyTraderId;
+    this.sellOrderId = sellOrderId;
+    this.sellSequenceId = sellSequenceId;
+    this.sellTraderId = sellTraderId;
+    this.price = price;
+    this.quantity = quantity;
+  }
+
+  public long getTimeMillis() {
+    return timeMillis;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public UUID getBuyOrderId() {
+    return buyOrderId;
+  }
+
+  public long getBuySequenceId() {
+    return buySequenceId;
+  }
+
+  public int getBuyTraderId() {
+    return buyTraderId;
+  }
+
+  public UUID getSellOrderId() {
+    return sellOrderId;
+  }
+
+  public long getSellSequenceId() {
+    return sellSequenceId;
+  }
+
+  public int getSellTraderId() {
+    return sellTraderId;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  @Override
+  public String toString() {
+    return "TradeRecord{" +
+        "timeMillis=" + timeMillis +
+        ", symbol='" + symbol + '\'' +
+        ", buy=" + (buyOrderId == null ? buySequenceId : buyOrderId) + " of " + buyTraderId +
+        ", sell=" + (sellOrderId == null ? sellSequenceId : sellOrderId) + " of " + sellTraderId +
+        ", price=" + price +
+        ", quantity=" + quantity +
+        '}';
+  }
+}
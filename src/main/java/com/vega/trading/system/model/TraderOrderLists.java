@@ -0,0 +1,123 @@
+package com.vega.trading.system.model;
+
+import java.util.function.Consumer;
+
+/* Resting orders of one book grouped by trader, so everything a trader has in the book is found
+ without scanning it. Each trader's orders form an intrusive doubly linked list threaded through
+ the orders; the list heads sit in an open addressing table keyed on the primitive trader id,
+ which drops a trader when its last order leaves. Linking and unlinking are O(1) and, once the
+ table has grown to the number of active traders, allocation free.
+ Not thread safe: owned by the book, itself only touched by the shard owning the symbol. */
+class TraderOrderLists {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] traderIds;
+  private Order[] heads; // null marks a free slot
+  private int mask;
+  private int size;
+
+  TraderOrderLists() {
+    this.traderIds = new int[INITIAL_CAPACITY];
+    this.heads = new Order[INITIAL_CAPACITY];
+    this.mask = INITIAL_CAPACITY - 1;
+  }
+
+  void link(Order order) {
+    int slot = slotOf(order.getTraderId());
+    Order head = heads[slot];
+    order.traderPrevious = null;
+    order.traderNext = head;
+    if (head != null) {
+      head.traderPrevious = order;
+      heads[slot] = order;
+      return;
+    }
+    traderIds[slot] = order.getTraderId();
+    heads[slot] = order;
+    if (++size * 2 > heads.length) {
+      grow();
+    }
+  }
+
+  void unlink(Order order) {
+    if (order.traderPrevious != null) {
+      order.traderPrevious.traderNext = order.traderNext;
+    } else {
+      int slot = slotOf(order.getTraderId());
+      heads[slot] = order.traderNext;
+      if (heads[slot] == null) {
+        delete(slot);
+      }
+    }
+    if (order.traderNext != null) {
+      order.traderNext.traderPrevious = order.traderPrevious;
+    }
+    order.traderPrevious = null;
+    order.traderNext = null;
+  }
+
+  // The action may unlink the order it is given
+  void forEachOrder(int traderId, Consumer<Order> action) {
+    Order order = heads[slotOf(traderId)];
+    while (order != null) {
+      Order next = order.traderNext;
+      action.accept(order);
+      order = next;
+    }
+  }
+
+  boolean contains(int traderId) {
+    return heads[slotOf(traderId)] != null;
+  }
+
+  int traderCount() {
+    return size;
+  }
+
+  // Slot holding the trader, or the free slot it would go to
+  private int slotOf(int traderId) {
+    int slot = hash(traderId) & mask;
+    while (heads[slot] != null && traderIds[slot] != traderId) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  // Backward shift deletion: entries displaced past the freed slot move back into it
+  private void delete(int slot) {
+    size--;
+    int hole = slot;
+    int next = (slot + 1) & mask;
+    while (heads[next] != null) {
+      int ideal = hash(traderIds[next]) & mask;
+      if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+        traderIds[hole] = traderIds[next];
+        heads[hole] = heads[next];
+        heads[next] = null;
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+  }
+
+  private void grow() {
+    int[] oldTraderIds = traderIds;
+    Order[] oldHeads = heads;
+    traderIds = new int[oldHeads.length << 1];
+    heads = new Order[oldHeads.length << 1];
+    mask = heads.length - 1;
+    for (int i = 0; i < oldHeads.length; i++) {
+      if (oldHeads[i] != null) {
+        int slot = slotOf(oldTraderIds[i]);
+        traderIds[slot] = oldTraderIds[i];
+        heads[slot] = oldHeads[i];
+      }
+    }
+  }
+
+  private static int hash(int traderId) {
+    int hash = traderId * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
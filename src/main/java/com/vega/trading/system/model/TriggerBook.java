@@ -0,0 +1,123 @@
+package com.vega.trading.system.model;
+
+import com.vega.trading.system.enumeration.TriggerCondition;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/* Dormant good-till-trigger orders of a single symbol.
+ Orders are kept in two trigger price sorted maps, each ordered so that the next trigger to fire
+ comes first: ascending for AT_OR_ABOVE, descending for AT_OR_BELOW. A price update therefore only
+ inspects the head of each map, costing O(log n) plus the triggered orders, however many orders
+ are dormant. Fired orders wait in trigger price order until they are released into the book.
+ Until then every order is also linked into the list of its trader, as in the LimitOrderBook, so
+ the orders of one trader are found without scanning the others.
+ Like the LimitOrderBook, it is only touched by the matching engine shard owning the symbol. */
+public class TriggerBook {
+
+  private final String symbol;
+  private final TreeMap<BigDecimal, ArrayDeque<Order>> atOrAbove =
+      new TreeMap<>(Comparator.naturalOrder());
+  private final TreeMap<BigDecimal, ArrayDeque<Order>> atOrBelow =
+      new TreeMap<>(Comparator.reverseOrder());
+  private final ArrayDeque<Order> triggered = new ArrayDeque<>();
+  private final TraderOrderLists traderOrders = new TraderOrderLists();
+  private int pendingCount;
+
+  public TriggerBook(String symbol) {
+    this.symbol = symbol;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public void add(Order order) {
+    triggers(order).computeIfAbsent(order.getTriggerPrice(), price -> new ArrayDeque<>())
+        .addLast(order);
+    traderOrders.link(order);
+    pendingCount++;
+  }
+
+  // Method to take a dormant or fired but not yet released order out, e.g. on cancellation
+  public boolean remove(Order order) {
+    TreeMap<BigDecimal, ArrayDeque<Order>> triggers = triggers(order);
+    ArrayDeque<Order> orders = triggers.get(order.getTriggerPrice());
+    if (orders != null && orders.remove(order)) {
+      if (orders.isEmpty()) {
+        triggers.remove(order.getTriggerPrice());
+      }
+      pendingCount--;
+      traderOrders.unlink(order);
+      return true;
+    }
+    if (!triggered.remove(order)) {
+      return false;
+    }
+    traderOrders.unlink(order);
+    return true;
+  }
+
+  // Method to fire every order whose condition the new market price meets.
+  // Returns the number of orders fired.
+  public int onPrice(BigDecimal marketPrice) {
+    if (pendingCount == 0 || marketPrice == null) {
+      return 0;
+    }
+    int fired = fire(atOrAbove, marketPrice) + fire(atOrBelow, marketPrice);
+    pendingCount -= fired;
+    return fired;
+  }
+
+  // The head of the map is the trigger closest to being reached from the current side
+  private int fire(TreeMap<BigDecimal, ArrayDeque<Order>> triggers, BigDecimal marketPrice) {
+    int fired = 0;
+    while (!triggers.isEmpty()
+        && triggers.comparator().compare(triggers.firstKey(), marketPrice) <= 0) {
+      Map.Entry<BigDecimal, ArrayDeque<Order>> entry = triggers.pollFirstEntry();
+      fired += entry.getValue().size();
+      triggered.addAll(entry.getValue());
+    }
+    return fired;
+  }
+
+  // Next fired order to release, in trigger price order, or null
+  public Order pollTriggered() {
+    Order order = triggered.pollFirst();
+    if (order != null) {
+      traderOrders.unlink(order);
+    }
+    return order;
+  }
+
+  public boolean hasTriggered() {
+    return !triggered.isEmpty();
+  }
+
+  // Method to visit every order not released yet: dormant ones, then fired ones
+  public void forEachOrder(Consumer<Order> action) {
+    atOrAbove.values().forEach(orders -> orders.forEach(action));
+    atOrBelow.values().forEach(orders -> orders.forEach(action));
+    triggered.forEach(action);
+  }
+
+  // Method to visit the orders of one trader not released yet, latest first
+  public void forEachOrderOfTrader(int traderId, Consumer<Order> action) {
+    traderOrders.forEachOrder(traderId, action);
+  }
+
+  public boolean hasOrdersOf(int traderId) {
+    return traderOrders.contains(traderId);
+  }
+
+  public int getPendingCount() {
+    return pendingCount;
+  }
+
+  private TreeMap<BigDecimal, ArrayDeque<Order>> triggers(Order order) {
+    return order.getTriggerCondition() == TriggerCondition.AT_OR_ABOVE ? atOrAbove : atOrBelow;
+  }
+}
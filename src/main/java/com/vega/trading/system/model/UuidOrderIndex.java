@@ -0,0 +1,266 @@
+package com.vega.trading.system.model;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/* Index of orders by UUID stored in flat primitive arrays instead of hash map nodes.
+ Every order already holds its id, so a slot is just the primitive hash of the id next to the order
+ reference: open addressing with linear probing and backward shift deletion over two flat arrays.
+ An entry costs two array slots instead of a node, and probing compares adjacent ints, only
+ dereferencing an order whose hash matches.
+ The table is split into independently locked segments to let submitters work concurrently.
+ Iteration goes over a snapshot taken one segment at a time.
+ Since lookups compare against the id held by the order, an order can only be put under its own
+ non-null id. */
+public class UuidOrderIndex extends AbstractMap<UUID, Order> {
+
+  private static final int SEGMENTS = 16;
+  private static final int SEGMENT_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  public UuidOrderIndex() {
+    this(SEGMENTS * 64);
+  }
+
+  public UuidOrderIndex(int expectedSize) {
+    int perSegment = Math.max(expectedSize / SEGMENTS, 8);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(perSegment);
+    }
+  }
+
+  @Override
+  public Order get(Object key) {
+    if (!(key instanceof UUID)) {
+      return null;
+    }
+    UUID orderId = (UUID) key;
+    int hash = hash(orderId);
+    return segmentFor(hash).get(orderId, hash);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Order put(UUID orderId, Order order) {
+    checkKey(orderId, order);
+    int hash = hash(orderId);
+    return segmentFor(hash).put(orderId, hash, order, false);
+  }
+
+  @Override
+  public Order putIfAbsent(UUID orderId, Order order) {
+    checkKey(orderId, order);
+    int hash = hash(orderId);
+    return segmentFor(hash).put(orderId, hash, order, true);
+  }
+
+  // Helper method to reject an entry a lookup could never find again
+  private static void checkKey(UUID orderId, Order order) {
+    Objects.requireNonNull(order);
+    if (orderId == null || !orderId.equals(order.getOrderId())) {
+      throw new IllegalArgumentException(ExceptionMessages.ORDER_ID_MISMATCH);
+    }
+  }
+
+  @Override
+  public Order remove(Object key) {
+    if (!(key instanceof UUID)) {
+      return null;
+    }
+    UUID orderId = (UUID) key;
+    int hash = hash(orderId);
+    return segmentFor(hash).remove(orderId, hash, null);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    if (!(key instanceof UUID) || !(value instanceof Order)) {
+      return false;
+    }
+    UUID orderId = (UUID) key;
+    int hash = hash(orderId);
+    return segmentFor(hash).remove(orderId, hash, (Order) value) != null;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (Segment segment : segments) {
+      if (segment.size() > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<UUID, Order>> entrySet() {
+    Set<Map.Entry<UUID, Order>> entries = new HashSet<>();
+    for (Segment segment : segments) {
+      segment.collect(entries);
+    }
+    return Collections.unmodifiableSet(entries);
+  }
+
+  // Number of key slots allocated, to report the footprint of the index
+  public long getCapacity() {
+    long capacity = 0;
+    for (Segment segment : segments) {
+      capacity += segment.capacity();
+    }
+    return capacity;
+  }
+
+  private Segment segmentFor(int hash) {
+    return segments[hash >>> SEGMENT_SHIFT];
+  }
+
+  // Upper bits pick the segment, lower bits the slot inside it
+  private static int hash(UUID orderId) {
+    long bits = (orderId.getMostSignificantBits() ^ orderId.getLeastSignificantBits())
+        * 0x9E3779B97F4A7C15L;
+    return (int) (bits ^ (bits >>> 32));
+  }
+
+  // One open addressing table; an empty slot has a null order
+  private static final class Segment {
+    private int[] hashes;
+    private Order[] orders;
+    private int mask;
+    private int size;
+
+    private Segment(int expectedSize) {
+      allocate(Integer.highestOneBit(expectedSize * 2 - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+      hashes = new int[capacity];
+      orders = new Order[capacity];
+      mask = capacity - 1;
+    }
+
+    private synchronized Order get(UUID orderId, int hash) {
+      int slot = find(orderId, hash);
+      return slot < 0 ? null : orders[slot];
+    }
+
+    private synchronized Order put(UUID orderId, int hash, Order order, boolean onlyIfAbsent) {
+      int slot = hash & mask;
+      while (orders[slot] != null) {
+        if (hashes[slot] == hash && orderId.equals(orders[slot].getOrderId())) {
+          Order previous = orders[slot];
+          if (!onlyIfAbsent) {
+            orders[slot] = order;
+          }
+          return previous;
+        }
+        slot = (slot + 1) & mask;
+      }
+      hashes[slot] = hash;
+      orders[slot] = order;
+      if (++size * 4 > orders.length * 3) {
+        grow();
+      }
+      return null;
+    }
+
+    // Removes the entry, only while it maps to the expected order when one is given
+    private synchronized Order remove(UUID orderId, int hash, Order expected) {
+      int slot = find(orderId, hash);
+      if (slot < 0 || (expected != null && orders[slot] != expected)) {
+        return null;
+      }
+      Order order = orders[slot];
+      int hole = slot;
+      int next = (hole + 1) & mask;
+      while (orders[next] != null) {
+        int home = hashes[next] & mask;
+        if (((next - home) & mask) >= ((next - hole) & mask)) {
+          hashes[hole] = hashes[next];
+          orders[hole] = orders[next];
+          hole = next;
+        }
+        next = (next + 1) & mask;
+      }
+      orders[hole] = null;
+      size--;
+      return order;
+    }
+
+    // The stored hash filters the probed slots, so only a likely match dereferences its order
+    private int find(UUID orderId, int hash) {
+      int slot = hash & mask;
+      while (orders[slot] != null) {
+        if (hashes[slot] == hash && orderId.equals(orders[slot].getOrderId())) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    private void grow() {
+      int[] oldHashes = hashes;
+      Order[] oldOrders = orders;
+      allocate(oldOrders.length << 1);
+      for (int i = 0; i < oldOrders.length; i++) {
+        if (oldOrders[i] != null) {
+          int slot = oldHashes[i] & mask;
+          while (orders[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          hashes[slot] = oldHashes[i];
+          orders[slot] = oldOrders[i];
+        }
+      }
+    }
+
+    private synchronized int size() {
+      return size;
+    }
+
+    private synchronized int capacity() {
+      return orders.length;
+    }
+
+    private synchronized void clear() {
+      Arrays.fill(orders, null);
+      size = 0;
+    }
+
+    private synchronized void collect(Set<Map.Entry<UUID, Order>> entries) {
+      for (Order order : orders) {
+        if (order != null) {
+          entries.add(new SimpleImmutableEntry<>(order.getOrderId(), order));
+        }
+      }
+    }
+  }
+}
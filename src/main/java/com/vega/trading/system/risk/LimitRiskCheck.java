@@ -0,0 +1,162 @@
+package com.vega.trading.system.risk;
+
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.risk.TraderExposure.SymbolExposure;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Pre-trade risk check enforcing RiskLimits.
+ The stateless limits (order quantity, order notional, price collar) are checked first. The open
+ quantity and notional of the order are then added to the counters of its trader and rolled back
+ if a limit is breached, so concurrent orders of a trader never exceed a limit together without
+ taking a lock. An order reserves its quantity at its limit price, or at the market price for a
+ market order, and releases it at that same price once filled or cancelled. */
+public class LimitRiskCheck implements PreTradeRiskCheck {
+
+  private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+  private final int maxOrderQuantity;
+  private final long maxOrderNotional; // In notional units, 0 when not enforced
+  private final long maxOpenNotional;
+  private final long maxPosition;
+  private final BigDecimal collarLowerFactor; // Null when no collar is enforced
+  private final BigDecimal collarUpperFactor;
+
+  private final Map<Integer, TraderExposure> traderExposures = new ConcurrentHashMap<>();
+
+  public LimitRiskCheck(RiskLimits riskLimits) {
+    this.maxOrderQuantity = riskLimits.getMaxOrderQuantity();
+    this.maxOrderNotional = riskLimits.getMaxOrderNotional() == null ? 0
+        : toUnits(riskLimits.getMaxOrderNotional());
+    this.maxOpenNotional = riskLimits.getMaxOpenNotional() == null ? 0
+        : toUnits(riskLimits.getMaxOpenNotional());
+    this.maxPosition = riskLimits.getMaxPosition();
+    BigDecimal collarPercent = riskLimits.getPriceCollarPercent();
+    if (collarPercent == null) {
+      this.collarLowerFactor = null;
+      this.collarUpperFactor = null;
+    } else {
+      BigDecimal band = collarPercent.divide(ONE_HUNDRED);
+      this.collarLowerFactor = BigDecimal.ONE.subtract(band);
+      this.collarUpperFactor = BigDecimal.ONE.add(band);
+    }
+  }
+
+  @Override
+  public String check(Order order, BigDecimal referencePrice) {
+    int quantity = order.getQuantity();
+    if (maxOrderQuantity > 0 && quantity > maxOrderQuantity) {
+      return ExceptionMessages.RISK_ORDER_QUANTITY;
+    }
+    BigDecimal price = order.getPrice();
+    if (price != null && referencePrice != null && collarLowerFactor != null
+        && (price.compareTo(referencePrice.multiply(collarLowerFactor)) < 0
+        || price.compareTo(referencePrice.multiply(collarUpperFactor)) > 0)) {
+      return ExceptionMessages.RISK_PRICE_COLLAR;
+    }
+    if (price == null) {
+      price = referencePrice;
+    }
+    long unitNotional = 0;
+    if (price != null) {
+      unitNotional = toUnits(price);
+    } else if (maxOrderNotional > 0 || maxOpenNotional > 0) {
+      return ExceptionMessages.RISK_NO_REFERENCE_PRICE;
+    }
+    long notional = notional(unitNotional, quantity);
+    if (notional < 0 || maxOrderNotional > 0 && notional > maxOrderNotional) {
+      return ExceptionMessages.RISK_ORDER_NOTIONAL;
+    }
+
+    TraderExposure traderExposure = exposureOf(order.getTraderId());
+    SymbolExposure symbolExposure = traderExposure.symbolExposure(order.getSymbol());
+    boolean buy = order.getOrderType() == OrderType.BUY;
+    AtomicLong openQuantity = buy ? symbolExposure.openBuyQuantity
+        : symbolExposure.openSellQuantity;
+    long open = openQuantity.addAndGet(quantity);
+    if (maxPosition > 0) {
+      long worstPosition = buy ? symbolExposure.position.get() + open
+          : symbolExposure.position.get() - open;
+      if (Math.abs(worstPosition) > maxPosition) {
+        openQuantity.addAndGet(-quantity);
+        return ExceptionMessages.RISK_POSITION;
+      }
+    }
+    AtomicLong openNotional = traderExposure.openNotional();
+    long totalOpenNotional = openNotional.addAndGet(notional);
+    if (maxOpenNotional > 0 && totalOpenNotional > maxOpenNotional) {
+      openNotional.addAndGet(-notional);
+      openQuantity.addAndGet(-quantity);
+      return ExceptionMessages.RISK_OPEN_NOTIONAL;
+    }
+    order.setReservedUnitNotional(unitNotional);
+    return null;
+  }
+
+  @Override
+  public void onFill(Order order, int quantity, BigDecimal tradePrice) {
+    TraderExposure traderExposure = exposureOf(order.getTraderId());
+    SymbolExposure symbolExposure = traderExposure.symbolExposure(order.getSymbol());
+    boolean buy = order.getOrderType() == OrderType.BUY;
+    // Fills of orders without a reservation, e.g. basket legs, still move the position
+    symbolExposure.position.addAndGet(buy ? quantity : -quantity);
+    release(traderExposure, symbolExposure, order, buy, quantity);
+  }
+
+  @Override
+  public void onCancel(Order order, int quantity) {
+    if (order.getReservedUnitNotional() == Order.NO_RESERVATION) {
+      return;
+    }
+    TraderExposure traderExposure = exposureOf(order.getTraderId());
+    release(traderExposure, traderExposure.symbolExposure(order.getSymbol()), order,
+        order.getOrderType() == OrderType.BUY, quantity);
+    order.setReservedUnitNotional(Order.NO_RESERVATION);
+  }
+
+  // Exposure of a trader, null when the trader never had an order checked or filled
+  public TraderExposure getExposure(int traderId) {
+    return traderExposures.get(traderId);
+  }
+
+  private void release(TraderExposure traderExposure, SymbolExposure symbolExposure, Order order,
+      boolean buy, int quantity) {
+    long unitNotional = order.getReservedUnitNotional();
+    if (unitNotional == Order.NO_RESERVATION) {
+      return;
+    }
+    (buy ? symbolExposure.openBuyQuantity : symbolExposure.openSellQuantity)
+        .addAndGet(-quantity);
+    traderExposure.openNotional().addAndGet(-notional(unitNotional, quantity));
+  }
+
+  private TraderExposure exposureOf(int traderId) {
+    TraderExposure traderExposure = traderExposures.get(traderId);
+    if (traderExposure == null) {
+      traderExposure = traderExposures.computeIfAbsent(traderId, TraderExposure::new);
+    }
+    return traderExposure;
+  }
+
+  // Notional of a quantity in notional units, -1 when it does not fit in a long
+  private static long notional(long unitNotional, int quantity) {
+    long high = Math.multiplyHigh(unitNotional, quantity);
+    long notional = unitNotional * quantity;
+    return high != 0 || notional < 0 ? -1 : notional;
+  }
+
+  // Amount in notional units rounded up, saturating at Long.MAX_VALUE
+  private static long toUnits(BigDecimal amount) {
+    try {
+      return amount.setScale(TraderExposure.NOTIONAL_SCALE, RoundingMode.CEILING).unscaledValue()
+          .longValueExact();
+    } catch (ArithmeticException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+}
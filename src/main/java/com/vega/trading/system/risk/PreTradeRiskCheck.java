@@ -0,0 +1,23 @@
+package com.vega.trading.system.risk;
+
+import com.vega.trading.system.model.Order;
+import java.math.BigDecimal;
+
+/* Pre-trade risk stage run by TradingSystem.addOrder before an order is accepted.
+ Checks run concurrently on the submitting threads, while fills and cancels are reported from the
+ matching shards, so implementations must be thread safe. An accepted order may reserve exposure
+ that the trading system hands back through onFill and onCancel. */
+public interface PreTradeRiskCheck {
+
+  // Method to check an order against the limits, reserving its exposure when it passes.
+  // The reference price is the instrument's last market price, null when there is none.
+  // Returns why the order is rejected, or null when it is accepted.
+  String check(Order order, BigDecimal referencePrice);
+
+  // Called on the matching shard once an order traded the given quantity
+  void onFill(Order order, int quantity, BigDecimal tradePrice);
+
+  // Called on the matching shard once the open quantity of an order left the book without trading,
+  // i.e. it was cancelled, expired or not allowed to rest
+  void onCancel(Order order, int quantity);
+}
@@ -0,0 +1,27 @@
+package com.vega.trading.system.risk;
+
+import java.math.BigDecimal;
+import lombok.Builder;
+import lombok.Getter;
+
+/* Limits enforced by the LimitRiskCheck. Every limit left unset is not enforced.
+ Use RiskLimits.builder() and set only the limits that apply. */
+@Getter
+@Builder
+public class RiskLimits {
+
+  // Largest quantity of a single order
+  private final int maxOrderQuantity;
+
+  // Largest price times quantity of a single order; market orders are valued at the market price
+  private final BigDecimal maxOrderNotional;
+
+  // Largest notional of the open (resting or dormant) orders of a trader, over all symbols
+  private final BigDecimal maxOpenNotional;
+
+  // Largest absolute position of a trader in a symbol, should all its open orders of one side fill
+  private final long maxPosition;
+
+  // Largest distance of a limit price from the market price, in percent of the market price
+  private final BigDecimal priceCollarPercent;
+}
@@ -0,0 +1,68 @@
+package com.vega.trading.system.risk;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Exposure of one trader kept by the LimitRiskCheck.
+ Every figure is an atomic primitive counter: submitting threads reserve and roll back with
+ addAndGet while the matching shards release on fills and cancels, with no lock shared between
+ traders. Notionals are counted in units of 10^-NOTIONAL_SCALE. */
+public class TraderExposure {
+
+  public static final int NOTIONAL_SCALE = 4;
+
+  private final int traderId;
+  private final AtomicLong openNotional = new AtomicLong();
+  private final Map<String, SymbolExposure> symbolExposures = new ConcurrentHashMap<>();
+
+  TraderExposure(int traderId) {
+    this.traderId = traderId;
+  }
+
+  public int getTraderId() {
+    return traderId;
+  }
+
+  // Notional of the open orders of the trader, over all symbols
+  public BigDecimal getOpenNotional() {
+    return BigDecimal.valueOf(openNotional.get(), NOTIONAL_SCALE);
+  }
+
+  // Net filled quantity of the trader in the symbol: bought minus sold
+  public long getPosition(String symbol) {
+    SymbolExposure symbolExposure = symbolExposures.get(symbol);
+    return symbolExposure == null ? 0 : symbolExposure.position.get();
+  }
+
+  public long getOpenBuyQuantity(String symbol) {
+    SymbolExposure symbolExposure = symbolExposures.get(symbol);
+    return symbolExposure == null ? 0 : symbolExposure.openBuyQuantity.get();
+  }
+
+  public long getOpenSellQuantity(String symbol) {
+    SymbolExposure symbolExposure = symbolExposures.get(symbol);
+    return symbolExposure == null ? 0 : symbolExposure.openSellQuantity.get();
+  }
+
+  AtomicLong openNotional() {
+    return openNotional;
+  }
+
+  SymbolExposure symbolExposure(String symbol) {
+    // Plain lookup first, computeIfAbsent would allocate its capturing function on every call
+    SymbolExposure symbolExposure = symbolExposures.get(symbol);
+    if (symbolExposure == null) {
+      symbolExposure = symbolExposures.computeIfAbsent(symbol, key -> new SymbolExposure());
+    }
+    return symbolExposure;
+  }
+
+  // Position and open quantities of a trader in one symbol
+  static final class SymbolExposure {
+    final AtomicLong position = new AtomicLong();
+    final AtomicLong openBuyQuantity = new AtomicLong();
+    final AtomicLong openSellQuantity = new AtomicLong();
+  }
+}
@@ -0,0 +1,221 @@
+package com.vega.trading.system.service;
+
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/* All-or-none execution of composite (basket) orders.
+ A basket only pauses the matching shards owning its legs' symbols: while they are paused the
+ liquidity for every leg is checked against the books, quantity taken by an earlier leg on the
+ same book side is held back for it, and either every leg is matched in full or none is touched.
+ Unrelated symbols keep matching on their own shards meanwhile.
+ A basket that cannot be filled at once is killed, or, with a fill window, kept pending and
+ retried whenever one of its books changes until the window expires. */
+@Slf4j
+public class BasketExecutionService {
+
+  private static final long MAX_RETRY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final TradingSystem tradingSystem;
+  private final MatchingEngine matchingEngine;
+  // Baskets waiting for liquidity by composite order ID
+  private final Map<UUID, Basket> pendingBaskets = new ConcurrentHashMap<>();
+  private volatile Thread retryThread;
+  private volatile boolean running = true;
+
+  BasketExecutionService(TradingSystem tradingSystem, MatchingEngine matchingEngine) {
+    this.tradingSystem = tradingSystem;
+    this.matchingEngine = matchingEngine;
+  }
+
+  // Method to execute a basket, or keep it pending for up to fillWindowMillis.
+  // Returns the composite order's status: EXECUTED, PLACED while pending or CANCELLED when killed.
+  // Must not be called from a matching shard.
+  public OrderStatus execute(Order compositeOrder, long fillWindowMillis) {
+    Basket basket = new Basket(compositeOrder,
+        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fillWindowMillis));
+    if (tryExecute(basket)) {
+      return OrderStatus.EXECUTED;
+    }
+    if (fillWindowMillis <= 0) {
+      kill(basket);
+      return compositeOrder.getOrderStatus();
+    }
+    ensureRetryThread();
+    pendingBaskets.put(compositeOrder.getOrderId(), basket);
+    // Liquidity may have arrived between the attempt and the registration
+    basket.dirty = true;
+    LockSupport.unpark(retryThread);
+    return compositeOrder.getOrderStatus();
+  }
+
+  // Method to cancel a pending basket; returns false once it has been executed or killed
+  public boolean cancel(Order compositeOrder) {
+    Basket basket = pendingBaskets.remove(compositeOrder.getOrderId());
+    if (basket == null) {
+      return false;
+    }
+    synchronized (basket) {
+      if (basket.completed) {
+        return false;
+      }
+      basket.completed = true;
+      compositeOrder.setOrderStatus(OrderStatus.CANCELLED);
+    }
+    return true;
+  }
+
+  // Called on the shard owning a book after it changed, to retry the baskets waiting on it
+  void onBookChanged(String symbol) {
+    if (pendingBaskets.isEmpty()) {
+      return;
+    }
+    boolean waiting = false;
+    for (Basket basket : pendingBaskets.values()) {
+      if (basket.symbols.contains(symbol)) {
+        basket.dirty = true;
+        waiting = true;
+      }
+    }
+    if (waiting) {
+      LockSupport.unpark(retryThread);
+    }
+  }
+
+  public int getPendingCount() {
+    return pendingBaskets.size();
+  }
+
+  void shutdown() {
+    running = false;
+    if (retryThread != null) {
+      LockSupport.unpark(retryThread);
+    }
+  }
+
+  private boolean tryExecute(Basket basket) {
+    boolean[] executed = new boolean[1];
+    matchingEngine.runExclusive(basket.symbols, () -> {
+      synchronized (basket) {
+        if (basket.completed || !isFillable(basket.compositeOrder.getUnderlyingOrders())) {
+          return;
+        }
+        for (Order leg : basket.compositeOrder.getUnderlyingOrders()) {
+          LimitOrderBook limitOrderBook = tradingSystem.getLimitOrderBook(leg.getInstrumentId());
+          tradingSystem.restInBook(limitOrderBook, leg);
+          tradingSystem.matchBook(limitOrderBook);
+          if (leg.getQuantity() > 0) {
+            log.error("Basket {} leg {} left {} unfilled despite the liquidity check",
+                basket.compositeOrder.getOrderId(), leg.getOrderId(), leg.getQuantity());
+          }
+        }
+        basket.completed = true;
+        basket.compositeOrder.setOrderStatus(OrderStatus.EXECUTED);
+        executed[0] = true;
+      }
+    });
+    if (executed[0]) {
+      log.debug("Basket executed: {}", basket.compositeOrder.getOrderId());
+    }
+    return executed[0];
+  }
+
+  // Every leg must fill in full against the opposite side within its limit. A leg on the same
+  // book side as an earlier leg only counts what that leg leaves behind, best prices going first.
+  // A basket with a leg in a call auction waits for the uncross.
+  private boolean isFillable(List<Order> legs) {
+    for (int i = 0; i < legs.size(); i++) {
+      Order leg = legs.get(i);
+      LimitOrderBook limitOrderBook = tradingSystem.getLimitOrderBook(leg.getInstrumentId());
+      if (limitOrderBook.isInAuction()) {
+        return false;
+      }
+      long reserved = 0;
+      for (int j = 0; j < i; j++) {
+        Order earlierLeg = legs.get(j);
+        if (earlierLeg.getSymbol().equals(leg.getSymbol())
+            && earlierLeg.getOrderType() == leg.getOrderType()) {
+          reserved += earlierLeg.getQuantity();
+        }
+      }
+      long required = reserved + leg.getQuantity();
+      if (limitOrderBook.crossableQuantity(leg, required) < required) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void kill(Basket basket) {
+    synchronized (basket) {
+      if (basket.completed) {
+        return;
+      }
+      basket.completed = true;
+      basket.compositeOrder.setOrderStatus(OrderStatus.CANCELLED);
+    }
+    log.debug("Basket killed, not fillable within its window: {}",
+        basket.compositeOrder.getOrderId());
+  }
+
+  private synchronized void ensureRetryThread() {
+    if (retryThread == null) {
+      retryThread = new Thread(this::retryLoop, "basket-retry");
+      retryThread.setDaemon(true);
+      retryThread.start();
+    }
+  }
+
+  private void retryLoop() {
+    while (running) {
+      long now = System.nanoTime();
+      long parkNanos = MAX_RETRY_PARK_NANOS;
+      for (Basket basket : pendingBaskets.values()) {
+        if (basket.dirty) {
+          basket.dirty = false;
+          try {
+            if (tryExecute(basket)) {
+              pendingBaskets.remove(basket.compositeOrder.getOrderId());
+              continue;
+            }
+          } catch (RuntimeException e) {
+            log.error("Basket retry failed: {}", basket.compositeOrder.getOrderId(), e);
+          }
+        }
+        if (basket.deadlineNanos - now <= 0) {
+          pendingBaskets.remove(basket.compositeOrder.getOrderId());
+          kill(basket);
+        } else {
+          parkNanos = Math.min(parkNanos, basket.deadlineNanos - now);
+        }
+      }
+      LockSupport.parkNanos(parkNanos);
+    }
+  }
+
+  private static final class Basket {
+    private final Order compositeOrder;
+    private final Set<String> symbols;
+    private final long deadlineNanos;
+    private volatile boolean dirty;
+    private boolean completed; // Guarded by the basket: executed, killed or cancelled
+
+    private Basket(Order compositeOrder, long deadlineNanos) {
+      this.compositeOrder = compositeOrder;
+      this.deadlineNanos = deadlineNanos;
+      this.symbols = new LinkedHashSet<>();
+      for (Order leg : compositeOrder.getUnderlyingOrders()) {
+        symbols.add(leg.getSymbol());
+      }
+    }
+  }
+}
@@ -1,54 +1,205 @@
 package com.vega.trading.system.service;
 
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.journal.ExecutionJournal;
+import com.vega.trading.system.marketdata.BarAggregator;
 import com.vega.trading.system.model.CompositeFinancialInstrument;
 import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.InstrumentIndex;
+import com.vega.trading.system.model.InstrumentRegistry;
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class FinancialInstrumentService {
 
 
-  // Map to store financial instruments
-  private Map<String, FinancialInstrument> financialInstruments;
+  // Interned instrument ids of the symbols, shared with the trading system
+  private final InstrumentRegistry instrumentRegistry;
+
+  // Map to store financial instruments, indexed by instrument id
+  private InstrumentIndex<FinancialInstrument> financialInstruments;
 
 
   // Map to store composite financial instruments
   private Map<String, CompositeFinancialInstrument> compositeFinancialInstruments;
 
+  // Reverse index from an underlying instrument id to the composites containing it,
+  // so a trade only touches the baskets that actually hold the traded symbol
+  private final InstrumentIndex<List<CompositeFinancialInstrument>> compositesByUnderlying;
+
+  // Distinct underlying instrument objects held by composites, by instrument id, for the lazy mode
+  private final InstrumentIndex<List<FinancialInstrument>> underlyingsById;
+
+  // When set, a trade only moves the underlying instruments; composites reprice when read
+  private volatile boolean lazyCompositePricing;
+
+  // Optional journal receiving every price update
+  private ExecutionJournal executionJournal;
+
+  // Optional good-till-trigger orders evaluated on every price update
+  private TriggerOrderService triggerOrderService;
+
+  // Optional trade bars, rolling registered composites up from their legs
+  private BarAggregator barAggregator;
 
   public FinancialInstrumentService() {
-    this.financialInstruments = new ConcurrentHashMap<>();
+    this(new InstrumentRegistry());
+  }
+
+  public FinancialInstrumentService(InstrumentRegistry instrumentRegistry) {
+    this.instrumentRegistry = instrumentRegistry;
+    this.financialInstruments = new InstrumentIndex<>(instrumentRegistry);
     this.compositeFinancialInstruments = new ConcurrentHashMap<>();
+    this.compositesByUnderlying = new InstrumentIndex<>(instrumentRegistry);
+    this.underlyingsById = new InstrumentIndex<>(instrumentRegistry);
+  }
+
+  // Method to register a composite financial instrument and index it by its underlying symbols
+  public synchronized void registerCompositeFinancialInstrument(
+      CompositeFinancialInstrument compositeInstrument) {
+    CompositeFinancialInstrument replaced = compositeFinancialInstruments.put(
+        compositeInstrument.getSymbol(), compositeInstrument);
+    if (replaced != null) {
+      unindex(replaced);
+    }
+    for (FinancialInstrument underlying : compositeInstrument.getUnderlyingInstruments()) {
+      int instrumentId = instrumentRegistry.register(underlying.getSymbol());
+      List<CompositeFinancialInstrument> composites = compositesByUnderlying.computeIfAbsent(
+          instrumentId, id -> new CopyOnWriteArrayList<>());
+      if (!composites.contains(compositeInstrument)) {
+        composites.add(compositeInstrument);
+      }
+      List<FinancialInstrument> underlyings = underlyingsById.computeIfAbsent(instrumentId,
+          id -> new CopyOnWriteArrayList<>());
+      if (!containsSame(underlyings, underlying)) {
+        underlyings.add(underlying);
+      }
+    }
+    if (barAggregator != null) {
+      barAggregator.registerComposite(compositeInstrument);
+    }
+  }
+
+  // Method to unregister a composite financial instrument; returns the removed instrument or null
+  public synchronized CompositeFinancialInstrument unregisterCompositeFinancialInstrument(
+      String symbol) {
+    CompositeFinancialInstrument removed = compositeFinancialInstruments.remove(symbol);
+    if (removed != null) {
+      unindex(removed);
+      if (barAggregator != null) {
+        barAggregator.unregisterComposite(symbol);
+      }
+    }
+    return removed;
+  }
+
+  private void unindex(CompositeFinancialInstrument compositeInstrument) {
+    for (FinancialInstrument underlying : compositeInstrument.getUnderlyingInstruments()) {
+      int instrumentId = instrumentRegistry.idOf(underlying.getSymbol());
+      List<CompositeFinancialInstrument> composites = compositesByUnderlying.get(instrumentId);
+      if (composites != null) {
+        composites.remove(compositeInstrument);
+        if (composites.isEmpty()) {
+          compositesByUnderlying.remove(instrumentId);
+        }
+      }
+      reindexUnderlyings(instrumentId, underlying.getSymbol());
+    }
+  }
+
+  // Helper method to rebuild the distinct underlying instruments of a symbol after a removal
+  private void reindexUnderlyings(int instrumentId, String symbol) {
+    List<CompositeFinancialInstrument> composites = compositesByUnderlying.get(instrumentId);
+    if (composites == null) {
+      underlyingsById.remove(instrumentId);
+      return;
+    }
+    Set<FinancialInstrument> underlyings = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (CompositeFinancialInstrument compositeInstrument : composites) {
+      for (FinancialInstrument underlying : compositeInstrument.getUnderlyingInstruments()) {
+        if (underlying.getSymbol().equals(symbol)) {
+          underlyings.add(underlying);
+        }
+      }
+    }
+    underlyingsById.put(instrumentId, new CopyOnWriteArrayList<>(underlyings));
+  }
+
+  // Instruments equal by symbol can be different objects, each needing its own price update
+  private static boolean containsSame(List<FinancialInstrument> underlyings,
+      FinancialInstrument underlying) {
+    for (FinancialInstrument candidate : underlyings) {
+      if (candidate == underlying) {
+        return true;
+      }
+    }
+    return false;
   }
 
   // Method to update composite financial instruments and underlying financial instruments based on the executed trade
   public void updateCompositeFinancialInstruments(String symbol, BigDecimal tradePrice) {
-    for (CompositeFinancialInstrument compositeInstrument : compositeFinancialInstruments.values()) {
-      if (containsSymbol(compositeInstrument, symbol)) {
-        compositeInstrument.getUnderlyingInstruments().forEach(underlying -> {
-          if (underlying.getSymbol().equals(symbol)) {
-            log.info("Updated market price - Symbol: {}, New Price: {}",
-                new Object[]{symbol, tradePrice});
-            underlying.updateMarketPrice(tradePrice);
-          }
-        });
-        compositeInstrument.updateMarketPrice();  // Recalculate aggregated market price
-        log.info("Recalculated aggregated market price for Composite Instrument: {0}",
-            compositeInstrument);
+    updateCompositeFinancialInstruments(instrumentRegistry.idOf(symbol), tradePrice);
+  }
+
+  // Same by instrument id, as called from the matching hot path
+  public void updateCompositeFinancialInstruments(int instrumentId, BigDecimal tradePrice) {
+    if (lazyCompositePricing) {
+      // Cost in the number of distinct instruments, not of baskets holding the symbol
+      List<FinancialInstrument> underlyings = underlyingsById.get(instrumentId);
+      if (underlyings != null) {
+        for (FinancialInstrument underlying : underlyings) {
+          underlying.updateMarketPrice(tradePrice);
+        }
+      }
+      return;
+    }
+    List<CompositeFinancialInstrument> composites = compositesByUnderlying.get(instrumentId);
+    if (composites == null) {
+      return;
+    }
+    String symbol = instrumentRegistry.symbolOf(instrumentId);
+    for (CompositeFinancialInstrument compositeInstrument : composites) {
+      compositeInstrument.updateUnderlyingMarketPrice(symbol, tradePrice);
+      if (executionJournal != null) {
+        executionJournal.publishPriceUpdate(ExecutionEventType.COMPOSITE_PRICE_UPDATE,
+            compositeInstrument.getSymbol(), compositeInstrument.getMarketPrice());
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Recalculated aggregated market price for Composite Instrument: {}, New Price: {}",
+            compositeInstrument.getSymbol(), compositeInstrument.getMarketPrice());
       }
     }
   }
 
   // Helper method to update financial instruments based on the executed trade
   public void updateFinancialInstruments(String symbol, BigDecimal tradePrice) {
-    FinancialInstrument financialInstrument = financialInstruments.get(symbol);
+    updateFinancialInstruments(instrumentRegistry.idOf(symbol), tradePrice);
+  }
+
+  // Same by instrument id, as called from the matching hot path
+  public void updateFinancialInstruments(int instrumentId, BigDecimal tradePrice) {
+    if (triggerOrderService != null) {
+      triggerOrderService.onPriceUpdate(instrumentId, tradePrice);
+    }
+    FinancialInstrument financialInstrument = financialInstruments.get(instrumentId);
     if (financialInstrument != null) {
-      log.info("Updated market price for Financial Instrument - Symbol: {}, New Price: {}",
-          new Object[]{symbol, tradePrice});
+      String symbol = financialInstrument.getSymbol();
+      if (log.isDebugEnabled()) {
+        log.debug("Updated market price for Financial Instrument - Symbol: {}, New Price: {}",
+            symbol, tradePrice);
+      }
       financialInstrument.updateMarketPrice(tradePrice);
+      if (executionJournal != null) {
+        executionJournal.publishPriceUpdate(ExecutionEventType.PRICE_UPDATE, symbol, tradePrice);
+      }
     }
   }
 
@@ -58,8 +209,53 @@ public class FinancialInstrumentService {
         .anyMatch(instrument -> instrument.getSymbol().equals(symbol));
   }
 
+  // Composites currently holding the given underlying symbol
+  public List<CompositeFinancialInstrument> getCompositesContaining(String symbol) {
+    List<CompositeFinancialInstrument> composites = compositesByUnderlying.get(symbol);
+    return composites == null ? Collections.emptyList() : Collections.unmodifiableList(composites);
+  }
+
+
+  public void setExecutionJournal(ExecutionJournal executionJournal) {
+    this.executionJournal = executionJournal;
+  }
+
+  // Method to switch to pull-based composite pricing. Composite prices are then computed when
+  // read, so no composite price updates are published to the execution journal.
+  public void setLazyCompositePricing(boolean lazyCompositePricing) {
+    this.lazyCompositePricing = lazyCompositePricing;
+  }
+
+  public boolean isLazyCompositePricing() {
+    return lazyCompositePricing;
+  }
+
+  public void setTriggerOrderService(TriggerOrderService triggerOrderService) {
+    this.triggerOrderService = triggerOrderService;
+  }
+
+  // Method to roll the bars of the composites up from their legs, those registered so far included
+  public synchronized void setBarAggregator(BarAggregator barAggregator) {
+    this.barAggregator = barAggregator;
+    for (CompositeFinancialInstrument compositeInstrument : compositeFinancialInstruments.values()) {
+      barAggregator.registerComposite(compositeInstrument);
+    }
+  }
 
   public Map<String, FinancialInstrument> getFinancialInstruments() {
     return financialInstruments;
   }
+
+  // Instrument of an instrument id, or null; the lookup of the matching hot path
+  public FinancialInstrument getFinancialInstrument(int instrumentId) {
+    return financialInstruments.get(instrumentId);
+  }
+
+  public InstrumentRegistry getInstrumentRegistry() {
+    return instrumentRegistry;
+  }
+
+  public Map<String, CompositeFinancialInstrument> getCompositeFinancialInstruments() {
+    return Collections.unmodifiableMap(compositeFinancialInstruments);
+  }
 }
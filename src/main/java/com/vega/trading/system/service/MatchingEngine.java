@@ -0,0 +1,216 @@
+package com.vega.trading.system.service;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/* Sequencer in front of the order books.
+ Every command touching the book of a symbol is hashed by symbol onto one of a fixed set of
+ single threaded shards, so each book only ever has one writer and needs no locking. Each shard
+ is fed by a bounded queue; submitters block while it is full, which gives natural backpressure.
+ With zero shards commands run on the calling thread under a per-symbol stripe lock instead. */
+@Slf4j
+public class MatchingEngine {
+
+  private static final int INLINE_LOCK_STRIPES = 64;
+
+  private final Shard[] shards;
+  private final Object[] inlineLocks;
+  // Taken by exclusive sections for the shards they pause
+  private final ReentrantLock[] exclusiveLocks;
+  private volatile boolean shutdown;
+
+  public MatchingEngine(int shardCount, int queueCapacity) {
+    if (shardCount < 0 || queueCapacity < 1) {
+      throw new IllegalArgumentException(
+          "Invalid matching engine configuration: shards=" + shardCount + ", queueCapacity="
+              + queueCapacity);
+    }
+    this.shards = new Shard[shardCount];
+    this.exclusiveLocks = new ReentrantLock[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(i, queueCapacity);
+      shards[i].start();
+      exclusiveLocks[i] = new ReentrantLock();
+    }
+    this.inlineLocks = new Object[INLINE_LOCK_STRIPES];
+    for (int i = 0; i < INLINE_LOCK_STRIPES; i++) {
+      inlineLocks[i] = new Object();
+    }
+  }
+
+  // Method to run a command on the single writer owning the given symbol
+  public void execute(String symbol, Runnable command) {
+    if (shards.length == 0) {
+      synchronized (inlineLocks[index(symbol, INLINE_LOCK_STRIPES)]) {
+        command.run();
+      }
+      return;
+    }
+    shards[shardOf(symbol)].submit(command);
+  }
+
+  // Method to block until every command submitted before this call has been processed
+  public void flush() {
+    if (shards.length == 0 || shutdown) {
+      return;
+    }
+    CountDownLatch latch = new CountDownLatch(shards.length);
+    for (Shard shard : shards) {
+      shard.submit(latch::countDown);
+    }
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Method to run an action while every shard is paused between two commands, giving it a
+  // consistent view of all books. Must not be called from a shard thread.
+  public void runExclusive(Runnable action) {
+    int[] all = new int[shards.length == 0 ? INLINE_LOCK_STRIPES : shards.length];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = i;
+    }
+    runExclusive(all, action);
+  }
+
+  // Method to run an action while only the shards owning the given symbols are paused, so it
+  // can read and change their books atomically while the other shards keep matching.
+  // Must not be called from a shard thread.
+  public void runExclusive(Collection<String> symbols, Runnable action) {
+    int buckets = shards.length == 0 ? INLINE_LOCK_STRIPES : shards.length;
+    int[] owners = symbols.stream().mapToInt(symbol -> index(symbol, buckets))
+        .distinct().sorted().toArray();
+    runExclusive(owners, action);
+  }
+
+  // Owners are always locked in ascending order, so exclusive sections over overlapping sets of
+  // shards queue up behind each other instead of deadlocking
+  private void runExclusive(int[] owners, Runnable action) {
+    if (shards.length == 0) {
+      runHoldingInlineLocks(owners, 0, action);
+      return;
+    }
+    for (int owner : owners) {
+      exclusiveLocks[owner].lock();
+    }
+    try {
+      CountDownLatch paused = new CountDownLatch(owners.length);
+      CountDownLatch released = new CountDownLatch(1);
+      for (int owner : owners) {
+        shards[owner].submit(() -> {
+          paused.countDown();
+          awaitUninterruptibly(released);
+        });
+      }
+      try {
+        awaitUninterruptibly(paused);
+        action.run();
+      } finally {
+        released.countDown();
+      }
+    } finally {
+      for (int i = owners.length - 1; i >= 0; i--) {
+        exclusiveLocks[owners[i]].unlock();
+      }
+    }
+  }
+
+  private void runHoldingInlineLocks(int[] stripes, int next, Runnable action) {
+    if (next == stripes.length) {
+      action.run();
+      return;
+    }
+    synchronized (inlineLocks[stripes[next]]) {
+      runHoldingInlineLocks(stripes, next + 1, action);
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Method to stop the shard threads once their queued commands have been processed
+  public void shutdown() {
+    shutdown = true;
+    for (Shard shard : shards) {
+      shard.submit(shard::halt);
+    }
+  }
+
+  // Commands waiting in the queue of each shard
+  public int[] getQueueDepths() {
+    int[] depths = new int[shards.length];
+    for (int i = 0; i < shards.length; i++) {
+      depths[i] = shards[i].queue.size();
+    }
+    return depths;
+  }
+
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  public int shardOf(String symbol) {
+    return shards.length == 0 ? 0 : index(symbol, shards.length);
+  }
+
+  private static int index(String symbol, int buckets) {
+    int hash = symbol.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), buckets);
+  }
+
+  private static final class Shard extends Thread {
+
+    private final BlockingQueue<Runnable> queue;
+    private volatile boolean running = true;
+
+    Shard(int index, int queueCapacity) {
+      super("matching-shard-" + index);
+      this.queue = new ArrayBlockingQueue<>(queueCapacity);
+      setDaemon(true);
+    }
+
+    void submit(Runnable command) {
+      try {
+        queue.put(command);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while submitting to " + getName(), e);
+      }
+    }
+
+    void halt() {
+      running = false;
+    }
+
+    @Override
+    public void run() {
+      while (running) {
+        try {
+          queue.take().run();
+        } catch (InterruptedException e) {
+          return;
+        } catch (RuntimeException e) {
+          log.error("Matching command failed on {}", getName(), e);
+        }
+      }
+    }
+  }
+}
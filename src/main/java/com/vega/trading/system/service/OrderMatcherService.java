@@ -1,9 +1,11 @@
 package com.vega.trading.system.service;
 
-import com.vega.trading.system.enumeration.OrderStatus;
 import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.AuctionResult;
+import com.vega.trading.system.model.LimitOrderBook;
 import com.vega.trading.system.model.Order;
-import java.util.Comparator;
+import com.vega.trading.system.model.PriceLevel;
+import java.math.BigDecimal;
 
 public class OrderMatcherService {
 
@@ -13,36 +15,217 @@ public class OrderMatcherService {
     this.tradingSystem = tradingSystem;
   }
 
-  // Method to match buy and sell orders and execute trades
+  // Method to match buy and sell orders and execute trades across every symbol
   public void matchOrders() {
-    tradingSystem.orderBook.values().stream()
-        .filter(order -> order.getOrderType() == OrderType.BUY && (
-            order.getOrderStatus() == OrderStatus.PLACED
-                || order.getOrderStatus() == OrderStatus.PARTIALLY_EXECUTED))
-        .sorted(Comparator.comparing(Order::getPrice, Comparator.nullsLast(Comparator.reverseOrder())))
-        .forEach(this::matchAndExecuteTrades);
+    for (LimitOrderBook limitOrderBook : tradingSystem.getLimitOrderBooks()) {
+      matchOrders(limitOrderBook);
+    }
   }
-//50,40,30
- //30,40,50
-  private void matchAndExecuteTrades(Order buyOrder) {
-    tradingSystem.orderBook.values().stream()
-        .filter(sellOrder -> isMatchingSellOrder(buyOrder, sellOrder))
-        .sorted(Comparator.comparing(Order::getPrice, Comparator.nullsFirst(Comparator.naturalOrder())))
-        .forEach(sellOrder -> tradingSystem.executeTrade(buyOrder, sellOrder));
+
+  // Method to match the book of a single symbol
+  public void matchOrders(String symbol) {
+    LimitOrderBook limitOrderBook = tradingSystem.getLimitOrderBook(symbol);
+    if (limitOrderBook != null) {
+      matchOrders(limitOrderBook);
+    }
+  }
+
+  // The book is uncrossed after every call, so only the top of each side needs to be inspected:
+  // trades are executed while the best bid still crosses the best ask.
+  // Must run on the matching engine shard owning the symbol (or a single test thread).
+  public void matchOrders(LimitOrderBook limitOrderBook) {
+    Order buyOrder = limitOrderBook.peekBestBid();
+    Order sellOrder = limitOrderBook.peekBestAsk();
+    boolean fixedPoint = limitOrderBook.isFixedPoint();
+    while (buyOrder != null && sellOrder != null && isCrossing(buyOrder, sellOrder, fixedPoint)) {
+      int buyQuantity = buyOrder.getQuantity();
+      int sellQuantity = sellOrder.getQuantity();
+      limitOrderBook.recordTrade(tradingSystem.executeTrade(buyOrder, sellOrder));
+      limitOrderBook.applyFillToBestBid(buyQuantity - buyOrder.getQuantity());
+      limitOrderBook.applyFillToBestAsk(sellQuantity - sellOrder.getQuantity());
+      // Fully executed orders have left the book; sequenced ones go back to their pool
+      if (buyOrder.getQuantity() == 0) {
+        tradingSystem.retireOrder(buyOrder);
+      }
+      if (sellOrder.getQuantity() == 0) {
+        tradingSystem.retireOrder(sellOrder);
+      }
+      buyOrder = limitOrderBook.peekBestBid();
+      sellOrder = limitOrderBook.peekBestAsk();
+    }
+  }
+
+  // Method to match an incoming order against the opposite side before it rests: levels are
+  // walked from the best price outward and every fill trades at the resting order's price.
+  // A limit order stops at its own price, a market order at the given protection price.
+  // Must run on the matching engine shard owning the symbol; the caller deals with the remainder.
+  public void sweep(LimitOrderBook limitOrderBook, Order order, BigDecimal protectionPrice) {
+    boolean buy = order.getOrderType() == OrderType.BUY;
+    boolean fixedPoint = limitOrderBook.isFixedPoint();
+    while (order.getQuantity() > 0) {
+      Order restingOrder = buy ? limitOrderBook.peekBestAsk() : limitOrderBook.peekBestBid();
+      if (restingOrder == null
+          || !isWithinLimit(order, restingOrder, protectionPrice, buy, fixedPoint)) {
+        return;
+      }
+      Order buyOrder = buy ? order : restingOrder;
+      Order sellOrder = buy ? restingOrder : order;
+      int restingQuantity = restingOrder.getQuantity();
+      limitOrderBook.recordTrade(restingOrder.getPrice() == null
+          ? tradingSystem.executeTrade(buyOrder, sellOrder)
+          : tradingSystem.executeTrade(buyOrder, sellOrder, restingOrder.getPrice()));
+      if (buy) {
+        limitOrderBook.applyFillToBestAsk(restingQuantity - restingOrder.getQuantity());
+      } else {
+        limitOrderBook.applyFillToBestBid(restingQuantity - restingOrder.getQuantity());
+      }
+      if (restingOrder.getQuantity() == 0) {
+        tradingSystem.retireOrder(restingOrder);
+      }
+    }
+  }
+
+  // Method to find the equilibrium of a call auction: the price executing the most quantity, then
+  // leaving the smallest imbalance, then closest to the reference price, then the lowest one.
+  // Demand at a price (bids at or above it) only falls and supply (asks at or below it) only
+  // rises as the price goes up, so a single merged walk up the levels of both sides evaluates
+  // every candidate price. Unpriced orders count at every price.
+  // Must run on the matching engine shard owning the symbol.
+  public AuctionResult computeEquilibrium(LimitOrderBook limitOrderBook,
+      BigDecimal referencePrice) {
+    int bidLevels = limitOrderBook.getBidLevelCount();
+    int askLevels = limitOrderBook.getAskLevelCount();
+    int bid = bidLevels - 1;
+    int ask = 0;
+    long marketBids = 0;
+    long marketAsks = 0;
+    int firstBid = 0;
+    if (bidLevels > 0 && limitOrderBook.getBidLevel(0).getPrice() == null) {
+      marketBids = limitOrderBook.getBidLevel(0).getTotalQuantity();
+      firstBid = 1;
+    }
+    if (askLevels > 0 && limitOrderBook.getAskLevel(0).getPrice() == null) {
+      marketAsks = limitOrderBook.getAskLevel(0).getTotalQuantity();
+      ask = 1;
+    }
+    long demand = marketBids;
+    for (int depth = firstBid; depth < bidLevels; depth++) {
+      demand += limitOrderBook.getBidLevel(depth).getTotalQuantity();
+    }
+    long supply = marketAsks;
+    boolean fixedPoint = limitOrderBook.isFixedPoint();
+    BigDecimal bestPrice = null;
+    long bestVolume = 0;
+    long bestImbalance = 0;
+    // Lowest bids first and best asks first, both going up in price
+    while ((bid >= firstBid || ask < askLevels) && demand >= bestVolume) {
+      PriceLevel bidLevel = bid >= firstBid ? limitOrderBook.getBidLevel(bid) : null;
+      PriceLevel askLevel = ask < askLevels ? limitOrderBook.getAskLevel(ask) : null;
+      int cmp = bidLevel == null ? 1 : askLevel == null ? -1
+          : compare(bidLevel, askLevel, fixedPoint);
+      BigDecimal price = cmp <= 0 ? bidLevel.getPrice() : askLevel.getPrice();
+      if (cmp >= 0) {
+        supply += askLevel.getTotalQuantity();
+        ask++;
+      }
+      long volume = Math.min(demand, supply);
+      long imbalance = demand - supply;
+      if (volume > 0 && isBetterEquilibrium(volume, imbalance, price, bestVolume, bestImbalance,
+          bestPrice, referencePrice)) {
+        bestPrice = price;
+        bestVolume = volume;
+        bestImbalance = imbalance;
+      }
+      if (cmp <= 0) {
+        demand -= bidLevel.getTotalQuantity();
+        bid--;
+      }
+    }
+    if (bestPrice == null) {
+      // Only unpriced orders cross: they trade at the reference price if there is one
+      if (marketBids == 0 || marketAsks == 0 || referencePrice == null) {
+        return AuctionResult.noCross(limitOrderBook.getSymbol());
+      }
+      return new AuctionResult(limitOrderBook.getSymbol(), referencePrice,
+          Math.min(marketBids, marketAsks), marketBids - marketAsks);
+    }
+    return new AuctionResult(limitOrderBook.getSymbol(), bestPrice, bestVolume, bestImbalance);
+  }
+
+  private static boolean isBetterEquilibrium(long volume, long imbalance, BigDecimal price,
+      long bestVolume, long bestImbalance, BigDecimal bestPrice, BigDecimal referencePrice) {
+    if (volume != bestVolume) {
+      return volume > bestVolume;
+    }
+    if (Math.abs(imbalance) != Math.abs(bestImbalance)) {
+      return Math.abs(imbalance) < Math.abs(bestImbalance);
+    }
+    // Candidates come in ascending order, so a full tie keeps the lower price
+    return referencePrice != null && price.subtract(referencePrice).abs()
+        .compareTo(bestPrice.subtract(referencePrice).abs()) < 0;
   }
 
-  private boolean isMatchingSellOrder(Order buyOrder, Order sellOrder) {
-    return sellOrder.getOrderType() == OrderType.SELL &&
-        (sellOrder.getOrderStatus() == OrderStatus.PLACED ||
-            sellOrder.getOrderStatus() == OrderStatus.PARTIALLY_EXECUTED) &&
-        isSameFinancialInstrument(buyOrder, sellOrder);
+  // Method to execute a call auction in one batch: bids at or above the auction price trade with
+  // asks at or below it in price-time priority, all at the auction price, until one side is
+  // exhausted. The caller updates the instrument prices once for the batch.
+  // Must run on the matching engine shard owning the symbol.
+  public void uncross(LimitOrderBook limitOrderBook, BigDecimal auctionPrice) {
+    Order buyOrder = limitOrderBook.peekBestBid();
+    Order sellOrder = limitOrderBook.peekBestAsk();
+    while (buyOrder != null && sellOrder != null
+        && isInAuction(buyOrder, auctionPrice) && isInAuction(sellOrder, auctionPrice)) {
+      int buyQuantity = buyOrder.getQuantity();
+      int sellQuantity = sellOrder.getQuantity();
+      tradingSystem.executeAuctionTrade(buyOrder, sellOrder, auctionPrice);
+      limitOrderBook.applyFillToBestBid(buyQuantity - buyOrder.getQuantity());
+      limitOrderBook.applyFillToBestAsk(sellQuantity - sellOrder.getQuantity());
+      if (buyOrder.getQuantity() == 0) {
+        tradingSystem.retireOrder(buyOrder);
+      }
+      if (sellOrder.getQuantity() == 0) {
+        tradingSystem.retireOrder(sellOrder);
+      }
+      buyOrder = limitOrderBook.peekBestBid();
+      sellOrder = limitOrderBook.peekBestAsk();
+    }
+    limitOrderBook.recordTrade(auctionPrice);
   }
 
+  // Whether an order is willing to trade at the auction price
+  private static boolean isInAuction(Order order, BigDecimal auctionPrice) {
+    if (order.getPrice() == null) {
+      return true;
+    }
+    int cmp = order.getPrice().compareTo(auctionPrice);
+    return order.getOrderType() == OrderType.BUY ? cmp >= 0 : cmp <= 0;
+  }
 
-  // Utility method to check if two orders represent the same financial instrument
-  private boolean isSameFinancialInstrument(Order order1, Order order2) {
-    return order1.getSymbol().equals(order2.getSymbol());
+  // Orders two price levels by price
+  private static int compare(PriceLevel first, PriceLevel second, boolean fixedPoint) {
+    return fixedPoint ? Long.compare(first.getPriceTicks(), second.getPriceTicks())
+        : first.getPrice().compareTo(second.getPrice());
   }
 
+  private boolean isWithinLimit(Order order, Order restingOrder, BigDecimal protectionPrice,
+      boolean buy, boolean fixedPoint) {
+    if (order.getPrice() != null || restingOrder.getPrice() == null) {
+      return buy ? isCrossing(order, restingOrder, fixedPoint)
+          : isCrossing(restingOrder, order, fixedPoint);
+    }
+    if (protectionPrice == null) {
+      return false;
+    }
+    int cmp = restingOrder.getPrice().compareTo(protectionPrice);
+    return buy ? cmp <= 0 : cmp >= 0;
+  }
 
+  // Orders without a price execute at the market and cross anything on the other side
+  private boolean isCrossing(Order buyOrder, Order sellOrder, boolean fixedPoint) {
+    if (buyOrder.getPrice() == null || sellOrder.getPrice() == null) {
+      return true;
+    }
+    return fixedPoint
+        ? buyOrder.getPriceTicks() >= sellOrder.getPriceTicks()
+        : buyOrder.getPrice().compareTo(sellOrder.getPrice()) >= 0;
+  }
 }
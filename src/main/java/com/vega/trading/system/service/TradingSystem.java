@@ -1,103 +1,1239 @@
 package com.vega.trading.system.service;
 
+import com.vega.trading.system.config.TradingSystemConfig;
 import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.MetricOperation;
+import com.vega.trading.system.enumeration.OrderResultStatus;
 import com.vega.trading.system.enumeration.OrderStatus;
 import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.PriceMode;
+import com.vega.trading.system.enumeration.TimeInForce;
 import com.vega.trading.system.exception.MaxUnderlyingInstrumentsException;
+import com.vega.trading.system.journal.BookSnapshot;
+import com.vega.trading.system.journal.CommandJournal;
+import com.vega.trading.system.journal.CommandJournalHandler;
+import com.vega.trading.system.journal.ExecutionJournal;
+import com.vega.trading.system.journal.TradeHistory;
+import com.vega.trading.system.marketdata.BarAggregator;
+import com.vega.trading.system.marketdata.MarketDataPublisher;
+import com.vega.trading.system.metrics.MetricsSnapshot;
+import com.vega.trading.system.metrics.TradingMetrics;
+import com.vega.trading.system.model.AuctionResult;
+import com.vega.trading.system.model.ExpiryWheel;
 import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.InstrumentIndex;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.model.LimitOrderBook;
 import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.OrderIdIndex;
+import com.vega.trading.system.model.OrderPool;
+import com.vega.trading.system.model.OrderResult;
+import com.vega.trading.system.model.PriceLevel;
+import com.vega.trading.system.model.PriceScale;
+import com.vega.trading.system.model.TriggerBook;
+import com.vega.trading.system.model.UuidOrderIndex;
+import com.vega.trading.system.risk.PreTradeRiskCheck;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class TradingSystem {
 
-  // Map to store buy and sell orders by order ID
+  private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+  // Index of buy and sell orders by order ID, used to look orders up for cancellation
   public final Map<UUID, Order> orderBook;
 
+  // Interned instrument ids of the symbols; per-symbol state is indexed by them
+  private final InstrumentRegistry instrumentRegistry;
+
+  // Price-time priority limit order books by instrument id, used for matching
+  private final InstrumentIndex<LimitOrderBook> limitOrderBooks;
+
+  // Symbols each trader may have resting or dormant orders in, so a trader mass cancel only visits
+  // their books. A symbol is added on its shard by the trader's first order in the book and
+  // dropped by the next mass cancel of the trader there.
+  private final Map<Integer, Set<String>> symbolsByTrader = new ConcurrentHashMap<>();
+
+  // Fixed-point price scales by tick size, shared between instruments
+  private final Map<BigDecimal, PriceScale> priceScales = new ConcurrentHashMap<>();
+
   public FinancialInstrumentService financialInstrumentService;
 
   public OrderMatcherService orderMatcherService;
 
+  // Single writer sequencer owning every limit order book
+  private final MatchingEngine matchingEngine;
+
+  // All-or-none executor of composite orders
+  private final BasketExecutionService basketExecutionService;
+
+  // Dormant good-till-trigger orders by symbol
+  private final TriggerOrderService triggerOrderService;
+
+  private final TradingSystemConfig config;
+
+  // Background journal of trades and price updates, null when no sink is configured
+  private final ExecutionJournal executionJournal;
+
+  // Write-ahead journal of the commands applied to the books, null when no directory is configured
+  private final CommandJournal commandJournal;
+
+  // Trade and top of book fan-out to market data subscribers
+  private final MarketDataPublisher marketDataPublisher = new MarketDataPublisher();
+
+  // Hot path latencies and event counters
+  private final TradingMetrics metrics;
+
+  // Low-garbage mode: recyclable orders, their sequence id generator and index, and the shard
+  // tasks of each pooled order, created once. All null when the mode is disabled.
+  private final OrderPool orderPool;
+  private final AtomicLong orderSequence;
+  private final OrderIdIndex sequencedOrders;
+  private final Runnable[] submitTasks;
+  private final Runnable[] cancelTasks;
+
+  // Sweep mode: limits of a market order relative to the reference price, null when disabled
+  private final BigDecimal buyProtectionFactor;
+  private final BigDecimal sellProtectionFactor;
+
+  // DAY and GTD orders by expire time, and the thread advancing it, started with the first one
+  private final Clock clock;
+  private final ExpiryWheel expiryWheel;
+  private ScheduledExecutorService expiryTimer;
+
+  // Pre-trade risk stage, null when disabled. Attached after recovery, so replayed orders are not
+  // checked again.
+  private final PreTradeRiskCheck preTradeRiskCheck;
+
+  // Trade bars, null when disabled. Attached after recovery like the risk stage, as replayed
+  // trades would be stamped with the time of the recovery.
+  private final BarAggregator barAggregator;
+
+  // History of every fill, null when disabled. Attached after recovery too, as the replayed
+  // trades are already in it.
+  private final TradeHistory tradeHistory;
+
+  // Periodic snapshot writer, null when automatic snapshots are disabled
+  private final ScheduledExecutorService snapshotScheduler;
+
   public TradingSystem() {
-    this.financialInstrumentService = new FinancialInstrumentService();
-    this.orderBook = new ConcurrentHashMap<>();
+    this(TradingSystemConfig.defaults());
+  }
+
+  public TradingSystem(TradingSystemConfig config) {
+    this.config = config;
+    this.metrics = new TradingMetrics(config.isMetricsEnabled());
+    this.instrumentRegistry = config.getInstrumentRegistry() == null ? new InstrumentRegistry()
+        : config.getInstrumentRegistry();
+    this.financialInstrumentService = new FinancialInstrumentService(instrumentRegistry);
+    this.financialInstrumentService.setLazyCompositePricing(config.isLazyCompositePricing());
+    this.orderBook = new UuidOrderIndex();
+    this.limitOrderBooks = new InstrumentIndex<>(instrumentRegistry);
+    this.matchingEngine = new MatchingEngine(config.getMatchingShards(),
+        config.getShardQueueCapacity());
+    this.orderMatcherService = new OrderMatcherService(this);
+    this.basketExecutionService = new BasketExecutionService(this, matchingEngine);
+    this.triggerOrderService = new TriggerOrderService(instrumentRegistry);
+    this.financialInstrumentService.setTriggerOrderService(triggerOrderService);
+    this.clock = config.getClock();
+    this.expiryWheel = new ExpiryWheel(config.getExpiryResolutionMillis(), clock.millis());
+    if (config.isSweepMatching()) {
+      BigDecimal percent = config.getMarketProtectionPercent();
+      if (percent == null || percent.signum() < 0 || percent.compareTo(ONE_HUNDRED) >= 0) {
+        throw new IllegalArgumentException(ExceptionMessages.INVALID_PROTECTION_BAND);
+      }
+      BigDecimal band = percent.movePointLeft(2);
+      this.buyProtectionFactor = BigDecimal.ONE.add(band);
+      this.sellProtectionFactor = BigDecimal.ONE.subtract(band);
+    } else {
+      this.buyProtectionFactor = null;
+      this.sellProtectionFactor = null;
+    }
+    int orderPoolCapacity = config.getOrderPoolCapacity();
+    if (orderPoolCapacity > 0) {
+      if (config.getJournalDirectory() != null) {
+        throw new IllegalArgumentException(ExceptionMessages.ORDER_POOL_WITH_JOURNAL);
+      }
+      this.orderPool = new OrderPool(orderPoolCapacity);
+      this.orderSequence = new AtomicLong();
+      this.sequencedOrders = new OrderIdIndex(orderPoolCapacity);
+      this.submitTasks = new Runnable[orderPoolCapacity];
+      this.cancelTasks = new Runnable[orderPoolCapacity];
+      for (int i = 0; i < orderPoolCapacity; i++) {
+        Order order = orderPool.get(i);
+        submitTasks[i] = () -> submitSequencedOrder(order);
+        cancelTasks[i] = () -> cancelSequencedOrder(order);
+      }
+    } else {
+      this.orderPool = null;
+      this.orderSequence = null;
+      this.sequencedOrders = null;
+      this.submitTasks = null;
+      this.cancelTasks = null;
+    }
+    // Recover before the journals are attached, so replayed commands are neither appended
+    // again nor published twice
+    Path journalDirectory = config.getJournalDirectory();
+    if (journalDirectory == null) {
+      this.commandJournal = null;
+    } else {
+      long nextSequence = recover(journalDirectory);
+      this.commandJournal = CommandJournal.open(journalDirectory, config.getJournalSegmentSize(),
+          config.getFsyncPolicy(), config.getFsyncIntervalMillis(), nextSequence);
+    }
+    this.executionJournal = config.getExecutionEventSink() == null ? null
+        : new ExecutionJournal(config.getExecutionEventSink(), config.getExecutionJournalCapacity());
+    this.financialInstrumentService.setExecutionJournal(executionJournal);
+    this.preTradeRiskCheck = config.getPreTradeRiskCheck();
+    if (config.getBarIntervalsMillis().length == 0) {
+      this.barAggregator = null;
+    } else {
+      this.barAggregator = new BarAggregator(instrumentRegistry, config.getBarIntervalsMillis(),
+          config.getBarHistory(), clock);
+      financialInstrumentService.setBarAggregator(barAggregator);
+    }
+    this.tradeHistory = config.getTradeHistoryDirectory() == null ? null
+        : TradeHistory.open(config.getTradeHistoryDirectory(),
+            config.getTradeHistoryFileCapacity(), clock);
+    if (commandJournal != null && config.getSnapshotIntervalMillis() > 0) {
+      this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-snapshot");
+        thread.setDaemon(true);
+        return thread;
+      });
+      snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot,
+          config.getSnapshotIntervalMillis(), config.getSnapshotIntervalMillis(),
+          TimeUnit.MILLISECONDS);
+    } else {
+      this.snapshotScheduler = null;
+    }
+  }
+
+  // Helper method to rebuild the books from the latest snapshot and the journal records after it.
+  // Returns the sequence the journal continues from.
+  private long recover(Path journalDirectory) {
+    long lastSequence = -1;
+    BookSnapshot snapshot = BookSnapshot.readLatest(journalDirectory);
+    if (snapshot != null) {
+      for (FinancialInstrument financialInstrument : snapshot.getFinancialInstruments()) {
+        financialInstrumentService.getFinancialInstruments()
+            .put(financialInstrument.getSymbol(), financialInstrument);
+      }
+      // Books in an auction must not match the restored orders
+      for (String symbol : snapshot.getAuctionSymbols()) {
+        startAuction(symbol);
+      }
+      for (Order order : snapshot.getRestingOrders()) {
+        assignPriceTicks(order);
+        orderBook.put(order.getOrderId(), order);
+        submitForMatching(order);
+      }
+      lastSequence = snapshot.getLastSequence();
+    }
+    lastSequence = CommandJournal.replay(journalDirectory, lastSequence,
+        new CommandJournalHandler() {
+          @Override
+          public void onAddOrder(long sequence, Order order) {
+            addOrder(order);
+          }
+
+          @Override
+          public void onCancelOrder(long sequence, UUID orderId) {
+            cancelOrder(orderId);
+          }
+
+          @Override
+          public void onAuctionStart(long sequence, String symbol) {
+            startAuction(symbol);
+          }
+
+          @Override
+          public void onUncross(long sequence, String symbol, BigDecimal price) {
+            AuctionResult auctionResult = uncrossAuction(symbol);
+            if (!Objects.equals(price, auctionResult.getPrice())) {
+              log.warn("Replayed uncross of {} at {} instead of {}", symbol,
+                  auctionResult.getPrice(), price);
+            }
+          }
+        });
+    matchingEngine.flush();
+    log.info("Recovered {} orders up to journal sequence {}", orderBook.size(), lastSequence);
+    return lastSequence + 1;
+  }
+
+  // Method to create an order of the low-garbage mode: it comes from the order pool with the next
+  // sequence id and goes back to the pool once executed or cancelled, after which the caller
+  // must no longer use it. Add it with addOrder() and cancel it with cancelOrder(long).
+  public Order newOrder(int traderId, OrderType orderType, BigDecimal price, int quantity,
+      String symbol) {
+    if (orderPool == null) {
+      throw new IllegalStateException(ExceptionMessages.ORDER_POOL_NOT_CONFIGURED);
+    }
+    return orderPool.acquire(orderSequence.incrementAndGet(), traderId, orderType, price,
+        quantity, symbol);
   }
 
   // Method to add an order to the order book
   public void addOrder(Order order) {
-    validateOrder(order);
-    if (order.getOrderType() == OrderType.COMPOSITE) {
-      // Handle composite order
-      handleCompositeOrder(order);
+    long startNanos = metrics.start();
+    try {
+      validateOrder(order);
+      assignInstrumentId(order);
+      if (order.getSequenceId() != Order.NO_SEQUENCE_ID) {
+        addSequencedOrder(order);
+      } else if (order.getOrderType() == OrderType.COMPOSITE) {
+        // Handle composite order
+        handleCompositeOrder(order);
+      } else {
+        // Handle normal order
+        assignPriceTicks(order);
+        assignExpireTime(order);
+        checkMarketPrice(order);
+        if (orderBook.putIfAbsent(order.getOrderId(), order) != null) {
+          metrics.reject();
+          log.warn(ExceptionMessages.DUPLICATE_ORDER, order.getOrderId());
+          return;
+        }
+        String rejection = checkRisk(order);
+        if (rejection != null) {
+          orderBook.remove(order.getOrderId(), order);
+          throw new IllegalArgumentException(rejection);
+        }
+        metrics.orderIn();
+        log.debug("Order added: {}", order);
+        submitForMatching(order);
+      }
+    } finally {
+      metrics.record(MetricOperation.ADD_ORDER, startNanos);
+    }
+  }
+
+  // Helper method to add an order of the low-garbage mode. Pooled orders reuse their own shard
+  // task instead of capturing a new one, so adding them allocates nothing.
+  private void addSequencedOrder(Order order) {
+    if (order.getTimeInForce() != TimeInForce.GTC) {
+      metrics.reject();
+      throw new IllegalArgumentException(ExceptionMessages.SEQUENCED_ORDER_TIME_IN_FORCE);
+    }
+    assignPriceTicks(order);
+    checkMarketPrice(order);
+    if (!sequencedOrders.putIfAbsent(order.getSequenceId(), order)) {
+      metrics.reject();
+      log.warn(ExceptionMessages.DUPLICATE_ORDER, order.getSequenceId());
+      return;
+    }
+    String rejection = checkRisk(order);
+    if (rejection != null) {
+      sequencedOrders.remove(order.getSequenceId(), order);
+      throw new IllegalArgumentException(rejection);
+    }
+    metrics.orderIn();
+    int poolIndex = order.getPoolIndex();
+    matchingEngine.execute(order.getSymbol(),
+        poolIndex < 0 ? () -> submitSequencedOrder(order) : submitTasks[poolIndex]);
+  }
+
+  private void submitSequencedOrder(Order order) {
+    LimitOrderBook limitOrderBook = bookOf(order);
+    noteTraderSymbol(limitOrderBook, order);
+    if (buyProtectionFactor != null && !limitOrderBook.isInAuction()) {
+      sweepIntoBook(limitOrderBook, order);
+      matchBook(limitOrderBook);
+    } else if (limitOrderBook.add(order)) {
+      matchBook(limitOrderBook);
     } else {
-      // Handle normal order
-      orderBook.put(order.getOrderId(), order);
-      log.info("Order added: {}", order);
-      CompletableFuture.runAsync(() -> orderMatcherService.matchOrders())
-          .thenAcceptAsync(unused -> log.info("Order matching process initiated asynchronously."));
+      retireOrder(order);
+    }
+  }
+
+  // Helper method to recycle a sequenced order that left its book fully executed, on the shard
+  // owning the book. A cancel that already took it out of the index recycles it instead.
+  void retireOrder(Order order) {
+    if (order.getSequenceId() != Order.NO_SEQUENCE_ID
+        && sequencedOrders.remove(order.getSequenceId(), order)) {
+      orderPool.release(order);
     }
   }
 
   // Method to handle composite order
   private void handleCompositeOrder(Order compositeOrder) {
-    // Extracting individual orders from the composite order and add them to the order book
+    addCompositeOrder(compositeOrder, config.getBasketFillWindowMillis());
+  }
+
+  // Method to execute a composite order all-or-none: every leg fills in full or none trades.
+  // Without liquidity for every leg the order waits up to fillWindowMillis, then is killed.
+  // Returns its status: EXECUTED, PLACED while waiting, or CANCELLED once killed.
+  public OrderStatus addCompositeOrder(Order compositeOrder, long fillWindowMillis) {
+    validateOrder(compositeOrder);
+    validateCompositeOrder(compositeOrder);
+    // The composite is tracked under its own ID, so status lookups and cancels work on it
+    if (orderBook.putIfAbsent(compositeOrder.getOrderId(), compositeOrder) != null) {
+      metrics.reject();
+      log.warn(ExceptionMessages.DUPLICATE_ORDER, compositeOrder.getOrderId());
+      return compositeOrder.getOrderStatus();
+    }
+    metrics.orderIn();
+    log.debug("Composite order added: {}", compositeOrder);
+    return basketExecutionService.execute(compositeOrder, fillWindowMillis);
+  }
+
+  private void validateCompositeOrder(Order compositeOrder) {
     List<Order> underlyingOrders = compositeOrder.getUnderlyingOrders();
     if (underlyingOrders.size() > 3) {
+      metrics.reject();
       throw new MaxUnderlyingInstrumentsException(
           ExceptionMessages.MAX_UNDERLYING_INSTRUMENTS_EXCEPTION);
     }
     for (Order underlyingOrder : underlyingOrders) {
-      orderBook.put(underlyingOrder.getOrderId(), underlyingOrder);
-      log.info("Order added: {}", underlyingOrder);
+      if (underlyingOrder == null || underlyingOrder.getSymbol().isEmpty()
+          || underlyingOrder.getOrderType() == OrderType.COMPOSITE
+          || underlyingOrder.getQuantity() <= 0) {
+        metrics.reject();
+        throw new IllegalArgumentException(ExceptionMessages.INVALID_BASKET_LEG);
+      }
+    }
+    for (Order underlyingOrder : underlyingOrders) {
+      assignInstrumentId(underlyingOrder);
+      assignPriceTicks(underlyingOrder);
+      checkMarketPrice(underlyingOrder);
+    }
+  }
+
+  // Helper method to rest an order in the book of its symbol and match it on the owning shard
+  private void submitForMatching(Order order) {
+    matchingEngine.execute(order.getSymbol(), () -> {
+      LimitOrderBook limitOrderBook = bookOf(order);
+      if (killUnfillable(limitOrderBook, order)) {
+        return;
+      }
+      acceptIntoBook(limitOrderBook, order);
+      matchBook(limitOrderBook);
+      applyTimeInForce(limitOrderBook, order);
+    });
+  }
+
+  // Helper method to kill a FOK order that the opposite side cannot fill in full, before it
+  // trades at all. Returns whether the order was killed.
+  private boolean killUnfillable(LimitOrderBook limitOrderBook, Order order) {
+    if (order.getTimeInForce() != TimeInForce.FOK) {
+      return false;
+    }
+    BigDecimal marketLimitPrice = null;
+    if (order.getPrice() == null && buyProtectionFactor != null) {
+      marketLimitPrice = protectionPrice(limitOrderBook, order);
+    }
+    boolean fillable = (order.getPrice() != null || buyProtectionFactor == null
+        || marketLimitPrice != null)
+        && limitOrderBook.crossableQuantity(order, marketLimitPrice, order.getQuantity())
+        >= order.getQuantity();
+    if (!fillable) {
+      cancelRemainder(limitOrderBook, order);
+    }
+    return !fillable;
+  }
+
+  // Helper method to apply the time in force of an order once it has been matched on arrival:
+  // the remainder of an IOC or FOK order is cancelled, a DAY or GTD order is scheduled to expire
+  private void applyTimeInForce(LimitOrderBook limitOrderBook, Order order) {
+    OrderStatus orderStatus = order.getOrderStatus();
+    boolean live = orderStatus == OrderStatus.PLACED
+        || orderStatus == OrderStatus.PARTIALLY_EXECUTED;
+    switch (order.getTimeInForce()) {
+      case IOC:
+      case FOK:
+        if (live) {
+          cancelRemainder(limitOrderBook, order);
+        }
+        break;
+      case DAY:
+      case GTD:
+        if (!live && orderStatus != OrderStatus.TRIGGER_PENDING) {
+          break;
+        }
+        if (expiryWheel.schedule(order)) {
+          startExpiryTimer();
+        } else {
+          expireOrder(order);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  // Helper method to cancel what is left of an order that must not rest, on the shard owning the
+  // book. The cancel is not journaled: replaying the order cancels it the same way.
+  private void cancelRemainder(LimitOrderBook limitOrderBook, Order order) {
+    boolean rested = limitOrderBook.remove(order);
+    order.setOrderStatus(OrderStatus.CANCELLED);
+    metrics.cancel();
+    publishCancel(order);
+    if (preTradeRiskCheck != null) {
+      preTradeRiskCheck.onCancel(order, order.getQuantity());
+    }
+    if (order.getSequenceId() == Order.NO_SEQUENCE_ID) {
+      orderBook.remove(order.getOrderId(), order);
+    } else {
+      retireOrder(order);
+    }
+    if (rested) {
+      marketDataPublisher.onBookChanged(limitOrderBook);
+    }
+    log.debug("Unfilled remainder cancelled: {}", order);
+  }
+
+  // Helper method to rest an order, or park it until its trigger fires for a GTT order
+  private void acceptIntoBook(LimitOrderBook limitOrderBook, Order order) {
+    if (order.getTriggerPrice() == null && buyProtectionFactor != null
+        && !limitOrderBook.isInAuction()) {
+      if (commandJournal != null) {
+        commandJournal.appendAddOrder(order);
+      }
+      noteTraderSymbol(limitOrderBook, order);
+      sweepIntoBook(limitOrderBook, order);
+      return;
+    }
+    if (order.getTriggerPrice() == null) {
+      restInBook(limitOrderBook, order);
+      return;
+    }
+    if (commandJournal != null) {
+      commandJournal.appendAddOrder(order);
+    }
+    noteTraderSymbol(limitOrderBook, order);
+    triggerOrderService.register(order);
+  }
+
+  // Helper method to match a book, on the shard owning it. Trades may fire GTT triggers: the
+  // fired orders are then released in trigger price order, matching after each of them.
+  // A book in a call auction only collects orders until it is uncrossed.
+  void matchBook(LimitOrderBook limitOrderBook) {
+    long startNanos = metrics.start();
+    if (!limitOrderBook.isInAuction()) {
+      orderMatcherService.matchOrders(limitOrderBook);
+      Order triggeredOrder = triggerOrderService.pollTriggered(limitOrderBook.getInstrumentId());
+      while (triggeredOrder != null) {
+        // Not journaled again: replaying the trades fires the trigger the same way
+        if (buyProtectionFactor != null) {
+          sweepIntoBook(limitOrderBook, triggeredOrder);
+        } else {
+          limitOrderBook.add(triggeredOrder);
+        }
+        orderMatcherService.matchOrders(limitOrderBook);
+        triggeredOrder = triggerOrderService.pollTriggered(limitOrderBook.getInstrumentId());
+      }
+    }
+    basketExecutionService.onBookChanged(limitOrderBook.getSymbol());
+    marketDataPublisher.onBookChanged(limitOrderBook);
+    metrics.record(MetricOperation.MATCH_ORDERS, startNanos);
+  }
+
+  // Helper method of the sweep mode, on the shard owning the book: the incoming order first trades
+  // through the opposite levels, then a limit order rests with its remainder while the remainder
+  // of a market order is cancelled (immediate-or-cancel)
+  private void sweepIntoBook(LimitOrderBook limitOrderBook, Order order) {
+    if (order.getQuantity() <= 0) {
+      limitOrderBook.add(order);
+      return;
+    }
+    orderMatcherService.sweep(limitOrderBook, order,
+        order.getPrice() == null ? protectionPrice(limitOrderBook, order) : null);
+    if (order.getQuantity() == 0) {
+      retireOrder(order);
+    } else if (order.getPrice() != null && order.getTimeInForce() != TimeInForce.IOC
+        && order.getTimeInForce() != TimeInForce.FOK) {
+      limitOrderBook.add(order);
+    } else {
+      cancelRemainder(limitOrderBook, order);
+    }
+  }
+
+  // Worst price a market order may trade at: the band around the last trade of the symbol, or
+  // around the instrument price or the best opposite price before the first trade
+  private BigDecimal protectionPrice(LimitOrderBook limitOrderBook, Order order) {
+    boolean buy = order.getOrderType() == OrderType.BUY;
+    BigDecimal referencePrice = referencePrice(limitOrderBook);
+    if (referencePrice == null) {
+      Order bestOpposite = buy ? limitOrderBook.peekBestAsk() : limitOrderBook.peekBestBid();
+      referencePrice = bestOpposite == null ? null : bestOpposite.getPrice();
+    }
+    if (referencePrice == null) {
+      return null;
+    }
+    return referencePrice.multiply(buy ? buyProtectionFactor : sellProtectionFactor);
+  }
+
+  // Last trade price of the symbol, or the instrument price before the first trade
+  private BigDecimal referencePrice(LimitOrderBook limitOrderBook) {
+    BigDecimal referencePrice = limitOrderBook.getLastTradePrice();
+    if (referencePrice == null) {
+      FinancialInstrument financialInstrument = financialInstrumentService
+          .getFinancialInstrument(limitOrderBook.getInstrumentId());
+      referencePrice = financialInstrument == null ? null : financialInstrument.getMarketPrice();
+    }
+    return referencePrice;
+  }
+
+  // Helper method to journal and rest an order, on the shard owning the book
+  void restInBook(LimitOrderBook limitOrderBook, Order order) {
+    if (commandJournal != null) {
+      commandJournal.appendAddOrder(order);
+    }
+    noteTraderSymbol(limitOrderBook, order);
+    limitOrderBook.add(order);
+  }
+
+  // Helper method to record the symbol of an incoming order under its trader, on the shard owning
+  // the book. Only the first order of the trader in the book looks the trader up, and only a
+  // symbol not recorded yet updates the map, so steady state trading allocates nothing here.
+  private void noteTraderSymbol(LimitOrderBook limitOrderBook, Order order) {
+    int traderId = order.getTraderId();
+    if (hasOrdersOf(limitOrderBook, traderId)) {
+      return;
+    }
+    String symbol = limitOrderBook.getSymbol();
+    Set<String> recorded = symbolsByTrader.get(traderId);
+    if (recorded != null && recorded.contains(symbol)) {
+      return;
+    }
+    symbolsByTrader.compute(traderId, (id, symbols) -> {
+      Set<String> traderSymbols = symbols == null ? ConcurrentHashMap.newKeySet() : symbols;
+      traderSymbols.add(symbol);
+      return traderSymbols;
+    });
+  }
+
+  // Helper method to drop the symbol of a book from a trader's symbols, on the shard owning the
+  // book, once everything the trader had there is cancelled
+  private void forgetTraderSymbol(LimitOrderBook limitOrderBook, int traderId) {
+    String symbol = limitOrderBook.getSymbol();
+    symbolsByTrader.computeIfPresent(traderId, (id, symbols) -> {
+      symbols.remove(symbol);
+      return symbols.isEmpty() ? null : symbols;
+    });
+  }
+
+  private boolean hasOrdersOf(LimitOrderBook limitOrderBook, int traderId) {
+    if (limitOrderBook.hasOrdersOf(traderId)) {
+      return true;
+    }
+    TriggerBook triggerBook =
+        triggerOrderService.getTriggerBook(limitOrderBook.getInstrumentId());
+    return triggerBook != null && triggerBook.hasOrdersOf(traderId);
+  }
+
+  // Helper method to take a cancelled order out of its book, on the shard owning the book.
+  // An order filled before the cancel reached the shard keeps its executed status.
+  private boolean removeFromBook(LimitOrderBook limitOrderBook, Order order) {
+    return removeFromBook(limitOrderBook, order, OrderStatus.CANCELLED);
+  }
+
+  private boolean removeFromBook(LimitOrderBook limitOrderBook, Order order,
+      OrderStatus orderStatus) {
+    if (!takeOutOfBook(limitOrderBook, order, orderStatus)) {
+      return false;
+    }
+    marketDataPublisher.onBookChanged(limitOrderBook);
+    return true;
+  }
+
+  // Same as removeFromBook without publishing the book change, for callers removing many orders
+  private boolean takeOutOfBook(LimitOrderBook limitOrderBook, Order order,
+      OrderStatus orderStatus) {
+    if (order.getOrderStatus() == OrderStatus.TRIGGER_PENDING) {
+      if (!triggerOrderService.cancel(order)) {
+        return false;
+      }
+    } else if (!limitOrderBook.remove(order)) {
+      return false;
+    }
+    if (commandJournal != null) {
+      commandJournal.appendCancelOrder(order.getOrderId());
+    }
+    if (order.getExpireTimeMillis() != 0) {
+      expiryWheel.cancel(order);
+    }
+    if (preTradeRiskCheck != null) {
+      preTradeRiskCheck.onCancel(order, order.getQuantity());
+    }
+    order.setOrderStatus(orderStatus);
+    metrics.cancel();
+    publishCancel(order);
+    return true;
+  }
+
+  // Helper method to report to the execution journal that an order left the book without trading
+  private void publishCancel(Order order) {
+    if (executionJournal != null) {
+      executionJournal.publishCancel(order.getOrderId(), order.getSequenceId(),
+          order.getTraderId(), order.getOrderType() == OrderType.BUY, order.getSymbol(),
+          order.getQuantity());
+    }
+  }
+
+  // Method to expire the DAY and GTD orders due at the current time of the configured clock.
+  // Called every tick by the expiry timer, or directly when the timer is disabled.
+  public void expireOrders() {
+    List<Order> expiredOrders = expiryWheel.advance(clock.millis());
+    for (Order order : expiredOrders) {
+      matchingEngine.execute(order.getSymbol(), () -> expireOrder(order));
+    }
+  }
+
+  // Helper method to take an expired order out of its book, on the shard owning the book. The
+  // expiry is journaled as a cancel, so recovery does not depend on the time it runs at.
+  private void expireOrder(Order order) {
+    if (removeFromBook(bookOf(order), order, OrderStatus.EXPIRED)) {
+      orderBook.remove(order.getOrderId(), order);
+      log.debug("Order expired: {}", order);
+    }
+  }
+
+  // Helper method to compute the expire time of a DAY order and check the one of a GTD order
+  private void assignExpireTime(Order order) {
+    if (order.getTimeInForce() == TimeInForce.DAY && order.getExpireTimeMillis() == 0) {
+      ZonedDateTime now = ZonedDateTime.now(clock);
+      ZonedDateTime sessionClose = now.with(config.getSessionCloseTime());
+      if (!sessionClose.isAfter(now)) {
+        sessionClose = sessionClose.plusDays(1);
+      }
+      order.setExpireTimeMillis(sessionClose.toInstant().toEpochMilli());
+    }
+  }
+
+  private synchronized void startExpiryTimer() {
+    if (expiryTimer != null || !config.isExpiryTimerEnabled()) {
+      return;
+    }
+    expiryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "order-expiry");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long resolutionMillis = expiryWheel.getResolutionMillis();
+    expiryTimer.scheduleAtFixedRate(this::scheduledExpiry, resolutionMillis, resolutionMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void scheduledExpiry() {
+    try {
+      expireOrders();
+    } catch (RuntimeException e) {
+      log.error("Expiring orders failed", e);
+    }
+  }
+
+  // Method to add a burst of orders. The batch is validated in one pass, then the orders of each
+  // symbol are rested and matched once, by a single task on the shard owning the book.
+  // Blocks until the batch is matched and returns one result per order, in submission order.
+  // Must not be called from a matching shard.
+  public List<OrderResult> addOrders(Collection<Order> orders) {
+    OrderResult[] results = new OrderResult[orders.size()];
+    int[] filledQuantities = new int[results.length];
+    int[] remainingQuantities = new int[results.length];
+    Map<String, List<BatchEntry>> entriesBySymbol = new LinkedHashMap<>();
+    int index = 0;
+    for (Order order : orders) {
+      if (order != null && order.getOrderType() == OrderType.COMPOSITE) {
+        results[index] = addCompositeForBatch(order);
+      } else {
+        String rejection = acceptForBatch(order, index, entriesBySymbol);
+        if (rejection != null) {
+          results[index] = OrderResult.rejected(order == null ? null : order.getOrderId(),
+              rejection);
+        }
+      }
+      index++;
+    }
+    runPerSymbol(entriesBySymbol, (limitOrderBook, entries) -> {
+      for (BatchEntry entry : entries) {
+        if (!killUnfillable(limitOrderBook, entry.order)) {
+          acceptIntoBook(limitOrderBook, entry.order);
+        }
+      }
+      matchBook(limitOrderBook);
+      for (BatchEntry entry : entries) {
+        if (entry.order.getOrderStatus() != OrderStatus.CANCELLED) {
+          applyTimeInForce(limitOrderBook, entry.order);
+        }
+        filledQuantities[entry.resultIndex] += entry.quantity - entry.order.getQuantity();
+        // The unfilled part of a cancelled IOC or FOK order does not remain in the book
+        if (entry.order.getOrderStatus() != OrderStatus.CANCELLED) {
+          remainingQuantities[entry.resultIndex] += entry.order.getQuantity();
+        }
+      }
+    });
+    index = 0;
+    for (Order order : orders) {
+      if (results[index] == null) {
+        results[index] = new OrderResult(order.getOrderId(), OrderResultStatus.ACCEPTED,
+            filledQuantities[index], remainingQuantities[index], null);
+      }
+      index++;
+    }
+    return Arrays.asList(results);
+  }
+
+  // Helper method to validate a batch order and index it; returns why it is rejected, or null
+  private String acceptForBatch(Order order, int resultIndex,
+      Map<String, List<BatchEntry>> entriesBySymbol) {
+    try {
+      validateOrder(order);
+      assignInstrumentId(order);
+      assignPriceTicks(order);
+      assignExpireTime(order);
+      checkMarketPrice(order);
+    } catch (IllegalArgumentException e) {
+      return e.getMessage();
+    }
+    if (order.getSequenceId() != Order.NO_SEQUENCE_ID) {
+      metrics.reject();
+      return ExceptionMessages.SEQUENCED_ORDER_IN_BATCH;
+    }
+    if (orderBook.putIfAbsent(order.getOrderId(), order) != null) {
+      metrics.reject();
+      return ExceptionMessages.DUPLICATE_ORDER_ID;
+    }
+    String rejection = checkRisk(order);
+    if (rejection != null) {
+      orderBook.remove(order.getOrderId(), order);
+      return rejection;
+    }
+    metrics.orderIn();
+    entriesBySymbol.computeIfAbsent(order.getSymbol(), symbol -> new ArrayList<>())
+        .add(new BatchEntry(order, resultIndex));
+    return null;
+  }
+
+  // Helper method to execute a composite order of a batch as a basket and report its outcome
+  private OrderResult addCompositeForBatch(Order compositeOrder) {
+    int totalQuantity = 0;
+    try {
+      validateOrder(compositeOrder);
+      validateCompositeOrder(compositeOrder);
+    } catch (IllegalArgumentException | MaxUnderlyingInstrumentsException e) {
+      return OrderResult.rejected(compositeOrder.getOrderId(), e.getMessage());
+    }
+    for (Order underlyingOrder : compositeOrder.getUnderlyingOrders()) {
+      totalQuantity += underlyingOrder.getQuantity();
+    }
+    if (orderBook.putIfAbsent(compositeOrder.getOrderId(), compositeOrder) != null) {
+      metrics.reject();
+      return OrderResult.rejected(compositeOrder.getOrderId(), ExceptionMessages.DUPLICATE_ORDER_ID);
+    }
+    metrics.orderIn();
+    OrderStatus status = basketExecutionService.execute(compositeOrder,
+        config.getBasketFillWindowMillis());
+    if (status == OrderStatus.EXECUTED) {
+      return new OrderResult(compositeOrder.getOrderId(), OrderResultStatus.ACCEPTED,
+          totalQuantity, 0, null);
+    }
+    if (status == OrderStatus.PLACED) {
+      return new OrderResult(compositeOrder.getOrderId(), OrderResultStatus.ACCEPTED, 0,
+          totalQuantity, null);
+    }
+    return OrderResult.rejected(compositeOrder.getOrderId(), ExceptionMessages.BASKET_NOT_FILLED);
+  }
+
+  // Method to cancel a batch of orders with one task per affected symbol.
+  // Blocks until processed and returns one result per order ID, in submission order.
+  // Must not be called from a matching shard.
+  public List<OrderResult> cancelOrders(Collection<UUID> orderIds) {
+    OrderResult[] results = new OrderResult[orderIds.size()];
+    int[] cancelledLegs = new int[results.length];
+    Map<String, List<BatchEntry>> entriesBySymbol = new LinkedHashMap<>();
+    int index = 0;
+    for (UUID orderId : orderIds) {
+      Order order = orderId == null ? null : orderBook.remove(orderId);
+      if (orderId == null) {
+        results[index] = OrderResult.rejected(null, ExceptionMessages.INVALID_ORDER_ID);
+      } else if (order == null) {
+        results[index] = OrderResult.rejected(orderId, ExceptionMessages.UNKNOWN_ORDER);
+      } else if (order.getOrderType() == OrderType.COMPOSITE) {
+        if (basketExecutionService.cancel(order)) {
+          metrics.cancel();
+          results[index] = new OrderResult(orderId, OrderResultStatus.CANCELLED, 0, 0, null);
+        } else {
+          // An executed or killed basket stays tracked for its status
+          orderBook.put(orderId, order);
+          results[index] = OrderResult.rejected(orderId, ExceptionMessages.ORDER_NOT_CANCELLABLE);
+        }
+      } else {
+        entriesBySymbol.computeIfAbsent(order.getSymbol(), symbol -> new ArrayList<>())
+            .add(new BatchEntry(order, index));
+      }
+      index++;
+    }
+    runPerSymbol(entriesBySymbol, (limitOrderBook, entries) -> {
+      for (BatchEntry entry : entries) {
+        if (removeFromBook(limitOrderBook, entry.order)) {
+          cancelledLegs[entry.resultIndex]++;
+        }
+      }
+    });
+    index = 0;
+    for (UUID orderId : orderIds) {
+      if (results[index] == null) {
+        results[index] = cancelledLegs[index] > 0
+            ? new OrderResult(orderId, OrderResultStatus.CANCELLED, 0, 0, null)
+            : OrderResult.rejected(orderId, ExceptionMessages.ORDER_NOT_CANCELLABLE);
+      }
+      index++;
+    }
+    return Arrays.asList(results);
+  }
+
+  // Method to cancel every resting and dormant order of a trader, visiting only the books the
+  // trader has orders in. Blocks until done and returns the cancelled orders; sequenced orders
+  // are returned as unpooled copies, the originals being back in their pool.
+  // Must not be called from a matching shard.
+  public List<Order> cancelTraderOrders(int traderId) {
+    return massCancel(symbolsByTrader.getOrDefault(traderId, Collections.emptySet()),
+        (limitOrderBook, targets) -> collectTraderOrders(limitOrderBook, traderId, targets));
+  }
+
+  // Method to cancel every resting and dormant order of a trader in the book of one symbol
+  public List<Order> cancelTraderOrders(int traderId, String symbol) {
+    return massCancel(Collections.singleton(symbol),
+        (limitOrderBook, targets) -> collectTraderOrders(limitOrderBook, traderId, targets));
+  }
+
+  // Method to cancel every resting and dormant order of a symbol, e.g. when trading halts
+  public List<Order> cancelSymbolOrders(String symbol) {
+    return massCancel(Collections.singleton(symbol), (limitOrderBook, targets) -> {
+      limitOrderBook.forEachOrder(targets::add);
+      TriggerBook triggerBook = triggerOrderService.getTriggerBook(symbol);
+      if (triggerBook != null) {
+        triggerBook.forEachOrder(targets::add);
+      }
+    });
+  }
+
+  // Method to switch the book of a symbol to a call auction, e.g. for the opening or a volatility
+  // halt: orders rest without matching until uncrossAuction. IOC and FOK orders are cancelled on
+  // arrival. Blocks until the book is in the auction. Must not be called from a matching shard.
+  // Both phases are journaled on the shard, so recovery replays them between the same orders.
+  public void startAuction(String symbol) {
+    runPerSymbol(Collections.singletonMap(symbol, symbol), (limitOrderBook, ignored) -> {
+      if (commandJournal != null) {
+        commandJournal.appendAuctionStart(symbol);
+      }
+      limitOrderBook.setInAuction(true);
+    });
+    log.info("Call auction started for {}", symbol);
+  }
+
+  // Method to compute the price the book of a symbol would uncross at now, without trading
+  public AuctionResult getIndicativeAuction(String symbol) {
+    if (getLimitOrderBook(symbol) == null) {
+      return AuctionResult.noCross(symbol);
+    }
+    AuctionResult[] auctionResult = new AuctionResult[1];
+    runPerSymbol(Collections.singletonMap(symbol, auctionResult),
+        (limitOrderBook, result) -> result[0] = orderMatcherService.computeEquilibrium(
+            limitOrderBook, referencePrice(limitOrderBook)));
+    return auctionResult[0];
+  }
+
+  // Method to end the call auction of a symbol: every cross executes at the equilibrium price in
+  // one batch on the shard owning the book, then continuous matching resumes. In sweep mode the
+  // unfilled remainder of a market order is cancelled, as in continuous trading.
+  // Blocks until done. Must not be called from a matching shard.
+  public AuctionResult uncrossAuction(String symbol) {
+    if (getLimitOrderBook(symbol) == null) {
+      return AuctionResult.noCross(symbol);
+    }
+    AuctionResult[] auctionResult = new AuctionResult[1];
+    runPerSymbol(Collections.singletonMap(symbol, auctionResult), (limitOrderBook, result) -> {
+      result[0] = orderMatcherService.computeEquilibrium(limitOrderBook,
+          referencePrice(limitOrderBook));
+      if (commandJournal != null) {
+        commandJournal.appendUncross(symbol, result[0].getPrice());
+      }
+      if (result[0].isCrossed()) {
+        orderMatcherService.uncross(limitOrderBook, result[0].getPrice());
+        updatePrices(limitOrderBook.getInstrumentId(), result[0].getPrice());
+      }
+      limitOrderBook.setInAuction(false);
+      if (buyProtectionFactor != null) {
+        cancelMarketRemainders(limitOrderBook);
+      }
+      matchBook(limitOrderBook);
+    });
+    log.info("Call auction uncrossed: {}", auctionResult[0]);
+    return auctionResult[0];
+  }
+
+  private void cancelMarketRemainders(LimitOrderBook limitOrderBook) {
+    List<Order> marketOrders = new ArrayList<>();
+    collectMarketOrders(limitOrderBook.getBidLevel(0), marketOrders);
+    collectMarketOrders(limitOrderBook.getAskLevel(0), marketOrders);
+    for (Order order : marketOrders) {
+      cancelRemainder(limitOrderBook, order);
+    }
+  }
+
+  // The unpriced level ranks first on its side
+  private static void collectMarketOrders(PriceLevel bestLevel, List<Order> marketOrders) {
+    if (bestLevel != null && bestLevel.getPrice() == null) {
+      bestLevel.forEachOrder(marketOrders::add);
+    }
+  }
+
+  // Helper method to collect the orders of each book on its own shard, then cancel them there.
+  // The book change is published once per book rather than once per order.
+  private List<Order> massCancel(Collection<String> symbols,
+      BiConsumer<LimitOrderBook, List<Order>> collector) {
+    long startNanos = metrics.start();
+    Map<String, List<Order>> cancelledBySymbol = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      // Symbols without a book have nothing to cancel
+      if (getLimitOrderBook(symbol) != null) {
+        cancelledBySymbol.put(symbol, new ArrayList<>());
+      }
+    }
+    runPerSymbol(cancelledBySymbol, (limitOrderBook, cancelled) -> {
+      List<Order> targets = new ArrayList<>();
+      collector.accept(limitOrderBook, targets);
+      for (Order order : targets) {
+        Order cancelledOrder = cancelOnShard(limitOrderBook, order);
+        if (cancelledOrder != null) {
+          cancelled.add(cancelledOrder);
+        }
+      }
+      if (!cancelled.isEmpty()) {
+        marketDataPublisher.onBookChanged(limitOrderBook);
+      }
+    });
+    List<Order> cancelledOrders = new ArrayList<>();
+    for (List<Order> cancelled : cancelledBySymbol.values()) {
+      cancelledOrders.addAll(cancelled);
+    }
+    metrics.record(MetricOperation.CANCEL_ORDER, startNanos);
+    log.info("Mass cancel of {} orders", cancelledOrders.size());
+    return cancelledOrders;
+  }
+
+  // Helper method to cancel one order of a mass cancel, on the shard owning its book. The order
+  // leaves its id index first, which decides the race with a concurrent single cancel.
+  // Returns the order to report, or null if it was not cancelled; a sequenced order is reported
+  // as an unpooled copy since the original goes back to the pool for newOrder to reuse.
+  private Order cancelOnShard(LimitOrderBook limitOrderBook, Order order) {
+    if (order.getSequenceId() != Order.NO_SEQUENCE_ID) {
+      if (!sequencedOrders.remove(order.getSequenceId(), order)) {
+        return null;
+      }
+      takeOutOfBook(limitOrderBook, order, OrderStatus.CANCELLED);
+      Order cancelledOrder = order.unpooledCopy();
+      orderPool.release(order);
+      return cancelledOrder;
+    }
+    if (!orderBook.remove(order.getOrderId(), order)) {
+      return null;
+    }
+    return takeOutOfBook(limitOrderBook, order, OrderStatus.CANCELLED) ? order : null;
+  }
+
+  // Helper method to collect the resting and dormant orders of a trader in one book from its
+  // per-trader lists. They are all cancelled by the same shard task, so the trader no longer has
+  // orders there: an order a single cancel took first leaves the book with that cancel.
+  private void collectTraderOrders(LimitOrderBook limitOrderBook, int traderId,
+      List<Order> targets) {
+    limitOrderBook.forEachOrderOfTrader(traderId, targets::add);
+    TriggerBook triggerBook =
+        triggerOrderService.getTriggerBook(limitOrderBook.getInstrumentId());
+    if (triggerBook != null) {
+      triggerBook.forEachOrderOfTrader(traderId, targets::add);
+    }
+    forgetTraderSymbol(limitOrderBook, traderId);
+  }
+
+  // Helper method to run one task per symbol on the owning shards and wait for all of them.
+  // A symbol seen for the first time gets its book, so read-only callers check it exists first.
+  private <T> void runPerSymbol(Map<String, T> entriesBySymbol,
+      BiConsumer<LimitOrderBook, T> task) {
+    CountDownLatch done = new CountDownLatch(entriesBySymbol.size());
+    for (Map.Entry<String, T> symbolEntries : entriesBySymbol.entrySet()) {
+      String symbol = symbolEntries.getKey();
+      matchingEngine.execute(symbol, () -> {
+        try {
+          task.accept(getLimitOrderBook(instrumentRegistry.register(symbol)),
+              symbolEntries.getValue());
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a batch", e);
+    }
+  }
+
+  // An order of a batch with the index of its result
+  private static final class BatchEntry {
+    private final Order order;
+    private final int resultIndex;
+    private final int quantity; // Quantity before matching, to report the fills
+
+    private BatchEntry(Order order, int resultIndex) {
+      this.order = order;
+      this.resultIndex = resultIndex;
+      this.quantity = order.getQuantity();
     }
-    CompletableFuture.runAsync(() -> orderMatcherService.matchOrders())
-        .thenAcceptAsync(unused -> log.info("Order matching process initiated asynchronously."));
   }
 
   private void validateOrder(Order order) {
     if (order == null || order.getSymbol().isEmpty()) {
+      metrics.reject();
       throw new IllegalArgumentException(ExceptionMessages.INVALID_ORDER);
     }
+    if (order.getTriggerPrice() != null && order.getTriggerCondition() == null) {
+      metrics.reject();
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_TRIGGER);
+    }
+    TimeInForce timeInForce = order.getTimeInForce();
+    if (timeInForce == null
+        || timeInForce == TimeInForce.GTD && order.getExpireTimeMillis() <= 0
+        || (timeInForce == TimeInForce.IOC || timeInForce == TimeInForce.FOK)
+        && order.getTriggerPrice() != null) {
+      metrics.reject();
+      throw new IllegalArgumentException(ExceptionMessages.INVALID_TIME_IN_FORCE);
+    }
+  }
+
+  // Helper method to reject an unpriced order when its instrument has no market price to trade at.
+  // Resting ahead of the priced orders of its side, it would otherwise fail every later match of
+  // the book. The sweep mode bounds such orders by the protection band instead. Replayed orders
+  // passed the check when they were first added.
+  private void checkMarketPrice(Order order) {
+    if (order.getPrice() != null || buyProtectionFactor != null
+        || config.getJournalDirectory() != null && commandJournal == null) {
+      return;
+    }
+    FinancialInstrument financialInstrument = financialInstrumentService.getFinancialInstrument(
+        instrumentIdOf(order));
+    if (financialInstrument == null || financialInstrument.getMarketPrice() == null) {
+      metrics.reject();
+      throw new IllegalArgumentException(ExceptionMessages.NO_MARKET_PRICE);
+    }
+  }
+
+  // Helper method to run the pre-trade risk check of an order, reserving its exposure when it
+  // passes. Returns why the order is rejected, or null when it is accepted.
+  private String checkRisk(Order order) {
+    if (preTradeRiskCheck == null) {
+      return null;
+    }
+    long startNanos = metrics.start();
+    FinancialInstrument financialInstrument = financialInstrumentService.getFinancialInstrument(
+        instrumentIdOf(order));
+    String rejection = preTradeRiskCheck.check(order,
+        financialInstrument == null ? null : financialInstrument.getMarketPrice());
+    metrics.record(MetricOperation.RISK_CHECK, startNanos);
+    if (rejection != null) {
+      metrics.reject();
+      log.warn("Order rejected by risk check: {} {}", order, rejection);
+    }
+    return rejection;
+  }
+
+  // Helper method to convert the price to ticks of the symbol's book up front in fixed-point mode,
+  // so prices off the tick grid are rejected before reaching the book
+  private void assignPriceTicks(Order order) {
+    if (config.getPriceMode() == PriceMode.FIXED_POINT && order.getPrice() != null) {
+      PriceScale priceScale = bookOf(order).getPriceScale();
+      order.setPriceTicks(priceScale.toTicks(order.getPrice()));
+    }
+  }
+
+  // Tick size of the registered instrument, falling back to the configured default
+  private PriceScale priceScaleFor(String symbol) {
+    FinancialInstrument financialInstrument = financialInstrumentService.getFinancialInstruments()
+        .get(symbol);
+    BigDecimal tickSize = financialInstrument == null || financialInstrument.getTickSize() == null
+        ? config.getDefaultTickSize() : financialInstrument.getTickSize();
+    return priceScales.computeIfAbsent(tickSize, PriceScale::new);
   }
 
   // Method to cancel an order from the order book
   public void cancelOrder(UUID orderId) {
     validateOrderId(orderId);
     log.info("Cancelling order: {}", orderId);
+    long startNanos = metrics.start();
 
     Order orderToRemove = orderBook.get(orderId);
 
     if (orderToRemove == null) {
       log.warn(ExceptionMessages.ORDER_NOT_FOUND, orderId);
-      return;
-    }
-
-    if (orderToRemove.getOrderType() == OrderType.COMPOSITE) {
+    } else if (orderToRemove.getOrderType() == OrderType.COMPOSITE) {
       cancelCompositeOrder(orderToRemove);
     } else {
       cancelSingleOrder(orderToRemove);
     }
+    metrics.record(MetricOperation.CANCEL_ORDER, startNanos);
   }
 
-  // Helper method to cancel a composite order
+  // Helper method to cancel a composite order; only a basket still waiting for liquidity
+  // can be cancelled, as its legs never rest in the books
   private void cancelCompositeOrder(Order compositeOrder) {
     log.info("Cancelling composite order: {}", compositeOrder.getOrderId());
-    for (Order underlyingOrder : compositeOrder.getUnderlyingOrders()) {
-      cancelSingleOrder(underlyingOrder);
+    if (basketExecutionService.cancel(compositeOrder)) {
+      metrics.cancel();
+      orderBook.remove(compositeOrder.getOrderId());
     }
   }
 
   // Helper method to cancel a single order
   private void cancelSingleOrder(Order order) {
     log.info("Cancelling order: {}", order.getOrderId());
-    order.setOrderStatus(OrderStatus.CANCELLED);
     orderBook.remove(order.getOrderId());
+    matchingEngine.execute(order.getSymbol(), () -> removeFromBook(bookOf(order), order));
+  }
+
+  // Method to cancel an order of the low-garbage mode by its sequence id. The order must have
+  // been added before its id is used to cancel it.
+  public void cancelOrder(long orderId) {
+    long startNanos = metrics.start();
+    Order order = sequencedOrders == null ? null : sequencedOrders.remove(orderId);
+    if (order == null) {
+      log.warn(ExceptionMessages.ORDER_NOT_FOUND, orderId);
+    } else {
+      int poolIndex = order.getPoolIndex();
+      matchingEngine.execute(order.getSymbol(),
+          poolIndex < 0 ? () -> cancelSequencedOrder(order) : cancelTasks[poolIndex]);
+    }
+    metrics.record(MetricOperation.CANCEL_ORDER, startNanos);
+  }
+
+  // Helper method to cancel a sequenced order taken out of the index, on the shard owning its
+  // book. It is recycled even if it executed before the cancel got there.
+  private void cancelSequencedOrder(Order order) {
+    removeFromBook(bookOf(order), order);
+    orderPool.release(order);
   }
 
   // Utility method to validate order ID
@@ -108,35 +1244,84 @@ public class TradingSystem {
   }
 
 
-  // Method to execute a trade between a buy and sell order
-  public void executeTrade(Order buyOrder, Order sellOrder) {
+  // Method to execute a trade between a buy and sell order at the sell order's price, or the
+  // market price when it has none; returns the trade price
+  public BigDecimal executeTrade(Order buyOrder, Order sellOrder) {
+    return executeTrade(buyOrder, sellOrder, getBestAvailableMarketPrice(sellOrder));
+  }
+
+  // Method to execute a trade between a buy and sell order at the given price
+  public BigDecimal executeTrade(Order buyOrder, Order sellOrder, BigDecimal tradePrice) {
+    long startNanos = metrics.start();
+    fill(buyOrder, sellOrder, tradePrice);
+    updatePrices(instrumentIdOf(buyOrder), tradePrice);
+    metrics.fill();
+    metrics.record(MetricOperation.EXECUTE_TRADE, startNanos);
+    return tradePrice;
+  }
+
+  // Method to execute a trade of a call auction uncross. Every trade of the uncross is at the
+  // same price, so the instrument prices are updated once for the whole batch instead.
+  void executeAuctionTrade(Order buyOrder, Order sellOrder, BigDecimal auctionPrice) {
+    long startNanos = metrics.start();
+    fill(buyOrder, sellOrder, auctionPrice);
+    metrics.fill();
+    metrics.record(MetricOperation.EXECUTE_TRADE, startNanos);
+  }
 
+  // Helper method to report a trade and take its quantity off both orders
+  private void fill(Order buyOrder, Order sellOrder, BigDecimal tradePrice) {
     int tradedQuantity = Math.min(buyOrder.getQuantity(), sellOrder.getQuantity());
-    BigDecimal tradePrice = getBestAvailableMarketPrice(sellOrder);
 
-    log.info("Trade executed - Buy Order: {}, Sell Order: {}, Quantity: {}, Trade Price: {}",
-        new Object[]{buyOrder, sellOrder, tradedQuantity, tradePrice});
+    if (executionJournal != null) {
+      executionJournal.publishTrade(buyOrder.getOrderId(), buyOrder.getSequenceId(),
+          buyOrder.getTraderId(), sellOrder.getOrderId(), sellOrder.getSequenceId(),
+          sellOrder.getTraderId(), buyOrder.getSymbol(), tradedQuantity, tradePrice);
+    }
+    marketDataPublisher.publishTrade(buyOrder.getSymbol(), tradePrice, tradedQuantity);
+    if (barAggregator != null) {
+      barAggregator.onTrade(instrumentIdOf(buyOrder), tradePrice, tradedQuantity);
+    }
+    if (tradeHistory != null) {
+      tradeHistory.append(instrumentIdOf(buyOrder), buyOrder, sellOrder, tradePrice,
+          tradedQuantity);
+    }
+    if (commandJournal != null) {
+      commandJournal.appendTrade(buyOrder.getOrderId(), sellOrder.getOrderId(),
+          buyOrder.getSymbol(), tradedQuantity, tradePrice);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Trade executed - Buy Order: {}, Sell Order: {}, Quantity: {}, Trade Price: {}",
+          buyOrder, sellOrder, tradedQuantity, tradePrice);
+    }
 
     // Update order book
     buyOrder.setQuantity(buyOrder.getQuantity() - tradedQuantity);
     sellOrder.setQuantity(sellOrder.getQuantity() - tradedQuantity);
 
+    if (preTradeRiskCheck != null) {
+      preTradeRiskCheck.onFill(buyOrder, tradedQuantity, tradePrice);
+      preTradeRiskCheck.onFill(sellOrder, tradedQuantity, tradePrice);
+    }
+
     // Update order statuses based on remaining quantity
     updateOrderStatus(buyOrder);
     updateOrderStatus(sellOrder);
+  }
 
-    // Update financial instruments and composite financial instruments based on the executed trade
-    financialInstrumentService.updateFinancialInstruments(buyOrder.getSymbol(), tradePrice);
-    financialInstrumentService.updateCompositeFinancialInstruments(buyOrder.getSymbol(),
-        tradePrice);
-
-
+  // Update financial instruments and composite financial instruments based on the executed trade
+  private void updatePrices(int instrumentId, BigDecimal tradePrice) {
+    financialInstrumentService.updateFinancialInstruments(instrumentId, tradePrice);
+    financialInstrumentService.updateCompositeFinancialInstruments(instrumentId, tradePrice);
   }
 
   //method to update order status based on remaining quantity
   private void updateOrderStatus(Order order) {
     if (order.getQuantity() == 0) {
       order.setOrderStatus(OrderStatus.EXECUTED);
+      if (order.getExpireTimeMillis() != 0) {
+        expiryWheel.cancel(order);
+      }
     } else {
       order.setOrderStatus(OrderStatus.PARTIALLY_EXECUTED);
     }
@@ -146,8 +1331,8 @@ public class TradingSystem {
   public BigDecimal getBestAvailableMarketPrice(Order sellOrder) {
     // If sellOrder price is null, trade will execute based on market price from financial instrument
     if (sellOrder.getPrice() == null) {
-      FinancialInstrument financialInstrument = financialInstrumentService.getFinancialInstruments()
-          .get(sellOrder.getSymbol());
+      FinancialInstrument financialInstrument = financialInstrumentService.getFinancialInstrument(
+          instrumentIdOf(sellOrder));
       if (financialInstrument != null) {
         return financialInstrument.getMarketPrice();
       } else {
@@ -163,6 +1348,210 @@ public class TradingSystem {
     return orderBook;
   }
 
+  // Book of a symbol, or null when no order was ever submitted for it
+  public LimitOrderBook getLimitOrderBook(String symbol) {
+    return limitOrderBooks.get(instrumentRegistry.idOf(symbol));
+  }
+
+  // Book of a registered instrument id, created empty on first use
+  public LimitOrderBook getLimitOrderBook(int instrumentId) {
+    // Plain lookup first, computeIfAbsent would allocate its capturing function on every call
+    LimitOrderBook limitOrderBook = limitOrderBooks.get(instrumentId);
+    if (limitOrderBook != null) {
+      return limitOrderBook;
+    }
+    return limitOrderBooks.computeIfAbsent(instrumentId, id -> {
+      String symbol = instrumentRegistry.symbolOf(id);
+      return new LimitOrderBook(id, symbol,
+          config.getPriceMode() == PriceMode.FIXED_POINT ? priceScaleFor(symbol) : null);
+    });
+  }
+
+  // Book of the order's symbol, found by instrument id
+  private LimitOrderBook bookOf(Order order) {
+    return getLimitOrderBook(instrumentIdOf(order));
+  }
+
+  // Helper method to intern the symbol of an order entering the system. An id the order already
+  // has is resolved again, as the order may have been used with another trading system before.
+  private void assignInstrumentId(Order order) {
+    order.setInstrumentId(instrumentRegistry.register(order.getSymbol()));
+  }
+
+  // Interned id of the order's symbol. Orders get it when they enter the trading system; recovered
+  // orders that did not pass addOrder get it on first use.
+  private int instrumentIdOf(Order order) {
+    int instrumentId = order.getInstrumentId();
+    if (instrumentId == InstrumentRegistry.NO_INSTRUMENT_ID) {
+      instrumentId = instrumentRegistry.register(order.getSymbol());
+      order.setInstrumentId(instrumentId);
+    }
+    return instrumentId;
+  }
+
+  public InstrumentRegistry getInstrumentRegistry() {
+    return instrumentRegistry;
+  }
+
+  // Sequenced order of the low-garbage mode still open, or null
+  public Order getOrder(long orderId) {
+    return sequencedOrders == null ? null : sequencedOrders.get(orderId);
+  }
+
+  // Order pool of the low-garbage mode, null when disabled
+  public OrderPool getOrderPool() {
+    return orderPool;
+  }
+
+  public TriggerOrderService getTriggerOrderService() {
+    return triggerOrderService;
+  }
+
+  public BasketExecutionService getBasketExecutionService() {
+    return basketExecutionService;
+  }
+
+  public TradingMetrics getMetrics() {
+    return metrics;
+  }
+
+  // Method to read the metrics: latencies and counters, plus the depth of every book and of the
+  // matching shard queues. Does not pause matching.
+  public MetricsSnapshot getMetricsSnapshot() {
+    Map<String, MetricsSnapshot.BookDepth> bookDepths = new LinkedHashMap<>();
+    for (LimitOrderBook limitOrderBook : limitOrderBooks.valuesSnapshot()) {
+      bookDepths.put(limitOrderBook.getSymbol(), new MetricsSnapshot.BookDepth(
+          limitOrderBook.getOrderCount(), limitOrderBook.getBidLevelCount(),
+          limitOrderBook.getAskLevelCount()));
+    }
+    return metrics.snapshot(bookDepths, matchingEngine.getQueueDepths());
+  }
+
+  public MarketDataPublisher getMarketDataPublisher() {
+    return marketDataPublisher;
+  }
+
+  // Streaming OHLCV/VWAP bars of the traded symbols, null when barIntervalsMillis is empty
+  public BarAggregator getBarAggregator() {
+    return barAggregator;
+  }
+
+  // Persisted fills, queryable by symbol or trader and time range; null when not configured
+  public TradeHistory getTradeHistory() {
+    return tradeHistory;
+  }
+
+  public Collection<LimitOrderBook> getLimitOrderBooks() {
+    return limitOrderBooks.valuesSnapshot();
+  }
+
+  // Method to wait until every order and cancel submitted so far has been matched, the resulting
+  // execution events have reached the journal sink and the journaled commands are durable
+  public void flush() {
+    matchingEngine.flush();
+    if (commandJournal != null) {
+      commandJournal.awaitDurable();
+    }
+    if (executionJournal != null) {
+      executionJournal.flush();
+    }
+  }
+
+  // Method to write a snapshot of the resting orders and instrument prices, then drop the journal
+  // segments it covers. Matching is paused only while the books are copied.
+  // Returns the last journal sequence contained in the snapshot.
+  public synchronized long snapshot() {
+    if (commandJournal == null) {
+      throw new IllegalStateException(ExceptionMessages.JOURNAL_NOT_CONFIGURED);
+    }
+    List<Order> restingOrders = new ArrayList<>();
+    List<FinancialInstrument> financialInstruments = new ArrayList<>();
+    List<String> auctionSymbols = new ArrayList<>();
+    long[] lastSequence = new long[1];
+    matchingEngine.runExclusive(() -> {
+      for (LimitOrderBook limitOrderBook : limitOrderBooks.valuesSnapshot()) {
+        limitOrderBook.forEachOrder(order -> restingOrders.add(copyOf(order)));
+        if (limitOrderBook.isInAuction()) {
+          auctionSymbols.add(limitOrderBook.getSymbol());
+        }
+      }
+      for (TriggerBook triggerBook : triggerOrderService.getTriggerBooks()) {
+        triggerBook.forEachOrder(order -> restingOrders.add(copyOfTriggerOrder(order)));
+      }
+      for (FinancialInstrument financialInstrument
+          : financialInstrumentService.getFinancialInstruments().values()) {
+        financialInstruments.add(new FinancialInstrument(financialInstrument.getSymbol(),
+            financialInstrument.getMarketPrice(), financialInstrument.getTickSize()));
+      }
+      lastSequence[0] = commandJournal.getLastSequence();
+      commandJournal.roll();
+    });
+    new BookSnapshot(lastSequence[0], financialInstruments, restingOrders, auctionSymbols)
+        .write(config.getJournalDirectory());
+    commandJournal.deleteSegmentsUpTo(lastSequence[0]);
+    log.info("Snapshot of {} resting orders written at journal sequence {}",
+        restingOrders.size(), lastSequence[0]);
+    return lastSequence[0];
+  }
+
+  private void scheduledSnapshot() {
+    try {
+      snapshot();
+    } catch (RuntimeException e) {
+      log.error("Periodic snapshot failed", e);
+    }
+  }
+
+  private static Order copyOfTriggerOrder(Order order) {
+    Order copy = new Order(order.getOrderId(), order.getTraderId(), order.getOrderType(),
+        order.getPrice(), order.getQuantity(), order.getSymbol(), order.getTriggerPrice(),
+        order.getTriggerCondition());
+    copy.setOrderStatus(order.getOrderStatus());
+    copy.setTimeInForce(order.getTimeInForce());
+    copy.setExpireTimeMillis(order.getExpireTimeMillis());
+    return copy;
+  }
+
+  // Resting orders are copied without their trigger, which has already fired
+  private static Order copyOf(Order order) {
+    Order copy = new Order(order.getOrderId(), order.getTraderId(), order.getOrderType(),
+        order.getPrice(), order.getQuantity(), order.getSymbol());
+    copy.setOrderStatus(order.getOrderStatus());
+    copy.setTimeInForce(order.getTimeInForce());
+    copy.setExpireTimeMillis(order.getExpireTimeMillis());
+    return copy;
+  }
+
+  // Method to stop the matching shards after the work already queued
+  public void shutdown() {
+    basketExecutionService.shutdown();
+    synchronized (this) {
+      if (expiryTimer != null) {
+        expiryTimer.shutdownNow();
+      }
+    }
+    if (snapshotScheduler != null) {
+      snapshotScheduler.shutdown();
+      try {
+        snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    matchingEngine.flush();
+    matchingEngine.shutdown();
+    marketDataPublisher.close();
+    if (commandJournal != null) {
+      commandJournal.close();
+    }
+    if (executionJournal != null) {
+      executionJournal.close();
+    }
+    if (tradeHistory != null) {
+      tradeHistory.close();
+    }
+  }
+
   public void setOrderMatcherService(
       OrderMatcherService orderMatcherService) {
     this.orderMatcherService = orderMatcherService;
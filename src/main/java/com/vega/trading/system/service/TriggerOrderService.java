@@ -0,0 +1,92 @@
+package com.vega.trading.system.service;
+
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.model.InstrumentIndex;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.TriggerBook;
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/* Holds the dormant good-till-trigger orders in one TriggerBook per symbol, indexed by the
+ instrument id of the symbol.
+ Triggers are evaluated from FinancialInstrumentService.updateFinancialInstruments, i.e. after a
+ trade moved the symbol's price, on the shard owning the symbol; the fired orders are released
+ into the book by that same shard once its current matching pass is over. */
+public class TriggerOrderService {
+
+  private final InstrumentIndex<TriggerBook> triggerBooks;
+
+  public TriggerOrderService() {
+    this(new InstrumentRegistry());
+  }
+
+  public TriggerOrderService(InstrumentRegistry instrumentRegistry) {
+    this.triggerBooks = new InstrumentIndex<>(instrumentRegistry);
+  }
+
+  // Method to park an order until its trigger fires
+  public void register(Order order) {
+    order.setOrderStatus(OrderStatus.TRIGGER_PENDING);
+    triggerBooks.computeIfAbsent(instrumentIdOf(order),
+        instrumentId -> new TriggerBook(order.getSymbol())).add(order);
+  }
+
+  public boolean cancel(Order order) {
+    TriggerBook triggerBook = triggerBooks.get(instrumentIdOf(order));
+    if (triggerBook == null || !triggerBook.remove(order)) {
+      return false;
+    }
+    order.setOrderStatus(OrderStatus.CANCELLED);
+    return true;
+  }
+
+  // Method to fire the triggers of a symbol reached by its new market price
+  public void onPriceUpdate(int instrumentId, BigDecimal marketPrice) {
+    TriggerBook triggerBook = triggerBooks.get(instrumentId);
+    if (triggerBook != null) {
+      triggerBook.onPrice(marketPrice);
+    }
+  }
+
+  public void onPriceUpdate(String symbol, BigDecimal marketPrice) {
+    onPriceUpdate(triggerBooks.getInstrumentRegistry().idOf(symbol), marketPrice);
+  }
+
+  // Next fired order of the symbol to release into its book, or null
+  public Order pollTriggered(int instrumentId) {
+    TriggerBook triggerBook = triggerBooks.get(instrumentId);
+    if (triggerBook == null || !triggerBook.hasTriggered()) {
+      return null;
+    }
+    Order order = triggerBook.pollTriggered();
+    order.setOrderStatus(OrderStatus.PLACED);
+    return order;
+  }
+
+  public Order pollTriggered(String symbol) {
+    return pollTriggered(triggerBooks.getInstrumentRegistry().idOf(symbol));
+  }
+
+  public TriggerBook getTriggerBook(int instrumentId) {
+    return triggerBooks.get(instrumentId);
+  }
+
+  public TriggerBook getTriggerBook(String symbol) {
+    return triggerBooks.get(symbol);
+  }
+
+  public Collection<TriggerBook> getTriggerBooks() {
+    return triggerBooks.valuesSnapshot();
+  }
+
+  // Interned id of the order's symbol, assigned on first use for orders that bypassed the API
+  private int instrumentIdOf(Order order) {
+    int instrumentId = order.getInstrumentId();
+    if (instrumentId == InstrumentRegistry.NO_INSTRUMENT_ID) {
+      instrumentId = triggerBooks.getInstrumentRegistry().register(order.getSymbol());
+      order.setInstrumentId(instrumentId);
+    }
+    return instrumentId;
+  }
+}
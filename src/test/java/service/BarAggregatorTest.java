@@ -0,0 +1,129 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.marketdata.Bar;
+import com.vega.trading.system.marketdata.BarAggregator;
+import com.vega.trading.system.model.CompositeFinancialInstrument;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BarAggregatorTest {
+
+  // 2024-01-02T09:00:00Z, on a 5 minute boundary
+  private static final long START_MILLIS = 1_704_186_000_000L;
+
+  private SimulatedClock clock;
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    clock = new SimulatedClock(START_MILLIS);
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0)
+        .clock(clock)
+        .expiryTimerEnabled(false)
+        .barIntervalsMillis(new long[] {1_000, 60_000, 300_000})
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private void trade(String symbol, String price, int quantity) {
+    tradingSystem.addOrder(new Order(1, OrderType.SELL, new BigDecimal(price), quantity, symbol));
+    tradingSystem.addOrder(new Order(2, OrderType.BUY, new BigDecimal(price), quantity, symbol));
+  }
+
+  @Test
+  void onTrade_BuildsOhlcvAndVwapPerInterval() {
+    trade("AAPL", "100", 4);
+    clock.advance(400);
+    trade("AAPL", "100", 6);
+    trade("AAPL", "102", 5);
+    trade("AAPL", "99", 2);
+    clock.advance(1_100);
+    trade("AAPL", "101", 3);
+
+    BarAggregator barAggregator = tradingSystem.getBarAggregator();
+    List<Bar> seconds = barAggregator.getBars("AAPL", 1_000, 10);
+    Assertions.assertEquals(2, seconds.size());
+    Bar first = seconds.get(0);
+    Assertions.assertEquals(START_MILLIS, first.getStartMillis());
+    Assertions.assertEquals(100, first.getOpen());
+    Assertions.assertEquals(102, first.getHigh());
+    Assertions.assertEquals(99, first.getLow());
+    Assertions.assertEquals(99, first.getClose());
+    Assertions.assertEquals(17, first.getVolume());
+    Assertions.assertEquals(4, first.getTradeCount());
+    Assertions.assertEquals(1_708.0 / 17, first.getVwap(), 1e-9);
+    Assertions.assertEquals(START_MILLIS + 1_000, seconds.get(1).getStartMillis());
+    Assertions.assertEquals(101, seconds.get(1).getOpen());
+
+    Bar minute = barAggregator.getLatestBar("AAPL", 60_000);
+    Assertions.assertEquals(START_MILLIS, minute.getStartMillis());
+    Assertions.assertEquals(100, minute.getOpen());
+    Assertions.assertEquals(101, minute.getClose());
+    Assertions.assertEquals(20, minute.getVolume());
+    Assertions.assertEquals(2_011.0 / 20, minute.getVwap(), 1e-9);
+    Assertions.assertEquals(20, barAggregator.getLatestBar("AAPL", 300_000).getVolume());
+    Assertions.assertNull(barAggregator.getLatestBar("MSFT", 60_000));
+  }
+
+  @Test
+  void onTrade_RollsCompositeUpFromItsLegs() {
+    FinancialInstrument aapl = new FinancialInstrument("AAPL", new BigDecimal("100"));
+    FinancialInstrument msft = new FinancialInstrument("MSFT", new BigDecimal("50"));
+    tradingSystem.financialInstrumentService.getFinancialInstruments().put("AAPL", aapl);
+    tradingSystem.financialInstrumentService.getFinancialInstruments().put("MSFT", msft);
+    tradingSystem.financialInstrumentService.registerCompositeFinancialInstrument(
+        new CompositeFinancialInstrument("BASKET", List.of(aapl, msft)));
+
+    trade("AAPL", "101", 2);
+    trade("MSFT", "49", 3);
+
+    Bar basket = tradingSystem.getBarAggregator().getLatestBar("BASKET", 1_000);
+    Assertions.assertEquals(151, basket.getOpen());
+    Assertions.assertEquals(151, basket.getHigh());
+    Assertions.assertEquals(150, basket.getLow());
+    Assertions.assertEquals(150, basket.getClose());
+    Assertions.assertEquals(5, basket.getVolume());
+    Assertions.assertEquals(752.0 / 5, basket.getVwap(), 1e-9);
+
+    tradingSystem.financialInstrumentService.unregisterCompositeFinancialInstrument("BASKET");
+    Assertions.assertNull(tradingSystem.getBarAggregator().getLatestBar("BASKET", 1_000));
+  }
+
+  @Test
+  void getBars_KeepsOnlyTheLatestHistory() {
+    InstrumentRegistry instrumentRegistry = new InstrumentRegistry();
+    BarAggregator barAggregator = new BarAggregator(instrumentRegistry, new long[] {1_000}, 3,
+        clock);
+    int instrumentId = instrumentRegistry.register("AAPL");
+    for (int i = 0; i < 5; i++) {
+      barAggregator.onTrade(instrumentId, BigDecimal.valueOf(100 + i), 1);
+      clock.advance(1_000);
+    }
+
+    List<Bar> bars = barAggregator.getBars("AAPL", 1_000, 10);
+    Assertions.assertEquals(3, bars.size());
+    Assertions.assertEquals(102, bars.get(0).getOpen());
+    Assertions.assertEquals(104, bars.get(2).getClose());
+    Assertions.assertEquals(104, barAggregator.getBars("AAPL", 1_000, 1).get(0).getOpen());
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+        () -> barAggregator.getLatestBar("AAPL", 60_000));
+    Assertions.assertEquals(ExceptionMessages.UNKNOWN_BAR_INTERVAL + 60_000,
+        exception.getMessage());
+  }
+}
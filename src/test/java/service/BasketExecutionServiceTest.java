@@ -0,0 +1,121 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BasketExecutionServiceTest {
+
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(2).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private static Order basket(Order... legs) {
+    return new Order(UUID.randomUUID(), 7, "BASKET", Arrays.asList(legs));
+  }
+
+  @Test
+  void addOrder_AllLegsFillable_ExecutesEveryLeg() {
+    Order appleSell = new Order(1, OrderType.SELL, new BigDecimal("100.00"), 10, "AAPL");
+    Order microsoftBuy = new Order(2, OrderType.BUY, new BigDecimal("300.00"), 10, "MSFT");
+    tradingSystem.addOrder(appleSell);
+    tradingSystem.addOrder(microsoftBuy);
+    Order appleLeg = new Order(3, OrderType.BUY, new BigDecimal("101.00"), 4, "AAPL");
+    Order microsoftLeg = new Order(3, OrderType.SELL, new BigDecimal("299.00"), 6, "MSFT");
+    Order compositeOrder = basket(appleLeg, microsoftLeg);
+
+    tradingSystem.addOrder(compositeOrder);
+    tradingSystem.flush();
+
+    Assertions.assertEquals(OrderStatus.EXECUTED, compositeOrder.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.EXECUTED, appleLeg.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.EXECUTED, microsoftLeg.getOrderStatus());
+    Assertions.assertEquals(6, appleSell.getQuantity());
+    Assertions.assertEquals(4, microsoftBuy.getQuantity());
+    Assertions.assertSame(compositeOrder,
+        tradingSystem.getOrderBook().get(compositeOrder.getOrderId()));
+  }
+
+  @Test
+  void addOrder_OneLegShort_NoLegTrades() {
+    Order appleSell = new Order(1, OrderType.SELL, new BigDecimal("100.00"), 10, "AAPL");
+    Order microsoftBuy = new Order(2, OrderType.BUY, new BigDecimal("300.00"), 5, "MSFT");
+    tradingSystem.addOrder(appleSell);
+    tradingSystem.addOrder(microsoftBuy);
+    Order compositeOrder = basket(
+        new Order(3, OrderType.BUY, new BigDecimal("101.00"), 4, "AAPL"),
+        new Order(3, OrderType.SELL, new BigDecimal("299.00"), 6, "MSFT"));
+
+    tradingSystem.addOrder(compositeOrder);
+    tradingSystem.flush();
+
+    Assertions.assertEquals(OrderStatus.CANCELLED, compositeOrder.getOrderStatus());
+    Assertions.assertEquals(10, appleSell.getQuantity());
+    Assertions.assertEquals(5, microsoftBuy.getQuantity());
+    Assertions.assertEquals(1, tradingSystem.getLimitOrderBook("AAPL").getOrderCount());
+  }
+
+  @Test
+  void addOrder_LegsSharingABookSide_ReserveLiquidityForEachOther() {
+    tradingSystem.addOrder(new Order(1, OrderType.SELL, new BigDecimal("100.00"), 5, "AAPL"));
+    Order compositeOrder = basket(
+        new Order(3, OrderType.BUY, new BigDecimal("100.00"), 3, "AAPL"),
+        new Order(3, OrderType.BUY, new BigDecimal("100.00"), 3, "AAPL"));
+
+    tradingSystem.addOrder(compositeOrder);
+    tradingSystem.flush();
+
+    Assertions.assertEquals(OrderStatus.CANCELLED, compositeOrder.getOrderStatus());
+    Assertions.assertEquals(5, tradingSystem.getLimitOrderBook("AAPL").peekBestAsk().getQuantity());
+  }
+
+  @Test
+  void addCompositeOrder_FillWindow_ExecutesOnceLiquidityArrives() {
+    Order compositeOrder = basket(
+        new Order(3, OrderType.BUY, new BigDecimal("101.00"), 4, "AAPL"),
+        new Order(3, OrderType.SELL, new BigDecimal("299.00"), 6, "MSFT"));
+
+    Assertions.assertEquals(OrderStatus.PLACED,
+        tradingSystem.addCompositeOrder(compositeOrder, 10_000));
+    tradingSystem.addOrder(new Order(1, OrderType.SELL, new BigDecimal("100.00"), 10, "AAPL"));
+    tradingSystem.addOrder(new Order(2, OrderType.BUY, new BigDecimal("300.00"), 10, "MSFT"));
+
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (compositeOrder.getOrderStatus() == OrderStatus.PLACED && System.nanoTime() < deadline) {
+      LockSupport.parkNanos(1_000_000);
+    }
+    Assertions.assertEquals(OrderStatus.EXECUTED, compositeOrder.getOrderStatus());
+    Assertions.assertEquals(0, tradingSystem.getBasketExecutionService().getPendingCount());
+  }
+
+  @Test
+  void cancelOrder_PendingBasket_IsCancelled() {
+    Order compositeOrder = basket(
+        new Order(3, OrderType.BUY, new BigDecimal("101.00"), 4, "AAPL"));
+    tradingSystem.addCompositeOrder(compositeOrder, 10_000);
+
+    tradingSystem.cancelOrder(compositeOrder.getOrderId());
+
+    Assertions.assertEquals(OrderStatus.CANCELLED, compositeOrder.getOrderStatus());
+    Assertions.assertFalse(tradingSystem.getOrderBook().containsKey(compositeOrder.getOrderId()));
+    Assertions.assertEquals(0, tradingSystem.getBasketExecutionService().getPendingCount());
+  }
+}
@@ -0,0 +1,132 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.model.AuctionResult;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CallAuctionTest {
+
+  private TradingSystem tradingSystem;
+
+  private void start(boolean sweepMatching) {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(1)
+        .sweepMatching(sweepMatching).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private Order add(OrderType orderType, String price, int quantity, String symbol) {
+    Order order = new Order(1, orderType, price == null ? null : new BigDecimal(price), quantity,
+        symbol);
+    tradingSystem.addOrder(order);
+    return order;
+  }
+
+  private static void assertAuction(AuctionResult auctionResult, String price,
+      long matchedQuantity, long imbalance) {
+    Assertions.assertEquals(0, new BigDecimal(price).compareTo(auctionResult.getPrice()));
+    Assertions.assertEquals(matchedQuantity, auctionResult.getMatchedQuantity());
+    Assertions.assertEquals(imbalance, auctionResult.getImbalance());
+  }
+
+  @Test
+  void uncrossAuction_ExecutesMaximumVolumeAtOnePrice() {
+    start(false);
+    tradingSystem.startAuction("AAPL");
+    Order bid102 = add(OrderType.BUY, "102", 5, "AAPL");
+    Order bid101 = add(OrderType.BUY, "101", 10, "AAPL");
+    Order bid100 = add(OrderType.BUY, "100", 10, "AAPL");
+    Order ask99 = add(OrderType.SELL, "99", 8, "AAPL");
+    Order ask100 = add(OrderType.SELL, "100", 10, "AAPL");
+    add(OrderType.SELL, "101", 5, "AAPL");
+    add(OrderType.SELL, "103", 10, "AAPL");
+    tradingSystem.flush();
+
+    // Nothing trades while the auction collects orders
+    LimitOrderBook limitOrderBook = tradingSystem.getLimitOrderBook("AAPL");
+    Assertions.assertSame(bid102, limitOrderBook.peekBestBid());
+    Assertions.assertSame(ask99, limitOrderBook.peekBestAsk());
+    assertAuction(tradingSystem.getIndicativeAuction("AAPL"), "100", 18, 7);
+
+    assertAuction(tradingSystem.uncrossAuction("AAPL"), "100", 18, 7);
+
+    for (Order order : List.of(bid102, bid101, ask99, ask100)) {
+      Assertions.assertEquals(OrderStatus.EXECUTED, order.getOrderStatus());
+    }
+    Assertions.assertEquals(7, bid100.getQuantity());
+    Assertions.assertSame(bid100, limitOrderBook.peekBestBid());
+    Assertions.assertEquals(0, new BigDecimal("100").compareTo(limitOrderBook.getLastTradePrice()));
+
+    // Continuous matching resumes
+    Order sell = add(OrderType.SELL, "100", 2, "AAPL");
+    tradingSystem.flush();
+    Assertions.assertEquals(OrderStatus.EXECUTED, sell.getOrderStatus());
+    Assertions.assertEquals(5, bid100.getQuantity());
+  }
+
+  @Test
+  void uncrossAuction_TiesBrokenOnImbalanceThenReferencePrice() {
+    start(false);
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("IBM", new FinancialInstrument("IBM", new BigDecimal("102")));
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("MSFT", new FinancialInstrument("MSFT", new BigDecimal("102")));
+    tradingSystem.startAuction("IBM");
+    tradingSystem.startAuction("MSFT");
+
+    // 10 trade at 99 and at 101; 99 leaves no imbalance, 101 leaves 3 unsold
+    add(OrderType.BUY, "101", 10, "IBM");
+    add(OrderType.SELL, "99", 10, "IBM");
+    add(OrderType.SELL, "101", 3, "IBM");
+    assertAuction(tradingSystem.uncrossAuction("IBM"), "99", 10, 0);
+
+    // Same volume and imbalance at 99 and 101: the one nearer the reference price of 102 wins
+    add(OrderType.BUY, "101", 10, "MSFT");
+    add(OrderType.SELL, "99", 10, "MSFT");
+    assertAuction(tradingSystem.uncrossAuction("MSFT"), "101", 10, 0);
+
+    // A book that does not cross uncrosses without trading
+    tradingSystem.startAuction("MSFT");
+    add(OrderType.BUY, "100", 1, "MSFT");
+    add(OrderType.SELL, "102", 1, "MSFT");
+    AuctionResult noCross = tradingSystem.uncrossAuction("MSFT");
+    Assertions.assertFalse(noCross.isCrossed());
+    Assertions.assertNull(noCross.getPrice());
+  }
+
+  @Test
+  void uncrossAuction_SweepMode_MarketOrdersTradeAndTheirRemainderIsCancelled() {
+    start(true);
+    tradingSystem.startAuction("AAPL");
+    Order marketBuy = add(OrderType.BUY, null, 10, "AAPL");
+    Order bid99 = add(OrderType.BUY, "99", 1, "AAPL");
+    Order ioc = new Order(1, OrderType.BUY, new BigDecimal("100"), 1, "AAPL");
+    ioc.setTimeInForce(TimeInForce.IOC);
+    tradingSystem.addOrder(ioc);
+    add(OrderType.SELL, "100", 3, "AAPL");
+    add(OrderType.SELL, "101", 4, "AAPL");
+    tradingSystem.flush();
+    Assertions.assertEquals(OrderStatus.CANCELLED, ioc.getOrderStatus());
+
+    assertAuction(tradingSystem.uncrossAuction("AAPL"), "101", 7, 3);
+
+    Assertions.assertEquals(OrderStatus.CANCELLED, marketBuy.getOrderStatus());
+    Assertions.assertEquals(3, marketBuy.getQuantity());
+    Assertions.assertSame(bid99, tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestAsk());
+  }
+}
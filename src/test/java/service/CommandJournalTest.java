@@ -0,0 +1,164 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.FsyncPolicy;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.enumeration.TriggerCondition;
+import com.vega.trading.system.model.AuctionResult;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CommandJournalTest {
+
+  private static TradingSystemConfig journaled(Path directory) {
+    return TradingSystemConfig.builder()
+        .journalDirectory(directory)
+        .fsyncPolicy(FsyncPolicy.EVERY_BATCH)
+        .journalSegmentSize(64 * 1024)
+        .build();
+  }
+
+  @Test
+  void restart_ReplaysJournalIntoBooks(@TempDir Path directory) {
+    TradingSystem tradingSystem = new TradingSystem(journaled(directory));
+    Order restingBuy = new Order(1, OrderType.BUY, BigDecimal.valueOf(99), 10, "AAPL");
+    Order cancelledBuy = new Order(2, OrderType.BUY, BigDecimal.valueOf(98), 5, "AAPL");
+    Order partiallyFilledSell = new Order(3, OrderType.SELL, BigDecimal.valueOf(101), 8, "AAPL");
+    Order crossingBuy = new Order(4, OrderType.BUY, BigDecimal.valueOf(101), 3, "AAPL");
+    tradingSystem.addOrder(restingBuy);
+    tradingSystem.addOrder(cancelledBuy);
+    tradingSystem.addOrder(partiallyFilledSell);
+    tradingSystem.addOrder(crossingBuy);
+    tradingSystem.flush();
+    tradingSystem.cancelOrder(cancelledBuy.getOrderId());
+    tradingSystem.shutdown();
+
+    TradingSystem recovered = new TradingSystem(journaled(directory));
+    LimitOrderBook book = recovered.getLimitOrderBook("AAPL");
+
+    Assertions.assertEquals(2, book.getOrderCount());
+    Assertions.assertEquals(restingBuy.getOrderId(), book.peekBestBid().getOrderId());
+    Order recoveredSell = book.peekBestAsk();
+    Assertions.assertEquals(partiallyFilledSell.getOrderId(), recoveredSell.getOrderId());
+    Assertions.assertEquals(5, recoveredSell.getQuantity());
+    Assertions.assertEquals(OrderStatus.PARTIALLY_EXECUTED, recoveredSell.getOrderStatus());
+    Assertions.assertFalse(recovered.getOrderBook().containsKey(cancelledBuy.getOrderId()));
+
+    // New commands continue the journal after the recovered ones
+    Order laterBuy = new Order(5, OrderType.BUY, BigDecimal.valueOf(97), 1, "AAPL");
+    recovered.addOrder(laterBuy);
+    recovered.shutdown();
+    TradingSystem recoveredTwice = new TradingSystem(journaled(directory));
+    Assertions.assertEquals(3, recoveredTwice.getLimitOrderBook("AAPL").getOrderCount());
+    recoveredTwice.shutdown();
+  }
+
+  @Test
+  void snapshot_RecoversFromSnapshotAndJournalTail(@TempDir Path directory) throws Exception {
+    TradingSystem tradingSystem = new TradingSystem(journaled(directory));
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("MSFT", new FinancialInstrument("MSFT", BigDecimal.valueOf(300)));
+    for (int i = 0; i < 100; i++) {
+      tradingSystem.addOrder(
+          new Order(i, OrderType.SELL, BigDecimal.valueOf(310 + i % 10), 1, "MSFT"));
+    }
+    tradingSystem.addOrder(new Order(100, OrderType.BUY, BigDecimal.valueOf(310), 4, "MSFT"));
+    tradingSystem.flush();
+    long snapshotSequence = tradingSystem.snapshot();
+    Order tailSell = new Order(200, OrderType.SELL, BigDecimal.valueOf(305), 2, "MSFT");
+    tradingSystem.addOrder(tailSell);
+    tradingSystem.shutdown();
+
+    // Segments fully covered by the snapshot have been dropped
+    try (Stream<Path> files = Files.list(directory)) {
+      Assertions.assertEquals(1,
+          files.filter(file -> file.getFileName().toString().startsWith("journal-")).count());
+    }
+    // 101 added orders and 4 trades, numbered from 0
+    Assertions.assertEquals(104, snapshotSequence);
+
+    TradingSystem recovered = new TradingSystem(journaled(directory));
+    LimitOrderBook book = recovered.getLimitOrderBook("MSFT");
+    Assertions.assertEquals(97, book.getOrderCount());
+    Assertions.assertEquals(tailSell.getOrderId(), book.peekBestAsk().getOrderId());
+    Assertions.assertEquals(BigDecimal.valueOf(310),
+        recovered.financialInstrumentService.getFinancialInstruments().get("MSFT")
+            .getMarketPrice());
+    recovered.shutdown();
+  }
+
+  @Test
+  void snapshot_KeepsDormantTriggerOrders(@TempDir Path directory) {
+    TradingSystem tradingSystem = new TradingSystem(journaled(directory));
+    Order stopBuy = new Order(1, OrderType.BUY, BigDecimal.valueOf(106), 1, "AAPL",
+        BigDecimal.valueOf(105), TriggerCondition.AT_OR_ABOVE);
+    tradingSystem.addOrder(stopBuy);
+    tradingSystem.flush();
+    tradingSystem.snapshot();
+    tradingSystem.shutdown();
+
+    TradingSystem recovered = new TradingSystem(journaled(directory));
+    recovered.addOrder(new Order(2, OrderType.SELL, BigDecimal.valueOf(105), 2, "AAPL"));
+    recovered.addOrder(new Order(3, OrderType.BUY, BigDecimal.valueOf(105), 1, "AAPL"));
+    recovered.flush();
+
+    // The recovered trigger fired on the trade at 105 and bought the remaining lot
+    Assertions.assertEquals(OrderStatus.EXECUTED,
+        recovered.getOrderBook().get(stopBuy.getOrderId()).getOrderStatus());
+    Assertions.assertTrue(recovered.getLimitOrderBook("AAPL").isEmpty());
+    recovered.shutdown();
+  }
+
+  @Test
+  void restart_ReplaysCallAuctionPhases(@TempDir Path directory) {
+    TradingSystem tradingSystem = new TradingSystem(journaled(directory));
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("AAPL", new FinancialInstrument("AAPL", new BigDecimal("100.5")));
+    tradingSystem.startAuction("AAPL");
+    Order sell = new Order(1, OrderType.SELL, BigDecimal.valueOf(100), 10, "AAPL");
+    Order iocBuy = new Order(2, OrderType.BUY, BigDecimal.valueOf(100), 4, "AAPL");
+    iocBuy.setTimeInForce(TimeInForce.IOC);
+    tradingSystem.addOrder(sell);
+    tradingSystem.addOrder(iocBuy);
+    tradingSystem.addOrder(new Order(3, OrderType.BUY, BigDecimal.valueOf(101), 6, "AAPL"));
+    tradingSystem.flush();
+    // The IOC order was cancelled on arrival
+    Assertions.assertEquals(10, sell.getQuantity());
+    AuctionResult auctionResult = tradingSystem.uncrossAuction("AAPL");
+    Assertions.assertEquals(6, auctionResult.getMatchedQuantity());
+
+    // A snapshot taken during a second auction keeps the book out of continuous matching
+    tradingSystem.startAuction("AAPL");
+    tradingSystem.addOrder(new Order(4, OrderType.BUY, BigDecimal.valueOf(102), 1, "AAPL"));
+    tradingSystem.flush();
+    tradingSystem.snapshot();
+    tradingSystem.addOrder(new Order(5, OrderType.BUY, BigDecimal.valueOf(103), 1, "AAPL"));
+    tradingSystem.shutdown();
+
+    TradingSystem recovered = new TradingSystem(journaled(directory));
+    LimitOrderBook book = recovered.getLimitOrderBook("AAPL");
+    Assertions.assertTrue(book.isInAuction());
+    Assertions.assertEquals(3, book.getOrderCount());
+    Order recoveredSell = book.peekBestAsk();
+    Assertions.assertEquals(4, recoveredSell.getQuantity());
+    Assertions.assertEquals(OrderStatus.PARTIALLY_EXECUTED, recoveredSell.getOrderStatus());
+    Assertions.assertEquals(0, auctionResult.getPrice().compareTo(
+        recovered.financialInstrumentService.getFinancialInstruments().get("AAPL")
+            .getMarketPrice()));
+
+    Assertions.assertEquals(2, recovered.uncrossAuction("AAPL").getMatchedQuantity());
+    Assertions.assertEquals(2, recoveredSell.getQuantity());
+    recovered.shutdown();
+  }
+}
@@ -1,7 +1,10 @@
 package service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.vega.trading.system.constant.ExceptionMessages;
 import com.vega.trading.system.exception.MaxUnderlyingInstrumentsException;
@@ -9,6 +12,7 @@ import com.vega.trading.system.model.CompositeFinancialInstrument;
 import com.vega.trading.system.model.FinancialInstrument;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
@@ -42,4 +46,22 @@ public class CompositeFinancialInstrumentTest {
 
     assertEquals(ExceptionMessages.MAX_UNDERLYING_INSTRUMENTS_EXCEPTION, exception.getMessage());
   }
+
+  @Test
+  void getMarketPrice_UnderlyingMoved_RecomputesWeightedPrice() {
+    FinancialInstrument stockA = new FinancialInstrument("StockA", BigDecimal.TEN);
+    FinancialInstrument stockB = new FinancialInstrument("StockB", null);
+    CompositeFinancialInstrument compositeInstrument = new CompositeFinancialInstrument("Composite",
+        Arrays.asList(stockA, stockB), Arrays.asList(BigDecimal.valueOf(5), BigDecimal.valueOf(2)));
+    assertNull(compositeInstrument.getMarketPrice());
+
+    stockB.updateMarketPrice(BigDecimal.valueOf(20));
+    assertEquals(1, stockB.getVersion());
+    assertEquals(0, BigDecimal.valueOf(90).compareTo(compositeInstrument.getMarketPrice()));
+
+    stockA.updateMarketPrice(BigDecimal.valueOf(12));
+    assertTrue(compositeInstrument.isStale());
+    assertEquals(0, BigDecimal.valueOf(100).compareTo(compositeInstrument.getMarketPrice()));
+    assertFalse(compositeInstrument.isStale());
+  }
 }
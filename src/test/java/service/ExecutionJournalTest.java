@@ -0,0 +1,114 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.ExecutionEventType;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.journal.BinaryExecutionEventSink;
+import com.vega.trading.system.journal.ExecutionEvent;
+import com.vega.trading.system.journal.ExecutionEventCodec;
+import com.vega.trading.system.journal.ExecutionEventSink;
+import com.vega.trading.system.journal.ExecutionJournal;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ExecutionJournalTest {
+
+  @Test
+  void executeTrade_PublishesTradeAndPriceEvents() {
+    List<ExecutionEvent> events = new CopyOnWriteArrayList<>();
+    ExecutionEventSink recordingSink = event -> events.add(event.copy());
+    TradingSystem tradingSystem = new TradingSystem(
+        TradingSystemConfig.builder().executionEventSink(recordingSink).build());
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("AAPL", new FinancialInstrument("AAPL", BigDecimal.valueOf(90)));
+    Order buyOrder = new Order(1, OrderType.BUY, BigDecimal.valueOf(100), 10, "AAPL");
+    Order sellOrder = new Order(2, OrderType.SELL, BigDecimal.valueOf(100), 4, "AAPL");
+
+    tradingSystem.addOrder(buyOrder);
+    tradingSystem.addOrder(sellOrder);
+    tradingSystem.flush();
+
+    Assertions.assertEquals(2, events.size());
+    ExecutionEvent trade = events.get(0);
+    Assertions.assertEquals(ExecutionEventType.TRADE, trade.getType());
+    Assertions.assertEquals(buyOrder.getOrderId(), trade.getBuyOrderId());
+    Assertions.assertEquals(sellOrder.getOrderId(), trade.getSellOrderId());
+    Assertions.assertEquals(4, trade.getQuantity());
+    Assertions.assertEquals(BigDecimal.valueOf(100), trade.getPrice());
+    Assertions.assertEquals(ExecutionEventType.PRICE_UPDATE, events.get(1).getType());
+    Assertions.assertEquals(1, events.get(1).getSequence());
+    tradingSystem.shutdown();
+  }
+
+  @Test
+  void binarySink_EncodedEventsDecodeBack() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ExecutionJournal journal = new ExecutionJournal(
+        new BinaryExecutionEventSink(Channels.newChannel(output), 4096), 4);
+    UUID buyOrderId = UUID.randomUUID();
+    UUID sellOrderId = UUID.randomUUID();
+    for (int i = 0; i < 10; i++) {
+      journal.publishTrade(buyOrderId, 7, sellOrderId, 8, "MSFT", i + 1, new BigDecimal("310.25"));
+    }
+    journal.publishPriceUpdate(ExecutionEventType.COMPOSITE_PRICE_UPDATE, "TECH", null);
+    journal.close();
+
+    ByteBuffer encoded = ByteBuffer.wrap(output.toByteArray());
+    for (int i = 0; i < 10; i++) {
+      ExecutionEvent trade = ExecutionEventCodec.decode(encoded);
+      Assertions.assertEquals(i, trade.getSequence());
+      Assertions.assertEquals(i + 1, trade.getQuantity());
+      Assertions.assertEquals("MSFT", trade.getSymbol());
+      Assertions.assertEquals(new BigDecimal("310.25"), trade.getPrice());
+      Assertions.assertEquals(buyOrderId, trade.getBuyOrderId());
+      Assertions.assertEquals(8, trade.getSellTraderId());
+    }
+    ExecutionEvent compositeUpdate = ExecutionEventCodec.decode(encoded);
+    Assertions.assertEquals(ExecutionEventType.COMPOSITE_PRICE_UPDATE, compositeUpdate.getType());
+    Assertions.assertNull(compositeUpdate.getPrice());
+    Assertions.assertFalse(encoded.hasRemaining());
+  }
+
+  @Test
+  void binarySink_SequencedOrders_EncodeTheirSequenceIds() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    TradingSystem tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0)
+        .orderPoolCapacity(16)
+        .executionEventSink(new BinaryExecutionEventSink(Channels.newChannel(output), 4096))
+        .build());
+    Order buyOrder = tradingSystem.newOrder(1, OrderType.BUY, BigDecimal.valueOf(100), 10, "AAPL");
+    Order sellOrder = tradingSystem.newOrder(2, OrderType.SELL, BigDecimal.valueOf(100), 4,
+        "AAPL");
+    long buySequenceId = buyOrder.getSequenceId();
+    long sellSequenceId = sellOrder.getSequenceId();
+    tradingSystem.addOrder(buyOrder);
+    tradingSystem.addOrder(sellOrder);
+    tradingSystem.cancelOrder(buySequenceId);
+    tradingSystem.shutdown();
+
+    ByteBuffer encoded = ByteBuffer.wrap(output.toByteArray());
+    ExecutionEvent trade = ExecutionEventCodec.decode(encoded);
+    Assertions.assertEquals(ExecutionEventType.TRADE, trade.getType());
+    Assertions.assertNull(trade.getBuyOrderId());
+    Assertions.assertEquals(buySequenceId, trade.getBuySequenceId());
+    Assertions.assertEquals(sellSequenceId, trade.getSellSequenceId());
+    Assertions.assertEquals(4, trade.getQuantity());
+    ExecutionEvent cancel = ExecutionEventCodec.decode(encoded);
+    Assertions.assertEquals(ExecutionEventType.ORDER_CANCELLED, cancel.getType());
+    Assertions.assertTrue(cancel.isBuyCancel());
+    Assertions.assertEquals(buySequenceId, cancel.getBuySequenceId());
+    Assertions.assertEquals(6, cancel.getQuantity());
+    Assertions.assertFalse(encoded.hasRemaining());
+  }
+}
@@ -0,0 +1,98 @@
+package service;
+
+import com.vega.trading.system.model.CompositeFinancialInstrument;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.service.FinancialInstrumentService;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FinancialInstrumentServiceTest {
+
+  private FinancialInstrumentService financialInstrumentService;
+
+  @BeforeEach
+  void setUp() {
+    financialInstrumentService = new FinancialInstrumentService();
+  }
+
+  @Test
+  void updateCompositeFinancialInstruments_OnlyRepricesCompositesHoldingSymbol() {
+    CompositeFinancialInstrument techBasket = new CompositeFinancialInstrument("TECH",
+        Arrays.asList(new FinancialInstrument("AAPL", BigDecimal.valueOf(100)),
+            new FinancialInstrument("MSFT", BigDecimal.valueOf(200))),
+        Arrays.asList(BigDecimal.valueOf(2), BigDecimal.ONE));
+    CompositeFinancialInstrument energyBasket = new CompositeFinancialInstrument("ENERGY",
+        Arrays.asList(new FinancialInstrument("XOM", BigDecimal.valueOf(50))));
+    financialInstrumentService.registerCompositeFinancialInstrument(techBasket);
+    financialInstrumentService.registerCompositeFinancialInstrument(energyBasket);
+    Assertions.assertEquals(0, BigDecimal.valueOf(400).compareTo(techBasket.getMarketPrice()));
+
+    financialInstrumentService.updateCompositeFinancialInstruments("AAPL", BigDecimal.valueOf(110));
+
+    // (110 - 100) * 2 added on top of the previous basket price
+    Assertions.assertEquals(0, BigDecimal.valueOf(420).compareTo(techBasket.getMarketPrice()));
+    Assertions.assertEquals(0, BigDecimal.valueOf(50).compareTo(energyBasket.getMarketPrice()));
+    Assertions.assertEquals(1, financialInstrumentService.getCompositesContaining("AAPL").size());
+    Assertions.assertTrue(financialInstrumentService.getCompositesContaining("GOOG").isEmpty());
+  }
+
+  @Test
+  void unregisterCompositeFinancialInstrument_StopsRepricing() {
+    CompositeFinancialInstrument techBasket = new CompositeFinancialInstrument("TECH",
+        Arrays.asList(new FinancialInstrument("AAPL", BigDecimal.valueOf(100))));
+    financialInstrumentService.registerCompositeFinancialInstrument(techBasket);
+
+    Assertions.assertSame(techBasket,
+        financialInstrumentService.unregisterCompositeFinancialInstrument("TECH"));
+    financialInstrumentService.updateCompositeFinancialInstruments("AAPL", BigDecimal.valueOf(120));
+
+    Assertions.assertEquals(0, BigDecimal.valueOf(100).compareTo(techBasket.getMarketPrice()));
+    Assertions.assertTrue(financialInstrumentService.getCompositesContaining("AAPL").isEmpty());
+    Assertions.assertTrue(financialInstrumentService.getCompositeFinancialInstruments().isEmpty());
+  }
+
+  @Test
+  void updateCompositeFinancialInstruments_RepricesCompositesSharingAnInstrument() {
+    FinancialInstrument apple = new FinancialInstrument("AAPL", BigDecimal.valueOf(100));
+    financialInstrumentService.getFinancialInstruments().put("AAPL", apple);
+    CompositeFinancialInstrument first = new CompositeFinancialInstrument("FIRST",
+        Arrays.asList(apple, new FinancialInstrument("MSFT", BigDecimal.valueOf(200))));
+    CompositeFinancialInstrument second = new CompositeFinancialInstrument("SECOND",
+        Arrays.asList(apple));
+    financialInstrumentService.registerCompositeFinancialInstrument(first);
+    financialInstrumentService.registerCompositeFinancialInstrument(second);
+
+    // Same order as a trade: the shared instrument moves before the composites are repriced
+    financialInstrumentService.updateFinancialInstruments("AAPL", BigDecimal.valueOf(130));
+    financialInstrumentService.updateCompositeFinancialInstruments("AAPL", BigDecimal.valueOf(130));
+
+    Assertions.assertEquals(0, BigDecimal.valueOf(330).compareTo(first.getMarketPrice()));
+    Assertions.assertEquals(0, BigDecimal.valueOf(130).compareTo(second.getMarketPrice()));
+  }
+
+  @Test
+  void updateCompositeFinancialInstruments_LazyPricing_RepricesOnRead() {
+    financialInstrumentService.setLazyCompositePricing(true);
+    FinancialInstrument apple = new FinancialInstrument("AAPL", BigDecimal.valueOf(100));
+    CompositeFinancialInstrument first = new CompositeFinancialInstrument("FIRST",
+        Arrays.asList(apple, new FinancialInstrument("MSFT", BigDecimal.valueOf(200))),
+        Arrays.asList(BigDecimal.valueOf(3), BigDecimal.ONE));
+    CompositeFinancialInstrument second = new CompositeFinancialInstrument("SECOND",
+        Arrays.asList(apple, new FinancialInstrument("AAPL", BigDecimal.valueOf(100))));
+    financialInstrumentService.registerCompositeFinancialInstrument(first);
+    financialInstrumentService.registerCompositeFinancialInstrument(second);
+
+    financialInstrumentService.updateCompositeFinancialInstruments("AAPL", BigDecimal.valueOf(110));
+
+    // Only the instruments moved, the baskets are repriced when read
+    Assertions.assertEquals(0, BigDecimal.valueOf(110).compareTo(apple.getMarketPrice()));
+    Assertions.assertTrue(first.isStale());
+    Assertions.assertEquals(0, BigDecimal.valueOf(530).compareTo(first.getMarketPrice()));
+    Assertions.assertFalse(first.isStale());
+    // Both AAPL legs of the second basket are distinct instruments and both moved
+    Assertions.assertEquals(0, BigDecimal.valueOf(220).compareTo(second.getMarketPrice()));
+  }
+}
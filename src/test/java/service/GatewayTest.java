@@ -0,0 +1,329 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.ExecutionType;
+import com.vega.trading.system.enumeration.GatewayMode;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.gateway.GatewayProtocol;
+import com.vega.trading.system.gateway.OrderGateway;
+import com.vega.trading.system.harness.GatewayLatencyHarness;
+import com.vega.trading.system.harness.GatewayLatencyReport;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class GatewayTest {
+
+  private TradingSystem tradingSystem;
+  private OrderGateway gateway;
+  private InetSocketAddress address;
+  private final List<Socket> sockets = new ArrayList<>();
+
+  private void start(GatewayMode mode) throws IOException {
+    gateway = new OrderGateway(mode);
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(1)
+        .executionEventSink(gateway).build());
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("AAPL", new FinancialInstrument("AAPL", new BigDecimal("100")));
+    address = gateway.start(tradingSystem,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+    if (gateway != null) {
+      gateway.stop();
+      tradingSystem.shutdown();
+    }
+  }
+
+  private Socket connect() throws IOException {
+    Socket socket = new Socket(address.getAddress(), address.getPort());
+    socket.setSoTimeout(5000);
+    socket.setTcpNoDelay(true);
+    sockets.add(socket);
+    return socket;
+  }
+
+  private static void send(Socket socket, ByteBuffer request) throws IOException {
+    socket.getOutputStream().write(request.array(), 0, request.position());
+  }
+
+  private static void newOrder(Socket socket, long clientOrderId, OrderType side, String symbol,
+      String price, int quantity) throws IOException {
+    ByteBuffer request = ByteBuffer.allocate(GatewayProtocol.NEW_ORDER_LENGTH);
+    GatewayProtocol.putNewOrder(request, clientOrderId, 7, side, TimeInForce.GTC, symbol,
+        GatewayProtocol.toPrice(new BigDecimal(price)), quantity, 0);
+    send(socket, request);
+  }
+
+  private static void cancel(Socket socket, long clientOrderId) throws IOException {
+    ByteBuffer request = ByteBuffer.allocate(GatewayProtocol.CANCEL_LENGTH);
+    GatewayProtocol.putCancel(request, clientOrderId);
+    send(socket, request);
+  }
+
+  private static void amend(Socket socket, long originalClientOrderId, long clientOrderId,
+      String price, int quantity) throws IOException {
+    ByteBuffer request = ByteBuffer.allocate(GatewayProtocol.AMEND_LENGTH);
+    GatewayProtocol.putAmend(request, originalClientOrderId, clientOrderId,
+        GatewayProtocol.toPrice(new BigDecimal(price)), quantity);
+    send(socket, request);
+  }
+
+  private static ByteBuffer readReport(Socket socket) throws IOException {
+    byte[] report = new byte[GatewayProtocol.EXECUTION_REPORT_LENGTH];
+    new DataInputStream(socket.getInputStream()).readFully(report);
+    Assertions.assertEquals(GatewayProtocol.EXECUTION_REPORT, report[0]);
+    return ByteBuffer.wrap(report);
+  }
+
+  private static void assertReport(ByteBuffer report, long clientOrderId,
+      ExecutionType executionType, int lastQuantity, int leavesQuantity) {
+    Assertions.assertEquals(clientOrderId, GatewayProtocol.reportClientOrderId(report, 0));
+    Assertions.assertEquals(executionType, GatewayProtocol.reportExecutionType(report, 0));
+    Assertions.assertEquals(lastQuantity, GatewayProtocol.reportLastQuantity(report, 0));
+    Assertions.assertEquals(leavesQuantity, GatewayProtocol.reportLeavesQuantity(report, 0));
+  }
+
+  private static void assertRejected(ByteBuffer report, long clientOrderId, byte reason) {
+    assertReport(report, clientOrderId, ExecutionType.REJECTED, 0, 0);
+    Assertions.assertEquals(reason, GatewayProtocol.reportReason(report, 0));
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void newOrder_CrossingOrders_ReportsFillsToBothSessions(GatewayMode mode) throws IOException {
+    start(mode);
+    Socket seller = connect();
+    Socket buyer = connect();
+
+    newOrder(seller, 1, OrderType.SELL, "AAPL", "100.25", 10);
+    assertReport(readReport(seller), 1, ExecutionType.NEW, 0, 10);
+    newOrder(buyer, 1, OrderType.BUY, "AAPL", "101", 4);
+    assertReport(readReport(buyer), 1, ExecutionType.NEW, 0, 4);
+    ByteBuffer buyerFill = readReport(buyer);
+    assertReport(buyerFill, 1, ExecutionType.TRADE, 4, 0);
+    Assertions.assertEquals(1002500, GatewayProtocol.reportLastPrice(buyerFill, 0));
+    assertReport(readReport(seller), 1, ExecutionType.TRADE, 4, 6);
+
+    cancel(seller, 1);
+    assertReport(readReport(seller), 1, ExecutionType.CANCELLED, 0, 0);
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestAsk());
+    // The filled order is gone from the session as well
+    cancel(buyer, 1);
+    assertRejected(readReport(buyer), 1, GatewayProtocol.REASON_UNKNOWN_ORDER);
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void amend_ReplacesOrderWithNewPriceAndQuantity(GatewayMode mode) throws IOException {
+    start(mode);
+    Socket socket = connect();
+    newOrder(socket, 1, OrderType.BUY, "AAPL", "99", 5);
+    assertReport(readReport(socket), 1, ExecutionType.NEW, 0, 5);
+
+    amend(socket, 1, 2, "98", 3);
+    // The cancel comes back through the journal, so it may follow the new acknowledgement
+    List<Long> reported = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      ByteBuffer report = readReport(socket);
+      long clientOrderId = GatewayProtocol.reportClientOrderId(report, 0);
+      assertReport(report, clientOrderId,
+          clientOrderId == 1 ? ExecutionType.CANCELLED : ExecutionType.NEW, 0,
+          clientOrderId == 1 ? 0 : 3);
+      reported.add(clientOrderId);
+    }
+    Assertions.assertTrue(reported.containsAll(List.of(1L, 2L)));
+    tradingSystem.flush();
+    Order bestBid = tradingSystem.getLimitOrderBook("AAPL").peekBestBid();
+    Assertions.assertEquals(0, new BigDecimal("98").compareTo(bestBid.getPrice()));
+    Assertions.assertEquals(3, bestBid.getQuantity());
+
+    cancel(socket, 2);
+    assertReport(readReport(socket), 2, ExecutionType.CANCELLED, 0, 0);
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void amend_RejectedReplacement_KeepsOriginalWorking(GatewayMode mode) throws IOException {
+    start(mode);
+    Socket socket = connect();
+    newOrder(socket, 1, OrderType.BUY, "AAPL", "99", 5);
+    assertReport(readReport(socket), 1, ExecutionType.NEW, 0, 5);
+    newOrder(socket, 2, OrderType.BUY, "AAPL", "97", 5);
+    assertReport(readReport(socket), 2, ExecutionType.NEW, 0, 5);
+
+    // Reusing the original's own id or another live order's id rejects the amend only
+    for (long clientOrderId : new long[] {1, 2}) {
+      amend(socket, 1, clientOrderId, "98", 3);
+      assertRejected(readReport(socket), clientOrderId,
+          GatewayProtocol.REASON_DUPLICATE_CLIENT_ORDER_ID);
+    }
+    amend(socket, 1, 3, "-1", 3);
+    assertRejected(readReport(socket), 3, GatewayProtocol.REASON_INVALID_MESSAGE);
+    tradingSystem.flush();
+    Order bestBid = tradingSystem.getLimitOrderBook("AAPL").peekBestBid();
+    Assertions.assertEquals(0, new BigDecimal("99").compareTo(bestBid.getPrice()));
+    Assertions.assertEquals(5, bestBid.getQuantity());
+
+    cancel(socket, 1);
+    assertReport(readReport(socket), 1, ExecutionType.CANCELLED, 0, 0);
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void amend_PartiallyFilledOrder_ReplacesOnlyWhatIsLeft(GatewayMode mode) throws IOException {
+    start(mode);
+    Socket buyer = connect();
+    Socket seller = connect();
+    newOrder(buyer, 1, OrderType.BUY, "AAPL", "99", 10);
+    assertReport(readReport(buyer), 1, ExecutionType.NEW, 0, 10);
+    newOrder(seller, 1, OrderType.SELL, "AAPL", "99", 4);
+    assertReport(readReport(seller), 1, ExecutionType.NEW, 0, 4);
+    assertReport(readReport(seller), 1, ExecutionType.TRADE, 4, 0);
+    assertReport(readReport(buyer), 1, ExecutionType.TRADE, 4, 6);
+
+    // An amended total of 8 with 4 executed leaves 4 to work
+    amend(buyer, 1, 2, "98", 8);
+    List<Long> reported = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      ByteBuffer report = readReport(buyer);
+      long clientOrderId = GatewayProtocol.reportClientOrderId(report, 0);
+      assertReport(report, clientOrderId,
+          clientOrderId == 1 ? ExecutionType.CANCELLED : ExecutionType.NEW, 0,
+          clientOrderId == 1 ? 0 : 4);
+      reported.add(clientOrderId);
+    }
+    Assertions.assertTrue(reported.containsAll(List.of(1L, 2L)));
+    tradingSystem.flush();
+    Assertions.assertEquals(4, tradingSystem.getLimitOrderBook("AAPL").peekBestBid().getQuantity());
+
+    // A total the chain has already executed is too late: the replacement is cancelled, not
+    // replaced
+    amend(buyer, 2, 3, "98", 4);
+    reported.clear();
+    for (int i = 0; i < 2; i++) {
+      ByteBuffer report = readReport(buyer);
+      long clientOrderId = GatewayProtocol.reportClientOrderId(report, 0);
+      if (clientOrderId == 2) {
+        assertReport(report, 2, ExecutionType.CANCELLED, 0, 0);
+      } else {
+        assertRejected(report, 3, GatewayProtocol.REASON_TOO_LATE);
+      }
+      reported.add(clientOrderId);
+    }
+    Assertions.assertTrue(reported.containsAll(List.of(2L, 3L)));
+    tradingSystem.flush();
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+
+    // So is an amend of a filled order, unless the session has already forgotten it
+    newOrder(buyer, 4, OrderType.BUY, "AAPL", "99", 2);
+    assertReport(readReport(buyer), 4, ExecutionType.NEW, 0, 2);
+    newOrder(seller, 2, OrderType.SELL, "AAPL", "99", 2);
+    assertReport(readReport(seller), 2, ExecutionType.NEW, 0, 2);
+    assertReport(readReport(buyer), 4, ExecutionType.TRADE, 2, 0);
+    amend(buyer, 4, 5, "99", 5);
+    ByteBuffer report = readReport(buyer);
+    assertReport(report, 5, ExecutionType.REJECTED, 0, 0);
+    byte reason = GatewayProtocol.reportReason(report, 0);
+    Assertions.assertTrue(reason == GatewayProtocol.REASON_TOO_LATE
+        || reason == GatewayProtocol.REASON_UNKNOWN_ORDER);
+    tradingSystem.flush();
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void invalidRequests_AreRejected(GatewayMode mode) throws IOException {
+    start(mode);
+    Socket socket = connect();
+    newOrder(socket, 1, OrderType.BUY, "", "99", 5);
+    assertRejected(readReport(socket), 1, GatewayProtocol.REASON_ORDER_REJECTED);
+    newOrder(socket, 2, OrderType.BUY, "AAPL", "99", 0);
+    assertRejected(readReport(socket), 2, GatewayProtocol.REASON_INVALID_MESSAGE);
+    newOrder(socket, 3, OrderType.BUY, "AAPL", "99", 5);
+    assertReport(readReport(socket), 3, ExecutionType.NEW, 0, 5);
+    newOrder(socket, 3, OrderType.BUY, "AAPL", "98", 5);
+    assertRejected(readReport(socket), 3, GatewayProtocol.REASON_DUPLICATE_CLIENT_ORDER_ID);
+
+    // An unknown message type cannot be framed, so the session is closed after the reject
+    socket.getOutputStream().write('X');
+    assertRejected(readReport(socket), 0, GatewayProtocol.REASON_INVALID_MESSAGE);
+    Assertions.assertEquals(-1, socket.getInputStream().read());
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void clientNotReading_IsClosedWithoutHoldingUpOtherSessions(GatewayMode mode)
+      throws Exception {
+    start(mode);
+    Socket slow = new Socket();
+    slow.setReceiveBufferSize(1024);
+    slow.connect(address);
+    sockets.add(slow);
+    Socket fast = connect();
+    newOrder(fast, 1, OrderType.SELL, "AAPL", "100", 2);
+    assertReport(readReport(fast), 1, ExecutionType.NEW, 0, 2);
+
+    // Unfilled IOC orders are acknowledged and cancelled: two reports each, never read
+    ByteBuffer requests = ByteBuffer.allocate(1000 * GatewayProtocol.NEW_ORDER_LENGTH);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    long clientOrderId = 0;
+    try {
+      while (gateway.getSessionCount() == 2 && System.nanoTime() < deadline) {
+        requests.clear();
+        while (requests.hasRemaining()) {
+          GatewayProtocol.putNewOrder(requests, ++clientOrderId, 7, OrderType.BUY,
+              TimeInForce.IOC, "AAPL", GatewayProtocol.toPrice(BigDecimal.ONE), 1, 0);
+        }
+        send(slow, requests);
+      }
+    } catch (IOException e) {
+      // Closed by the gateway
+    }
+    while (gateway.getSessionCount() == 2 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    Assertions.assertEquals(1, gateway.getSessionCount());
+
+    // The buy's acknowledgement and the two fills, the sell's fill possibly first
+    newOrder(fast, 2, OrderType.BUY, "AAPL", "100", 2);
+    List<String> reports = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      ByteBuffer report = readReport(fast);
+      reports.add(GatewayProtocol.reportClientOrderId(report, 0) + " "
+          + GatewayProtocol.reportExecutionType(report, 0));
+    }
+    Assertions.assertTrue(reports.containsAll(List.of("2 NEW", "1 TRADE", "2 TRADE")));
+  }
+
+  @ParameterizedTest
+  @EnumSource(GatewayMode.class)
+  void latencyHarness_MeasuresEveryRoundTripAfterWarmup(GatewayMode mode) throws Exception {
+    GatewayLatencyReport report = new GatewayLatencyHarness(mode, 2, 200, 1).run();
+
+    Assertions.assertEquals(400, report.getRoundTrips());
+    Assertions.assertEquals(360, report.getNewOrderLatency().getCount());
+    Assertions.assertEquals(360, report.getCancelLatency().getCount());
+    Assertions.assertTrue(report.getCancelLatency().getP50Nanos() > 0);
+  }
+}
@@ -0,0 +1,94 @@
+package service;
+
+import com.sun.management.ThreadMXBean;
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LowGarbageModeTest {
+
+  private static final BigDecimal PRICE = new BigDecimal("100.00");
+
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0)
+        .orderPoolCapacity(64)
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  // One resting buy, partially filled by a sell, then cancelled
+  private void addMatchCancel() {
+    Order buyOrder = tradingSystem.newOrder(1, OrderType.BUY, PRICE, 10, "AAPL");
+    tradingSystem.addOrder(buyOrder);
+    tradingSystem.addOrder(tradingSystem.newOrder(2, OrderType.SELL, PRICE, 4, "AAPL"));
+    tradingSystem.cancelOrder(buyOrder.getSequenceId());
+  }
+
+  @Test
+  void newOrder_ExecutedAndCancelledOrders_ReturnToThePool() {
+    Order buyOrder = tradingSystem.newOrder(1, OrderType.BUY, PRICE, 10, "AAPL");
+    Order sellOrder = tradingSystem.newOrder(2, OrderType.SELL, PRICE, 4, "AAPL");
+    Assertions.assertTrue(sellOrder.getSequenceId() > buyOrder.getSequenceId());
+    tradingSystem.addOrder(buyOrder);
+    tradingSystem.addOrder(sellOrder);
+
+    Assertions.assertEquals(OrderStatus.EXECUTED, sellOrder.getOrderStatus());
+    Assertions.assertNull(tradingSystem.getOrder(sellOrder.getSequenceId()));
+    Assertions.assertSame(buyOrder, tradingSystem.getOrder(buyOrder.getSequenceId()));
+    Assertions.assertEquals(63, tradingSystem.getOrderPool().getAvailable());
+
+    tradingSystem.cancelOrder(buyOrder.getSequenceId());
+
+    Assertions.assertEquals(OrderStatus.CANCELLED, buyOrder.getOrderStatus());
+    Assertions.assertEquals(64, tradingSystem.getOrderPool().getAvailable());
+    Assertions.assertTrue(tradingSystem.getLimitOrderBook("AAPL").isEmpty());
+  }
+
+  @Test
+  void newOrder_PoolExhausted_FallsBackToUnpooledOrders() {
+    for (int i = 0; i < 65; i++) {
+      tradingSystem.addOrder(tradingSystem.newOrder(1, OrderType.BUY, PRICE, 1, "AAPL"));
+    }
+
+    Assertions.assertEquals(1, tradingSystem.getOrderPool().getMisses());
+    Assertions.assertEquals(65, tradingSystem.getLimitOrderBook("AAPL").getOrderCount());
+  }
+
+  @Test
+  void addOrder_SteadyStateAddMatchCancel_AllocatesNothing() {
+    ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    for (int i = 0; i < 50_000; i++) {
+      addMatchCancel();
+    }
+
+    int iterations = 10_000;
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      addMatchCancel();
+    }
+    long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    // Tolerates the few bytes of the measurement itself, not a single object per iteration
+    Assertions.assertTrue(allocatedBytes < iterations,
+        "Allocated " + allocatedBytes + " bytes over " + iterations + " iterations");
+    Assertions.assertEquals(64, tradingSystem.getOrderPool().getAvailable());
+    Assertions.assertEquals(0, tradingSystem.getOrderPool().getMisses());
+  }
+}
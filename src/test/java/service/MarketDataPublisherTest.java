@@ -0,0 +1,131 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.marketdata.BestBidOffer;
+import com.vega.trading.system.marketdata.MarketDataListener;
+import com.vega.trading.system.marketdata.MarketDataSubscription;
+import com.vega.trading.system.marketdata.TradePrint;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MarketDataPublisherTest {
+
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(1).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      LockSupport.parkNanos(1_000_000);
+    }
+    Assertions.assertTrue(condition.getAsBoolean());
+  }
+
+  @Test
+  void subscribe_TradeAndBookChanges_AreDeliveredForSubscribedSymbolsOnly() {
+    List<TradePrint> trades = new CopyOnWriteArrayList<>();
+    List<BestBidOffer> quotes = new CopyOnWriteArrayList<>();
+    MarketDataSubscription subscription = tradingSystem.getMarketDataPublisher().subscribe(
+        Collections.singleton("AAPL"), new MarketDataListener() {
+          @Override
+          public void onTrade(TradePrint tradePrint) {
+            trades.add(tradePrint);
+          }
+
+          @Override
+          public void onBestBidOffer(BestBidOffer bestBidOffer) {
+            quotes.add(bestBidOffer);
+          }
+        }, 16);
+
+    tradingSystem.addOrder(new Order(1, OrderType.SELL, new BigDecimal("101.00"), 10, "AAPL"));
+    tradingSystem.addOrder(new Order(2, OrderType.BUY, new BigDecimal("101.00"), 4, "AAPL"));
+    tradingSystem.addOrder(new Order(3, OrderType.BUY, new BigDecimal("50.00"), 4, "MSFT"));
+    tradingSystem.flush();
+
+    awaitTrue(() -> trades.size() == 1 && subscription.getQueuedTrades() == 0);
+    Assertions.assertEquals(new BigDecimal("101.00"), trades.get(0).getPrice());
+    Assertions.assertEquals(4, trades.get(0).getQuantity());
+    awaitTrue(() -> !quotes.isEmpty()
+        && quotes.get(quotes.size() - 1).getAskQuantity() == 6);
+    BestBidOffer lastQuote = quotes.get(quotes.size() - 1);
+    Assertions.assertEquals("AAPL", lastQuote.getSymbol());
+    Assertions.assertNull(lastQuote.getBidPrice());
+    Assertions.assertEquals(new BigDecimal("101.00"), lastQuote.getAskPrice());
+    Assertions.assertTrue(quotes.stream().allMatch(quote -> "AAPL".equals(quote.getSymbol())));
+    Assertions.assertEquals(0, subscription.getDroppedTrades());
+  }
+
+  @Test
+  void subscribe_BlockedSubscriber_DropsTradesAndConflatesQuotesWithoutStallingMatching()
+      throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    List<BestBidOffer> quotes = new CopyOnWriteArrayList<>();
+    MarketDataSubscription subscription = tradingSystem.getMarketDataPublisher().subscribe(null,
+        new MarketDataListener() {
+          @Override
+          public void onTrade(TradePrint tradePrint) {
+            awaitRelease(release);
+          }
+
+          @Override
+          public void onBestBidOffer(BestBidOffer bestBidOffer) {
+            awaitRelease(release);
+            quotes.add(bestBidOffer);
+          }
+        }, 2);
+
+    tradingSystem.addOrder(new Order(1, OrderType.SELL, new BigDecimal("100.00"), 1000, "AAPL"));
+    for (int i = 0; i < 50; i++) {
+      tradingSystem.addOrder(new Order(2, OrderType.BUY, new BigDecimal("100.00"), 1, "AAPL"));
+    }
+    // Matching completes while the subscriber is still stuck on its first message
+    Assertions.assertTrue(runWithin(() -> tradingSystem.flush()));
+    Assertions.assertTrue(subscription.getDroppedTrades() > 0);
+    Assertions.assertTrue(subscription.getConflatedQuotes() > 0);
+
+    release.countDown();
+    awaitTrue(() -> !quotes.isEmpty()
+        && quotes.get(quotes.size() - 1).getAskQuantity() == 950);
+    Assertions.assertEquals(50, subscription.getDeliveredTrades() + subscription.getDroppedTrades()
+        + subscription.getQueuedTrades());
+    Assertions.assertTrue(subscription.getMaxDeliveryLagNanos() > 0);
+  }
+
+  private static void awaitRelease(CountDownLatch release) {
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean runWithin(Runnable task) throws InterruptedException {
+    Thread thread = new Thread(task);
+    thread.start();
+    thread.join(TimeUnit.SECONDS.toMillis(5));
+    return !thread.isAlive();
+  }
+}
@@ -0,0 +1,138 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TriggerCondition;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MassCancelTest {
+
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(2).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private Order rest(int traderId, OrderType orderType, String price, String symbol) {
+    Order order = new Order(traderId, orderType, new BigDecimal(price), 1, symbol);
+    tradingSystem.addOrder(order);
+    return order;
+  }
+
+  @Test
+  void cancelTraderOrders_CancelsOnlyThatTradersOrdersInEveryBook() {
+    Order aaplBuy = rest(7, OrderType.BUY, "99", "AAPL");
+    Order aaplSell = rest(7, OrderType.SELL, "101", "AAPL");
+    Order msftBuy = rest(7, OrderType.BUY, "49", "MSFT");
+    Order otherTrader = rest(8, OrderType.BUY, "98", "AAPL");
+    Order stopSell = new Order(7, OrderType.SELL, new BigDecimal("94"), 1, "AAPL",
+        new BigDecimal("95"), TriggerCondition.AT_OR_BELOW);
+    tradingSystem.addOrder(stopSell);
+    tradingSystem.flush();
+
+    List<Order> cancelled = tradingSystem.cancelTraderOrders(7);
+
+    Assertions.assertEquals(4, cancelled.size());
+    for (Order order : List.of(aaplBuy, aaplSell, msftBuy, stopSell)) {
+      Assertions.assertEquals(OrderStatus.CANCELLED, order.getOrderStatus());
+      Assertions.assertFalse(tradingSystem.getOrderBook().containsKey(order.getOrderId()));
+    }
+    Assertions.assertEquals(OrderStatus.PLACED, otherTrader.getOrderStatus());
+    Assertions.assertSame(otherTrader,
+        tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+    Assertions.assertTrue(tradingSystem.cancelTraderOrders(7).isEmpty());
+  }
+
+  @Test
+  void cancelTraderOrders_WithSymbol_LeavesOtherBooksAlone() {
+    Order aaplBuy = rest(7, OrderType.BUY, "99", "AAPL");
+    Order msftBuy = rest(7, OrderType.BUY, "49", "MSFT");
+    tradingSystem.flush();
+
+    List<Order> cancelled = tradingSystem.cancelTraderOrders(7, "AAPL");
+
+    Assertions.assertEquals(List.of(aaplBuy), cancelled);
+    Assertions.assertEquals(OrderStatus.PLACED, msftBuy.getOrderStatus());
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+  }
+
+  @Test
+  void cancelTraderOrders_AfterCancel_FindsNewOrdersOfTheTraderAgain() {
+    Order stopBuy = new Order(7, OrderType.BUY, new BigDecimal("106"), 1, "AAPL",
+        new BigDecimal("105"), TriggerCondition.AT_OR_ABOVE);
+    tradingSystem.addOrder(stopBuy);
+    Order otherStop = new Order(8, OrderType.BUY, new BigDecimal("107"), 1, "AAPL",
+        new BigDecimal("105"), TriggerCondition.AT_OR_ABOVE);
+    tradingSystem.addOrder(otherStop);
+    tradingSystem.flush();
+
+    Assertions.assertEquals(List.of(stopBuy), tradingSystem.cancelTraderOrders(7));
+    Assertions.assertEquals(OrderStatus.TRIGGER_PENDING, otherStop.getOrderStatus());
+
+    Order msftBuy = rest(7, OrderType.BUY, "49", "MSFT");
+    tradingSystem.flush();
+
+    Assertions.assertEquals(List.of(msftBuy), tradingSystem.cancelTraderOrders(7));
+    Assertions.assertTrue(tradingSystem.cancelTraderOrders(7).isEmpty());
+  }
+
+  @Test
+  void cancelTraderOrders_SequencedOrders_AreReturnedAsUnpooledCopies() {
+    tradingSystem.shutdown();
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(2)
+        .orderPoolCapacity(4)
+        .build());
+    Order pooled = tradingSystem.newOrder(7, OrderType.BUY, new BigDecimal("99"), 3, "AAPL");
+    long sequenceId = pooled.getSequenceId();
+    tradingSystem.addOrder(pooled);
+    tradingSystem.flush();
+
+    List<Order> cancelled = tradingSystem.cancelTraderOrders(7);
+
+    Assertions.assertEquals(1, cancelled.size());
+    Order copy = cancelled.get(0);
+    Assertions.assertNotSame(pooled, copy);
+    Assertions.assertEquals(-1, copy.getPoolIndex());
+    Assertions.assertEquals(sequenceId, copy.getSequenceId());
+    Assertions.assertEquals(OrderStatus.CANCELLED, copy.getOrderStatus());
+    Assertions.assertEquals(3, copy.getQuantity());
+    // The original is reused by the pool while the copy keeps what was cancelled
+    tradingSystem.newOrder(9, OrderType.SELL, new BigDecimal("101"), 1, "MSFT");
+    Assertions.assertEquals(7, copy.getTraderId());
+    Assertions.assertEquals("AAPL", copy.getSymbol());
+  }
+
+  @Test
+  void cancelSymbolOrders_EmptiesBookAndTriggerBook() {
+    rest(7, OrderType.BUY, "99", "AAPL");
+    rest(8, OrderType.SELL, "101", "AAPL");
+    Order msftBuy = rest(7, OrderType.BUY, "49", "MSFT");
+    tradingSystem.addOrder(new Order(9, OrderType.BUY, new BigDecimal("106"), 1, "AAPL",
+        new BigDecimal("105"), TriggerCondition.AT_OR_ABOVE));
+    tradingSystem.flush();
+
+    List<Order> cancelled = tradingSystem.cancelSymbolOrders("AAPL");
+
+    Assertions.assertEquals(3, cancelled.size());
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestAsk());
+    Assertions.assertEquals(0,
+        tradingSystem.getTriggerOrderService().getTriggerBook("AAPL").getPendingCount());
+    Assertions.assertEquals(OrderStatus.PLACED, msftBuy.getOrderStatus());
+  }
+}
@@ -0,0 +1,112 @@
+package service;
+
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.InstrumentIndex;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.PriceLevel;
+import com.vega.trading.system.model.UuidOrderIndex;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OrderIndexTest {
+
+  private static Order order(UUID orderId) {
+    return new Order(orderId, 1, OrderType.BUY, new BigDecimal("100.00"), 1, "AAPL");
+  }
+
+  @Test
+  void instrumentIndex_SymbolViewAndIdSlots_Agree() {
+    InstrumentRegistry instrumentRegistry = new InstrumentRegistry();
+    InstrumentIndex<String> index = new InstrumentIndex<>(instrumentRegistry);
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals(i, instrumentRegistry.register("SYM" + i));
+    }
+    Assertions.assertEquals(42, instrumentRegistry.register("SYM42"));
+    Assertions.assertEquals(InstrumentRegistry.NO_INSTRUMENT_ID, instrumentRegistry.idOf("NONE"));
+
+    index.put("SYM70", "seventy");
+    index.put(3, "three");
+    Assertions.assertEquals("seventy", index.get(70));
+    Assertions.assertEquals("three", index.get("SYM3"));
+    Assertions.assertNull(index.get(200));
+    Assertions.assertEquals(Map.of("SYM3", "three", "SYM70", "seventy"), new HashMap<>(index));
+
+    Assertions.assertEquals("three", index.remove("SYM3"));
+    Assertions.assertEquals(1, index.size());
+    Assertions.assertEquals(List.of("seventy"), index.valuesSnapshot());
+  }
+
+  @Test
+  void uuidOrderIndex_RandomChurn_MatchesHashMap() {
+    UuidOrderIndex index = new UuidOrderIndex(16);
+    Map<UUID, Order> expected = new HashMap<>();
+    List<UUID> orderIds = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      if (orderIds.isEmpty() || random.nextInt(3) > 0) {
+        // Sequential halves collide on purpose in the low bits
+        UUID orderId = new UUID(i, random.nextInt(64));
+        Order order = order(orderId);
+        Assertions.assertEquals(expected.putIfAbsent(orderId, order), index.putIfAbsent(orderId,
+            order));
+        orderIds.add(orderId);
+      } else {
+        UUID orderId = orderIds.remove(random.nextInt(orderIds.size()));
+        Assertions.assertSame(expected.remove(orderId), index.remove(orderId));
+      }
+    }
+
+    Assertions.assertEquals(expected.size(), index.size());
+    for (Map.Entry<UUID, Order> entry : expected.entrySet()) {
+      Assertions.assertSame(entry.getValue(), index.get(entry.getKey()));
+    }
+    Assertions.assertEquals(expected.keySet(), index.keySet());
+  }
+
+  @Test
+  void uuidOrderIndex_KeyOtherThanTheOrderId_IsRejected() {
+    UuidOrderIndex index = new UuidOrderIndex();
+    Order order = order(UUID.randomUUID());
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> index.put(UUID.randomUUID(), order));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> index.putIfAbsent(null, order));
+    Assertions.assertTrue(index.isEmpty());
+
+    Assertions.assertNull(index.put(order.getOrderId(), order));
+    Assertions.assertSame(order, index.get(order.getOrderId()));
+  }
+
+  @Test
+  void remove_OrderInTheMiddleOfALevel_KeepsTimePriorityOfTheOthers() {
+    LimitOrderBook limitOrderBook = new LimitOrderBook("AAPL");
+    Order first = order(UUID.randomUUID());
+    Order middle = order(UUID.randomUUID());
+    Order last = order(UUID.randomUUID());
+    limitOrderBook.add(first);
+    limitOrderBook.add(middle);
+    limitOrderBook.add(last);
+
+    Assertions.assertTrue(limitOrderBook.remove(middle));
+    Assertions.assertFalse(limitOrderBook.remove(middle));
+
+    PriceLevel level = limitOrderBook.getBidLevel(0);
+    List<Order> remaining = new ArrayList<>();
+    level.forEachOrder(remaining::add);
+    Assertions.assertEquals(List.of(first, last), remaining);
+    Assertions.assertEquals(2, level.getTotalQuantity());
+    Assertions.assertTrue(limitOrderBook.remove(first));
+    Assertions.assertTrue(limitOrderBook.remove(last));
+    Assertions.assertEquals(0, limitOrderBook.getBidLevelCount());
+  }
+}
@@ -1,7 +1,12 @@
 package service;
 
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.constant.ExceptionMessages;
 import com.vega.trading.system.enumeration.OrderStatus;
 import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.PriceMode;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.LimitOrderBook;
 import com.vega.trading.system.model.Order;
 import com.vega.trading.system.service.OrderMatcherService;
 import com.vega.trading.system.service.TradingSystem;
@@ -22,6 +27,11 @@ public class OrderMatcherServiceTest {
     orderMatcherService = new OrderMatcherService(tradingSystem);
   }
 
+  // Book of a symbol, created empty so the tests can seed it directly
+  private static LimitOrderBook bookOf(TradingSystem tradingSystem, String symbol) {
+    return tradingSystem.getLimitOrderBook(tradingSystem.getInstrumentRegistry().register(symbol));
+  }
+
   @Test
   public void matchOrders_ShouldMatchAndExecuteTrades() {
     Order buyOrder = new Order(1, OrderType.BUY, BigDecimal.valueOf(100.0), 10, "AAPL");
@@ -29,13 +39,174 @@ public class OrderMatcherServiceTest {
 
     tradingSystem.getOrderBook().put(buyOrder.getOrderId(), buyOrder);
     tradingSystem.getOrderBook().put(sellOrder.getOrderId(), sellOrder);
+    bookOf(tradingSystem, "AAPL").add(buyOrder);
+    bookOf(tradingSystem, "AAPL").add(sellOrder);
 
     orderMatcherService.matchOrders();
 
     Assertions.assertEquals(OrderStatus.EXECUTED,tradingSystem.getOrderBook().get(buyOrder.getOrderId()).getOrderStatus());
     Assertions.assertEquals(OrderStatus.EXECUTED,tradingSystem.getOrderBook().get(sellOrder.getOrderId()).getOrderStatus());
+    Assertions.assertTrue(bookOf(tradingSystem, "AAPL").isEmpty());
+
+  }
+
+  @Test
+  public void matchOrders_NonCrossingOrders_ShouldRest() {
+    Order buyOrder = new Order(1, OrderType.BUY, BigDecimal.valueOf(99), 10, "AAPL");
+    Order sellOrder = new Order(2, OrderType.SELL, BigDecimal.valueOf(100), 10, "AAPL");
+    LimitOrderBook limitOrderBook = bookOf(tradingSystem, "AAPL");
+    limitOrderBook.add(buyOrder);
+    limitOrderBook.add(sellOrder);
+
+    orderMatcherService.matchOrders("AAPL");
+
+    Assertions.assertEquals(OrderStatus.PLACED, buyOrder.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.PLACED, sellOrder.getOrderStatus());
+    Assertions.assertEquals(2, limitOrderBook.getOrderCount());
+  }
+
+  @Test
+  public void matchOrders_ShouldFollowPriceTimePriority() {
+    Order firstSellAt101 = new Order(1, OrderType.SELL, BigDecimal.valueOf(101), 5, "AAPL");
+    Order sellAt100 = new Order(2, OrderType.SELL, BigDecimal.valueOf(100), 5, "AAPL");
+    Order secondSellAt101 = new Order(3, OrderType.SELL, BigDecimal.valueOf(101), 5, "AAPL");
+    Order buyOrder = new Order(4, OrderType.BUY, BigDecimal.valueOf(101), 8, "AAPL");
+    LimitOrderBook limitOrderBook = bookOf(tradingSystem, "AAPL");
+    limitOrderBook.add(firstSellAt101);
+    limitOrderBook.add(sellAt100);
+    limitOrderBook.add(secondSellAt101);
+    limitOrderBook.add(buyOrder);
+
+    orderMatcherService.matchOrders("AAPL");
+
+    Assertions.assertEquals(OrderStatus.EXECUTED, buyOrder.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.EXECUTED, sellAt100.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.PARTIALLY_EXECUTED, firstSellAt101.getOrderStatus());
+    Assertions.assertEquals(2, firstSellAt101.getQuantity());
+    Assertions.assertEquals(OrderStatus.PLACED, secondSellAt101.getOrderStatus());
+    Assertions.assertSame(firstSellAt101, limitOrderBook.peekBestAsk());
+    Assertions.assertEquals(7, limitOrderBook.getAskLevel(0).getTotalQuantity());
+  }
+
+  @Test
+  public void matchOrders_FixedPointBook_ShouldCompareTicks() {
+    TradingSystem fixedPointSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0).priceMode(PriceMode.FIXED_POINT).build());
+    OrderMatcherService fixedPointMatcher = new OrderMatcherService(fixedPointSystem);
+    Order sellOrder = new Order(1, OrderType.SELL, new BigDecimal("100.05"), 5, "AAPL");
+    Order lowBuyOrder = new Order(2, OrderType.BUY, new BigDecimal("100.04"), 5, "AAPL");
+    Order buyOrder = new Order(3, OrderType.BUY, new BigDecimal("100.050"), 5, "AAPL");
+    LimitOrderBook limitOrderBook = bookOf(fixedPointSystem, "AAPL");
+    limitOrderBook.add(sellOrder);
+    limitOrderBook.add(lowBuyOrder);
+
+    fixedPointMatcher.matchOrders("AAPL");
+    Assertions.assertEquals(OrderStatus.PLACED, sellOrder.getOrderStatus());
+    Assertions.assertEquals(10005, sellOrder.getPriceTicks());
 
+    limitOrderBook.add(buyOrder);
+    fixedPointMatcher.matchOrders("AAPL");
+    Assertions.assertEquals(OrderStatus.EXECUTED, sellOrder.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.EXECUTED, buyOrder.getOrderStatus());
+    Assertions.assertSame(lowBuyOrder, limitOrderBook.peekBestBid());
+    Assertions.assertEquals(new BigDecimal("100.04"),
+        limitOrderBook.getPriceScale().toPrice(limitOrderBook.getBidLevel(0).getPriceTicks()));
   }
 
 
+
+  private static TradingSystem sweepingSystem() {
+    return new TradingSystem(TradingSystemConfig.builder().matchingShards(0).sweepMatching(true)
+        .marketProtectionPercent(BigDecimal.valueOf(2)).build());
+  }
+
+  @Test
+  public void sweep_MarketBuy_FillsEachLevelAtItsPriceWithinBandThenCancels() {
+    TradingSystem sweepingSystem = sweepingSystem();
+    try {
+      sweepingSystem.addOrder(new Order(1, OrderType.SELL, new BigDecimal("100.00"), 5, "AAPL"));
+      sweepingSystem.addOrder(new Order(2, OrderType.BUY, new BigDecimal("100.00"), 1, "AAPL"));
+      Order nearAsk = new Order(3, OrderType.SELL, new BigDecimal("101.00"), 3, "AAPL");
+      Order farAsk = new Order(4, OrderType.SELL, new BigDecimal("103.00"), 3, "AAPL");
+      sweepingSystem.addOrder(nearAsk);
+      sweepingSystem.addOrder(farAsk);
+
+      // Last trade at 100 and a 2% band: the asks up to 102 are taken, 103 is out of reach
+      Order marketBuy = new Order(5, OrderType.BUY, null, 10, "AAPL");
+      sweepingSystem.addOrder(marketBuy);
+
+      LimitOrderBook limitOrderBook = bookOf(sweepingSystem, "AAPL");
+      Assertions.assertEquals(OrderStatus.CANCELLED, marketBuy.getOrderStatus());
+      Assertions.assertEquals(3, marketBuy.getQuantity());
+      Assertions.assertEquals(OrderStatus.EXECUTED, nearAsk.getOrderStatus());
+      Assertions.assertEquals(0, new BigDecimal("101").compareTo(limitOrderBook.getLastTradePrice()));
+      Assertions.assertSame(farAsk, limitOrderBook.peekBestAsk());
+      Assertions.assertNull(limitOrderBook.peekBestBid());
+      Assertions.assertNull(sweepingSystem.getOrderBook().get(marketBuy.getOrderId()));
+    } finally {
+      sweepingSystem.shutdown();
+    }
+  }
+
+  @Test
+  public void sweep_MarketableLimitSell_TradesAtBidPricesAndRestsRemainder() {
+    TradingSystem sweepingSystem = sweepingSystem();
+    try {
+      Order bestBid = new Order(1, OrderType.BUY, new BigDecimal("105.00"), 2, "AAPL");
+      Order nextBid = new Order(2, OrderType.BUY, new BigDecimal("104.00"), 2, "AAPL");
+      Order lowBid = new Order(3, OrderType.BUY, new BigDecimal("99.00"), 2, "AAPL");
+      sweepingSystem.addOrder(lowBid);
+      sweepingSystem.addOrder(nextBid);
+      sweepingSystem.addOrder(bestBid);
+
+      Order limitSell = new Order(4, OrderType.SELL, new BigDecimal("100.00"), 6, "AAPL");
+      sweepingSystem.addOrder(limitSell);
+
+      LimitOrderBook limitOrderBook = bookOf(sweepingSystem, "AAPL");
+      Assertions.assertEquals(0, new BigDecimal("104").compareTo(limitOrderBook.getLastTradePrice()));
+      Assertions.assertEquals(OrderStatus.PARTIALLY_EXECUTED, limitSell.getOrderStatus());
+      Assertions.assertSame(limitSell, limitOrderBook.peekBestAsk());
+      Assertions.assertSame(lowBid, limitOrderBook.peekBestBid());
+      Assertions.assertEquals(2, limitSell.getQuantity());
+
+      // With nothing on the other side a market order is cancelled, it never rests
+      Order marketBuy = new Order(5, OrderType.BUY, null, 5, "MSFT");
+      sweepingSystem.addOrder(marketBuy);
+      Assertions.assertEquals(OrderStatus.CANCELLED, marketBuy.getOrderStatus());
+      Assertions.assertTrue(bookOf(sweepingSystem, "MSFT").isEmpty());
+    } finally {
+      sweepingSystem.shutdown();
+    }
+  }
+
+  @Test
+  public void addOrder_UnpricedOrderWithoutMarketPrice_IsRejected() {
+    TradingSystem defaultSystem = new TradingSystem(
+        TradingSystemConfig.builder().matchingShards(0).build());
+    try {
+      Order marketSell = new Order(1, OrderType.SELL, null, 5, "AAPL");
+      IllegalArgumentException rejection = Assertions.assertThrows(
+          IllegalArgumentException.class, () -> defaultSystem.addOrder(marketSell));
+      Assertions.assertEquals(ExceptionMessages.NO_MARKET_PRICE, rejection.getMessage());
+      Assertions.assertFalse(defaultSystem.getOrderBook().containsKey(marketSell.getOrderId()));
+
+      // The book keeps matching
+      Order buyOrder = new Order(2, OrderType.BUY, new BigDecimal("9"), 5, "AAPL");
+      Order sellOrder = new Order(3, OrderType.SELL, new BigDecimal("9"), 5, "AAPL");
+      defaultSystem.addOrder(buyOrder);
+      defaultSystem.addOrder(sellOrder);
+      Assertions.assertEquals(OrderStatus.EXECUTED, buyOrder.getOrderStatus());
+      Assertions.assertEquals(OrderStatus.EXECUTED, sellOrder.getOrderStatus());
+
+      // With a market price the order is accepted and trades at it
+      defaultSystem.financialInstrumentService.getFinancialInstruments()
+          .put("AAPL", new FinancialInstrument("AAPL", new BigDecimal("10")));
+      Order restingBuy = new Order(4, OrderType.BUY, new BigDecimal("11"), 5, "AAPL");
+      defaultSystem.addOrder(restingBuy);
+      defaultSystem.addOrder(new Order(5, OrderType.SELL, null, 5, "AAPL"));
+      Assertions.assertEquals(OrderStatus.EXECUTED, restingBuy.getOrderStatus());
+    } finally {
+      defaultSystem.shutdown();
+    }
+  }
 }
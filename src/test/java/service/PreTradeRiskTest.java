@@ -0,0 +1,106 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.OrderResultStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.model.FinancialInstrument;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.OrderResult;
+import com.vega.trading.system.risk.LimitRiskCheck;
+import com.vega.trading.system.risk.RiskLimits;
+import com.vega.trading.system.risk.TraderExposure;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PreTradeRiskTest {
+
+  private TradingSystem tradingSystem;
+  private LimitRiskCheck riskCheck;
+
+  private void start(RiskLimits riskLimits) {
+    riskCheck = new LimitRiskCheck(riskLimits);
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(0)
+        .preTradeRiskCheck(riskCheck).build());
+    tradingSystem.financialInstrumentService.getFinancialInstruments()
+        .put("AAPL", new FinancialInstrument("AAPL", new BigDecimal("100")));
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private static Order order(int traderId, OrderType orderType, String price, int quantity) {
+    return new Order(traderId, orderType, price == null ? null : new BigDecimal(price), quantity,
+        "AAPL");
+  }
+
+  private void assertRejected(Order order, String reason) {
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+        () -> tradingSystem.addOrder(order));
+    Assertions.assertEquals(reason, exception.getMessage());
+    Assertions.assertFalse(tradingSystem.getOrderBook().containsKey(order.getOrderId()));
+  }
+
+  @Test
+  void addOrder_OrderLimitsAndCollar_RejectOrder() {
+    start(RiskLimits.builder().maxOrderQuantity(100).maxOrderNotional(new BigDecimal("5000"))
+        .priceCollarPercent(new BigDecimal("10")).build());
+
+    assertRejected(order(1, OrderType.BUY, "100", 101), ExceptionMessages.RISK_ORDER_QUANTITY);
+    assertRejected(order(1, OrderType.BUY, "100", 51), ExceptionMessages.RISK_ORDER_NOTIONAL);
+    // A market order is valued at the market price of the instrument
+    assertRejected(order(1, OrderType.SELL, null, 51), ExceptionMessages.RISK_ORDER_NOTIONAL);
+    assertRejected(order(1, OrderType.BUY, "110.01", 1), ExceptionMessages.RISK_PRICE_COLLAR);
+    assertRejected(order(1, OrderType.SELL, "89.99", 1), ExceptionMessages.RISK_PRICE_COLLAR);
+
+    tradingSystem.addOrder(order(1, OrderType.BUY, "110", 45));
+    List<OrderResult> results = tradingSystem.addOrders(List.of(order(1, OrderType.SELL, "90", 1),
+        order(1, OrderType.SELL, "120", 1)));
+    Assertions.assertEquals(OrderResultStatus.ACCEPTED, results.get(0).getStatus());
+    Assertions.assertEquals(ExceptionMessages.RISK_PRICE_COLLAR, results.get(1).getReason());
+  }
+
+  @Test
+  void addOrder_OpenNotional_ReservedUntilFilledOrCancelled() {
+    start(RiskLimits.builder().maxOpenNotional(new BigDecimal("1000")).build());
+    Order resting = order(1, OrderType.BUY, "99.5", 10);
+    tradingSystem.addOrder(resting);
+    TraderExposure exposure = riskCheck.getExposure(1);
+    Assertions.assertEquals(0, new BigDecimal("995").compareTo(exposure.getOpenNotional()));
+    assertRejected(order(1, OrderType.SELL, "101", 1), ExceptionMessages.RISK_OPEN_NOTIONAL);
+
+    // Filling part of the order releases its share and moves the position
+    tradingSystem.addOrder(order(2, OrderType.SELL, "99.5", 4));
+    Assertions.assertEquals(0, new BigDecimal("597").compareTo(exposure.getOpenNotional()));
+    Assertions.assertEquals(4, exposure.getPosition("AAPL"));
+    Assertions.assertEquals(6, exposure.getOpenBuyQuantity("AAPL"));
+    Assertions.assertEquals(-4, riskCheck.getExposure(2).getPosition("AAPL"));
+
+    tradingSystem.cancelOrder(resting.getOrderId());
+    Assertions.assertEquals(0, exposure.getOpenNotional().signum());
+    Assertions.assertEquals(0, exposure.getOpenBuyQuantity("AAPL"));
+    tradingSystem.addOrder(order(1, OrderType.SELL, "101", 9));
+  }
+
+  @Test
+  void addOrder_PositionLimit_CountsOpenOrdersOfOneSide() {
+    start(RiskLimits.builder().maxPosition(10).build());
+    tradingSystem.addOrder(order(1, OrderType.BUY, "99", 6));
+    assertRejected(order(1, OrderType.BUY, "98", 5), ExceptionMessages.RISK_POSITION);
+    // Sells offset the long side, so they are checked against the short limit
+    tradingSystem.addOrder(order(1, OrderType.SELL, "101", 10));
+    assertRejected(order(1, OrderType.SELL, "102", 1), ExceptionMessages.RISK_POSITION);
+
+    tradingSystem.addOrder(order(2, OrderType.SELL, "99", 6));
+    Assertions.assertEquals(6, riskCheck.getExposure(1).getPosition("AAPL"));
+    // Long 6 with nothing open on the buy side leaves room to buy 4 more
+    tradingSystem.addOrder(order(1, OrderType.BUY, "98", 4));
+    assertRejected(order(1, OrderType.BUY, "98", 1), ExceptionMessages.RISK_POSITION);
+  }
+}
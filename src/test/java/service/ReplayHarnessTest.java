@@ -0,0 +1,44 @@
+package service;
+
+import com.vega.trading.system.harness.OrderEvent;
+import com.vega.trading.system.harness.OrderEventFile;
+import com.vega.trading.system.harness.OrderFlowGenerator;
+import com.vega.trading.system.harness.OrderFlowSpec;
+import com.vega.trading.system.harness.ReplayHarness;
+import com.vega.trading.system.harness.ReplayReport;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReplayHarnessTest {
+
+  private static final int EVENTS = 5_000;
+
+  @Test
+  void replay_SameFlow_SameStateHashWhateverTheShards(@TempDir Path directory) {
+    List<OrderEvent> events = OrderFlowGenerator.generate(OrderFlowSpec.defaults(), EVENTS);
+    Path file = directory.resolve("flow.txt");
+    OrderEventFile.write(file, events);
+
+    ReplayReport inline = new ReplayHarness(0, 0).replay(events);
+    ReplayReport sharded = new ReplayHarness(2, 0).replay(OrderEventFile.read(file));
+
+    Assertions.assertTrue(inline.getTrades() > 0);
+    Assertions.assertEquals(EVENTS, inline.getEvents());
+    Assertions.assertEquals(EVENTS, inline.getSubmitLatency().getCount());
+    Assertions.assertEquals(inline.getTrades(), sharded.getTrades());
+    Assertions.assertEquals(inline.getStateHash(), sharded.getStateHash());
+  }
+
+  @Test
+  void replay_DifferentSeed_DifferentStateHash() {
+    ReplayReport first = new ReplayHarness(0, 0)
+        .replay(OrderFlowGenerator.generate(OrderFlowSpec.builder().seed(1).build(), EVENTS));
+    ReplayReport second = new ReplayHarness(0, 0)
+        .replay(OrderFlowGenerator.generate(OrderFlowSpec.builder().seed(2).build(), EVENTS));
+
+    Assertions.assertNotEquals(first.getStateHash(), second.getStateHash());
+  }
+}
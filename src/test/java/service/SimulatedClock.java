@@ -0,0 +1,48 @@
+package service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Clock only moving when told to, for the tests of time dependent behaviour. A clock derived with
+ withZone shares the time of the clock it comes from. */
+final class SimulatedClock extends Clock {
+
+  private final AtomicLong millis;
+  private final ZoneId zone;
+
+  SimulatedClock(long millis) {
+    this(new AtomicLong(millis), ZoneOffset.UTC);
+  }
+
+  private SimulatedClock(AtomicLong millis, ZoneId zone) {
+    this.millis = millis;
+    this.zone = zone;
+  }
+
+  void advance(long deltaMillis) {
+    millis.addAndGet(deltaMillis);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return zone.equals(this.zone) ? this : new SimulatedClock(millis, zone);
+  }
+
+  @Override
+  public long millis() {
+    return millis.get();
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(millis());
+  }
+}
@@ -0,0 +1,128 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TimeInForce;
+import com.vega.trading.system.model.ExpiryWheel;
+import com.vega.trading.system.model.LimitOrderBook;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimeInForceTest {
+
+  // 2024-01-02T09:00:00Z
+  private static final long START_MILLIS = 1_704_186_000_000L;
+
+  private SimulatedClock clock;
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    clock = new SimulatedClock(START_MILLIS);
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0)
+        .clock(clock)
+        .sessionCloseTime(LocalTime.of(16, 0))
+        .expiryTimerEnabled(false)
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private static Order order(OrderType orderType, String price, int quantity,
+      TimeInForce timeInForce) {
+    Order order = new Order(1, orderType, new BigDecimal(price), quantity, "AAPL");
+    order.setTimeInForce(timeInForce);
+    return order;
+  }
+
+  @Test
+  void expiryWheel_FiresEveryOrderAtItsTickAcrossLevels() {
+    ExpiryWheel expiryWheel = new ExpiryWheel(1, 0);
+    long[] expireTimes = {1, 63, 64, 65, 4_095, 4_096, 262_145, 300_000_000, 90_000_000_000L};
+    List<Order> orders = new ArrayList<>();
+    for (long expireTime : expireTimes) {
+      Order order = order(OrderType.BUY, "100", 1, TimeInForce.GTD);
+      order.setExpireTimeMillis(expireTime);
+      Assertions.assertTrue(expiryWheel.schedule(order));
+      orders.add(order);
+    }
+    Order cancelled = order(OrderType.BUY, "100", 1, TimeInForce.GTD);
+    cancelled.setExpireTimeMillis(5_000);
+    expiryWheel.schedule(cancelled);
+    Assertions.assertTrue(expiryWheel.cancel(cancelled));
+
+    for (int i = 0; i < expireTimes.length; i++) {
+      Assertions.assertTrue(expiryWheel.advance(expireTimes[i] - 1).isEmpty());
+      Assertions.assertEquals(List.of(orders.get(i)), expiryWheel.advance(expireTimes[i]));
+    }
+    Assertions.assertEquals(0, expiryWheel.size());
+    Order due = order(OrderType.BUY, "100", 1, TimeInForce.GTD);
+    due.setExpireTimeMillis(1_000);
+    Assertions.assertFalse(expiryWheel.schedule(due));
+  }
+
+  @Test
+  void gtdAndDayOrders_ExpireWhenTheClockReachesTheirTime() {
+    Order goodTillDate = order(OrderType.BUY, "99", 5, TimeInForce.GTD);
+    goodTillDate.setExpireTimeMillis(START_MILLIS + 60_000);
+    Order day = order(OrderType.SELL, "101", 5, TimeInForce.DAY);
+    Order goodTillCancelled = order(OrderType.SELL, "102", 5, TimeInForce.GTC);
+    tradingSystem.addOrder(goodTillDate);
+    tradingSystem.addOrder(day);
+    tradingSystem.addOrder(goodTillCancelled);
+    Assertions.assertEquals(START_MILLIS + 7 * 3_600_000, day.getExpireTimeMillis());
+
+    clock.advance(59_000);
+    tradingSystem.expireOrders();
+    Assertions.assertEquals(OrderStatus.PLACED, goodTillDate.getOrderStatus());
+
+    clock.advance(1_000);
+    tradingSystem.expireOrders();
+    LimitOrderBook limitOrderBook = tradingSystem.getLimitOrderBook("AAPL");
+    Assertions.assertEquals(OrderStatus.EXPIRED, goodTillDate.getOrderStatus());
+    Assertions.assertNull(limitOrderBook.peekBestBid());
+    Assertions.assertNull(tradingSystem.getOrderBook().get(goodTillDate.getOrderId()));
+
+    // Past the session close only the DAY order goes, the GTC one stays
+    clock.advance(8 * 3_600_000);
+    tradingSystem.expireOrders();
+    Assertions.assertEquals(OrderStatus.EXPIRED, day.getOrderStatus());
+    Assertions.assertSame(goodTillCancelled, limitOrderBook.peekBestAsk());
+    Assertions.assertEquals(1, limitOrderBook.getOrderCount());
+  }
+
+  @Test
+  void immediateOrders_NeverRest() {
+    tradingSystem.addOrder(order(OrderType.SELL, "100", 3, TimeInForce.GTC));
+    tradingSystem.addOrder(order(OrderType.SELL, "101", 3, TimeInForce.GTC));
+
+    Order fillOrKill = order(OrderType.BUY, "101", 7, TimeInForce.FOK);
+    tradingSystem.addOrder(fillOrKill);
+    Assertions.assertEquals(OrderStatus.CANCELLED, fillOrKill.getOrderStatus());
+    Assertions.assertEquals(7, fillOrKill.getQuantity());
+
+    Order immediateOrCancel = order(OrderType.BUY, "100", 5, TimeInForce.IOC);
+    tradingSystem.addOrder(immediateOrCancel);
+    Assertions.assertEquals(OrderStatus.CANCELLED, immediateOrCancel.getOrderStatus());
+    Assertions.assertEquals(2, immediateOrCancel.getQuantity());
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("AAPL").peekBestBid());
+
+    Order filledFillOrKill = order(OrderType.BUY, "101", 3, TimeInForce.FOK);
+    tradingSystem.addOrder(filledFillOrKill);
+    Assertions.assertEquals(OrderStatus.EXECUTED, filledFillOrKill.getOrderStatus());
+    Assertions.assertTrue(tradingSystem.getLimitOrderBook("AAPL").isEmpty());
+  }
+}
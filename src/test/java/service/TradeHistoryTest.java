@@ -0,0 +1,140 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.journal.TradeHistory;
+import com.vega.trading.system.model.InstrumentRegistry;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.TradeRecord;
+import com.vega.trading.system.service.TradingSystem;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TradeHistoryTest {
+
+  // 2024-01-02T23:59:59Z, a second before midnight
+  private static final long START_MILLIS = 1_704_239_999_000L;
+
+  private static TradingSystem start(Path directory, Clock clock) {
+    return new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0)
+        .clock(clock)
+        .expiryTimerEnabled(false)
+        .tradeHistoryDirectory(directory)
+        .build());
+  }
+
+  private static Order[] trade(TradingSystem tradingSystem, String symbol, String price,
+      int quantity) {
+    Order sell = new Order(1, OrderType.SELL, new BigDecimal(price), quantity, symbol);
+    Order buy = new Order(2, OrderType.BUY, new BigDecimal(price), quantity, symbol);
+    tradingSystem.addOrder(sell);
+    tradingSystem.addOrder(buy);
+    return new Order[] {buy, sell};
+  }
+
+  private static long countFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void findTrades_ReturnsTheFillsOfASymbolInTheTimeRange(@TempDir Path directory) {
+    SimulatedClock clock = new SimulatedClock(START_MILLIS - 10_000);
+    TradingSystem tradingSystem = start(directory, clock);
+    try {
+      Order[] first = trade(tradingSystem, "AAPL", "100.25", 2);
+      clock.advance(1_000);
+      trade(tradingSystem, "MSFT", "50", 7);
+      clock.advance(1_000);
+      trade(tradingSystem, "AAPL", "101", 3);
+      TradeHistory tradeHistory = tradingSystem.getTradeHistory();
+
+      long from = START_MILLIS - 10_000;
+      List<TradeRecord> trades = tradeHistory.findTrades("AAPL", from, from + 2_000);
+      Assertions.assertEquals(1, trades.size());
+      TradeRecord trade = trades.get(0);
+      Assertions.assertEquals(from, trade.getTimeMillis());
+      Assertions.assertEquals("AAPL", trade.getSymbol());
+      Assertions.assertEquals(first[0].getOrderId(), trade.getBuyOrderId());
+      Assertions.assertEquals(first[1].getOrderId(), trade.getSellOrderId());
+      Assertions.assertEquals(2, trade.getBuyTraderId());
+      Assertions.assertEquals(1, trade.getSellTraderId());
+      Assertions.assertEquals(new BigDecimal("100.25"), trade.getPrice());
+      Assertions.assertEquals(2, trade.getQuantity());
+
+      Assertions.assertEquals(2, tradeHistory.findTrades("AAPL", from, from + 2_001).size());
+      Assertions.assertEquals(3, tradeHistory.findTraderTrades(1, from, Long.MAX_VALUE).size());
+      Assertions.assertTrue(tradeHistory.findTraderTrades(3, from, Long.MAX_VALUE).isEmpty());
+      Assertions.assertTrue(tradeHistory.findTrades("IBM", from, Long.MAX_VALUE).isEmpty());
+    } finally {
+      tradingSystem.shutdown();
+    }
+  }
+
+  @Test
+  void restart_QueriesAcrossDaysAndAppendsAfterExistingTrades(@TempDir Path directory)
+      throws IOException {
+    SimulatedClock clock = new SimulatedClock(START_MILLIS);
+    TradingSystem tradingSystem = start(directory, clock);
+    trade(tradingSystem, "AAPL", "100", 1);
+    clock.advance(2_000);
+    trade(tradingSystem, "AAPL", "101", 1);
+    tradingSystem.shutdown();
+    Assertions.assertEquals(2, countFiles(directory));
+
+    tradingSystem = start(directory, clock);
+    try {
+      trade(tradingSystem, "AAPL", "102", 1);
+      List<TradeRecord> trades = tradingSystem.getTradeHistory()
+          .findTraderTrades(2, Long.MIN_VALUE, Long.MAX_VALUE);
+      Assertions.assertEquals(3, trades.size());
+      Assertions.assertEquals(new BigDecimal("100"), trades.get(0).getPrice());
+      Assertions.assertEquals(new BigDecimal("102"), trades.get(2).getPrice());
+      // Only the trades of the new day
+      Assertions.assertEquals(2, tradingSystem.getTradeHistory()
+          .findTrades("AAPL", START_MILLIS + 1_000, START_MILLIS + 86_401_000).size());
+      Assertions.assertEquals(2, countFiles(directory));
+    } finally {
+      tradingSystem.shutdown();
+    }
+  }
+
+  @Test
+  void append_RollsFullFilesAndSkipsBlocksWithoutTheSymbol(@TempDir Path directory)
+      throws IOException {
+    SimulatedClock clock = new SimulatedClock(START_MILLIS - 3_600_000);
+    TradeHistory tradeHistory = TradeHistory.open(directory, 1024, clock);
+    InstrumentRegistry instrumentRegistry = new InstrumentRegistry();
+    int aapl = instrumentRegistry.register("AAPL");
+    int ibm = instrumentRegistry.register("IBM");
+    for (int i = 0; i < 2_500; i++) {
+      boolean isIbm = i >= 1_500 && i <= 1_510;
+      String symbol = isIbm ? "IBM" : "AAPL";
+      Order buy = new Order(2, OrderType.BUY, BigDecimal.TEN, 1, symbol);
+      Order sell = new Order(i % 7, OrderType.SELL, BigDecimal.TEN, 1, symbol);
+      tradeHistory.append(isIbm ? ibm : aapl, buy, sell, BigDecimal.valueOf(i), 1);
+      clock.advance(1);
+    }
+    tradeHistory.close();
+
+    Assertions.assertEquals(3, countFiles(directory));
+    List<TradeRecord> ibmTrades = tradeHistory.findTrades("IBM", Long.MIN_VALUE, Long.MAX_VALUE);
+    Assertions.assertEquals(11, ibmTrades.size());
+    Assertions.assertEquals(BigDecimal.valueOf(1_500), ibmTrades.get(0).getPrice());
+    long from = START_MILLIS - 3_600_000;
+    List<TradeRecord> aaplTrades = tradeHistory.findTrades("AAPL", from + 1_000, from + 1_100);
+    Assertions.assertEquals(100, aaplTrades.size());
+    Assertions.assertEquals(BigDecimal.valueOf(1_000), aaplTrades.get(0).getPrice());
+    Assertions.assertEquals(357, tradeHistory.findTraderTrades(3, from, Long.MAX_VALUE).size());
+  }
+}
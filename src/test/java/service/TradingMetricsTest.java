@@ -0,0 +1,67 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.MetricOperation;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.metrics.LatencyHistogram;
+import com.vega.trading.system.metrics.LatencySnapshot;
+import com.vega.trading.system.metrics.MetricsSnapshot;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TradingMetricsTest {
+
+  @Test
+  void latencyHistogram_UniformValues_PercentilesWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long nanos = 1; nanos <= 100_000; nanos++) {
+      histogram.record(nanos);
+    }
+
+    LatencySnapshot snapshot = histogram.snapshot();
+
+    Assertions.assertEquals(100_000, snapshot.getCount());
+    Assertions.assertEquals(50_000, snapshot.getP50Nanos(), 50_000 * 0.04);
+    Assertions.assertEquals(99_000, snapshot.getP99Nanos(), 99_000 * 0.04);
+    Assertions.assertEquals(99_900, snapshot.getP999Nanos(), 99_900 * 0.04);
+    Assertions.assertEquals(100_000, snapshot.getMaxNanos());
+    Assertions.assertEquals(50_000.5, snapshot.getMeanNanos(), 0.001);
+  }
+
+  @Test
+  void getMetricsSnapshot_OrderFlow_CountsEventsAndReportsGauges() {
+    TradingSystem tradingSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0)
+        .build());
+    Order restingBuy = new Order(1, OrderType.BUY, new BigDecimal("99.00"), 5, "AAPL");
+    Order sell = new Order(2, OrderType.SELL, new BigDecimal("100.00"), 5, "AAPL");
+    tradingSystem.addOrder(restingBuy);
+    tradingSystem.addOrder(sell);
+    tradingSystem.addOrder(sell);
+    tradingSystem.addOrder(new Order(3, OrderType.BUY, new BigDecimal("100.00"), 2, "AAPL"));
+    tradingSystem.cancelOrder(restingBuy.getOrderId());
+
+    MetricsSnapshot snapshot = tradingSystem.getMetricsSnapshot();
+    tradingSystem.shutdown();
+
+    Assertions.assertEquals(3, snapshot.getOrdersIn());
+    Assertions.assertEquals(1, snapshot.getRejects());
+    Assertions.assertEquals(1, snapshot.getFills());
+    Assertions.assertEquals(1, snapshot.getCancels());
+    Assertions.assertEquals(4, snapshot.getLatency(MetricOperation.ADD_ORDER).getCount());
+    Assertions.assertEquals(3, snapshot.getLatency(MetricOperation.MATCH_ORDERS).getCount());
+    Assertions.assertEquals(1, snapshot.getLatency(MetricOperation.EXECUTE_TRADE).getCount());
+    Assertions.assertEquals(1, snapshot.getLatency(MetricOperation.CANCEL_ORDER).getCount());
+    LatencySnapshot addOrder = snapshot.getLatency(MetricOperation.ADD_ORDER);
+    Assertions.assertTrue(addOrder.getP50Nanos() <= addOrder.getP99Nanos()
+        && addOrder.getP99Nanos() <= addOrder.getMaxNanos());
+    MetricsSnapshot.BookDepth depth = snapshot.getBookDepths().get("AAPL");
+    Assertions.assertEquals(1, depth.getOrders());
+    Assertions.assertEquals(0, depth.getBidLevels());
+    Assertions.assertEquals(1, depth.getAskLevels());
+    Assertions.assertEquals(0, snapshot.getShardQueueDepths().length);
+  }
+}
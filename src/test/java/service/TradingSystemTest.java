@@ -1,15 +1,26 @@
 package service;
 
+import com.vega.trading.system.config.TradingSystemConfig;
 import com.vega.trading.system.constant.ExceptionMessages;
+import com.vega.trading.system.enumeration.OrderResultStatus;
 import com.vega.trading.system.enumeration.OrderStatus;
 import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.PriceMode;
 import com.vega.trading.system.model.FinancialInstrument;
 import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.OrderResult;
 import com.vega.trading.system.service.OrderMatcherService;
 import com.vega.trading.system.service.TradingSystem;
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -64,6 +75,21 @@ public class TradingSystemTest {
     Assertions.assertEquals(ExceptionMessages.INVALID_ORDER, exception.getMessage());
   }
 
+  @Test
+  void addOrder_NegativeCase_PriceOffTickGrid() {
+    TradingSystem fixedPointSystem = new TradingSystem(TradingSystemConfig.builder()
+        .matchingShards(0).priceMode(PriceMode.FIXED_POINT).build());
+    fixedPointSystem.financialInstrumentService.getFinancialInstruments()
+        .put("AAPL", new FinancialInstrument("AAPL", BigDecimal.valueOf(100), new BigDecimal("0.05")));
+    Order offGridOrder = new Order(789, OrderType.BUY, new BigDecimal("100.02"), 5, "AAPL");
+
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fixedPointSystem.addOrder(offGridOrder));
+
+    Assertions.assertEquals(ExceptionMessages.INVALID_TICK_PRICE + "100.02", exception.getMessage());
+    Assertions.assertEquals(0, fixedPointSystem.getOrderBook().size());
+  }
+
   @Test
   void cancelOrder_PositiveCase_CancelExistingOrder() {
     Order orderToCancel = new Order(123, OrderType.BUY, new BigDecimal("100.00"), 10, "AAPL");
@@ -90,6 +116,7 @@ public class TradingSystemTest {
 
     // Wait for asynchronous execution to complete
     latch.await();
+    tradingSystem.flush();
     Assertions.assertEquals(OrderStatus.PARTIALLY_EXECUTED, buyOrder.getOrderStatus());
     Assertions.assertEquals(OrderStatus.EXECUTED, sellOrder.getOrderStatus());
   }
@@ -112,6 +139,7 @@ public class TradingSystemTest {
 
     // Wait for asynchronous execution to complete
     latch.await();
+    tradingSystem.flush();
 
     Assertions.assertEquals(OrderStatus.EXECUTED, sellOrder.getOrderStatus());
     Assertions.assertEquals(OrderStatus.EXECUTED, buyOrder.getOrderStatus());
@@ -138,11 +166,115 @@ public class TradingSystemTest {
 
     // Wait for asynchronous execution to complete
     latch.await();
+    tradingSystem.flush();
     //  Thread.sleep(20000);
     Assertions.assertEquals(OrderStatus.EXECUTED,
         tradingSystem.getOrderBook().get(buyOrder.getOrderId()).getOrderStatus());
   }
 
-}
+  @Test
+  void addOrder_ConcurrentSubmitters_NoOrderIsOverfilled() throws InterruptedException {
+    TradingSystem shardedSystem = new TradingSystem(
+        TradingSystemConfig.builder().matchingShards(2).shardQueueCapacity(8).build());
+    String[] symbols = {"AAPL", "MSFT", "GOOG", "AMZN"};
+    List<Order> orders = new CopyOnWriteArrayList<>();
+    ExecutorService submitters = Executors.newFixedThreadPool(4);
+    for (int thread = 0; thread < 4; thread++) {
+      int traderId = thread;
+      submitters.submit(() -> {
+        for (int i = 0; i < 250; i++) {
+          OrderType orderType = (i + traderId) % 2 == 0 ? OrderType.BUY : OrderType.SELL;
+          Order order = new Order(traderId, orderType, BigDecimal.valueOf(100), 3,
+              symbols[i % symbols.length]);
+          orders.add(order);
+          shardedSystem.addOrder(order);
+        }
+      });
+    }
+    submitters.shutdown();
+    Assertions.assertTrue(submitters.awaitTermination(30, TimeUnit.SECONDS));
+    shardedSystem.flush();
+
+    for (Order order : orders) {
+      Assertions.assertTrue(order.getQuantity() >= 0);
+      Assertions.assertEquals(order.getQuantity() == 0, order.getOrderStatus() == OrderStatus.EXECUTED);
+    }
+    for (String symbol : symbols) {
+      // Equal buy and sell volume at a single price leaves nothing resting once matched
+      Assertions.assertTrue(shardedSystem.getLimitOrderBook(symbol).isEmpty());
+    }
+    shardedSystem.shutdown();
+  }
+
 
+  @Test
+  void addOrders_MatchesBatchAndReportsPerOrderResults() {
+    Order restingSell = new Order(1, OrderType.SELL, new BigDecimal("100.00"), 5, "AAPL");
+    tradingSystem.addOrder(restingSell);
+    Order buyOrder = new Order(2, OrderType.BUY, new BigDecimal("101.00"), 8, "AAPL");
+    Order otherSymbolOrder = new Order(3, OrderType.SELL, new BigDecimal("50.00"), 2, "MSFT");
+    Order invalidOrder = new Order(4, OrderType.BUY, new BigDecimal("10.00"), 1, "");
+
+    List<OrderResult> results = tradingSystem.addOrders(
+        Arrays.asList(buyOrder, otherSymbolOrder, invalidOrder, restingSell));
+
+    Assertions.assertEquals(4, results.size());
+    Assertions.assertEquals(OrderResultStatus.ACCEPTED, results.get(0).getStatus());
+    Assertions.assertEquals(5, results.get(0).getFilledQuantity());
+    Assertions.assertEquals(3, results.get(0).getRemainingQuantity());
+    Assertions.assertEquals(OrderResultStatus.ACCEPTED, results.get(1).getStatus());
+    Assertions.assertEquals(0, results.get(1).getFilledQuantity());
+    Assertions.assertEquals(OrderResultStatus.REJECTED, results.get(2).getStatus());
+    Assertions.assertEquals(ExceptionMessages.INVALID_ORDER, results.get(2).getReason());
+    Assertions.assertEquals(ExceptionMessages.DUPLICATE_ORDER_ID, results.get(3).getReason());
+    Assertions.assertEquals(OrderStatus.EXECUTED, restingSell.getOrderStatus());
+    Assertions.assertEquals(OrderStatus.PARTIALLY_EXECUTED, buyOrder.getOrderStatus());
+  }
+
+  @Test
+  void cancelOrders_CancelsRestingOrdersAndRejectsOthers() {
+    Order firstOrder = new Order(1, OrderType.BUY, new BigDecimal("99.00"), 5, "AAPL");
+    Order secondOrder = new Order(2, OrderType.SELL, new BigDecimal("120.00"), 5, "MSFT");
+    tradingSystem.addOrders(Arrays.asList(firstOrder, secondOrder));
+    UUID unknownOrderId = UUID.randomUUID();
+
+    List<OrderResult> results = tradingSystem.cancelOrders(
+        Arrays.asList(firstOrder.getOrderId(), unknownOrderId, secondOrder.getOrderId()));
+
+    Assertions.assertEquals(OrderResultStatus.CANCELLED, results.get(0).getStatus());
+    Assertions.assertEquals(OrderResultStatus.REJECTED, results.get(1).getStatus());
+    Assertions.assertEquals(ExceptionMessages.UNKNOWN_ORDER, results.get(1).getReason());
+    Assertions.assertEquals(OrderResultStatus.CANCELLED, results.get(2).getStatus());
+    Assertions.assertEquals(OrderStatus.CANCELLED, firstOrder.getOrderStatus());
+    Assertions.assertTrue(tradingSystem.getLimitOrderBook("AAPL").isEmpty());
+    Assertions.assertTrue(tradingSystem.getOrderBook().isEmpty());
+  }
 
+  @Test
+  void unknownSymbols_LookupsAndCancelsRegisterNothing() {
+    Order buyOrder = new Order(1, OrderType.BUY, new BigDecimal("99.00"), 5, "AAPL");
+    tradingSystem.addOrder(buyOrder);
+    tradingSystem.flush();
+    Assertions.assertEquals(1, tradingSystem.getInstrumentRegistry().size());
+
+    Assertions.assertNull(tradingSystem.getLimitOrderBook("NEVER-TRADED-1"));
+    Assertions.assertTrue(tradingSystem.cancelSymbolOrders("NEVER-TRADED-2").isEmpty());
+    Assertions.assertTrue(tradingSystem.cancelTraderOrders(1, "NEVER-TRADED-3").isEmpty());
+    Assertions.assertFalse(tradingSystem.uncrossAuction("NEVER-TRADED-4").isCrossed());
+    Assertions.assertEquals(1, tradingSystem.getInstrumentRegistry().size());
+
+    // A new system starts from an empty registry and gives the order the id it has there
+    tradingSystem.cancelOrder(buyOrder.getOrderId());
+    tradingSystem.flush();
+    TradingSystem otherSystem = new TradingSystem(
+        TradingSystemConfig.builder().matchingShards(0).build());
+    Assertions.assertEquals(0, otherSystem.getInstrumentRegistry().size());
+    otherSystem.addOrder(new Order(2, OrderType.SELL, new BigDecimal("120.00"), 5, "MSFT"));
+    buyOrder.setOrderStatus(OrderStatus.PLACED);
+    otherSystem.addOrder(buyOrder);
+    Assertions.assertEquals(otherSystem.getInstrumentRegistry().idOf("AAPL"),
+        buyOrder.getInstrumentId());
+    Assertions.assertSame(buyOrder, otherSystem.getLimitOrderBook("AAPL").peekBestBid());
+    otherSystem.shutdown();
+  }
+}
@@ -0,0 +1,93 @@
+package service;
+
+import com.vega.trading.system.config.TradingSystemConfig;
+import com.vega.trading.system.enumeration.OrderStatus;
+import com.vega.trading.system.enumeration.OrderType;
+import com.vega.trading.system.enumeration.TriggerCondition;
+import com.vega.trading.system.model.Order;
+import com.vega.trading.system.model.TriggerBook;
+import com.vega.trading.system.service.TradingSystem;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TriggerOrderServiceTest {
+
+  private TradingSystem tradingSystem;
+
+  @BeforeEach
+  void setUp() {
+    tradingSystem = new TradingSystem(TradingSystemConfig.builder().matchingShards(0).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    tradingSystem.shutdown();
+  }
+
+  private static Order gtt(OrderType orderType, String price, String triggerPrice,
+      TriggerCondition triggerCondition) {
+    return new Order(9, orderType, new BigDecimal(price), 1, "AAPL", new BigDecimal(triggerPrice),
+        triggerCondition);
+  }
+
+  @Test
+  void triggerBook_FiresOnlyReachedTriggersInTriggerPriceOrder() {
+    TriggerBook triggerBook = new TriggerBook("AAPL");
+    Order above110 = gtt(OrderType.BUY, "111", "110", TriggerCondition.AT_OR_ABOVE);
+    Order above105 = gtt(OrderType.BUY, "106", "105", TriggerCondition.AT_OR_ABOVE);
+    Order above120 = gtt(OrderType.BUY, "121", "120", TriggerCondition.AT_OR_ABOVE);
+    Order below90 = gtt(OrderType.SELL, "89", "90", TriggerCondition.AT_OR_BELOW);
+    triggerBook.add(above110);
+    triggerBook.add(above105);
+    triggerBook.add(above120);
+    triggerBook.add(below90);
+
+    Assertions.assertEquals(0, triggerBook.onPrice(new BigDecimal("100")));
+    Assertions.assertEquals(2, triggerBook.onPrice(new BigDecimal("110.00")));
+
+    Assertions.assertSame(above105, triggerBook.pollTriggered());
+    Assertions.assertSame(above110, triggerBook.pollTriggered());
+    Assertions.assertNull(triggerBook.pollTriggered());
+    Assertions.assertEquals(2, triggerBook.getPendingCount());
+    Assertions.assertEquals(1, triggerBook.onPrice(new BigDecimal("85")));
+    Assertions.assertSame(below90, triggerBook.pollTriggered());
+  }
+
+  @Test
+  void addOrder_TradeReachingTrigger_ReleasesOrderIntoMatching() {
+    Order stopBuy = gtt(OrderType.BUY, "106", "105", TriggerCondition.AT_OR_ABOVE);
+    tradingSystem.addOrder(stopBuy);
+    Order restingSell = new Order(1, OrderType.SELL, new BigDecimal("106"), 5, "AAPL");
+    tradingSystem.addOrder(restingSell);
+    Assertions.assertEquals(OrderStatus.TRIGGER_PENDING, stopBuy.getOrderStatus());
+
+    // A trade at 100 leaves the trigger dormant
+    tradingSystem.addOrder(new Order(2, OrderType.SELL, new BigDecimal("100"), 1, "AAPL"));
+    tradingSystem.addOrder(new Order(3, OrderType.BUY, new BigDecimal("100"), 1, "AAPL"));
+    Assertions.assertEquals(OrderStatus.TRIGGER_PENDING, stopBuy.getOrderStatus());
+
+    // A trade at 105 fires it and the released buy trades against the resting sell at 106
+    tradingSystem.addOrder(new Order(4, OrderType.SELL, new BigDecimal("105"), 1, "AAPL"));
+    tradingSystem.addOrder(new Order(5, OrderType.BUY, new BigDecimal("105"), 1, "AAPL"));
+
+    Assertions.assertEquals(OrderStatus.EXECUTED, stopBuy.getOrderStatus());
+    Assertions.assertEquals(4, restingSell.getQuantity());
+    Assertions.assertEquals(0,
+        tradingSystem.getTriggerOrderService().getTriggerBook("AAPL").getPendingCount());
+  }
+
+  @Test
+  void cancelOrder_DormantTrigger_IsCancelled() {
+    Order stopSell = gtt(OrderType.SELL, "94", "95", TriggerCondition.AT_OR_BELOW);
+    tradingSystem.addOrder(stopSell);
+
+    tradingSystem.cancelOrder(stopSell.getOrderId());
+
+    Assertions.assertEquals(OrderStatus.CANCELLED, stopSell.getOrderStatus());
+    Assertions.assertEquals(0,
+        tradingSystem.getTriggerOrderService().getTriggerBook("AAPL").getPendingCount());
+  }
+}